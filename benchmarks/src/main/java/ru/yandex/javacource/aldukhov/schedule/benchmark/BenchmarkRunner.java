@@ -0,0 +1,22 @@
+package ru.yandex.javacource.aldukhov.schedule.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Запускает бенчмарки с профилировщиком GC, чтобы вместе с задержкой и пропускной способностью
+// печаталась скорость выделения памяти (gc.alloc.rate.norm — байт на операцию).
+// Аргументы командной строки те же, что у JMH, например: java -jar target/benchmarks.jar TaskManager -p boardSize=1000
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,68 @@
+package ru.yandex.javacource.aldukhov.schedule.benchmark;
+
+import ru.yandex.javacource.aldukhov.schedule.manager.CompactingTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+import ru.yandex.javacource.aldukhov.schedule.task.TextPool;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Куча InMemoryTaskManager с обычным и компактным (CompactingTaskManager) текстом задач на наборе
+// с повторами: названия из небольшого числа шаблонов, описания — из нескольких сотен типовых.
+// Строки каждой задачи создаются заново, как при разборе JSON или CSV. Каждый режим — в своей JVM.
+//
+//     java -Xmx2g -cp target/benchmarks.jar \
+//         ru.yandex.javacource.aldukhov.schedule.benchmark.CompactFootprintTest compact 1000000
+//
+// Аргументы: plain или compact, число задач (1000000).
+public class CompactFootprintTest {
+    private static final int BATCH = 10_000;
+    private static final String[] NAMES = {"Купить продукты", "Позвонить клиенту", "Подготовить отчёт",
+            "Code review", "Обновить зависимости", "Провести встречу", "Исправить ошибку", "Написать тесты"};
+    private static final int DESCRIPTIONS = 300;
+
+    public static void main(String[] args) {
+        final boolean compact = args.length == 0 || args[0].equals("compact");
+        final int count = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+
+        TaskManager manager = new InMemoryTaskManager();
+        if (compact) {
+            manager = new CompactingTaskManager(manager);
+        }
+        final long before = usedAfterGc();
+        final long started = System.nanoTime();
+        Random random = new Random(1);
+        List<Task> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < count; i++) {
+            final int template = random.nextInt(DESCRIPTIONS);
+            batch.add(new Task(new String(NAMES[template % NAMES.length]),
+                    "Типовое описание №" + template + ": уточнить сроки, согласовать с командой и отметить результат"));
+            if (batch.size() == BATCH || i == count - 1) {
+                manager.addAll(batch);
+                batch.clear();
+            }
+        }
+        final double seconds = (System.nanoTime() - started) / 1e9;
+        final long heap = usedAfterGc() - before;
+        System.out.printf("%s, %d задач: загрузка %.1f с, куча %.1f МБ (%.0f байт на задачу), записей пула: %d%n",
+                compact ? "compact" : "plain", count, seconds, heap / 1e6, (double) heap / count, TextPool.size());
+
+        // чтение всех названий: цена распаковки UTF-8 при каждом getName
+        final long readStarted = System.nanoTime();
+        long length = 0;
+        for (Task task : manager.tasksView()) {
+            length += task.getName().length() + task.getDescription().length();
+        }
+        System.out.printf("чтение текста всех задач: %d мс (%d символов)%n",
+                (System.nanoTime() - readStarted) / 1_000_000, length);
+    }
+
+    private static long usedAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
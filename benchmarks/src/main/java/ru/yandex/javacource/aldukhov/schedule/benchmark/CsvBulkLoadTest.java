@@ -0,0 +1,64 @@
+package ru.yandex.javacource.aldukhov.schedule.benchmark;
+
+import ru.yandex.javacource.aldukhov.schedule.csv.ImportReport;
+import ru.yandex.javacource.aldukhov.schedule.csv.TaskCsvExporter;
+import ru.yandex.javacource.aldukhov.schedule.csv.TaskCsvImporter;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Замер массового импорта и выгрузки CSV: генерирует файл из заданного числа строк (каждая десятая — эпик,
+// половина — подзадачи, описания с запятыми и переводами строк в кавычках), загружает его в InMemoryTaskManager
+// через TaskCsvImporter и выгружает обратно через TaskCsvExporter. Печатает строки в секунду для обоих направлений.
+//
+//     java -cp target/benchmarks.jar ru.yandex.javacource.aldukhov.schedule.benchmark.CsvBulkLoadTest 1000000 5
+//
+// Аргументы: число строк (1000000), число повторов (5); первый повтор — прогрев.
+public class CsvBulkLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        final int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        final int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        Path input = Files.createTempFile("tasks", ".csv");
+        Path output = Files.createTempFile("export", ".csv");
+        try {
+            generate(input, rows);
+            System.out.printf("Файл %s: %d строк, %.1f МБ%n", input, rows, Files.size(input) / 1e6);
+            for (int run = 0; run < runs; run++) {
+                TaskManager manager = new InMemoryTaskManager();
+                ImportReport report = new TaskCsvImporter(manager).importFile(input);
+                final long started = System.nanoTime();
+                final long exported = TaskCsvExporter.export(manager, output);
+                final long elapsed = System.nanoTime() - started;
+                System.out.printf("%s импорт: %s%n", run == 0 ? "прогрев" : "замер  ", report);
+                System.out.printf("%s выгрузка: %d строк за %.1f мс, %.0f строк/с%n", run == 0 ? "прогрев" : "замер  ",
+                        exported, elapsed / 1e6, exported * 1e9 / elapsed);
+            }
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    private static void generate(Path file, int rows) throws Exception {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("id,type,name,status,description,epic\n");
+            int epic = 0;
+            for (int i = 0; i < rows; i++) {
+                if (i % 10 == 0) {
+                    epic = i;
+                    writer.write(i + ",EPIC,Эпик " + i + ",NEW,Описание эпика " + i + ",\n");
+                } else if (i % 2 == 0) {
+                    writer.write(i + ",SUBTASK,Подзадача " + i + ",DONE,\"Шаг " + i + ", проверить\nи закрыть\","
+                            + epic + "\n");
+                } else {
+                    writer.write(i + ",TASK,Задача " + i + ",IN_PROGRESS,Описание задачи " + i + ",\n");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.yandex.javacource.aldukhov.schedule.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.util.concurrent.TimeUnit;
+
+// Каскадное удаление эпика с fanOut подзадачами из доски размера boardSize.
+// Эпик пересоздаётся перед каждым вызовом, поэтому в замер попадает только удаление.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeleteEpicBenchmark {
+    @Param({"1000", "100000"})
+    int boardSize;
+
+    @Param({"10", "1000"})
+    int fanOut;
+
+    TaskManager manager;
+    int epicId;
+
+    @Setup(Level.Trial)
+    public void fillBoard() {
+        manager = new InMemoryTaskManager();
+        for (int i = 0; i < boardSize; i++) {
+            manager.addNewTask(new Task("Задача " + i, "описание задачи " + i));
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void addEpic() {
+        Epic epic = new Epic("Эпик", "описание эпика");
+        epicId = manager.addNewEpic(epic);
+        for (int s = 0; s < fanOut; s++) {
+            manager.addNewSubtask(new Subtask("Подзадача " + s, "описание подзадачи " + s, epicId));
+        }
+        manager.epicById(epicId);
+    }
+
+    @Benchmark
+    public void delEpicById() {
+        manager.delEpicById(epicId);
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.javacource.aldukhov.schedule.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.javacource.aldukhov.schedule.manager.Durability;
+import ru.yandex.javacource.aldukhov.schedule.manager.FileBackedTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Задержка updateTask у FileBackedTaskManager в разных режимах записи журнала.
+// Обновляются hotSet задач по кругу, поэтому в WRITE_BEHIND повторные обновления объединяются в пакете
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DurabilityBenchmark {
+    @Param({"SYNC", "GROUP_COMMIT", "WRITE_BEHIND"})
+    Durability durability;
+
+    @Param({"1000"})
+    int hotSet;
+
+    Path directory;
+    FileBackedTaskManager manager;
+    Task[] tasks;
+    int cursor;
+
+    @Setup(Level.Iteration)
+    public void open() throws IOException {
+        directory = Files.createTempDirectory("kanban-durability");
+        manager = new FileBackedTaskManager(directory, durability, FileBackedTaskManager.DEFAULT_GROUP_COMMIT_MILLIS,
+                FileBackedTaskManager.DEFAULT_COMPACT_EVERY);
+        tasks = new Task[hotSet];
+        for (int i = 0; i < hotSet; i++) {
+            tasks[i] = new Task("Задача " + i, "описание задачи " + i);
+            manager.addNewTask(tasks[i]);
+        }
+        manager.flush();
+        cursor = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void close() throws IOException {
+        manager.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void updateTask() {
+        cursor = cursor + 1 == tasks.length ? 0 : cursor + 1;
+        final Task task = tasks[cursor];
+        task.setStatus(task.getStatus() == Status.DONE ? Status.IN_PROGRESS : Status.DONE);
+        manager.updateTask(task);
+    }
+}
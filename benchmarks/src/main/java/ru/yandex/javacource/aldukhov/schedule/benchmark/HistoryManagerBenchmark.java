@@ -0,0 +1,89 @@
+package ru.yandex.javacource.aldukhov.schedule.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.javacource.aldukhov.schedule.manager.HistoryManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryHistoryManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.MappedHistoryManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Добавление в историю уже просмотренной задачи (перенос в конец) и чтение истории размера historySize.
+// kind: memory — InMemoryHistoryManager, mapped — MappedHistoryManager с кольцом на 2^20 записей во временном файле
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HistoryManagerBenchmark {
+    @Param({"10", "10000", "1000000"})
+    int historySize;
+
+    @Param({"memory", "mapped"})
+    String kind;
+
+    Path file;
+
+    HistoryManager history;
+    Task[] viewed;
+    int cursor;
+
+    @Setup(Level.Trial)
+    public void fillHistory() {
+        if (kind.equals("mapped")) {
+            try {
+                file = Files.createTempFile("history", ".ring");
+                Files.delete(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            history = new MappedHistoryManager(file, 1 << 20);
+        } else {
+            history = new InMemoryHistoryManager();
+        }
+        viewed = new Task[historySize];
+        for (int i = 0; i < historySize; i++) {
+            Task task = new Task("Задача " + i, "описание задачи " + i);
+            task.setId(i + 1);
+            viewed[i] = task;
+            history.add(task);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void closeHistory() throws IOException {
+        if (history instanceof MappedHistoryManager mapped) {
+            mapped.close();
+            Files.delete(file);
+        }
+    }
+
+    @Benchmark
+    public void add() {
+        history.add(viewed[cursor]);
+        cursor = cursor + 1 == viewed.length ? 0 : cursor + 1;
+    }
+
+    @Benchmark
+    public List<Task> getHistory() {
+        return history.getHistory();
+    }
+}
@@ -0,0 +1,184 @@
+package ru.yandex.javacource.aldukhov.schedule.benchmark;
+
+import ru.yandex.javacource.aldukhov.schedule.http.HttpTaskServer;
+import ru.yandex.javacource.aldukhov.schedule.manager.ConcurrentTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Нагрузочный тест HttpTaskServer: локальный сервер и заданное число постоянных keep-alive соединений,
+// каждое в своём виртуальном потоке шлёт запросы один за другим. 90% запросов — GET /tasks/{id},
+// 10% — страница GET /tasks?afterId=&limit=20. Печатает пропускную способность и перцентили задержки.
+//
+//     java -cp target/benchmarks.jar ru.yandex.javacource.aldukhov.schedule.benchmark.HttpLoadTest 20000 30
+//
+// Аргументы: число соединений (10000), длительность замера в секундах (30), прогрев в секундах (5).
+// Для десятков тысяч соединений нужен лимит открытых файлов выше их удвоенного числа (ulimit -n).
+public class HttpLoadTest {
+    private static final int BOARD_SIZE = 10_000;
+    // логарифмическая гистограмма: 16 делений на каждую степень двойки микросекунд
+    private static final int SUB_BUCKETS = 16;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private volatile boolean measuring;
+    private volatile boolean running = true;
+
+    public static void main(String[] args) throws Exception {
+        HttpTaskServer.useHighConcurrencyDefaults();
+        final int connections = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        final int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        final int warmupSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        new HttpLoadTest().run(connections, seconds, warmupSeconds);
+    }
+
+    private void run(int connections, int seconds, int warmupSeconds) throws Exception {
+        TaskManager manager = new ConcurrentTaskManager();
+        List<Task> tasks = new ArrayList<>(BOARD_SIZE);
+        for (int i = 0; i < BOARD_SIZE; i++) {
+            tasks.add(new Task("Задача " + i, "Описание задачи " + i));
+        }
+        manager.addAll(tasks);
+        final int firstId = tasks.getFirst().getId();
+
+        HttpTaskServer server = new HttpTaskServer(manager, 0);
+        server.start();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connections; i++) {
+                clients.submit(() -> connection(server.getPort(), firstId));
+            }
+            Thread.sleep(warmupSeconds * 1000L);
+            measuring = true;
+            final long start = System.nanoTime();
+            Thread.sleep(seconds * 1000L);
+            measuring = false;
+            final double elapsed = (System.nanoTime() - start) / 1e9;
+            running = false;
+            report(connections, elapsed);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private void connection(int port, int firstId) {
+        try (Socket socket = new Socket("localhost", port)) {
+            socket.setTcpNoDelay(true);
+            OutputStream out = socket.getOutputStream();
+            InputStream in = new BufferedInputStream(socket.getInputStream(), 8192);
+            while (running) {
+                final ThreadLocalRandom random = ThreadLocalRandom.current();
+                final int id = firstId + random.nextInt(BOARD_SIZE);
+                final String path = random.nextInt(10) == 0 ? "/tasks?afterId=" + id + "&limit=20" : "/tasks/" + id;
+                final byte[] request = ("GET " + path + " HTTP/1.1\r\nHost: localhost\r\n\r\n")
+                        .getBytes(StandardCharsets.US_ASCII);
+                final long started = System.nanoTime();
+                out.write(request);
+                out.flush();
+                final int status = readResponse(in);
+                final long micros = (System.nanoTime() - started) / 1000;
+                if (!measuring) {
+                    continue;
+                }
+                if (status != 200) {
+                    errors.incrementAndGet();
+                }
+                requests.incrementAndGet();
+                histogram.incrementAndGet(bucket(micros));
+            }
+        } catch (IOException e) {
+            if (running) {
+                errors.incrementAndGet();
+            }
+        }
+    }
+
+    // читает статус, заголовки и тело по Content-Length или по частям (chunked); возвращает код ответа
+    private static int readResponse(InputStream in) throws IOException {
+        final String statusLine = readLine(in);
+        final int status = Integer.parseInt(statusLine.substring(9, 12));
+        int length = 0;
+        boolean chunked = false;
+        String header;
+        while (!(header = readLine(in)).isEmpty()) {
+            if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                length = Integer.parseInt(header.substring(15).trim());
+            } else if (header.regionMatches(true, 0, "Transfer-Encoding:", 0, 18)) {
+                chunked = header.substring(18).trim().equalsIgnoreCase("chunked");
+            }
+        }
+        if (!chunked) {
+            in.skipNBytes(length);
+            return status;
+        }
+        int chunk;
+        while ((chunk = Integer.parseInt(readLine(in).trim(), 16)) > 0) {
+            in.skipNBytes(chunk + 2);
+        }
+        readLine(in);
+        return status;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder(64);
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c == -1) {
+                throw new IOException("Соединение закрыто сервером");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+
+    private static int bucket(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        final int sub = (int) (micros >>> (exponent - 4)) & (SUB_BUCKETS - 1);
+        return Math.min(BUCKETS - 1, (exponent - 3) * SUB_BUCKETS + sub);
+    }
+
+    // нижняя граница значений, попадающих в деление
+    private static long bucketValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        final int exponent = bucket / SUB_BUCKETS + 3;
+        final int sub = bucket % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + sub) << (exponent - 4);
+    }
+
+    private void report(int connections, double elapsed) {
+        final long total = requests.get();
+        System.out.printf("соединений: %d, запросов: %d, ошибок: %d, %.0f запросов/с%n",
+                connections, total, errors.get(), total / elapsed);
+        final double[] percentiles = {50, 90, 99, 99.9, 100};
+        int next = 0;
+        long seen = 0;
+        for (int b = 0; b < BUCKETS && next < percentiles.length; b++) {
+            seen += histogram.get(b);
+            while (next < percentiles.length && seen > 0 && seen >= Math.ceil(total * percentiles[next] / 100)) {
+                System.out.printf("p%-5s %8.2f мс%n", percentiles[next], bucketValue(b) / 1000.0);
+                next++;
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ru.yandex.javacource.aldukhov.schedule.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.InstrumentedTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.util.concurrent.TimeUnit;
+
+// Цена InstrumentedTaskManager на горячем пути: taskById и addNewTask с замерами и без
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InstrumentationBenchmark {
+    @Param({"1000", "100000"})
+    int boardSize;
+
+    @Param({"false", "true"})
+    boolean instrumented;
+
+    TaskManager manager;
+    int[] taskIds;
+    int cursor;
+
+    @Setup(Level.Iteration)
+    public void fillBoard() {
+        TaskManager plain = new InMemoryTaskManager();
+        manager = instrumented ? new InstrumentedTaskManager(plain) : plain;
+        taskIds = new int[boardSize];
+        for (int i = 0; i < boardSize; i++) {
+            taskIds[i] = manager.addNewTask(new Task("Задача " + i, "описание задачи " + i));
+        }
+        cursor = 0;
+    }
+
+    @Benchmark
+    public Task taskById() {
+        cursor = cursor + 1 == taskIds.length ? 0 : cursor + 1;
+        return manager.taskById(taskIds[cursor]);
+    }
+
+    @Benchmark
+    public int addNewTask() {
+        return manager.addNewTask(new Task("Новая задача", "описание новой задачи"));
+    }
+}
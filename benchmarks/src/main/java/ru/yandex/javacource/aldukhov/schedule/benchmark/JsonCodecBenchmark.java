@@ -0,0 +1,104 @@
+package ru.yandex.javacource.aldukhov.schedule.benchmark;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.yandex.javacource.aldukhov.schedule.json.TaskJsonReader;
+import ru.yandex.javacource.aldukhov.schedule.json.TaskJsonWriter;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Запись и чтение списка из size задач: потоковый TaskJsonWriter/TaskJsonReader против Gson
+// (обычный способ в проекте до кодека — отражение, toJson/fromJson всего списка).
+// Запись идёт в OutputStream.nullOutputStream(), чтение — из заранее записанного массива байт.
+// Сравнивать стоит время и gc.alloc.rate.norm из GC-профилировщика BenchmarkRunner.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonCodecBenchmark {
+    private static final Type TASK_LIST = new TypeToken<List<Task>>() { }.getType();
+
+    @Param({"1000", "100000"})
+    int size;
+
+    final Gson gson = new Gson();
+    List<Task> tasks;
+    byte[] json;
+
+    @Setup(Level.Trial)
+    public void fillTasks() throws IOException {
+        tasks = new ArrayList<>(size);
+        final Status[] statuses = Status.values();
+        for (int i = 0; i < size; i++) {
+            Task task = new Task("Задача " + i, "описание задачи " + i + " с \"кавычками\"");
+            task.setId(i + 1);
+            task.setStatus(statuses[i % statuses.length]);
+            tasks.add(task);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TaskJsonWriter writer = new TaskJsonWriter(out)) {
+            writer.writeAll(tasks);
+        }
+        json = out.toByteArray();
+    }
+
+    @Benchmark
+    public void encodeCodec() throws IOException {
+        try (TaskJsonWriter writer = new TaskJsonWriter(OutputStream.nullOutputStream())) {
+            writer.writeAll(tasks);
+        }
+    }
+
+    @Benchmark
+    public void encodeGson() throws IOException {
+        try (Writer writer = new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8)) {
+            gson.toJson(tasks, TASK_LIST, writer);
+        }
+    }
+
+    @Benchmark
+    public void decodeCodec(Blackhole blackhole) throws IOException {
+        try (TaskJsonReader reader = new TaskJsonReader(new ByteArrayInputStream(json))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                blackhole.consume(reader.readTask());
+            }
+            reader.endArray();
+        }
+    }
+
+    @Benchmark
+    public List<Task> decodeGson() throws IOException {
+        try (InputStreamReader reader = new InputStreamReader(new ByteArrayInputStream(json), StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, TASK_LIST);
+        }
+    }
+}
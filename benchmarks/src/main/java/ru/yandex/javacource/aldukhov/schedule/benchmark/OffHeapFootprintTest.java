@@ -0,0 +1,119 @@
+package ru.yandex.javacource.aldukhov.schedule.benchmark;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.OffHeapTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Сравнение занимаемой кучи и пауз GC у InMemoryTaskManager и OffHeapTaskManager. Каждый менеджер
+// замеряется в своей JVM: загрузка заданного числа задач пакетами addAll, затем обновления случайных задач.
+// Печатает кучу после полной сборки, прямую память, время полной сборки с живыми задачами,
+// число, сумму и максимум пауз GC на каждом этапе.
+//
+//     java -Xmx4g -XX:MaxDirectMemorySize=4g -cp target/benchmarks.jar \
+//         ru.yandex.javacource.aldukhov.schedule.benchmark.OffHeapFootprintTest offheap 10000000
+//
+// Аргументы: heap или offheap, число задач (10000000), число обновлений (1000000).
+public class OffHeapFootprintTest {
+    private static final int BATCH = 10_000;
+
+    private long pauses;
+    private long pauseMillis;
+    private long maxPauseMillis;
+
+    public static void main(String[] args) throws Exception {
+        final boolean offHeap = args.length == 0 || args[0].equals("offheap");
+        final int count = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+        final int updates = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        new OffHeapFootprintTest().run(offHeap, count, updates);
+    }
+
+    private void run(boolean offHeap, int count, int updates) {
+        listenToPauses();
+        TaskManager manager = offHeap ? new OffHeapTaskManager() : new InMemoryTaskManager();
+        System.out.printf("%s, %d задач%n", manager.getClass().getSimpleName(), count);
+
+        long started = System.nanoTime();
+        List<Task> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < count; i++) {
+            batch.add(new Task("Задача " + i, "Описание задачи " + i + " для замера памяти"));
+            if (batch.size() == BATCH || i == count - 1) {
+                manager.addAll(batch);
+                batch.clear();
+            }
+        }
+        report("загрузка", started);
+
+        started = System.nanoTime();
+        final long fullGc = fullGc();
+        final long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        System.out.printf("куча после полной сборки: %.1f МБ (%.0f байт на задачу), полная сборка: %d мс%n",
+                heap / 1e6, (double) heap / count, fullGc);
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                System.out.printf("прямая память: %.1f МБ%n", pool.getMemoryUsed() / 1e6);
+            }
+        }
+        resetPauses();
+
+        started = System.nanoTime();
+        final int firstId = manager.getTasksPage(0, 1).getFirst().getId();
+        for (int i = 0; i < updates; i++) {
+            final int id = firstId + ThreadLocalRandom.current().nextInt(count);
+            Task task = new Task("Изменённая задача " + i, "Новое описание " + i);
+            task.setId(id);
+            manager.updateTask(task);
+        }
+        report("обновления", started);
+    }
+
+    private long fullGc() {
+        final long started = System.nanoTime();
+        System.gc();
+        return (System.nanoTime() - started) / 1_000_000;
+    }
+
+    private void report(String phase, long started) {
+        System.out.printf("%s: %.1f с, пауз GC: %d, сумма %d мс, максимум %d мс%n", phase,
+                (System.nanoTime() - started) / 1e9, pauses, pauseMillis, maxPauseMillis);
+        resetPauses();
+    }
+
+    private synchronized void resetPauses() {
+        pauses = 0;
+        pauseMillis = 0;
+        maxPauseMillis = 0;
+    }
+
+    private void listenToPauses() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                    return;
+                }
+                GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                // у конкурентных сборщиков (циклы G1 Concurrent, ZGC) длительность — не пауза
+                if (info.getGcCause().equals("No GC") || info.getGcName().contains("Cycles")) {
+                    return;
+                }
+                synchronized (this) {
+                    final long duration = info.getGcInfo().getDuration();
+                    pauses++;
+                    pauseMillis += duration;
+                    maxPauseMillis = Math.max(maxPauseMillis, duration);
+                }
+            }, null, null);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.javacource.aldukhov.schedule.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.javacource.aldukhov.schedule.manager.ShardedTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Пропускная способность ShardedTaskManager при общей доске и нескольких потоках (-t переопределяет @Threads):
+// операции с одним id блокируют свой шард, выборка по статусу расходится по всем шардам параллельно
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class ShardedTaskManagerBenchmark {
+    @Param({"1", "4", "16"})
+    int shards;
+
+    @Param({"100000"})
+    int boardSize;
+
+    ShardedTaskManager manager;
+    int[] taskIds;
+
+    @Setup(Level.Trial)
+    public void fillBoard() {
+        manager = new ShardedTaskManager(shards);
+        taskIds = new int[boardSize];
+        for (int i = 0; i < boardSize; i++) {
+            Task task = new Task("Задача " + i, "описание задачи " + i);
+            if (i % 10 == 0) {
+                task.setStatus(Status.DONE);
+            }
+            taskIds[i] = manager.addNewTask(task);
+        }
+    }
+
+    @Benchmark
+    public Task taskById() {
+        return manager.taskById(taskIds[ThreadLocalRandom.current().nextInt(taskIds.length)]);
+    }
+
+    @Benchmark
+    public Task updateTask() {
+        final Task task = new Task("Задача", "новое описание");
+        task.setId(taskIds[ThreadLocalRandom.current().nextInt(taskIds.length)]);
+        manager.updateTask(task);
+        return task;
+    }
+
+    @Benchmark
+    public List<Task> tasksByStatus() {
+        return manager.getTasksByStatus(Status.DONE);
+    }
+}
@@ -0,0 +1,83 @@
+package ru.yandex.javacource.aldukhov.schedule.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.SubtaskLayout;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+
+import java.util.concurrent.TimeUnit;
+
+// Обход, пересчёт статуса и удаление эпика при раскладках SubtaskLayout.
+// Подзадачи добавляются вперемешку по всем эпикам, чтобы в общей таблице они лежали вразброс.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SubtaskLayoutBenchmark {
+    private static final int EPICS = 100;
+
+    @Param({"100", "1000"})
+    int subtasksPerEpic;
+
+    @Param({"BY_ID", "BY_EPIC"})
+    SubtaskLayout layout;
+
+    InMemoryTaskManager manager;
+    Epic[] epics;
+    int cursor;
+
+    @Setup(Level.Iteration)
+    public void fillBoard() {
+        manager = new InMemoryTaskManager(layout);
+        epics = new Epic[EPICS];
+        for (int e = 0; e < EPICS; e++) {
+            epics[e] = manager.epicById(manager.addNewEpic(new Epic("Эпик " + e, "описание эпика " + e)));
+        }
+        for (int i = 0; i < subtasksPerEpic; i++) {
+            for (int e = 0; e < EPICS; e++) {
+                manager.addNewSubtask(new Subtask("Подзадача " + i, "описание подзадачи " + i, epics[e].getId()));
+            }
+        }
+        cursor = 0;
+    }
+
+    @Benchmark
+    public void getTaskOfEpic(Blackhole blackhole) {
+        cursor = cursor + 1 == EPICS ? 0 : cursor + 1;
+        blackhole.consume(manager.getTaskOfEpic(epics[cursor]));
+    }
+
+    @Benchmark
+    public void updateEpicStatus() {
+        cursor = cursor + 1 == EPICS ? 0 : cursor + 1;
+        manager.updateEpicStatus(epics[cursor]);
+    }
+
+    // удаляет эпик и тут же создаёт заново с тем же числом подзадач, чтобы доска не пустела
+    @Benchmark
+    public int delEpicById() {
+        cursor = cursor + 1 == EPICS ? 0 : cursor + 1;
+        manager.delEpicById(epics[cursor].getId());
+        final int epicId = manager.addNewEpic(new Epic("Эпик", "описание эпика"));
+        for (int i = 0; i < subtasksPerEpic; i++) {
+            manager.addNewSubtask(new Subtask("Подзадача " + i, "описание подзадачи " + i, epicId));
+        }
+        epics[cursor] = manager.epicById(epicId);
+        return epicId;
+    }
+}
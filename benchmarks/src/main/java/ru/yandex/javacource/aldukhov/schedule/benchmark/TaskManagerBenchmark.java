@@ -0,0 +1,112 @@
+package ru.yandex.javacource.aldukhov.schedule.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Горячие пути TaskManager на доске из boardSize задач и boardSize подзадач,
+// разложенных по эпикам по fanOut подзадач в каждом.
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TaskManagerBenchmark {
+    private static final Status[] STATUSES = Status.values();
+
+    @Param({"1000", "100000"})
+    int boardSize;
+
+    @Param({"10", "1000"})
+    int fanOut;
+
+    TaskManager manager;
+    int[] taskIds;
+    Epic[] epics;
+    Subtask[] subtasks;
+    int cursor;
+
+    @Setup(Level.Iteration)
+    public void fillBoard() {
+        manager = new InMemoryTaskManager();
+        taskIds = new int[boardSize];
+        for (int i = 0; i < boardSize; i++) {
+            taskIds[i] = manager.addNewTask(new Task("Задача " + i, "описание задачи " + i));
+        }
+        final int epicCount = Math.max(1, boardSize / fanOut);
+        epics = new Epic[epicCount];
+        subtasks = new Subtask[epicCount * fanOut];
+        for (int e = 0; e < epicCount; e++) {
+            Epic epic = new Epic("Эпик " + e, "описание эпика " + e);
+            manager.addNewEpic(epic);
+            epics[e] = epic;
+            for (int s = 0; s < fanOut; s++) {
+                Subtask subtask = new Subtask("Подзадача " + s, "описание подзадачи " + s, epic.getId());
+                manager.addNewSubtask(subtask);
+                subtasks[e * fanOut + s] = subtask;
+            }
+        }
+        cursor = 0;
+    }
+
+    @Benchmark
+    public Integer addNewSubtask() {
+        Epic epic = epics[next(epics.length)];
+        return manager.addNewSubtask(new Subtask("Новая подзадача", "описание новой подзадачи", epic.getId()));
+    }
+
+    @Benchmark
+    public Status updateSubtask() {
+        final int i = next(subtasks.length);
+        Subtask subtask = subtasks[i];
+        subtask.setStatus(STATUSES[i % STATUSES.length]);
+        manager.updateSubtask(subtask);
+        return manager.epicById(subtask.getEpicId()).getStatus();
+    }
+
+    @Benchmark
+    public Task taskById() {
+        return manager.taskById(taskIds[next(taskIds.length)]);
+    }
+
+    @Benchmark
+    public List<Task> getTasks() {
+        return manager.getTasks();
+    }
+
+    // страница из 50 задач по курсору: сравнивается с getTasks по времени и по gc.alloc.rate
+    @Benchmark
+    public List<Task> getTasksPage() {
+        return manager.getTasksPage(taskIds[next(taskIds.length)], 50);
+    }
+
+    @Benchmark
+    public List<Subtask> getTaskOfEpic() {
+        return manager.getTaskOfEpic(epics[next(epics.length)]);
+    }
+
+    private int next(int bound) {
+        final int i = cursor;
+        cursor = i + 1 == bound ? 0 : i + 1;
+        return i % bound;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.yandex.javacource.aldukhov.schedule.csv;
+
+// Формат выгрузки: строка заголовка и по строке на задачу, поля через запятую по RFC 4180.
+// Поле с запятой, кавычкой или переводом строки берётся в кавычки, кавычка внутри удваивается.
+// epic заполняется только у подзадач и ссылается на id эпика из того же файла
+final class CsvFormat {
+    static final String HEADER = "id,type,name,status,description,epic";
+    static final int FIELDS = 6;
+
+    static final String TASK = "TASK";
+    static final String EPIC = "EPIC";
+    static final String SUBTASK = "SUBTASK";
+
+    private CsvFormat() {
+    }
+}
@@ -0,0 +1,15 @@
+package ru.yandex.javacource.aldukhov.schedule.csv;
+
+// Итог импорта: сколько строк и каких записей добавлено и за какое время
+public record ImportReport(long rows, int tasks, int epics, int subtasks, long elapsedNanos) {
+
+    public double rowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d строк (задач: %d, эпиков: %d, подзадач: %d) за %.1f мс, %.0f строк/с",
+                rows, tasks, epics, subtasks, elapsedNanos / 1e6, rowsPerSecond());
+    }
+}
@@ -0,0 +1,154 @@
+package ru.yandex.javacource.aldukhov.schedule.csv;
+
+import ru.yandex.javacource.aldukhov.schedule.manager.ManagerSaveException;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskSnapshot;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+
+// Потоковая выгрузка задач в CSV в формате CsvFormat: идёт по представлениям без копирования списков
+// и кодирует строки в UTF-8 прямо в буфер канала. Выгрузка из менеджера видит параллельные изменения
+// как и его представления; согласованный файл даёт выгрузка из снимка. Возвращает число строк без заголовка
+public final class TaskCsvExporter {
+    private static final int BUFFER = 1 << 16;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER);
+    private long rows;
+
+    private TaskCsvExporter(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public static long export(TaskManager manager, Path file) {
+        return export(manager.tasksView(), manager.epicsView(), manager.subtasksView(), file);
+    }
+
+    public static long export(TaskSnapshot snapshot, Path file) {
+        return export(snapshot.tasksView(), snapshot.epicsView(), snapshot.subtasksView(), file);
+    }
+
+    private static long export(Collection<Task> tasks, Collection<Epic> epics, Collection<Subtask> subtasks,
+                               Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            TaskCsvExporter exporter = new TaskCsvExporter(channel);
+            exporter.write(CsvFormat.HEADER);
+            exporter.newLine();
+            for (Task task : tasks) {
+                exporter.row(task, CsvFormat.TASK, null);
+            }
+            for (Epic epic : epics) {
+                exporter.row(epic, CsvFormat.EPIC, null);
+            }
+            for (Subtask subtask : subtasks) {
+                exporter.row(subtask, CsvFormat.SUBTASK, subtask.getEpicId());
+            }
+            exporter.flush();
+            return exporter.rows;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать " + file, e);
+        }
+    }
+
+    private void row(Task task, String type, Integer epicId) throws IOException {
+        write(Integer.toString(task.getId()));
+        put((byte) ',');
+        write(type);
+        put((byte) ',');
+        field(task.getName());
+        put((byte) ',');
+        write(task.getStatus().name());
+        put((byte) ',');
+        field(task.getDescription());
+        put((byte) ',');
+        if (epicId != null) {
+            write(epicId.toString());
+        }
+        newLine();
+        rows++;
+    }
+
+    private void field(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            final char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            write(value);
+            return;
+        }
+        put((byte) '"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"') {
+                put((byte) '"');
+            }
+            i = encode(value, i);
+        }
+        put((byte) '"');
+    }
+
+    private void write(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            i = encode(value, i);
+        }
+    }
+
+    // кодирует символ value[i] в UTF-8 и возвращает индекс последнего прочитанного char (у суррогатной пары — второго)
+    private int encode(String value, int i) throws IOException {
+        final char c = value.charAt(i);
+        if (c < 0x80) {
+            put((byte) c);
+        } else if (c < 0x800) {
+            put((byte) (0xC0 | c >> 6));
+            put((byte) (0x80 | c & 0x3F));
+        } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(i + 1))) {
+            final int code = Character.toCodePoint(c, value.charAt(++i));
+            put((byte) (0xF0 | code >> 18));
+            put((byte) (0x80 | code >> 12 & 0x3F));
+            put((byte) (0x80 | code >> 6 & 0x3F));
+            put((byte) (0x80 | code & 0x3F));
+        } else if (Character.isSurrogate(c)) {
+            // одиночный суррогат не кодируется в UTF-8, как и у String.getBytes пишется '?'
+            put((byte) '?');
+        } else {
+            put((byte) (0xE0 | c >> 12));
+            put((byte) (0x80 | c >> 6 & 0x3F));
+            put((byte) (0x80 | c & 0x3F));
+        }
+        return i;
+    }
+
+    private void newLine() throws IOException {
+        put((byte) '\n');
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put(b);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
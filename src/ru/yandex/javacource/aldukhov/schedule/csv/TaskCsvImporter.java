@@ -0,0 +1,357 @@
+package ru.yandex.javacource.aldukhov.schedule.csv;
+
+import ru.yandex.javacource.aldukhov.schedule.manager.ManagerSaveException;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+
+// Массовая загрузка задач из CSV в формате CsvFormat (его пишет TaskCsvExporter).
+// Файл читается через FileChannel: последовательный проход только ищет границы кусков с учётом кавычек,
+// затем куски читаются и разбираются параллельно в пуле fork-join. Ссылки подзадач на эпики по id из файла
+// проверяются целиком до записи, и ошибка в файле — IllegalArgumentException с номером строки — ничего
+// не добавляет в менеджер. Затем записи добавляются пакетами addAll: сначала эпики, потом задачи и подзадачи
+// с уже выданными id эпиков. Статус эпика из файла не читается: менеджер выводит его из подзадач.
+public final class TaskCsvImporter {
+    public static final int DEFAULT_BATCH_SIZE = 10_000;
+    // кусок меньше MIN_CHUNK не окупает задачу пула, а больше MAX_CHUNK держится в памяти целиком
+    private static final long MIN_CHUNK = 1 << 20;
+    private static final long MAX_CHUNK = 64 << 20;
+    private static final int SCAN_BUFFER = 1 << 16;
+    private static final int MAX_HEADER = 1024;
+
+    private final TaskManager manager;
+    private final int batchSize;
+    private final ForkJoinPool pool;
+
+    public TaskCsvImporter(TaskManager manager) {
+        this(manager, DEFAULT_BATCH_SIZE, ForkJoinPool.commonPool());
+    }
+
+    public TaskCsvImporter(TaskManager manager, int batchSize, ForkJoinPool pool) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Размер пакета должен быть положительным: " + batchSize);
+        }
+        this.manager = manager;
+        this.batchSize = batchSize;
+        this.pool = pool;
+    }
+
+    public ImportReport importFile(Path file) {
+        final long started = System.nanoTime();
+        final List<List<Row>> parsed = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            List<CompletableFuture<List<Row>>> parsing = new ArrayList<>();
+            for (Chunk chunk : split(channel)) {
+                parsing.add(CompletableFuture.supplyAsync(() -> parse(channel, chunk), pool));
+            }
+            for (CompletableFuture<List<Row>> rows : parsing) {
+                parsed.add(join(rows));
+            }
+        } catch (IOException | UncheckedIOException e) {
+            throw new ManagerSaveException("Не удалось прочитать " + file, e);
+        }
+
+        final Map<String, Epic> epics = new HashMap<>();
+        final List<Epic> epicRows = new ArrayList<>();
+        long rows = 0;
+        for (List<Row> chunk : parsed) {
+            for (Row row : chunk) {
+                if (row.task() instanceof Epic epic) {
+                    if (epics.putIfAbsent(row.id(), epic) != null) {
+                        throw new IllegalArgumentException("Повторный id эпика " + row.id() + " в строке " + row.line());
+                    }
+                    epicRows.add(epic);
+                }
+                rows++;
+            }
+        }
+        final List<Task> rest = new ArrayList<>((int) (rows - epicRows.size()));
+        // эпики подзадач из rest в том же порядке: id эпиков известны только после их добавления
+        final List<Epic> owners = new ArrayList<>();
+        for (List<Row> chunk : parsed) {
+            for (Row row : chunk) {
+                if (row.task() instanceof Subtask) {
+                    final Epic owner = epics.get(row.epicId());
+                    if (owner == null) {
+                        throw new IllegalArgumentException("Эпик " + row.epicId() + " подзадачи в строке "
+                                + row.line() + " не найден");
+                    }
+                    owners.add(owner);
+                    rest.add(row.task());
+                } else if (!(row.task() instanceof Epic)) {
+                    rest.add(row.task());
+                }
+            }
+        }
+        parsed.clear();
+
+        commit(epicRows);
+        int next = 0;
+        for (Task item : rest) {
+            if (item instanceof Subtask subtask) {
+                subtask.setEpicId(owners.get(next++).getId());
+            }
+        }
+        commit(rest);
+        return new ImportReport(rows, rest.size() - owners.size(), epicRows.size(), owners.size(),
+                System.nanoTime() - started);
+    }
+
+    private void commit(List<? extends Task> items) {
+        for (int from = 0; from < items.size(); from += batchSize) {
+            final List<? extends Task> batch = items.subList(from, Math.min(items.size(), from + batchSize));
+            if (manager.addAll(batch) == null) {
+                throw new IllegalStateException("Менеджер отклонил пакет из " + batch.size() + " записей");
+            }
+        }
+    }
+
+    // Границы кусков ищутся одним последовательным проходом по байтам: перевод строки внутри кавычек
+    // не разделяет записи, поэтому без учёта кавычек кусок мог бы начаться посреди поля
+    private List<Chunk> split(FileChannel channel) throws IOException {
+        final long size = channel.size();
+        final long target = Math.clamp(size / (pool.getParallelism() * 4L), MIN_CHUNK, MAX_CHUNK);
+        final ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER);
+        final byte[] bytes = buffer.array();
+        final ByteArrayOutputStream header = new ByteArrayOutputStream();
+        List<Chunk> chunks = new ArrayList<>();
+        // начало текущего куска; -1, пока читается заголовок
+        long start = -1;
+        int startLine = 2;
+        int line = 1;
+        int quoteLine = 0;
+        boolean quoted = false;
+        long position = 0;
+        while (position < size) {
+            buffer.clear();
+            final int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                final byte b = bytes[i];
+                if (start < 0) {
+                    if (b == '\n') {
+                        checkHeader(header);
+                        start = position + i + 1;
+                        line = 2;
+                    } else if (header.size() > MAX_HEADER) {
+                        checkHeader(header);
+                    } else {
+                        header.write(b);
+                    }
+                } else if (b == '"') {
+                    quoted = !quoted;
+                    quoteLine = line;
+                } else if (b == '\n') {
+                    line++;
+                    if (!quoted && position + i + 1 - start >= target) {
+                        chunks.add(new Chunk(start, position + i + 1, startLine));
+                        start = position + i + 1;
+                        startLine = line;
+                    }
+                }
+            }
+            position += read;
+        }
+        if (start < 0) {
+            checkHeader(header);
+            return chunks;
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Незакрытая кавычка в строке " + quoteLine);
+        }
+        if (start < size) {
+            chunks.add(new Chunk(start, size, startLine));
+        }
+        return chunks;
+    }
+
+    private static void checkHeader(ByteArrayOutputStream bytes) {
+        String header = bytes.toString(StandardCharsets.UTF_8);
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        if (header.endsWith("\r")) {
+            header = header.substring(0, header.length() - 1);
+        }
+        if (!header.equals(CsvFormat.HEADER)) {
+            throw new IllegalArgumentException("Ожидался заголовок " + CsvFormat.HEADER + " в строке 1");
+        }
+    }
+
+    private static List<Row> parse(FileChannel channel, Chunk chunk) {
+        final byte[] bytes = new byte[(int) (chunk.end() - chunk.start())];
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, chunk.start() + buffer.position()) < 0) {
+                    throw new EOFException("Файл стал короче во время импорта");
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ChunkParser(bytes, chunk.line()).parse();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // кусок файла [start, end), который начинается с записи в строке line
+    private record Chunk(long start, long end, int line) {
+    }
+
+    // разобранная строка: id из файла, задача и для подзадачи — id её эпика из файла
+    private record Row(String id, Task task, String epicId, int line) {
+    }
+
+    private static final class ChunkParser {
+        private final byte[] bytes;
+        private final String[] fields = new String[CsvFormat.FIELDS];
+        private int pos;
+        private int line;
+
+        ChunkParser(byte[] bytes, int line) {
+            this.bytes = bytes;
+            this.line = line;
+        }
+
+        List<Row> parse() {
+            List<Row> rows = new ArrayList<>();
+            while (pos < bytes.length) {
+                // пустые строки пропускаются
+                if (bytes[pos] == '\n' || bytes[pos] == '\r' && pos + 1 < bytes.length && bytes[pos + 1] == '\n') {
+                    pos += bytes[pos] == '\r' ? 2 : 1;
+                    line++;
+                    continue;
+                }
+                final int recordLine = line;
+                readRecord(recordLine);
+                rows.add(toRow(recordLine));
+            }
+            return rows;
+        }
+
+        private void readRecord(int recordLine) {
+            for (int i = 0; i < CsvFormat.FIELDS; i++) {
+                if (i > 0) {
+                    if (pos >= bytes.length || bytes[pos] != ',') {
+                        throw new IllegalArgumentException("Ожидалось " + CsvFormat.FIELDS + " полей в строке "
+                                + recordLine);
+                    }
+                    pos++;
+                }
+                fields[i] = readField(recordLine);
+            }
+            if (pos < bytes.length && bytes[pos] == '\r') {
+                pos++;
+            }
+            if (pos < bytes.length) {
+                if (bytes[pos] != '\n') {
+                    throw new IllegalArgumentException("Лишние поля в строке " + recordLine);
+                }
+                pos++;
+                line++;
+            }
+        }
+
+        private String readField(int recordLine) {
+            if (pos < bytes.length && bytes[pos] == '"') {
+                final int start = ++pos;
+                boolean escaped = false;
+                while (true) {
+                    if (pos >= bytes.length) {
+                        throw new IllegalArgumentException("Незакрытая кавычка в строке " + recordLine);
+                    }
+                    final byte b = bytes[pos];
+                    if (b == '"') {
+                        if (pos + 1 < bytes.length && bytes[pos + 1] == '"') {
+                            escaped = true;
+                            pos += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    if (b == '\n') {
+                        line++;
+                    }
+                    pos++;
+                }
+                final String value = new String(bytes, start, pos - start, StandardCharsets.UTF_8);
+                pos++;
+                return escaped ? value.replace("\"\"", "\"") : value;
+            }
+            final int start = pos;
+            while (pos < bytes.length && bytes[pos] != ',' && bytes[pos] != '\n' && bytes[pos] != '\r') {
+                pos++;
+            }
+            return new String(bytes, start, pos - start, StandardCharsets.UTF_8);
+        }
+
+        private Row toRow(int recordLine) {
+            final String id = fields[0];
+            if (id.isEmpty()) {
+                throw new IllegalArgumentException("Пустой id в строке " + recordLine);
+            }
+            final String name = fields[2];
+            final String description = fields[4];
+            final Status status = status(fields[3], recordLine);
+            return switch (fields[1]) {
+                case CsvFormat.TASK -> {
+                    Task task = new Task(name, description);
+                    task.setStatus(status);
+                    yield new Row(id, task, null, recordLine);
+                }
+                case CsvFormat.EPIC -> new Row(id, new Epic(name, description), null, recordLine);
+                case CsvFormat.SUBTASK -> {
+                    if (fields[5].isEmpty()) {
+                        throw new IllegalArgumentException("У подзадачи в строке " + recordLine + " не указан эпик");
+                    }
+                    Subtask subtask = new Subtask(name, description, 0);
+                    subtask.setStatus(status);
+                    yield new Row(id, subtask, fields[5], recordLine);
+                }
+                default -> throw new IllegalArgumentException("Неизвестный тип " + fields[1] + " в строке "
+                        + recordLine);
+            };
+        }
+
+        private static Status status(String value, int recordLine) {
+            return switch (value) {
+                case "NEW" -> Status.NEW;
+                case "IN_PROGRESS" -> Status.IN_PROGRESS;
+                case "DONE" -> Status.DONE;
+                default -> throw new IllegalArgumentException("Неизвестный статус " + value + " в строке "
+                        + recordLine);
+            };
+        }
+    }
+}
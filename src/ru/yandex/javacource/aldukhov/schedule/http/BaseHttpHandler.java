@@ -0,0 +1,141 @@
+package ru.yandex.javacource.aldukhov.schedule.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import ru.yandex.javacource.aldukhov.schedule.json.TaskJsonReader;
+import ru.yandex.javacource.aldukhov.schedule.json.TaskJsonWriter;
+import ru.yandex.javacource.aldukhov.schedule.manager.ManagerSaveException;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+// Общая часть обработчиков: разбор пути и параметров, ответы и перевод ошибок в коды HTTP.
+// Обмен всегда закрывается, а тело запроса читается целиком, чтобы соединение можно было переиспользовать.
+abstract class BaseHttpHandler implements HttpHandler {
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final int DEFAULT_PAGE_LIMIT = 50;
+
+    protected final TaskManager manager;
+
+    BaseHttpHandler(TaskManager manager) {
+        this.manager = manager;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            try {
+                // путь вида /tasks/5/subtasks разбивается в ["", "tasks", "5", "subtasks"]
+                route(exchange, exchange.getRequestURI().getPath().split("/"));
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+            } catch (ManagerSaveException e) {
+                sendError(exchange, 500, e.getMessage());
+            }
+        }
+    }
+
+    abstract void route(HttpExchange exchange, String[] path) throws IOException;
+
+    // тело запроса разбирается прямо из потока, без промежуточной строки
+    static <T extends Task> T readBody(HttpExchange exchange, BodyReader<T> read) throws IOException {
+        try (TaskJsonReader reader = new TaskJsonReader(exchange.getRequestBody())) {
+            final T task = read.read(reader);
+            reader.endDocument();
+            return task;
+        }
+    }
+
+    static int pathId(String segment) {
+        try {
+            return Integer.parseInt(segment);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный id: " + segment);
+        }
+    }
+
+    static int queryInt(HttpExchange exchange, String name, int defaultValue) {
+        final String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return defaultValue;
+        }
+        for (String parameter : query.split("&")) {
+            final int eq = parameter.indexOf('=');
+            if (eq > 0 && parameter.regionMatches(0, name, 0, eq) && eq == name.length()) {
+                try {
+                    return Integer.parseInt(parameter.substring(eq + 1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Некорректный параметр " + name);
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    // размер страницы из ?limit= (по умолчанию 50): не больше TaskManager.MAX_PAGE_SIZE, иначе 400
+    static int pageLimit(HttpExchange exchange) {
+        final int limit = queryInt(exchange, "limit", DEFAULT_PAGE_LIMIT);
+        if (limit <= 0 || limit > TaskManager.MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit должен быть от 1 до " + TaskManager.MAX_PAGE_SIZE);
+        }
+        return limit;
+    }
+
+    static boolean hasQuery(HttpExchange exchange) {
+        return exchange.getRequestURI().getRawQuery() != null;
+    }
+
+    static void sendJson(HttpExchange exchange, int status, Task task) throws IOException {
+        sendBytes(exchange, status, TaskJsonWriter.toBytes(task));
+    }
+
+    // список пишется потоком по частям (chunked), длина ответа заранее не считается
+    static void sendJson(HttpExchange exchange, int status, Collection<? extends Task> tasks) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, 0);
+        try (TaskJsonWriter writer = new TaskJsonWriter(exchange.getResponseBody())) {
+            writer.writeAll(tasks);
+        }
+    }
+
+    static void sendNoContent(HttpExchange exchange) throws IOException {
+        exchange.sendResponseHeaders(204, -1);
+    }
+
+    static void sendNotFound(HttpExchange exchange, String message) throws IOException {
+        sendError(exchange, 404, message);
+    }
+
+    static void sendMethodNotAllowed(HttpExchange exchange, String allowed) throws IOException {
+        exchange.getResponseHeaders().set("Allow", allowed);
+        sendError(exchange, 405, "Метод " + exchange.getRequestMethod() + " не поддерживается");
+    }
+
+    static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        StringBuilder json = new StringBuilder("{\"error\":\"");
+        for (int i = 0; message != null && i < message.length(); i++) {
+            final char c = message.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\');
+            }
+            json.append(c < 0x20 ? ' ' : c);
+        }
+        sendBytes(exchange, status, json.append("\"}").toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void sendBytes(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    interface BodyReader<T extends Task> {
+        T read(TaskJsonReader reader) throws IOException;
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.javacource.aldukhov.schedule.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import ru.yandex.javacource.aldukhov.schedule.json.TaskJsonReader;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+
+import java.io.IOException;
+import java.util.List;
+
+// /epics — как /tasks; /epics/{id}/subtasks — подзадачи эпика
+class EpicsHandler extends BaseHttpHandler {
+
+    EpicsHandler(TaskManager manager) {
+        super(manager);
+    }
+
+    @Override
+    void route(HttpExchange exchange, String[] path) throws IOException {
+        final String method = exchange.getRequestMethod();
+        if (path.length == 2) {
+            switch (method) {
+                case "GET" -> sendJson(exchange, 200, hasQuery(exchange)
+                        ? manager.getEpicsPage(queryInt(exchange, "afterId", 0), pageLimit(exchange))
+                        : manager.getEpics());
+                case "POST" -> {
+                    Epic epic = readBody(exchange, TaskJsonReader::readEpic);
+                    if (epic.getId() == 0) {
+                        manager.addNewEpic(epic);
+                        sendJson(exchange, 201, epic);
+                    } else if (manager.updateAll(List.of(epic))) {
+                        sendJson(exchange, 200, epic);
+                    } else {
+                        sendNotFound(exchange, "Эпик " + epic.getId() + " не найден");
+                    }
+                }
+                case "DELETE" -> {
+                    manager.clearEpic();
+                    sendNoContent(exchange);
+                }
+                default -> sendMethodNotAllowed(exchange, "GET, POST, DELETE");
+            }
+        } else if (path.length == 3 || path.length == 4 && path[3].equals("subtasks")) {
+            final int id = pathId(path[2]);
+            switch (method) {
+                case "GET" -> {
+                    Epic epic = manager.epicById(id);
+                    if (epic == null) {
+                        sendNotFound(exchange, "Эпик " + id + " не найден");
+                    } else if (path.length == 4) {
+                        sendJson(exchange, 200, manager.getTaskOfEpic(epic));
+                    } else {
+                        sendJson(exchange, 200, epic);
+                    }
+                }
+                case "DELETE" -> {
+                    if (path.length == 4) {
+                        sendMethodNotAllowed(exchange, "GET");
+                        return;
+                    }
+                    manager.delEpicById(id);
+                    sendNoContent(exchange);
+                }
+                default -> sendMethodNotAllowed(exchange, path.length == 4 ? "GET" : "GET, DELETE");
+            }
+        } else {
+            sendNotFound(exchange, "Неизвестный путь");
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ru.yandex.javacource.aldukhov.schedule.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+
+import java.io.IOException;
+
+// /history: GET — просмотренные задачи от старых к новым
+class HistoryHandler extends BaseHttpHandler {
+
+    HistoryHandler(TaskManager manager) {
+        super(manager);
+    }
+
+    @Override
+    void route(HttpExchange exchange, String[] path) throws IOException {
+        if (path.length != 2) {
+            sendNotFound(exchange, "Неизвестный путь");
+        } else if (!exchange.getRequestMethod().equals("GET")) {
+            sendMethodNotAllowed(exchange, "GET");
+        } else {
+            sendJson(exchange, 200, manager.getHistory());
+        }
+    }
+}
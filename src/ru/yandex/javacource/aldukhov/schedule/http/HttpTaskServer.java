@@ -0,0 +1,78 @@
+package ru.yandex.javacource.aldukhov.schedule.http;
+
+import com.sun.net.httpserver.HttpServer;
+import ru.yandex.javacource.aldukhov.schedule.manager.ConcurrentTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.InstrumentedTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// HTTP API менеджера задач на встроенном com.sun.net.httpserver.
+// Соединения принимает и читает один поток-диспетчер сервера, каждый запрос обрабатывается
+// в своём виртуальном потоке, поэтому менеджер должен быть потокобезопасным (по умолчанию ConcurrentTaskManager).
+public class HttpTaskServer {
+    public static final int DEFAULT_PORT = 8080;
+    private static final int BACKLOG = 8192;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    public HttpTaskServer(TaskManager manager) throws IOException {
+        this(manager, DEFAULT_PORT);
+    }
+
+    // port = 0 — любой свободный порт, узнать его можно через getPort()
+    public HttpTaskServer(TaskManager manager, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/tasks", new TasksHandler(manager));
+        server.createContext("/epics", new EpicsHandler(manager));
+        server.createContext("/subtasks", new SubtasksHandler(manager));
+        server.createContext("/history", new HistoryHandler(manager));
+        if (manager instanceof InstrumentedTaskManager instrumented) {
+            server.createContext("/metrics", new MetricsHandler(instrumented));
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // ждёт завершения текущих запросов не дольше delaySeconds
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.close();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    // Настройки встроенного сервера для десятков тысяч keep-alive соединений. По умолчанию он держит
+    // не больше 200 простаивающих соединений и не выключает алгоритм Нейгла. Свойства общие для всей JVM
+    // и читаются при создании первого HttpServer, поэтому вызывать до него; значения, заданные через -D,
+    // не переопределяются. Вызывает main, встраивающее приложение решает само
+    public static void useHighConcurrencyDefaults() {
+        System.getProperties().putIfAbsent("sun.net.httpserver.maxIdleConnections", "100000");
+        System.getProperties().putIfAbsent("sun.net.httpserver.nodelay", "true");
+    }
+
+    public static void main(String[] args) throws IOException {
+        useHighConcurrencyDefaults();
+        final int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        TaskManager manager = new ConcurrentTaskManager();
+        // -Dkanban.metrics=true добавляет замеры вызовов: /metrics и JMX
+        if (Boolean.getBoolean("kanban.metrics")) {
+            InstrumentedTaskManager instrumented = new InstrumentedTaskManager(manager);
+            instrumented.getMetrics().registerMBean("http");
+            manager = instrumented;
+        }
+        HttpTaskServer server = new HttpTaskServer(manager, port);
+        server.start();
+        System.out.println("Сервер задач запущен на порту " + server.getPort());
+    }
+}
@@ -0,0 +1,33 @@
+package ru.yandex.javacource.aldukhov.schedule.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import ru.yandex.javacource.aldukhov.schedule.manager.InstrumentedTaskManager;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// /metrics: GET — метрики InstrumentedTaskManager в текстовом формате Prometheus
+class MetricsHandler extends BaseHttpHandler {
+
+    MetricsHandler(InstrumentedTaskManager manager) {
+        super(manager);
+    }
+
+    @Override
+    void route(HttpExchange exchange, String[] path) throws IOException {
+        if (path.length != 2) {
+            sendNotFound(exchange, "Неизвестный путь");
+        } else if (!exchange.getRequestMethod().equals("GET")) {
+            sendMethodNotAllowed(exchange, "GET");
+        } else {
+            final byte[] body = ((InstrumentedTaskManager) manager).getMetrics().getReport()
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.javacource.aldukhov.schedule.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import ru.yandex.javacource.aldukhov.schedule.json.TaskJsonReader;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+
+import java.io.IOException;
+import java.util.List;
+
+// /subtasks — как /tasks; подзадача создаётся только в существующем эпике
+class SubtasksHandler extends BaseHttpHandler {
+
+    SubtasksHandler(TaskManager manager) {
+        super(manager);
+    }
+
+    @Override
+    void route(HttpExchange exchange, String[] path) throws IOException {
+        final String method = exchange.getRequestMethod();
+        if (path.length == 2) {
+            switch (method) {
+                case "GET" -> sendJson(exchange, 200, hasQuery(exchange)
+                        ? manager.getSubtasksPage(queryInt(exchange, "afterId", 0), pageLimit(exchange))
+                        : manager.getSubtask());
+                case "POST" -> {
+                    Subtask subtask = readBody(exchange, TaskJsonReader::readSubtask);
+                    if (subtask.getId() == 0) {
+                        if (manager.addNewSubtask(subtask) == null) {
+                            sendNotFound(exchange, "Эпик " + subtask.getEpicId() + " не найден");
+                        } else {
+                            sendJson(exchange, 201, subtask);
+                        }
+                    } else if (manager.updateAll(List.of(subtask))) {
+                        sendJson(exchange, 200, subtask);
+                    } else {
+                        sendNotFound(exchange, "Подзадача " + subtask.getId() + " или её эпик не найдены");
+                    }
+                }
+                case "DELETE" -> {
+                    manager.clearSubtasks();
+                    sendNoContent(exchange);
+                }
+                default -> sendMethodNotAllowed(exchange, "GET, POST, DELETE");
+            }
+        } else if (path.length == 3) {
+            final int id = pathId(path[2]);
+            switch (method) {
+                case "GET" -> {
+                    Subtask subtask = manager.subtaskById(id);
+                    if (subtask == null) {
+                        sendNotFound(exchange, "Подзадача " + id + " не найдена");
+                    } else {
+                        sendJson(exchange, 200, subtask);
+                    }
+                }
+                case "DELETE" -> {
+                    manager.delSubtaskById(id);
+                    sendNoContent(exchange);
+                }
+                default -> sendMethodNotAllowed(exchange, "GET, DELETE");
+            }
+        } else {
+            sendNotFound(exchange, "Неизвестный путь");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package ru.yandex.javacource.aldukhov.schedule.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import ru.yandex.javacource.aldukhov.schedule.json.TaskJsonReader;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.IOException;
+import java.util.List;
+
+// /tasks: GET — список (или страница при ?afterId=&limit=), POST — создание без id или обновление с id,
+// DELETE — удаление всех. /tasks/{id}: GET и DELETE одной задачи
+class TasksHandler extends BaseHttpHandler {
+
+    TasksHandler(TaskManager manager) {
+        super(manager);
+    }
+
+    @Override
+    void route(HttpExchange exchange, String[] path) throws IOException {
+        final String method = exchange.getRequestMethod();
+        if (path.length == 2) {
+            switch (method) {
+                case "GET" -> sendJson(exchange, 200, hasQuery(exchange)
+                        ? manager.getTasksPage(queryInt(exchange, "afterId", 0), pageLimit(exchange))
+                        : manager.getTasks());
+                case "POST" -> {
+                    Task task = readBody(exchange, TaskJsonReader::readTask);
+                    if (task.getId() == 0) {
+                        manager.addNewTask(task);
+                        sendJson(exchange, 201, task);
+                    } else if (manager.updateAll(List.of(task))) {
+                        sendJson(exchange, 200, task);
+                    } else {
+                        sendNotFound(exchange, "Задача " + task.getId() + " не найдена");
+                    }
+                }
+                case "DELETE" -> {
+                    manager.clearTask();
+                    sendNoContent(exchange);
+                }
+                default -> sendMethodNotAllowed(exchange, "GET, POST, DELETE");
+            }
+        } else if (path.length == 3) {
+            final int id = pathId(path[2]);
+            switch (method) {
+                case "GET" -> {
+                    Task task = manager.taskById(id);
+                    if (task == null) {
+                        sendNotFound(exchange, "Задача " + id + " не найдена");
+                    } else {
+                        sendJson(exchange, 200, task);
+                    }
+                }
+                case "DELETE" -> {
+                    manager.delTaskById(id);
+                    sendNoContent(exchange);
+                }
+                default -> sendMethodNotAllowed(exchange, "GET, DELETE");
+            }
+        } else {
+            sendNotFound(exchange, "Неизвестный путь");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ru.yandex.javacource.aldukhov.schedule.json;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Общий пул байтовых буферов кодека. Виртуальных потоков может быть очень много,
+// поэтому буфер не привязывается к потоку через ThreadLocal, а берётся из небольшого набора ячеек.
+// Если свободных буферов нет, создаётся новый; лишний возвращённый буфер просто отбрасывается.
+final class BufferPool {
+    static final int BUFFER_SIZE = 8192;
+    private static final int SLOTS = 64;
+    private static final AtomicReferenceArray<byte[]> slots = new AtomicReferenceArray<>(SLOTS);
+
+    private BufferPool() {
+    }
+
+    static byte[] acquire() {
+        // поиск начинается с разных ячеек для разных потоков, чтобы потоки реже сталкивались
+        final int start = (int) Thread.currentThread().threadId();
+        for (int i = 0; i < SLOTS; i++) {
+            final int slot = (start + i) & (SLOTS - 1);
+            final byte[] buffer = slots.get(slot);
+            if (buffer != null && slots.compareAndSet(slot, buffer, null)) {
+                return buffer;
+            }
+        }
+        return new byte[BUFFER_SIZE];
+    }
+
+    static void release(byte[] buffer) {
+        final int start = (int) Thread.currentThread().threadId();
+        for (int i = 0; i < SLOTS; i++) {
+            final int slot = (start + i) & (SLOTS - 1);
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, buffer)) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package ru.yandex.javacource.aldukhov.schedule.json;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+// Потоковое чтение задач из JSON в формате TaskJsonWriter без дерева разбора и рефлексии.
+// Байты читаются порциями в буфер из BufferPool, поля объекта сразу раскладываются по переменным,
+// так что массив любой длины разбирается по одной задаче в памяти одного буфера.
+// Неизвестные поля пропускаются. Состав эпика ("subtaskIds") тоже пропускается:
+// менеджер строит его сам по epicId подзадач. Ошибки формата — IllegalArgumentException.
+public final class TaskJsonReader implements Closeable {
+    private static final int TASK = 0;
+    private static final int EPIC = 1;
+    private static final int SUBTASK = 2;
+    private static final Status[] STATUSES = Status.values();
+
+    private final InputStream in;
+    private final ByteBuffer source;
+    private byte[] buffer = BufferPool.acquire();
+    private int pos;
+    private int limit;
+    // сколько байт было в уже разобранных порциях, для позиции в сообщениях об ошибках
+    private long consumed;
+    private char[] chars = new char[64];
+    private int charCount;
+    private boolean inArray;
+    private boolean afterValue;
+
+    public TaskJsonReader(InputStream in) {
+        this.in = in;
+        this.source = null;
+    }
+
+    public TaskJsonReader(ByteBuffer source) {
+        this.in = null;
+        this.source = source;
+    }
+
+    public Task readTask() throws IOException {
+        return readObject(TASK);
+    }
+
+    public Epic readEpic() throws IOException {
+        return (Epic) readObject(EPIC);
+    }
+
+    public Subtask readSubtask() throws IOException {
+        return (Subtask) readObject(SUBTASK);
+    }
+
+    public void beginArray() throws IOException {
+        expect(skipSpaces(), '[');
+        inArray = true;
+        afterValue = false;
+    }
+
+    // true, если в массиве есть ещё элемент; после false нужно вызвать endArray
+    public boolean hasNext() throws IOException {
+        int c = skipSpaces();
+        if (c == ']') {
+            return false;
+        }
+        if (afterValue) {
+            expect(c, ',');
+            afterValue = false;
+            c = skipSpaces();
+            if (c == ']') {
+                throw error("Ожидался элемент массива");
+            }
+        }
+        return true;
+    }
+
+    public void endArray() throws IOException {
+        expect(skipSpaces(), ']');
+        inArray = false;
+        afterValue = false;
+    }
+
+    // проверяет, что после прочитанного значения остались только пробелы
+    public void endDocument() throws IOException {
+        if (skipSpaces() != -1) {
+            throw error("Лишние символы после JSON");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        BufferPool.release(buffer);
+        buffer = null;
+        if (in != null) {
+            in.close();
+        }
+    }
+
+    private Task readObject(int kind) throws IOException {
+        expect(skipSpaces(), '{');
+        int id = 0;
+        String name = null;
+        String description = null;
+        Status status = null;
+        int epicId = 0;
+        int c = skipSpaces();
+        if (c == '}') {
+            pos++;
+        } else {
+            while (true) {
+                expect(c, '"');
+                readChars();
+                expect(skipSpaces(), ':');
+                skipSpaces();
+                if (isKey("id")) {
+                    id = readInt("id");
+                } else if (isKey("name")) {
+                    name = readStringOrNull("name");
+                } else if (isKey("description")) {
+                    description = readStringOrNull("description");
+                } else if (isKey("status")) {
+                    status = readStatus();
+                } else if (isKey("epicId") && kind == SUBTASK) {
+                    epicId = readInt("epicId");
+                } else {
+                    skipValue();
+                }
+                c = skipSpaces();
+                if (c == '}') {
+                    pos++;
+                    break;
+                }
+                expect(c, ',');
+                c = skipSpaces();
+            }
+        }
+        final Task task = switch (kind) {
+            case EPIC -> new Epic(name, description);
+            case SUBTASK -> new Subtask(name, description, epicId);
+            default -> new Task(name, description);
+        };
+        task.setId(id);
+        if (status != null) {
+            task.setStatus(status);
+        }
+        afterValue = inArray;
+        return task;
+    }
+
+    private int readInt(String field) throws IOException {
+        int c = peek();
+        final boolean negative = c == '-';
+        if (negative) {
+            pos++;
+            c = peek();
+        }
+        if (c < '0' || c > '9') {
+            throw error("Поле " + field + " должно быть числом");
+        }
+        long value = 0;
+        while (c >= '0' && c <= '9') {
+            value = value * 10 + (c - '0');
+            if (value > 1L + Integer.MAX_VALUE) {
+                throw error("Поле " + field + " вне диапазона int");
+            }
+            pos++;
+            c = peek();
+        }
+        if (c == '.' || c == 'e' || c == 'E') {
+            throw error("Поле " + field + " должно быть целым числом");
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw error("Поле " + field + " вне диапазона int");
+        }
+        return (int) value;
+    }
+
+    private String readStringOrNull(String field) throws IOException {
+        final int c = peek();
+        if (c == 'n') {
+            expectLiteral("null");
+            return null;
+        }
+        if (c != '"') {
+            throw error("Поле " + field + " должно быть строкой");
+        }
+        pos++;
+        readChars();
+        return new String(chars, 0, charCount);
+    }
+
+    private Status readStatus() throws IOException {
+        final int c = peek();
+        if (c == 'n') {
+            expectLiteral("null");
+            return null;
+        }
+        if (c != '"') {
+            throw error("Поле status должно быть строкой");
+        }
+        pos++;
+        readChars();
+        for (Status status : STATUSES) {
+            if (isKey(status.name())) {
+                return status;
+            }
+        }
+        throw error("Неизвестный статус: " + new String(chars, 0, charCount));
+    }
+
+    // читает строку после открывающей кавычки в chars, раскрывая экранирование и UTF-8
+    private void readChars() throws IOException {
+        charCount = 0;
+        while (true) {
+            if (pos == limit && !fill()) {
+                throw error("Незакрытая строка");
+            }
+            final int b = buffer[pos++];
+            if (b == '"') {
+                return;
+            }
+            if (charCount + 2 > chars.length) {
+                char[] grown = new char[chars.length << 1];
+                System.arraycopy(chars, 0, grown, 0, charCount);
+                chars = grown;
+            }
+            if (b >= 0x20 && b != '\\') {
+                chars[charCount++] = (char) b;
+            } else if (b == '\\') {
+                readEscape();
+            } else if (b >= 0) {
+                pos--;
+                throw error("Управляющий символ в строке");
+            } else {
+                readMultiByte(b);
+            }
+        }
+    }
+
+    private void readEscape() throws IOException {
+        final int c = next();
+        switch (c) {
+            case '"', '\\', '/' -> chars[charCount++] = (char) c;
+            case 'b' -> chars[charCount++] = '\b';
+            case 'f' -> chars[charCount++] = '\f';
+            case 'n' -> chars[charCount++] = '\n';
+            case 'r' -> chars[charCount++] = '\r';
+            case 't' -> chars[charCount++] = '\t';
+            case 'u' -> {
+                int code = 0;
+                for (int i = 0; i < 4; i++) {
+                    final int digit = Character.digit(next(), 16);
+                    if (digit < 0) {
+                        throw error("Некорректная последовательность \\u");
+                    }
+                    code = code << 4 | digit;
+                }
+                chars[charCount++] = (char) code;
+            }
+            default -> throw error("Некорректное экранирование");
+        }
+    }
+
+    private void readMultiByte(int first) throws IOException {
+        final int lead = first & 0xff;
+        final int extra;
+        int code;
+        if ((lead & 0xe0) == 0xc0) {
+            extra = 1;
+            code = lead & 0x1f;
+        } else if ((lead & 0xf0) == 0xe0) {
+            extra = 2;
+            code = lead & 0x0f;
+        } else if ((lead & 0xf8) == 0xf0) {
+            extra = 3;
+            code = lead & 0x07;
+        } else {
+            throw error("Некорректный UTF-8");
+        }
+        for (int i = 0; i < extra; i++) {
+            final int b = next();
+            if ((b & 0xc0) != 0x80) {
+                throw error("Некорректный UTF-8");
+            }
+            code = code << 6 | b & 0x3f;
+        }
+        if (extra == 3) {
+            chars[charCount++] = Character.highSurrogate(code);
+            chars[charCount++] = Character.lowSurrogate(code);
+        } else {
+            chars[charCount++] = (char) code;
+        }
+    }
+
+    // пропускает значение любого вида, вложенные объекты и массивы — счётчиком глубины
+    private void skipValue() throws IOException {
+        int depth = 0;
+        do {
+            final int c = skipSpaces();
+            switch (c) {
+                case '{', '[' -> {
+                    pos++;
+                    depth++;
+                }
+                case '}', ']' -> {
+                    if (depth == 0) {
+                        throw error("Ожидалось значение");
+                    }
+                    pos++;
+                    depth--;
+                }
+                case ',', ':' -> {
+                    if (depth == 0) {
+                        throw error("Ожидалось значение");
+                    }
+                    pos++;
+                }
+                case '"' -> {
+                    pos++;
+                    skipString();
+                }
+                case -1 -> throw error("Неожиданный конец JSON");
+                default -> skipScalar();
+            }
+        } while (depth > 0);
+    }
+
+    private void skipString() throws IOException {
+        while (true) {
+            final int b = next();
+            if (b == '\\') {
+                next();
+            } else if (b == '"') {
+                return;
+            }
+        }
+    }
+
+    private void skipScalar() throws IOException {
+        final long start = consumed + pos;
+        int c = peek();
+        while (c == '-' || c == '+' || c == '.' || c >= '0' && c <= '9' || c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z') {
+            pos++;
+            c = peekOrEnd();
+        }
+        if (consumed + pos == start) {
+            throw error("Ожидалось значение");
+        }
+    }
+
+    private boolean isKey(String name) {
+        if (name.length() != charCount) {
+            return false;
+        }
+        for (int i = 0; i < charCount; i++) {
+            if (chars[i] != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void expectLiteral(String literal) throws IOException {
+        for (int i = 0; i < literal.length(); i++) {
+            if (next() != literal.charAt(i)) {
+                throw error("Ожидалось " + literal);
+            }
+        }
+    }
+
+    // проверяет символ c, уже найденный peek-ом, и переходит за него
+    private void expect(int c, char expected) {
+        if (c != expected) {
+            throw error("Ожидался символ '" + expected + "'");
+        }
+        pos++;
+    }
+
+    // следующий значащий байт без перехода за него, -1 в конце ввода
+    private int skipSpaces() throws IOException {
+        while (true) {
+            if (pos == limit && !fill()) {
+                return -1;
+            }
+            final int b = buffer[pos] & 0xff;
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return b;
+            }
+            pos++;
+        }
+    }
+
+    private int peek() throws IOException {
+        final int c = peekOrEnd();
+        if (c == -1) {
+            throw error("Неожиданный конец JSON");
+        }
+        return c;
+    }
+
+    private int peekOrEnd() throws IOException {
+        if (pos == limit && !fill()) {
+            return -1;
+        }
+        return buffer[pos] & 0xff;
+    }
+
+    private int next() throws IOException {
+        final int c = peek();
+        pos++;
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        consumed += limit;
+        pos = 0;
+        limit = 0;
+        if (in != null) {
+            final int read = in.read(buffer, 0, buffer.length);
+            if (read > 0) {
+                limit = read;
+            }
+        } else if (source.hasRemaining()) {
+            limit = Math.min(buffer.length, source.remaining());
+            source.get(buffer, 0, limit);
+        }
+        return limit > 0;
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(message + " в позиции " + (consumed + pos));
+    }
+}
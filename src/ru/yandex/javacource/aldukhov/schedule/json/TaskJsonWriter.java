@@ -0,0 +1,277 @@
+package ru.yandex.javacource.aldukhov.schedule.json;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntConsumer;
+
+// Потоковая запись задач в JSON без рефлексии и промежуточных строк.
+// Байты UTF-8 пишутся прямо в буфер из BufferPool и сбрасываются в OutputStream или ByteBuffer,
+// когда буфер заполняется, поэтому список любой длины записывается в памяти одного буфера.
+// Формат: {"id":1,"name":"...","description":"...","status":"NEW"}, у подзадачи ещё "epicId",
+// у эпика "subtaskIds":[...]. Запись в ByteBuffer без места бросает BufferOverflowException.
+public final class TaskJsonWriter implements Closeable, Flushable {
+    private static final byte[] ID = ascii("{\"id\":");
+    private static final byte[] NAME = ascii(",\"name\":");
+    private static final byte[] DESCRIPTION = ascii(",\"description\":");
+    private static final byte[] EPIC_ID = ascii(",\"epicId\":");
+    private static final byte[] SUBTASK_IDS = ascii(",\"subtaskIds\":[");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] MIN_INT = ascii(Integer.toString(Integer.MIN_VALUE));
+    private static final byte[] HEX = ascii("0123456789abcdef");
+    // ,"status":"NEW" — готовые байты для каждого статуса
+    private static final byte[][] STATUSES = new byte[Status.values().length][];
+
+    static {
+        for (Status status : Status.values()) {
+            STATUSES[status.ordinal()] = ascii(",\"status\":\"" + status.name() + "\"");
+        }
+    }
+
+    // запас в буфере под самую длинную неделимую запись: экранированный символ или число
+    private static final int RESERVE = 16;
+
+    private final OutputStream out;
+    private final ByteBuffer target;
+    private final IdWriter idWriter = new IdWriter();
+    private byte[] buffer = BufferPool.acquire();
+    private int pos;
+    private boolean inArray;
+    private boolean needComma;
+
+    public TaskJsonWriter(OutputStream out) {
+        this.out = out;
+        this.target = null;
+    }
+
+    public TaskJsonWriter(ByteBuffer target) {
+        this.out = null;
+        this.target = target;
+    }
+
+    // JSON одной задачи целиком, для небольших ответов с известной длиной
+    public static byte[] toBytes(Task task) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (TaskJsonWriter writer = new TaskJsonWriter(bytes)) {
+            writer.write(task);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public void beginArray() throws IOException {
+        ensure(1);
+        buffer[pos++] = '[';
+        inArray = true;
+        needComma = false;
+    }
+
+    public void endArray() throws IOException {
+        ensure(1);
+        buffer[pos++] = ']';
+        inArray = false;
+    }
+
+    public void writeAll(Iterable<? extends Task> tasks) throws IOException {
+        beginArray();
+        for (Task task : tasks) {
+            write(task);
+        }
+        endArray();
+    }
+
+    public void write(Task task) throws IOException {
+        if (needComma) {
+            ensure(1);
+            buffer[pos++] = ',';
+        }
+        writeBytes(ID);
+        writeInt(task.getId());
+        writeBytes(NAME);
+        writeString(task.getName());
+        writeBytes(DESCRIPTION);
+        writeString(task.getDescription());
+        writeBytes(STATUSES[task.getStatus().ordinal()]);
+        if (task instanceof Subtask subtask) {
+            writeBytes(EPIC_ID);
+            writeInt(subtask.getEpicId());
+        } else if (task instanceof Epic epic) {
+            writeBytes(SUBTASK_IDS);
+            idWriter.first = true;
+            try {
+                epic.forEachSubtaskId(idWriter);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            ensure(1);
+            buffer[pos++] = ']';
+        }
+        ensure(1);
+        buffer[pos++] = '}';
+        needComma = inArray;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    // сбрасывает остаток, возвращает буфер в пул и закрывает OutputStream
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            drain();
+        } finally {
+            BufferPool.release(buffer);
+            buffer = null;
+            if (out != null) {
+                out.close();
+            }
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            writeBytes(NULL);
+            return;
+        }
+        ensure(1);
+        buffer[pos++] = '"';
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (pos > buffer.length - RESERVE) {
+                drain();
+            }
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    buffer[pos++] = (byte) c;
+                } else {
+                    writeEscaped(c);
+                }
+            } else if (c < 0x800) {
+                buffer[pos++] = (byte) (0xc0 | c >> 6);
+                buffer[pos++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                final int code = Character.toCodePoint(c, value.charAt(++i));
+                buffer[pos++] = (byte) (0xf0 | code >> 18);
+                buffer[pos++] = (byte) (0x80 | code >> 12 & 0x3f);
+                buffer[pos++] = (byte) (0x80 | code >> 6 & 0x3f);
+                buffer[pos++] = (byte) (0x80 | code & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                // одиночная половина суррогатной пары не кодируется в UTF-8, как и в String.getBytes
+                buffer[pos++] = '?';
+            } else {
+                buffer[pos++] = (byte) (0xe0 | c >> 12);
+                buffer[pos++] = (byte) (0x80 | c >> 6 & 0x3f);
+                buffer[pos++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+        ensure(1);
+        buffer[pos++] = '"';
+    }
+
+    private void writeEscaped(char c) {
+        buffer[pos++] = '\\';
+        switch (c) {
+            case '"' -> buffer[pos++] = '"';
+            case '\\' -> buffer[pos++] = '\\';
+            case '\n' -> buffer[pos++] = 'n';
+            case '\r' -> buffer[pos++] = 'r';
+            case '\t' -> buffer[pos++] = 't';
+            default -> {
+                buffer[pos++] = 'u';
+                buffer[pos++] = '0';
+                buffer[pos++] = '0';
+                buffer[pos++] = HEX[c >> 4];
+                buffer[pos++] = HEX[c & 0xf];
+            }
+        }
+    }
+
+    private void writeInt(int value) throws IOException {
+        if (value == Integer.MIN_VALUE) {
+            writeBytes(MIN_INT);
+            return;
+        }
+        ensure(11);
+        if (value < 0) {
+            buffer[pos++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (int rest = value / 10; rest != 0; rest /= 10) {
+            digits++;
+        }
+        pos += digits;
+        for (int i = pos - 1; i >= pos - digits; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, pos, bytes.length);
+        pos += bytes.length;
+    }
+
+    private void ensure(int count) throws IOException {
+        if (pos + count > buffer.length) {
+            drain();
+        }
+    }
+
+    private void drain() throws IOException {
+        if (pos == 0) {
+            return;
+        }
+        if (out != null) {
+            out.write(buffer, 0, pos);
+        } else {
+            target.put(buffer, 0, pos);
+        }
+        pos = 0;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // id подзадач эпика через запятую; IOException передаётся наружу через UncheckedIOException
+    private final class IdWriter implements IntConsumer {
+        private boolean first;
+
+        @Override
+        public void accept(int id) {
+            try {
+                if (!first) {
+                    ensure(1);
+                    buffer[pos++] = ',';
+                }
+                writeInt(id);
+                first = false;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
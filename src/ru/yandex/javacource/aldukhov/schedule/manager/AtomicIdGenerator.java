@@ -0,0 +1,20 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AtomicIdGenerator implements IdGenerator {
+    private final AtomicInteger lastId;
+
+    public AtomicIdGenerator() {
+        this(0);
+    }
+
+    public AtomicIdGenerator(int lastId) {
+        this.lastId = new AtomicInteger(lastId);
+    }
+
+    @Override
+    public int nextId() {
+        return lastId.incrementAndGet();
+    }
+}
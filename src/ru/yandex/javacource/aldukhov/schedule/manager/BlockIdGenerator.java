@@ -0,0 +1,54 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Берёт id из арендованного диапазона и обращается к FileIdBlockAllocator
+// только когда диапазон закончился.
+public class BlockIdGenerator implements IdGenerator {
+    public static final int DEFAULT_BLOCK_SIZE = 10_000;
+
+    private final FileIdBlockAllocator allocator;
+    private final int blockSize;
+    private volatile Block block = new Block(0, 0);
+
+    public BlockIdGenerator(FileIdBlockAllocator allocator) {
+        this(allocator, DEFAULT_BLOCK_SIZE);
+    }
+
+    public BlockIdGenerator(FileIdBlockAllocator allocator, int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Размер диапазона должен быть положительным: " + blockSize);
+        }
+        this.allocator = allocator;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public int nextId() {
+        while (true) {
+            Block current = block;
+            int id = current.next.getAndIncrement();
+            if (id < current.end) {
+                return id;
+            }
+            lease(current);
+        }
+    }
+
+    private synchronized void lease(Block exhausted) {
+        if (block == exhausted) {
+            int start = allocator.allocate(blockSize);
+            block = new Block(start, start + blockSize);
+        }
+    }
+
+    private static class Block {
+        final AtomicInteger next;
+        final int end;
+
+        Block(int start, int end) {
+            this.next = new AtomicInteger(start);
+            this.end = end;
+        }
+    }
+}
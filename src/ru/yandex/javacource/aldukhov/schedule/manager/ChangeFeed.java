@@ -0,0 +1,151 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Лента изменений менеджера: события с возрастающими номерами в кольцевом буфере фиксированной ёмкости.
+// Писатель только дописывает событие и никогда не ждёт подписчиков. Каждый подписчик читает ленту сам
+// со своей позиции и сам решает, сколько событий взять за раз, — так и ограничивается нагрузка на него.
+// Подписчик, отставший больше чем на ёмкость буфера, получает EventsLostException вместо пропуска событий.
+public class ChangeFeed {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private final TaskEvent[] ring;
+    private final int mask;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private long lastSequence;
+
+    public ChangeFeed() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ChangeFeed(int capacity) {
+        final int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new TaskEvent[size];
+        this.mask = size - 1;
+    }
+
+    public long lastSequence() {
+        lock.lock();
+        try {
+            return lastSequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Подписка на события с номерами больше afterSequence; 0 — с начала ленты
+    public Subscription subscribe(long afterSequence) {
+        return new Subscription(afterSequence);
+    }
+
+    // Подписка только на новые события
+    public Subscription subscribe() {
+        return new Subscription(lastSequence());
+    }
+
+    void created(Task task) {
+        publish(TaskEvent.Type.CREATED, kindOf(task), task.getId(), copy(task));
+    }
+
+    void updated(Task task) {
+        publish(TaskEvent.Type.UPDATED, kindOf(task), task.getId(), copy(task));
+    }
+
+    void deleted(TaskEvent.Kind kind, int id) {
+        publish(TaskEvent.Type.DELETED, kind, id, null);
+    }
+
+    void statusChanged(Epic epic) {
+        publish(TaskEvent.Type.STATUS_CHANGED, TaskEvent.Kind.EPIC, epic.getId(), TaskSnapshot.copyEpic(epic));
+    }
+
+    void cleared(TaskEvent.Kind kind) {
+        publish(TaskEvent.Type.CLEARED, kind, 0, null);
+    }
+
+    private static TaskEvent.Kind kindOf(Task task) {
+        if (task instanceof Subtask) {
+            return TaskEvent.Kind.SUBTASK;
+        }
+        return task instanceof Epic ? TaskEvent.Kind.EPIC : TaskEvent.Kind.TASK;
+    }
+
+    private static Task copy(Task task) {
+        if (task instanceof Subtask subtask) {
+            return TaskSnapshot.copySubtask(subtask);
+        }
+        return task instanceof Epic epic ? TaskSnapshot.copyEpic(epic) : TaskSnapshot.copyTask(task);
+    }
+
+    private void publish(TaskEvent.Type type, TaskEvent.Kind kind, int id, Task task) {
+        lock.lock();
+        try {
+            final long sequence = ++lastSequence;
+            ring[(int) sequence & mask] = new TaskEvent(sequence, type, kind, id, task);
+            appended.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Позиция подписки не синхронизирована: одну подписку читает один поток
+    public class Subscription {
+        private long position;
+
+        private Subscription(long position) {
+            this.position = position;
+        }
+
+        // номер последнего полученного события: с него можно продолжить через subscribe(position)
+        public long position() {
+            return position;
+        }
+
+        // не больше maxEvents следующих событий, без ожидания
+        public List<TaskEvent> poll(int maxEvents) {
+            lock.lock();
+            try {
+                return take(maxEvents);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // ждёт появления хотя бы одного события не дольше timeout
+        public List<TaskEvent> poll(int maxEvents, long timeout, TimeUnit unit) throws InterruptedException {
+            long nanos = unit.toNanos(timeout);
+            lock.lock();
+            try {
+                while (position >= lastSequence && nanos > 0) {
+                    nanos = appended.awaitNanos(nanos);
+                }
+                return take(maxEvents);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private List<TaskEvent> take(int maxEvents) {
+            final long firstAvailable = Math.max(1, lastSequence - ring.length + 1);
+            if (position + 1 < firstAvailable) {
+                throw new EventsLostException("Подписчик отстал: события с " + (position + 1) + " по "
+                        + (firstAvailable - 1) + " уже перезаписаны", firstAvailable);
+            }
+            final int count = (int) Math.max(0, Math.min(maxEvents, lastSequence - position));
+            List<TaskEvent> events = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                events.add(ring[(int) ++position & mask]);
+            }
+            return events;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Декоратор TaskManager для компактного режима: каждая добавляемая и обновляемая задача переводится
+// в Task.compact(), так что одинаковые названия и описания хранятся в одном экземпляре из TextPool.
+// Выгоден, когда текст часто повторяется (шаблоны, импорт); чтение getName/getDescription тогда
+// распаковывает строку заново. Включается в Managers.getDefault() свойством -Dkanban.compact=true.
+public class CompactingTaskManager implements TaskManager {
+    private final TaskManager delegate;
+
+    public CompactingTaskManager(TaskManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public int addNewTask(Task task) {
+        task.compact();
+        return delegate.addNewTask(task);
+    }
+
+    @Override
+    public Integer addNewEpic(Epic epic) {
+        epic.compact();
+        return delegate.addNewEpic(epic);
+    }
+
+    @Override
+    public Integer addNewSubtask(Subtask subtask) {
+        subtask.compact();
+        return delegate.addNewSubtask(subtask);
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        task.compact();
+        delegate.updateTask(task);
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        epic.compact();
+        delegate.updateEpic(epic);
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        subtask.compact();
+        delegate.updateSubtask(subtask);
+    }
+
+    @Override
+    public void updateEpicStatus(Epic epic) {
+        delegate.updateEpicStatus(epic);
+    }
+
+    @Override
+    public List<Integer> addAll(Collection<? extends Task> items) {
+        compact(items);
+        return delegate.addAll(items);
+    }
+
+    @Override
+    public boolean updateAll(Collection<? extends Task> items) {
+        compact(items);
+        return delegate.updateAll(items);
+    }
+
+    @Override
+    public boolean deleteAll(Collection<Integer> ids) {
+        return delegate.deleteAll(ids);
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return delegate.getTasks();
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return delegate.getEpics();
+    }
+
+    @Override
+    public List<Subtask> getSubtask() {
+        return delegate.getSubtask();
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return delegate.getTasksByStatus(status);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return delegate.getEpicsByStatus(status);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return delegate.getSubtasksByStatus(status);
+    }
+
+    @Override
+    public List<Task> search(String query) {
+        return delegate.search(query);
+    }
+
+    @Override
+    public List<Subtask> getTaskOfEpic(Epic epic) {
+        return delegate.getTaskOfEpic(epic);
+    }
+
+    @Override
+    public Collection<Task> tasksView() {
+        return delegate.tasksView();
+    }
+
+    @Override
+    public Collection<Epic> epicsView() {
+        return delegate.epicsView();
+    }
+
+    @Override
+    public Collection<Subtask> subtasksView() {
+        return delegate.subtasksView();
+    }
+
+    @Override
+    public Stream<Subtask> streamTaskOfEpic(Epic epic) {
+        return delegate.streamTaskOfEpic(epic);
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int pageSize) {
+        return delegate.getTasksPage(afterId, pageSize);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int pageSize) {
+        return delegate.getEpicsPage(afterId, pageSize);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int pageSize) {
+        return delegate.getSubtasksPage(afterId, pageSize);
+    }
+
+    @Override
+    public void clearTask() {
+        delegate.clearTask();
+    }
+
+    @Override
+    public void clearEpic() {
+        delegate.clearEpic();
+    }
+
+    @Override
+    public void clearSubtasks() {
+        delegate.clearSubtasks();
+    }
+
+    @Override
+    public Task taskById(int id) {
+        return delegate.taskById(id);
+    }
+
+    @Override
+    public Epic epicById(int id) {
+        return delegate.epicById(id);
+    }
+
+    @Override
+    public Subtask subtaskById(int id) {
+        return delegate.subtaskById(id);
+    }
+
+    @Override
+    public void delTaskById(int id) {
+        delegate.delTaskById(id);
+    }
+
+    @Override
+    public void delEpicById(int id) {
+        delegate.delEpicById(id);
+    }
+
+    @Override
+    public void delSubtaskById(int id) {
+        delegate.delSubtaskById(id);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return delegate.getHistory();
+    }
+
+    @Override
+    public TaskSnapshot snapshot() {
+        return delegate.snapshot();
+    }
+
+    @Override
+    public ChangeFeed changes() {
+        return delegate.changes();
+    }
+
+    private static void compact(Collection<? extends Task> items) {
+        for (Task item : items) {
+            if (item != null) {
+                item.compact();
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Вторичный индекс по статусу для ConcurrentTaskManager: выборка стоит O(k) от размера ответа и идёт
+// без блокировок. Изменения одной задачи делаются под блокировкой её полосы, поэтому для одного id
+// put и remove не перемежаются. При смене статуса задача сначала появляется под новым статусом,
+// потом исчезает из старого: параллельный читатель может увидеть её в обоих списках, но не потеряет.
+// Статус, под которым задача проиндексирована, запоминается отдельно, как в StatusIndex.
+final class ConcurrentStatusIndex<T extends Task> {
+    private static final Status[] STATUSES = Status.values();
+
+    private final List<Map<Integer, T>> members = new ArrayList<>(STATUSES.length);
+    private final Map<Integer, Status> indexed = new ConcurrentHashMap<>();
+
+    ConcurrentStatusIndex() {
+        for (int i = 0; i < STATUSES.length; i++) {
+            members.add(new ConcurrentHashMap<>());
+        }
+    }
+
+    void put(T task) {
+        final int id = task.getId();
+        final Status status = task.getStatus();
+        members.get(status.ordinal()).put(id, task);
+        final Status previous = indexed.put(id, status);
+        if (previous != null && previous != status) {
+            members.get(previous.ordinal()).remove(id);
+        }
+    }
+
+    void remove(int id) {
+        final Status previous = indexed.remove(id);
+        if (previous != null) {
+            members.get(previous.ordinal()).remove(id);
+        }
+    }
+
+    void clear() {
+        for (Map<Integer, T> map : members) {
+            map.clear();
+        }
+        indexed.clear();
+    }
+
+    List<T> get(Status status) {
+        return new ArrayList<>(members.get(status.ordinal()).values());
+    }
+}
@@ -0,0 +1,917 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+// Менеджер для общего использования из нескольких потоков.
+// Чтение идёт без блокировок по ConcurrentHashMap, запись в эпик и его подзадачи
+// выполняется под блокировкой полосы, выбранной по id эпика.
+public class ConcurrentTaskManager implements TaskManager {
+    // столько накопленных просмотров читатель переносит в историю попутно, если её блокировка свободна
+    private static final int HISTORY_DRAIN_THRESHOLD = 256;
+    // столько накопленных изменений текста писатель применяет к индексу попутно, если его блокировка свободна
+    private static final int INDEX_DRAIN_THRESHOLD = 256;
+
+    private final IdGenerator idGenerator;
+    private final HistoryManager historyManager;
+    // Просмотры не берут блокировку истории: taskById кладёт задачу в очередь, а в historyManager
+    // очередь переносится под historyLock перед чтением истории, перед удалением из неё и попутно,
+    // когда просмотров накопилось HISTORY_DRAIN_THRESHOLD. ReentrantLock, а не synchronized,
+    // чтобы виртуальные потоки HTTP-сервера не закреплялись за потоком-носителем
+    private final ConcurrentLinkedQueue<Task> pendingViews = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingViewCount = new AtomicInteger();
+    private final ReentrantLock historyLock = new ReentrantLock();
+    private final Map<Integer, Task> tasks = new ConcurrentHashMap<>();
+    private final Map<Integer, Epic> epics = new ConcurrentHashMap<>();
+    private final Map<Integer, Subtask> subtasks = new ConcurrentHashMap<>();
+    private final Map<Integer, Set<Integer>> epicSubtaskIds = new ConcurrentHashMap<>();
+    private final Map<Integer, Status> countedStatuses = new ConcurrentHashMap<>();
+    // счётчики меняются под блокировкой полосы эпика
+    private final Map<Integer, EpicStatusCounters> epicCounters = new ConcurrentHashMap<>();
+    // индексы по статусу меняются под той же блокировкой полосы, что и запись
+    private final ConcurrentStatusIndex<Task> taskStatuses = new ConcurrentStatusIndex<>();
+    private final ConcurrentStatusIndex<Epic> epicStatuses = new ConcurrentStatusIndex<>();
+    private final ConcurrentStatusIndex<Subtask> subtaskStatuses = new ConcurrentStatusIndex<>();
+    // Текстовый индекс не потокобезопасен. Писатели не ждут его блокировку: изменение кладётся в очередь
+    // под блокировкой полосы записи (поэтому изменения одной задачи стоят в очереди по порядку),
+    // а к индексу очередь применяется под indexLock перед поиском и попутно, когда изменений накопилось
+    // INDEX_DRAIN_THRESHOLD
+    private final TextIndex textIndex = new TextIndex();
+    private final ConcurrentLinkedQueue<TextChange> pendingText = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingTextCount = new AtomicInteger();
+    private final ReentrantLock indexLock = new ReentrantLock();
+    // Версии для snapshot(): ведутся после первого вызова snapshot(), каждая операция записи
+    // публикует свои изменения одним compareAndSet, поэтому снимок всегда содержит целые операции
+    private final AtomicReference<TaskSnapshot> version = new AtomicReference<>();
+    // версия незавершённого пакета, меняется только под всеми блокировками
+    private TaskSnapshot batch;
+    // лента изменений, создаётся при первом вызове changes()
+    private volatile ChangeFeed feed;
+    private final ReentrantLock[] locks;
+    private final int lockMask;
+
+    public ConcurrentTaskManager() {
+        this(new InMemoryHistoryManager());
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        this(historyManager, Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager, int stripes) {
+        this(historyManager, new AtomicIdGenerator(), stripes);
+    }
+
+    public ConcurrentTaskManager(HistoryManager historyManager, IdGenerator idGenerator, int stripes) {
+        this.historyManager = historyManager;
+        this.idGenerator = idGenerator;
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.lockMask = size - 1;
+    }
+
+    @Override
+    public int addNewTask(Task task) {
+        int id = idGenerator.nextId();
+        final ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            task.setId(id);
+            tasks.put(id, task);
+            taskStatuses.put(task);
+            indexText(task);
+            publish(snapshot -> snapshot.withTask(task));
+            emit(changes -> changes.created(task));
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Integer addNewEpic(Epic epic) {
+        if (epic.containsSubtaskId(epic.getId())) {
+            return null;
+        }
+        Integer id = idGenerator.nextId();
+        final ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            epic.setId(id);
+            Set<Integer> subtaskIds = new ConcurrentSkipListSet<>();
+            epic.forEachSubtaskId(subtaskIds::add);
+            epicSubtaskIds.put(id, subtaskIds);
+            epics.put(id, epic);
+            epicStatuses.put(epic);
+            indexText(epic);
+            publish(snapshot -> snapshot.withEpic(epic));
+            emit(changes -> changes.created(epic));
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Integer addNewSubtask(Subtask subtask) {
+        final int epicId = subtask.getEpicId();
+        final ReentrantLock lock = lockFor(epicId);
+        lock.lock();
+        try {
+            Epic epic = epics.get(epicId);
+            if (epic == null) {
+                return null;
+            }
+            final int id = idGenerator.nextId();
+            if (id == epicId) {
+                return null;
+            }
+            subtask.setId(id);
+            subtasks.put(id, subtask);
+            subtaskStatuses.put(subtask);
+            indexText(subtask);
+            if (epicSubtaskIds.get(epicId).add(id)) {
+                countSubtaskStatus(epic, subtask);
+            }
+            emit(changes -> changes.created(subtask));
+            refreshEpicStatus(epic);
+            publish(snapshot -> snapshot.withSubtask(subtask).withEpic(epic));
+            return id;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        final ReentrantLock lock = lockFor(task.getId());
+        lock.lock();
+        try {
+            if (tasks.replace(task.getId(), task) != null) {
+                taskStatuses.put(task);
+                reindexText(task);
+                publish(snapshot -> snapshot.withTask(task));
+                emit(changes -> changes.updated(task));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        final int id = epic.getId();
+        final ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            final Epic savedEpic = epics.get(id);
+            if (savedEpic == null) {
+                return;
+            }
+            epic.setStatus(savedEpic.getStatus());
+            epics.put(id, epic);
+            epicStatuses.put(epic);
+            reindexText(epic);
+            publish(snapshot -> snapshot.withEpic(epic));
+            emit(changes -> changes.updated(epic));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // подзадача остаётся в своём эпике: обновление с другим epicId не применяется
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        final int epicId = subtask.getEpicId();
+        final int id = subtask.getId();
+        final ReentrantLock lock = lockFor(epicId);
+        lock.lock();
+        try {
+            Epic epic = epics.get(epicId);
+            if (epic == null || !epicSubtaskIds.get(epicId).contains(id)) {
+                return;
+            }
+            if (subtasks.replace(id, subtask) == null) {
+                return;
+            }
+            subtaskStatuses.put(subtask);
+            reindexText(subtask);
+            uncountSubtaskStatus(epic, id);
+            countSubtaskStatus(epic, subtask);
+            emit(changes -> changes.updated(subtask));
+            refreshEpicStatus(epic);
+            publish(snapshot -> snapshot.withSubtask(subtask).withEpic(epic));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Пересчитывается сохранённый эпик: переданный может быть копией, выданной читателю
+    @Override
+    public void updateEpicStatus(Epic epic) {
+        final ReentrantLock lock = lockFor(epic.getId());
+        lock.lock();
+        try {
+            final Epic savedEpic = epics.get(epic.getId());
+            if (savedEpic == null) {
+                return;
+            }
+            epicCounters.remove(savedEpic.getId());
+            for (Integer subTaskId : epicSubtaskIds.get(savedEpic.getId())) {
+                Subtask subtask = subtasks.get(subTaskId);
+                if (subtask != null) {
+                    countSubtaskStatus(savedEpic, subtask);
+                }
+            }
+            refreshEpicStatus(savedEpic);
+            epic.setStatus(savedEpic.getStatus());
+            publish(snapshot -> snapshot.withEpic(savedEpic));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Пакет выполняется под всеми блокировками: проверка и применение не перемежаются с другими записями.
+    // Статус эпика здесь обновляется по счётчикам за O(1) на подзадачу, поэтому пакет применяется
+    // одиночными операциями, которые повторно входят в уже захваченные блокировки
+    @Override
+    public List<Integer> addAll(Collection<? extends Task> items) {
+        lockAll();
+        beginBatch();
+        try {
+            for (Task item : items) {
+                if (item instanceof Subtask subtask) {
+                    if (!epics.containsKey(subtask.getEpicId())) {
+                        return null;
+                    }
+                } else if (item instanceof Epic epic) {
+                    if (epic.containsSubtaskId(epic.getId())) {
+                        return null;
+                    }
+                } else if (item == null) {
+                    return null;
+                }
+            }
+            List<Integer> ids = new ArrayList<>(items.size());
+            for (Task item : items) {
+                if (item instanceof Subtask subtask) {
+                    ids.add(addNewSubtask(subtask));
+                } else if (item instanceof Epic epic) {
+                    ids.add(addNewEpic(epic));
+                } else {
+                    ids.add(addNewTask(item));
+                }
+            }
+            return ids;
+        } finally {
+            endBatch();
+            unlockAll();
+        }
+    }
+
+    @Override
+    public boolean updateAll(Collection<? extends Task> items) {
+        lockAll();
+        beginBatch();
+        try {
+            for (Task item : items) {
+                final boolean exists;
+                if (item instanceof Subtask subtask) {
+                    final Set<Integer> subtaskIds = epicSubtaskIds.get(subtask.getEpicId());
+                    exists = subtaskIds != null && subtaskIds.contains(subtask.getId());
+                } else if (item instanceof Epic epic) {
+                    exists = epics.containsKey(epic.getId());
+                } else {
+                    exists = item != null && tasks.containsKey(item.getId());
+                }
+                if (!exists) {
+                    return false;
+                }
+            }
+            for (Task item : items) {
+                if (item instanceof Subtask subtask) {
+                    updateSubtask(subtask);
+                } else if (item instanceof Epic epic) {
+                    updateEpic(epic);
+                } else {
+                    updateTask(item);
+                }
+            }
+            return true;
+        } finally {
+            endBatch();
+            unlockAll();
+        }
+    }
+
+    @Override
+    public boolean deleteAll(Collection<Integer> ids) {
+        lockAll();
+        beginBatch();
+        try {
+            for (Integer id : ids) {
+                if (id == null || !tasks.containsKey(id) && !epics.containsKey(id) && !subtasks.containsKey(id)) {
+                    return false;
+                }
+            }
+            for (int id : ids) {
+                if (tasks.containsKey(id)) {
+                    delTaskById(id);
+                } else if (epics.containsKey(id)) {
+                    delEpicById(id);
+                } else {
+                    delSubtaskById(id);
+                }
+            }
+            return true;
+        } finally {
+            endBatch();
+            unlockAll();
+        }
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return new ArrayList<>(tasks.values());
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        List<Epic> copies = new ArrayList<>(epics.size());
+        for (Epic epic : epics.values()) {
+            copies.add(readEpic(epic));
+        }
+        return copies;
+    }
+
+    @Override
+    public List<Subtask> getSubtask() {
+        return new ArrayList<>(subtasks.values());
+    }
+
+    // Выборка по статусу идёт по ConcurrentStatusIndex без блокировок за O(k) от размера ответа
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return taskStatuses.get(status);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        List<Epic> epicsByStatus = epicStatuses.get(status);
+        epicsByStatus.replaceAll(this::readEpic);
+        return epicsByStatus;
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return subtaskStatuses.get(status);
+    }
+
+    @Override
+    public List<Task> search(String query) {
+        indexLock.lock();
+        try {
+            drainText();
+            List<Task> found = textIndex.search(query);
+            found.replaceAll(task -> task instanceof Epic epic ? readEpic(epic) : task);
+            return found;
+        } finally {
+            indexLock.unlock();
+        }
+    }
+
+    @Override
+    public List<Subtask> getTaskOfEpic(Epic epic) {
+        List<Subtask> subTaskOfEpic = new ArrayList<>();
+        Set<Integer> ids = epicSubtaskIds.get(epic.getId());
+        if (ids == null) {
+            return subTaskOfEpic;
+        }
+        for (int id : ids) {
+            Subtask subtask = subtasks.get(id);
+            if (subtask != null) {
+                subTaskOfEpic.add(subtask);
+            }
+        }
+        return subTaskOfEpic;
+    }
+
+    // Представления над ConcurrentHashMap слабо согласованы: обход не бросает исключений
+    // при параллельных изменениях и может как увидеть, так и не увидеть их
+    @Override
+    public Collection<Task> tasksView() {
+        return Collections.unmodifiableCollection(tasks.values());
+    }
+
+    @Override
+    public Collection<Epic> epicsView() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Epic> iterator() {
+                final Iterator<Epic> stored = epics.values().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return stored.hasNext();
+                    }
+
+                    @Override
+                    public Epic next() {
+                        return readEpic(stored.next());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return epics.size();
+            }
+        };
+    }
+
+    @Override
+    public Collection<Subtask> subtasksView() {
+        return Collections.unmodifiableCollection(subtasks.values());
+    }
+
+    @Override
+    public Stream<Subtask> streamTaskOfEpic(Epic epic) {
+        Set<Integer> ids = epicSubtaskIds.get(epic.getId());
+        if (ids == null) {
+            return Stream.empty();
+        }
+        return ids.stream().map(subtasks::get).filter(Objects::nonNull);
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int pageSize) {
+        return page(tasks, afterId, pageSize);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int pageSize) {
+        List<Epic> page = page(epics, afterId, pageSize);
+        page.replaceAll(this::readEpic);
+        return page;
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int pageSize) {
+        return page(subtasks, afterId, pageSize);
+    }
+
+    // Упорядоченного индекса id здесь нет: страница набирается за один проход по ключам
+    // в куче из pageSize наименьших id, поэтому память зависит от размера страницы, а не доски
+    private static <T extends Task> List<T> page(Map<Integer, T> storage, int afterId, int requestedSize) {
+        final int pageSize = Math.min(requestedSize, MAX_PAGE_SIZE);
+        if (pageSize <= 0) {
+            return new ArrayList<>();
+        }
+        PriorityQueue<Integer> smallest = new PriorityQueue<>(pageSize + 1, Comparator.reverseOrder());
+        for (Integer id : storage.keySet()) {
+            if (id > afterId && (smallest.size() < pageSize || id < smallest.peek())) {
+                smallest.add(id);
+                if (smallest.size() > pageSize) {
+                    smallest.poll();
+                }
+            }
+        }
+        Integer[] ids = smallest.toArray(new Integer[0]);
+        Arrays.sort(ids);
+        List<T> page = new ArrayList<>(ids.length);
+        for (Integer id : ids) {
+            T task = storage.get(id);
+            if (task != null) {
+                page.add(task);
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void clearTask() {
+        lockAll();
+        try {
+            emit(changes -> changes.cleared(TaskEvent.Kind.TASK));
+            for (Integer id : tasks.keySet()) {
+                if (tasks.remove(id) != null) {
+                    taskStatuses.remove(id);
+                    removeFromHistory(id);
+                    unindexText(id);
+                }
+            }
+            publish(TaskSnapshot::withoutTasks);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void clearEpic() {
+        lockAll();
+        try {
+            emit(changes -> {
+                changes.cleared(TaskEvent.Kind.SUBTASK);
+                changes.cleared(TaskEvent.Kind.EPIC);
+            });
+            List<Integer> removed = new ArrayList<>(epics.keySet());
+            removed.addAll(subtasks.keySet());
+            epics.clear();
+            epicSubtaskIds.clear();
+            subtasks.clear();
+            epicStatuses.clear();
+            subtaskStatuses.clear();
+            countedStatuses.clear();
+            epicCounters.clear();
+            for (Integer id : removed) {
+                removeFromHistory(id);
+                unindexText(id);
+            }
+            publish(TaskSnapshot::withoutEpics);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void clearSubtasks() {
+        lockAll();
+        try {
+            emit(changes -> changes.cleared(TaskEvent.Kind.SUBTASK));
+            epicCounters.clear();
+            for (Epic epic : epics.values()) {
+                epicSubtaskIds.get(epic.getId()).clear();
+                refreshEpicStatus(epic);
+            }
+            List<Integer> removed = new ArrayList<>(subtasks.keySet());
+            subtasks.clear();
+            subtaskStatuses.clear();
+            countedStatuses.clear();
+            for (Integer id : removed) {
+                removeFromHistory(id);
+                unindexText(id);
+            }
+            publish(snapshot -> {
+                TaskSnapshot cleared = snapshot.withoutSubtasks();
+                for (Epic epic : epics.values()) {
+                    cleared = cleared.withEpic(epic);
+                }
+                return cleared;
+            });
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public Task taskById(int id) {
+        Task task = tasks.get(id);
+        addToHistory(task);
+        return task;
+    }
+
+    @Override
+    public Epic epicById(int id) {
+        Epic epic = readEpic(epics.get(id));
+        addToHistory(epic);
+        return epic;
+    }
+
+    // Сохранённый эпик читается без блокировок, поэтому его состав не меняется после публикации:
+    // он хранится только в epicSubtaskIds, а читатель получает копию эпика с составом оттуда
+    private Epic readEpic(Epic epic) {
+        if (epic == null) {
+            return null;
+        }
+        final Epic copy = TaskSnapshot.copyEpic(epic);
+        final Set<Integer> ids = epicSubtaskIds.get(epic.getId());
+        if (ids != null) {
+            for (Integer id : ids) {
+                copy.addSubtaskId(id);
+            }
+        }
+        return copy;
+    }
+
+    @Override
+    public Subtask subtaskById(int id) {
+        Subtask subtask = subtasks.get(id);
+        addToHistory(subtask);
+        return subtask;
+    }
+
+    @Override
+    public void delTaskById(int id) {
+        final ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            if (tasks.remove(id) == null) {
+                return;
+            }
+            taskStatuses.remove(id);
+            removeFromHistory(id);
+            unindexText(id);
+            publish(snapshot -> snapshot.withoutTask(id));
+            emit(changes -> changes.deleted(TaskEvent.Kind.TASK, id));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void delEpicById(int id) {
+        final ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            Epic epicTask = epics.remove(id);
+            if (epicTask == null) {
+                return;
+            }
+            epicStatuses.remove(id);
+            removeFromHistory(id);
+            unindexText(id);
+            epicCounters.remove(id);
+            for (Integer subTaskId : epicSubtaskIds.remove(id)) {
+                subtasks.remove(subTaskId);
+                subtaskStatuses.remove(subTaskId);
+                countedStatuses.remove(subTaskId);
+                removeFromHistory(subTaskId);
+                unindexText(subTaskId);
+                emit(changes -> changes.deleted(TaskEvent.Kind.SUBTASK, subTaskId));
+            }
+            publish(snapshot -> snapshot.withoutEpic(id));
+            emit(changes -> changes.deleted(TaskEvent.Kind.EPIC, id));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void delSubtaskById(int id) {
+        Subtask subtask = subtasks.get(id);
+        if (subtask == null) {
+            return;
+        }
+        final int epicId = subtask.getEpicId();
+        final ReentrantLock lock = lockFor(epicId);
+        lock.lock();
+        try {
+            if (subtasks.remove(id) == null) {
+                return;
+            }
+            subtaskStatuses.remove(id);
+            removeFromHistory(id);
+            unindexText(id);
+            emit(changes -> changes.deleted(TaskEvent.Kind.SUBTASK, id));
+            Epic epicTask = epics.get(epicId);
+            if (epicTask == null) {
+                publish(snapshot -> snapshot.withoutSubtask(id));
+                return;
+            }
+            epicSubtaskIds.get(epicId).remove(id);
+            uncountSubtaskStatus(epicTask, id);
+            refreshEpicStatus(epicTask);
+            publish(snapshot -> snapshot.withoutSubtask(id).withEpic(epicTask));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        historyLock.lock();
+        try {
+            drainViews();
+            return historyManager.getHistory();
+        } finally {
+            historyLock.unlock();
+        }
+    }
+
+    // Первый вызов строит снимок под всеми блокировками за O(n), дальше снимок берётся за O(1) без блокировок
+    @Override
+    public TaskSnapshot snapshot() {
+        final TaskSnapshot current = version.get();
+        if (current != null) {
+            return current;
+        }
+        lockAll();
+        try {
+            if (version.get() == null) {
+                version.set(TaskSnapshot.of(tasks.values(), epics.values(), subtasks.values()));
+            }
+            return version.get();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // Вызывается под блокировкой изменяемой записи: изменения одной записи публикуются по порядку,
+    // а изменения разных записей независимы, поэтому повтор change после неудачного compareAndSet безопасен
+    private void publish(UnaryOperator<TaskSnapshot> change) {
+        if (batch != null) {
+            batch = change.apply(batch);
+            return;
+        }
+        version.updateAndGet(current -> current == null ? null : change.apply(current));
+    }
+
+    private void beginBatch() {
+        batch = version.get();
+    }
+
+    private void endBatch() {
+        if (batch != null) {
+            version.set(batch);
+            batch = null;
+        }
+    }
+
+    private void countSubtaskStatus(Epic epic, Subtask subtask) {
+        final Status status = subtask.getStatus();
+        epicCounters.computeIfAbsent(epic.getId(), epicId -> new EpicStatusCounters()).count(status);
+        countedStatuses.put(subtask.getId(), status);
+    }
+
+    private void uncountSubtaskStatus(Epic epic, int subtaskId) {
+        final Status status = countedStatuses.remove(subtaskId);
+        final EpicStatusCounters counters = epicCounters.get(epic.getId());
+        if (status != null && counters != null) {
+            counters.uncount(status);
+        }
+    }
+
+    private void refreshEpicStatus(Epic epic) {
+        final Status status = EpicStatusCounters.statusOf(epicCounters.get(epic.getId()));
+        final boolean changed = status != epic.getStatus();
+        epic.setStatus(status);
+        // повторная публикация эпика делает новый статус видимым для читателей без блокировок
+        if (epics.replace(epic.getId(), epic, epic)) {
+            epicStatuses.put(epic);
+        }
+        if (changed) {
+            emit(changes -> changes.statusChanged(epic));
+        }
+    }
+
+    // Лента создаётся под всеми блокировками, поэтому события не теряются у записей, идущих параллельно
+    @Override
+    public ChangeFeed changes() {
+        final ChangeFeed current = feed;
+        if (current != null) {
+            return current;
+        }
+        lockAll();
+        try {
+            if (feed == null) {
+                feed = new ChangeFeed();
+            }
+            return feed;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // вызывается под блокировкой изменяемой записи, поэтому события одной записи идут по порядку
+    private void emit(Consumer<ChangeFeed> event) {
+        final ChangeFeed current = feed;
+        if (current != null) {
+            event.accept(current);
+        }
+    }
+
+    private void indexText(Task task) {
+        changeText(new TextChange(task.getId(), task, false));
+    }
+
+    private void reindexText(Task task) {
+        changeText(new TextChange(task.getId(), task, true));
+    }
+
+    private void unindexText(int id) {
+        changeText(new TextChange(id, null, false));
+    }
+
+    private void changeText(TextChange change) {
+        pendingText.add(change);
+        if (pendingTextCount.incrementAndGet() >= INDEX_DRAIN_THRESHOLD && indexLock.tryLock()) {
+            try {
+                drainText();
+            } finally {
+                indexLock.unlock();
+            }
+        }
+    }
+
+    // вызывается под indexLock
+    private void drainText() {
+        TextChange change;
+        while ((change = pendingText.poll()) != null) {
+            pendingTextCount.decrementAndGet();
+            if (change.task() == null) {
+                textIndex.remove(change.id());
+            } else if (change.reindex()) {
+                textIndex.update(change.task());
+            } else {
+                textIndex.add(change.task());
+            }
+        }
+    }
+
+    private void addToHistory(Task task) {
+        if (task == null) {
+            return;
+        }
+        pendingViews.add(task);
+        if (pendingViewCount.incrementAndGet() >= HISTORY_DRAIN_THRESHOLD && historyLock.tryLock()) {
+            try {
+                drainViews();
+            } finally {
+                historyLock.unlock();
+            }
+        }
+    }
+
+    // Вызывается после удаления задачи из хранилища. Просмотр, поставленный в очередь параллельно с удалением,
+    // либо переносится здесь и сразу удаляется, либо позже отбрасывается drainViews, так как задачи уже нет
+    private void removeFromHistory(int id) {
+        historyLock.lock();
+        try {
+            drainViews();
+            historyManager.remove(id);
+        } finally {
+            historyLock.unlock();
+        }
+    }
+
+    // Вызывается под historyLock; просмотры задач, которых уже нет в хранилище, отбрасываются.
+    // Переносятся только просмотры, поставленные до вызова, иначе параллельные читатели не дали бы ему закончиться
+    private void drainViews() {
+        Task task;
+        for (int left = pendingViewCount.get(); left > 0 && (task = pendingViews.poll()) != null; left--) {
+            pendingViewCount.decrementAndGet();
+            if (isStored(task)) {
+                historyManager.add(task);
+            }
+        }
+    }
+
+    // id не переиспользуются, поэтому проверки наличия достаточно; обновлённая задача остаётся в истории, как в InMemoryTaskManager
+    private boolean isStored(Task task) {
+        final int id = task.getId();
+        if (task instanceof Subtask) {
+            return subtasks.containsKey(id);
+        } else if (task instanceof Epic) {
+            return epics.containsKey(id);
+        }
+        return tasks.containsKey(id);
+    }
+
+    private ReentrantLock lockFor(int id) {
+        int h = id * 0x9E3779B9;
+        return locks[(h ^ (h >>> 16)) & lockMask];
+    }
+
+    private void lockAll() {
+        for (ReentrantLock lock : locks) {
+            lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = locks.length - 1; i >= 0; i--) {
+            locks[i].unlock();
+        }
+    }
+
+    // изменение текстового индекса: task == null — удаление id, reindex — обновление уже добавленной задачи
+    private record TextChange(int id, Task task, boolean reindex) {
+    }
+}
@@ -0,0 +1,13 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+public enum Durability {
+    // fsync после каждой операции
+    SYNC,
+    // fsync раз в заданный интервал, операции между ними теряются при сбое ОС
+    GROUP_COMMIT,
+    // запись в кеш ОС без fsync
+    OS_BUFFERED,
+    // запись и fsync фоновым потоком пакетами не реже чем раз в заданный интервал;
+    // при сбое процесса теряются операции за этот интервал
+    WRITE_BEHIND
+}
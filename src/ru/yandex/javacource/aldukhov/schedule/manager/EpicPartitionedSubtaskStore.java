@@ -0,0 +1,152 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+// SubtaskLayout.BY_EPIC: подзадачи каждого эпика лежат подряд в его массивах items и ids,
+// так что обход эпика — проход по массиву, а не поиск каждого id в общей таблице.
+// Общая таблица byId остаётся для subtaskById за один поиск, а locations хранит для каждого id
+// эпик и позицию в его массиве (эпик в старших 32 битах). При удалении на освободившееся место
+// переносится последний элемент эпика, поэтому массивы остаются плотными.
+final class EpicPartitionedSubtaskStore implements SubtaskStore {
+    private static final int INITIAL_PARTITION_SIZE = 4;
+
+    private final IntObjectMap<Subtask> byId = new IntObjectMap<>();
+    private final IntLongMap locations = new IntLongMap();
+    private final IntObjectMap<Partition> partitions = new IntObjectMap<>();
+
+    @Override
+    public Subtask get(int id) {
+        return byId.get(id);
+    }
+
+    @Override
+    public boolean containsKey(int id) {
+        return byId.containsKey(id);
+    }
+
+    @Override
+    public void put(Subtask subtask) {
+        final int id = subtask.getId();
+        final int epicId = subtask.getEpicId();
+        byId.put(id, subtask);
+        final long location = locations.get(id, -1);
+        // подзадача не переходит между эпиками (менеджер не применяет обновление с другим epicId),
+        // поэтому обновление заменяет её на прежнем месте
+        if (location != -1) {
+            partitions.get((int) (location >>> 32)).items[(int) location] = subtask;
+            return;
+        }
+        Partition partition = partitions.get(epicId);
+        if (partition == null) {
+            partition = new Partition(epicId);
+            partitions.put(epicId, partition);
+        }
+        append(partition, id, subtask);
+    }
+
+    @Override
+    public Subtask remove(int id) {
+        final Subtask subtask = byId.remove(id);
+        if (subtask == null) {
+            return null;
+        }
+        final long location = locations.get(id, -1);
+        locations.remove(id);
+        removeAt(partitions.get((int) (location >>> 32)), (int) location);
+        return subtask;
+    }
+
+    @Override
+    public void clear() {
+        byId.clear();
+        locations.clear();
+        partitions.clear();
+    }
+
+    @Override
+    public void forEachKey(IntConsumer action) {
+        byId.forEachKey(action);
+    }
+
+    @Override
+    public Collection<Subtask> values() {
+        return byId.values();
+    }
+
+    @Override
+    public void forEachOfEpic(Epic epic, Consumer<Subtask> action) {
+        final Partition partition = partitions.get(epic.getId());
+        if (partition == null) {
+            return;
+        }
+        final Subtask[] items = partition.items;
+        for (int i = 0; i < partition.size; i++) {
+            action.accept(items[i]);
+        }
+    }
+
+    @Override
+    public Stream<Subtask> streamOfEpic(Epic epic) {
+        final Partition partition = partitions.get(epic.getId());
+        return partition == null ? Stream.empty() : Arrays.stream(partition.items, 0, partition.size);
+    }
+
+    @Override
+    public void removeOfEpic(Epic epic, IntConsumer removed) {
+        final Partition partition = partitions.remove(epic.getId());
+        if (partition == null) {
+            return;
+        }
+        final int[] ids = partition.ids;
+        for (int i = 0; i < partition.size; i++) {
+            final int id = ids[i];
+            byId.remove(id);
+            locations.remove(id);
+            removed.accept(id);
+        }
+    }
+
+    private void append(Partition partition, int id, Subtask subtask) {
+        if (partition.size == partition.items.length) {
+            final int capacity = partition.size << 1;
+            partition.items = Arrays.copyOf(partition.items, capacity);
+            partition.ids = Arrays.copyOf(partition.ids, capacity);
+        }
+        final int slot = partition.size++;
+        partition.items[slot] = subtask;
+        partition.ids[slot] = id;
+        locations.put(id, (long) partition.epicId << 32 | slot);
+    }
+
+    private void removeAt(Partition partition, int slot) {
+        final int last = --partition.size;
+        if (slot != last) {
+            final int movedId = partition.ids[last];
+            partition.items[slot] = partition.items[last];
+            partition.ids[slot] = movedId;
+            locations.put(movedId, (long) partition.epicId << 32 | slot);
+        }
+        partition.items[last] = null;
+        if (partition.size == 0) {
+            partitions.remove(partition.epicId);
+        }
+    }
+
+    private static final class Partition {
+        final int epicId;
+        Subtask[] items = new Subtask[INITIAL_PARTITION_SIZE];
+        int[] ids = new int[INITIAL_PARTITION_SIZE];
+        int size;
+
+        Partition(int epicId) {
+            this.epicId = epicId;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+
+// Число подзадач эпика в каждом статусе. Менеджер ведёт счётчики по id эпика, поэтому статус эпика
+// пересчитывается за O(1) при изменении одной подзадачи, а новая версия эпика при обновлении их не теряет
+final class EpicStatusCounters {
+    private int newCount;
+    private int inProgressCount;
+    private int doneCount;
+
+    void count(Status status) {
+        switch (status) {
+            case NEW -> newCount++;
+            case IN_PROGRESS -> inProgressCount++;
+            case DONE -> doneCount++;
+        }
+    }
+
+    void uncount(Status status) {
+        switch (status) {
+            case NEW -> newCount--;
+            case IN_PROGRESS -> inProgressCount--;
+            case DONE -> doneCount--;
+        }
+    }
+
+    // эпик без подзадач — NEW
+    static Status statusOf(EpicStatusCounters counters) {
+        if (counters == null) {
+            return Status.NEW;
+        }
+        final int total = counters.newCount + counters.inProgressCount + counters.doneCount;
+        if (counters.newCount == total) {
+            return Status.NEW;
+        }
+        if (counters.doneCount == total) {
+            return Status.DONE;
+        }
+        return Status.IN_PROGRESS;
+    }
+}
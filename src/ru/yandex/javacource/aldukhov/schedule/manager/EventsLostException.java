@@ -0,0 +1,18 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+// Подписчик отстал больше, чем на ёмкость ленты: часть событий уже перезаписана.
+// Восстановиться можно по snapshot() и новой подписке с ChangeFeed.lastSequence() на момент снимка.
+public class EventsLostException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private final long firstAvailable;
+
+    public EventsLostException(String message, long firstAvailable) {
+        super(message);
+        this.firstAvailable = firstAvailable;
+    }
+
+    public long getFirstAvailable() {
+        return firstAvailable;
+    }
+}
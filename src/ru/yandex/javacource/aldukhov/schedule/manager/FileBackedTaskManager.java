@@ -0,0 +1,517 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Менеджер, который сохраняет каждое изменение в журнал (write-ahead log) и
+// периодически сжимает журнал в снимок. При запуске состояние восстанавливается
+// из снимка и хвоста журнала, поэтому время старта зависит от размера снимка, а не от всей истории.
+// В режиме Durability.WRITE_BEHIND журнал пишет фоновый поток (см. WriteBehindLog), а groupCommitMillis
+// задаёт наибольшую задержку записи.
+// close() обязателен: в режимах GROUP_COMMIT, OS_BUFFERED и WRITE_BEHIND только он (или flush()) гарантирует,
+// что операции до него на диске, а потоки записи — демоны и при выходе из JVM просто останавливаются.
+public final class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    public static final int DEFAULT_COMPACT_EVERY = 100_000;
+    public static final long DEFAULT_GROUP_COMMIT_MILLIS = 10;
+    public static final int WRITE_BEHIND_QUEUE_CAPACITY = 1 << 14;
+
+    static final String SNAPSHOT_FILE = "tasks.snapshot";
+    static final String LOG_FILE = "tasks.log";
+    // номер записи и код операции в начале тела записи
+    private static final int RECORD_HEADER_SIZE = 9;
+
+    private static final byte ADD = 1;
+    private static final byte UPDATE = 2;
+    private static final byte DELETE_TASK = 3;
+    private static final byte DELETE_EPIC = 4;
+    private static final byte DELETE_SUBTASK = 5;
+    private static final byte CLEAR_TASKS = 6;
+    private static final byte CLEAR_EPICS = 7;
+    private static final byte CLEAR_SUBTASKS = 8;
+    private static final byte ADD_ALL = 9;
+    private static final byte UPDATE_ALL = 10;
+    private static final byte DELETE_ALL = 11;
+
+    private final Path snapshotFile;
+    private final Path logFile;
+    private final Durability durability;
+    private final int compactEvery;
+    private final RecoveryIdGenerator ids;
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+    private final DataOutputStream recordOut = new DataOutputStream(recordBytes);
+    private final CRC32 crc = new CRC32();
+    private final FileChannel log;
+    private final ScheduledExecutorService groupCommit;
+    private final WriteBehindLog writeBehind;
+    private ByteBuffer writeBuffer = ByteBuffer.allocateDirect(4096);
+    private volatile boolean unsynced;
+    private long seq;
+    private int recordsSinceSnapshot;
+
+    public FileBackedTaskManager(Path directory) {
+        this(directory, Durability.SYNC);
+    }
+
+    public FileBackedTaskManager(Path directory, Durability durability) {
+        this(directory, durability, DEFAULT_GROUP_COMMIT_MILLIS, DEFAULT_COMPACT_EVERY);
+    }
+
+    public FileBackedTaskManager(Path directory, Durability durability, long groupCommitMillis, int compactEvery) {
+        this(directory, durability, groupCommitMillis, compactEvery, new InMemoryHistoryManager(),
+                new RecoveryIdGenerator());
+    }
+
+    // История просмотров хранится в history и после восстановления задач получает их из таблиц менеджера
+    // (через peek, без snapshot(): он включил бы ведение версий на всё время работы).
+    // Файл истории закрывает вызывающий
+    public FileBackedTaskManager(Path directory, Durability durability, MappedHistoryManager history) {
+        this(directory, durability, DEFAULT_GROUP_COMMIT_MILLIS, DEFAULT_COMPACT_EVERY, history,
+                new RecoveryIdGenerator());
+        history.restore(this::peek);
+    }
+
+    private FileBackedTaskManager(Path directory, Durability durability, long groupCommitMillis, int compactEvery,
+                                  HistoryManager historyManager, RecoveryIdGenerator ids) {
+        super(historyManager, ids);
+        this.ids = ids;
+        this.durability = durability;
+        this.compactEvery = compactEvery;
+        this.snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        this.logFile = directory.resolve(LOG_FILE);
+        try {
+            Files.createDirectories(directory);
+            loadSnapshot();
+            long validLength = replayLog();
+            log = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            // отрезаем недописанную при сбое запись, чтобы новые записи шли за последней целой
+            log.truncate(validLength);
+            log.position(validLength);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось восстановить состояние из " + directory, e);
+        }
+        writeBehind = durability == Durability.WRITE_BEHIND
+                ? new WriteBehindLog(log, logFile, groupCommitMillis, WRITE_BEHIND_QUEUE_CAPACITY)
+                : null;
+        if (durability == Durability.GROUP_COMMIT) {
+            groupCommit = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "task-log-group-commit");
+                thread.setDaemon(true);
+                return thread;
+            });
+            groupCommit.scheduleWithFixedDelay(this::sync, groupCommitMillis, groupCommitMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            groupCommit = null;
+        }
+    }
+
+    @Override
+    public int addNewTask(Task task) {
+        int id = super.addNewTask(task);
+        append(ADD, task);
+        return id;
+    }
+
+    @Override
+    public Integer addNewEpic(Epic epic) {
+        Integer id = super.addNewEpic(epic);
+        if (id != null) {
+            append(ADD, epic);
+        }
+        return id;
+    }
+
+    @Override
+    public Integer addNewSubtask(Subtask subtask) {
+        Integer id = super.addNewSubtask(subtask);
+        if (id != null) {
+            append(ADD, subtask);
+        }
+        return id;
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        final boolean applied = updatable(task);
+        super.updateTask(task);
+        if (applied) {
+            append(UPDATE, task);
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        final boolean applied = updatable(epic);
+        super.updateEpic(epic);
+        if (applied) {
+            append(UPDATE, epic);
+        }
+    }
+
+    // пропущенное обновление не пишется: при восстановлении оно тоже было бы пропущено
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        final boolean applied = updatable(subtask);
+        super.updateSubtask(subtask);
+        if (applied) {
+            append(UPDATE, subtask);
+        }
+    }
+
+    // Пакет пишется в журнал одной записью с общей контрольной суммой:
+    // после сбоя он либо восстанавливается целиком, либо не восстанавливается совсем
+    @Override
+    public List<Integer> addAll(Collection<? extends Task> items) {
+        List<Integer> ids = super.addAll(items);
+        if (ids != null) {
+            append(ADD_ALL, items);
+        }
+        return ids;
+    }
+
+    @Override
+    public boolean updateAll(Collection<? extends Task> items) {
+        final boolean applied = super.updateAll(items);
+        if (applied) {
+            append(UPDATE_ALL, items);
+        }
+        return applied;
+    }
+
+    @Override
+    public boolean deleteAll(Collection<Integer> ids) {
+        final boolean applied = super.deleteAll(ids);
+        if (applied) {
+            append(DELETE_ALL, ids);
+        }
+        return applied;
+    }
+
+    @Override
+    public void clearTask() {
+        super.clearTask();
+        append(CLEAR_TASKS, null);
+    }
+
+    @Override
+    public void clearEpic() {
+        super.clearEpic();
+        append(CLEAR_EPICS, null);
+    }
+
+    @Override
+    public void clearSubtasks() {
+        super.clearSubtasks();
+        append(CLEAR_SUBTASKS, null);
+    }
+
+    // удаление отсутствующего id не пишется: в режиме WRITE_BEHIND такая запись разбивала бы объединение обновлений
+    @Override
+    public void delTaskById(int id) {
+        final Task task = peek(id);
+        super.delTaskById(id);
+        if (task != null && !(task instanceof Epic) && !(task instanceof Subtask)) {
+            append(DELETE_TASK, id);
+        }
+    }
+
+    @Override
+    public void delEpicById(int id) {
+        final boolean removed = peek(id) instanceof Epic;
+        super.delEpicById(id);
+        if (removed) {
+            append(DELETE_EPIC, id);
+        }
+    }
+
+    @Override
+    public void delSubtaskById(int id) {
+        final boolean removed = peek(id) instanceof Subtask;
+        super.delSubtaskById(id);
+        if (removed) {
+            append(DELETE_SUBTASK, id);
+        }
+    }
+
+    // Записывает снимок текущего состояния и очищает журнал
+    public void compact() {
+        Path tmp = snapshotFile.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        try {
+            TaskFile.write(tmp, seq, ids.lastId, getTasks(), getEpics(), getSubtask());
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // записи с номером не больше сохранённого в снимке пропускаются при восстановлении,
+            // поэтому сбой между переименованием и обрезкой журнала безопасен
+            if (writeBehind != null) {
+                writeBehind.truncate();
+            } else {
+                log.truncate(0);
+                log.position(0);
+                log.force(false);
+            }
+            recordsSinceSnapshot = 0;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать снимок " + snapshotFile, e);
+        }
+    }
+
+    // Барьер: возвращается, когда все операции до вызова записаны в журнал и сброшены на диск
+    public void flush() {
+        if (writeBehind != null) {
+            writeBehind.flush();
+        } else {
+            unsynced = durability != Durability.SYNC;
+            sync();
+        }
+    }
+
+    public void sync() {
+        if (!unsynced) {
+            return;
+        }
+        unsynced = false;
+        try {
+            log.force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось сбросить журнал " + logFile, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (groupCommit != null) {
+            groupCommit.shutdown();
+        }
+        // канал закрывается, даже если запись очереди или fsync не удались
+        try (FileChannel channel = log) {
+            if (writeBehind != null) {
+                writeBehind.close();
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось закрыть журнал " + logFile, e);
+        }
+    }
+
+    private void append(byte op, Object payload) {
+        try {
+            recordBytes.reset();
+            recordOut.writeLong(++seq);
+            recordOut.writeByte(op);
+            if (payload instanceof Task task) {
+                TaskRecords.write(recordOut, task);
+            } else if (payload instanceof Integer id) {
+                recordOut.writeInt(id);
+            } else if (payload instanceof Collection<?> items) {
+                recordOut.writeInt(items.size());
+                for (Object item : items) {
+                    if (item instanceof Task task) {
+                        TaskRecords.write(recordOut, task);
+                    } else {
+                        recordOut.writeInt((Integer) item);
+                    }
+                }
+            }
+            byte[] body = recordBytes.toByteArray();
+            crc.reset();
+            crc.update(body);
+            if (writeBehind != null) {
+                // запись ставится в очередь целиком, с длиной и контрольной суммой: поток записи её не разбирает
+                writeBehind.append(kindOf(op), payload instanceof Task task ? task.getId() : 0,
+                        ByteBuffer.allocate(body.length + 8).putInt(body.length).putInt((int) crc.getValue())
+                                .put(body).array());
+            } else {
+                if (writeBuffer.capacity() < body.length + 8) {
+                    writeBuffer = ByteBuffer.allocateDirect(Integer.highestOneBit(body.length + 8) << 1);
+                }
+                writeBuffer.clear();
+                writeBuffer.putInt(body.length).putInt((int) crc.getValue()).put(body).flip();
+                while (writeBuffer.hasRemaining()) {
+                    log.write(writeBuffer);
+                }
+                if (durability == Durability.SYNC) {
+                    log.force(false);
+                } else {
+                    unsynced = true;
+                }
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать операцию в журнал " + logFile, e);
+        }
+        if (++recordsSinceSnapshot >= compactEvery) {
+            compact();
+        }
+    }
+
+    private static byte kindOf(byte op) {
+        return switch (op) {
+            case UPDATE -> WriteBehindLog.COALESCE;
+            case ADD, ADD_ALL -> WriteBehindLog.KEEP;
+            default -> WriteBehindLog.BARRIER;
+        };
+    }
+
+    private void loadSnapshot() {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        try (TaskFile snapshot = TaskFile.open(snapshotFile)) {
+            seq = snapshot.getSequence();
+            for (Task task : snapshot.getTasks()) {
+                restore(task);
+            }
+            for (Epic epic : snapshot.getEpics()) {
+                // состав эпика восстановится при добавлении его подзадач
+                epic.cleanSubtaskIds();
+                restore(epic);
+            }
+            for (Subtask subtask : snapshot.getSubtask()) {
+                restore(subtask);
+            }
+            ids.lastId = Math.max(ids.lastId, snapshot.getLastId());
+        }
+    }
+
+    // Возвращает длину журнала до первой повреждённой записи. Хвост, недописанный при сбое, может быть
+    // заполнен нулями: пустое тело с нулевой суммой проходит проверку CRC, поэтому запись короче номера
+    // и операции, длина за концом файла или тело, которое не разбирается, тоже считаются концом журнала
+    private long replayLog() throws IOException {
+        if (!Files.exists(logFile)) {
+            return 0;
+        }
+        final long size = Files.size(logFile);
+        long validLength = 0;
+        try (InputStream stream = new BufferedInputStream(Files.newInputStream(logFile), 1 << 16)) {
+            DataInputStream in = new DataInputStream(stream);
+            CRC32 check = new CRC32();
+            while (true) {
+                final int length;
+                final int checksum;
+                byte[] body;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < RECORD_HEADER_SIZE || length > size - validLength - 8) {
+                        break;
+                    }
+                    body = new byte[length];
+                    in.readFully(body);
+                } catch (EOFException e) {
+                    break;
+                }
+                check.reset();
+                check.update(body);
+                if ((int) check.getValue() != checksum) {
+                    break;
+                }
+                DataInputStream record = new DataInputStream(new ByteArrayInputStream(body));
+                final long recordSeq = record.readLong();
+                if (recordSeq > seq) {
+                    try {
+                        apply(record.readByte(), record);
+                    } catch (IOException | RuntimeException e) {
+                        break;
+                    }
+                    seq = recordSeq;
+                    recordsSinceSnapshot++;
+                }
+                validLength += 8 + length;
+            }
+        }
+        return validLength;
+    }
+
+    private void apply(byte op, DataInputStream in) throws IOException {
+        switch (op) {
+            case ADD -> restore(TaskRecords.read(in));
+            case UPDATE -> {
+                Task task = TaskRecords.read(in);
+                if (task instanceof Subtask subtask) {
+                    super.updateSubtask(subtask);
+                } else if (task instanceof Epic epic) {
+                    super.updateEpic(epic);
+                } else {
+                    super.updateTask(task);
+                }
+            }
+            case DELETE_TASK -> super.delTaskById(in.readInt());
+            case DELETE_EPIC -> super.delEpicById(in.readInt());
+            case DELETE_SUBTASK -> super.delSubtaskById(in.readInt());
+            case CLEAR_TASKS -> super.clearTask();
+            case CLEAR_EPICS -> super.clearEpic();
+            case CLEAR_SUBTASKS -> super.clearSubtasks();
+            case ADD_ALL -> {
+                final int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    restore(TaskRecords.read(in));
+                }
+            }
+            case UPDATE_ALL -> {
+                final int count = in.readInt();
+                List<Task> items = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    items.add(TaskRecords.read(in));
+                }
+                super.updateAll(items);
+            }
+            case DELETE_ALL -> {
+                final int count = in.readInt();
+                List<Integer> ids = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    ids.add(in.readInt());
+                }
+                super.deleteAll(ids);
+            }
+            default -> throw new IOException("Неизвестная операция в журнале: " + op);
+        }
+    }
+
+    private void restore(Task task) {
+        ids.forcedId = task.getId();
+        if (task instanceof Subtask subtask) {
+            super.addNewSubtask(subtask);
+        } else if (task instanceof Epic epic) {
+            super.addNewEpic(epic);
+        } else {
+            super.addNewTask(task);
+        }
+        ids.forcedId = 0;
+    }
+
+    // При восстановлении выдаёт id из записи, в обычной работе продолжает последовательность
+    private static class RecoveryIdGenerator implements IdGenerator {
+        int lastId;
+        int forcedId;
+
+        @Override
+        public int nextId() {
+            if (forcedId != 0) {
+                lastId = Math.max(lastId, forcedId);
+                return forcedId;
+            }
+            return ++lastId;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Выдаёт диапазоны id из общего файла. Файл хранит первый свободный id,
+// на время выдачи он блокируется, поэтому диапазоны не пересекаются между процессами.
+// Блокировку файла в JVM держит канал, а не поток: второй канал того же процесса получил бы
+// OverlappingFileLockException вместо ожидания. Поэтому выдачи из одного файла внутри JVM
+// сначала выстраиваются в очередь на общей блокировке по реальному пути файла.
+public class FileIdBlockAllocator {
+    private static final Map<Path, ReentrantLock> LOCKS = new ConcurrentHashMap<>();
+
+    private final Path file;
+
+    public FileIdBlockAllocator(Path file) {
+        this.file = file;
+    }
+
+    // возвращает первый id диапазона [start, start + size)
+    public int allocate(int size) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final ReentrantLock lock = LOCKS.computeIfAbsent(file.toRealPath(), path -> new ReentrantLock());
+            lock.lock();
+            try {
+                // блокировка файла снимается до lock: иначе следующий поток застанет её у ещё открытого канала
+                final FileLock fileLock = channel.lock();
+                try {
+                    return advance(channel, size);
+                } finally {
+                    fileLock.release();
+                }
+            } finally {
+                lock.unlock();
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось выделить диапазон id в " + file, e);
+        }
+    }
+
+    private int advance(FileChannel channel, int size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+        int start = 1;
+        if (channel.read(buffer, 0) == Integer.BYTES) {
+            start = buffer.flip().getInt();
+        }
+        if (start > Integer.MAX_VALUE - size) {
+            throw new IllegalStateException("Закончились id в " + file);
+        }
+        buffer.clear().putInt(start + size).flip();
+        channel.write(buffer, 0);
+        channel.force(false);
+        return start;
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+// SubtaskLayout.BY_ID: одна таблица по id, подзадачи эпика находятся через его список id
+final class HashedSubtaskStore implements SubtaskStore {
+    private final IntObjectMap<Subtask> subtasks = new IntObjectMap<>();
+
+    @Override
+    public Subtask get(int id) {
+        return subtasks.get(id);
+    }
+
+    @Override
+    public boolean containsKey(int id) {
+        return subtasks.containsKey(id);
+    }
+
+    @Override
+    public void put(Subtask subtask) {
+        subtasks.put(subtask.getId(), subtask);
+    }
+
+    @Override
+    public Subtask remove(int id) {
+        return subtasks.remove(id);
+    }
+
+    @Override
+    public void clear() {
+        subtasks.clear();
+    }
+
+    @Override
+    public void forEachKey(IntConsumer action) {
+        subtasks.forEachKey(action);
+    }
+
+    @Override
+    public Collection<Subtask> values() {
+        return subtasks.values();
+    }
+
+    @Override
+    public void forEachOfEpic(Epic epic, Consumer<Subtask> action) {
+        epic.forEachSubtaskId(id -> {
+            Subtask subtask = subtasks.get(id);
+            if (subtask != null) {
+                action.accept(subtask);
+            }
+        });
+    }
+
+    @Override
+    public Stream<Subtask> streamOfEpic(Epic epic) {
+        return epic.subtaskIds().mapToObj(subtasks::get).filter(Objects::nonNull);
+    }
+
+    @Override
+    public void removeOfEpic(Epic epic, IntConsumer removed) {
+        epic.forEachSubtaskId(id -> {
+            subtasks.remove(id);
+            removed.accept(id);
+        });
+    }
+}
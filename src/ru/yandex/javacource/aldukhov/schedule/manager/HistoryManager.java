@@ -8,6 +8,8 @@ public interface HistoryManager {
 
     void add(Task task);
 
+    void remove(int id);
+
     List<Task> getHistory();
 
 }
@@ -0,0 +1,7 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+public interface IdGenerator {
+
+    int nextId();
+
+}
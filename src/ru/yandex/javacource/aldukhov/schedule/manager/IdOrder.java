@@ -0,0 +1,95 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import java.util.function.IntConsumer;
+
+// Упорядоченный список id для постраничного чтения по курсору afterId.
+// Генератор выдаёт id по возрастанию, поэтому добавление почти всегда дописывает в конец массива.
+// Удалённый id остаётся на месте со знаком минус (id положительные), массив уплотняется,
+// когда удалённых становится больше половины. Поиск страницы — двоичный поиск и проход по ней.
+final class IdOrder {
+    private int[] ids = new int[16];
+    private int size;
+    private int removed;
+
+    void add(int id) {
+        if (size == 0 || id > Math.abs(ids[size - 1])) {
+            if (size == ids.length) {
+                grow();
+            }
+            ids[size++] = id;
+            return;
+        }
+        final int i = firstAfter(id - 1);
+        if (i < size && Math.abs(ids[i]) == id) {
+            if (ids[i] < 0) {
+                ids[i] = id;
+                removed--;
+            }
+            return;
+        }
+        if (size == ids.length) {
+            grow();
+        }
+        System.arraycopy(ids, i, ids, i + 1, size - i);
+        ids[i] = id;
+        size++;
+    }
+
+    void remove(int id) {
+        final int i = firstAfter(id - 1);
+        if (i == size || ids[i] != id) {
+            return;
+        }
+        ids[i] = -id;
+        if (++removed > size / 2) {
+            compact();
+        }
+    }
+
+    void clear() {
+        size = 0;
+        removed = 0;
+    }
+
+    // передаёт не больше pageSize id, больших afterId, по возрастанию
+    void page(int afterId, int pageSize, IntConsumer action) {
+        int left = pageSize;
+        for (int i = firstAfter(afterId); i < size && left > 0; i++) {
+            if (ids[i] > 0) {
+                action.accept(ids[i]);
+                left--;
+            }
+        }
+    }
+
+    private int firstAfter(int afterId) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (Math.abs(ids[mid]) <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void grow() {
+        int[] grown = new int[ids.length << 1];
+        System.arraycopy(ids, 0, grown, 0, size);
+        ids = grown;
+    }
+
+    private void compact() {
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            if (ids[i] > 0) {
+                ids[j++] = ids[i];
+            }
+        }
+        size = j;
+        removed = 0;
+    }
+}
@@ -0,0 +1,458 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Декоратор TaskManager, который считает вызовы и задержки каждого метода (см. TaskManagerMetrics).
+// Чтение по id — самый частый вызов и сам по себе короткий, поэтому его время замеряется
+// у каждого 64-го вызова, остальные методы — у каждого. Вызовы дольше slowCall пишутся в JFR как SlowCallEvent.
+// Включается в Managers.getDefault() свойством -Dkanban.metrics=true.
+public class InstrumentedTaskManager implements TaskManager {
+    public static final Duration DEFAULT_SLOW_CALL = Duration.ofMillis(10);
+    private static final int HOT_PATH_SAMPLE_SHIFT = 6;
+
+    // номера методов в METHODS
+    private static final int ADD_NEW_TASK = 0;
+    private static final int ADD_NEW_EPIC = 1;
+    private static final int ADD_NEW_SUBTASK = 2;
+    private static final int UPDATE_TASK = 3;
+    private static final int UPDATE_EPIC = 4;
+    private static final int UPDATE_SUBTASK = 5;
+    private static final int UPDATE_EPIC_STATUS = 6;
+    private static final int ADD_ALL = 7;
+    private static final int UPDATE_ALL = 8;
+    private static final int DELETE_ALL = 9;
+    private static final int GET_TASKS = 10;
+    private static final int GET_EPICS = 11;
+    private static final int GET_SUBTASK = 12;
+    private static final int GET_TASKS_BY_STATUS = 13;
+    private static final int GET_EPICS_BY_STATUS = 14;
+    private static final int GET_SUBTASKS_BY_STATUS = 15;
+    private static final int SEARCH = 16;
+    private static final int GET_TASK_OF_EPIC = 17;
+    private static final int TASKS_VIEW = 18;
+    private static final int EPICS_VIEW = 19;
+    private static final int SUBTASKS_VIEW = 20;
+    private static final int STREAM_TASK_OF_EPIC = 21;
+    private static final int GET_TASKS_PAGE = 22;
+    private static final int GET_EPICS_PAGE = 23;
+    private static final int GET_SUBTASKS_PAGE = 24;
+    private static final int CLEAR_TASK = 25;
+    private static final int CLEAR_EPIC = 26;
+    private static final int CLEAR_SUBTASKS = 27;
+    private static final int TASK_BY_ID = 28;
+    private static final int EPIC_BY_ID = 29;
+    private static final int SUBTASK_BY_ID = 30;
+    private static final int DEL_TASK_BY_ID = 31;
+    private static final int DEL_EPIC_BY_ID = 32;
+    private static final int DEL_SUBTASK_BY_ID = 33;
+    private static final int GET_HISTORY = 34;
+    private static final int SNAPSHOT = 35;
+    private static final int CHANGES = 36;
+    private static final String[] METHODS = {
+            "addNewTask", "addNewEpic", "addNewSubtask", "updateTask", "updateEpic", "updateSubtask",
+            "updateEpicStatus", "addAll", "updateAll", "deleteAll", "getTasks", "getEpics", "getSubtask",
+            "getTasksByStatus", "getEpicsByStatus", "getSubtasksByStatus", "search", "getTaskOfEpic",
+            "tasksView", "epicsView", "subtasksView", "streamTaskOfEpic", "getTasksPage", "getEpicsPage",
+            "getSubtasksPage", "clearTask", "clearEpic", "clearSubtasks", "taskById", "epicById",
+            "subtaskById", "delTaskById", "delEpicById", "delSubtaskById", "getHistory", "snapshot",
+            "changes"
+    };
+
+    private final TaskManager delegate;
+    private final TaskManagerMetrics metrics;
+
+    public InstrumentedTaskManager(TaskManager delegate) {
+        this(delegate, DEFAULT_SLOW_CALL);
+    }
+
+    public InstrumentedTaskManager(TaskManager delegate, Duration slowCall) {
+        this.delegate = delegate;
+        final int[] sampleShifts = new int[METHODS.length];
+        sampleShifts[TASK_BY_ID] = HOT_PATH_SAMPLE_SHIFT;
+        sampleShifts[EPIC_BY_ID] = HOT_PATH_SAMPLE_SHIFT;
+        sampleShifts[SUBTASK_BY_ID] = HOT_PATH_SAMPLE_SHIFT;
+        metrics = new TaskManagerMetrics(delegate, METHODS, sampleShifts, slowCall.toNanos());
+    }
+
+    public TaskManagerMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public int addNewTask(Task task) {
+        final long start = metrics.start(ADD_NEW_TASK);
+        try {
+            return delegate.addNewTask(task);
+        } finally {
+            metrics.stop(ADD_NEW_TASK, start);
+        }
+    }
+
+    @Override
+    public Integer addNewEpic(Epic epic) {
+        final long start = metrics.start(ADD_NEW_EPIC);
+        try {
+            return delegate.addNewEpic(epic);
+        } finally {
+            metrics.stop(ADD_NEW_EPIC, start);
+        }
+    }
+
+    @Override
+    public Integer addNewSubtask(Subtask subtask) {
+        final long start = metrics.start(ADD_NEW_SUBTASK);
+        try {
+            return delegate.addNewSubtask(subtask);
+        } finally {
+            metrics.stop(ADD_NEW_SUBTASK, start);
+        }
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        final long start = metrics.start(UPDATE_TASK);
+        try {
+            delegate.updateTask(task);
+        } finally {
+            metrics.stop(UPDATE_TASK, start);
+        }
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        final long start = metrics.start(UPDATE_EPIC);
+        try {
+            delegate.updateEpic(epic);
+        } finally {
+            metrics.stop(UPDATE_EPIC, start);
+        }
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        final long start = metrics.start(UPDATE_SUBTASK);
+        try {
+            delegate.updateSubtask(subtask);
+        } finally {
+            metrics.stop(UPDATE_SUBTASK, start);
+        }
+    }
+
+    @Override
+    public void updateEpicStatus(Epic epic) {
+        final long start = metrics.start(UPDATE_EPIC_STATUS);
+        try {
+            delegate.updateEpicStatus(epic);
+        } finally {
+            metrics.stop(UPDATE_EPIC_STATUS, start);
+        }
+    }
+
+    @Override
+    public List<Integer> addAll(Collection<? extends Task> items) {
+        final long start = metrics.start(ADD_ALL);
+        try {
+            return delegate.addAll(items);
+        } finally {
+            metrics.stop(ADD_ALL, start);
+        }
+    }
+
+    @Override
+    public boolean updateAll(Collection<? extends Task> items) {
+        final long start = metrics.start(UPDATE_ALL);
+        try {
+            return delegate.updateAll(items);
+        } finally {
+            metrics.stop(UPDATE_ALL, start);
+        }
+    }
+
+    @Override
+    public boolean deleteAll(Collection<Integer> ids) {
+        final long start = metrics.start(DELETE_ALL);
+        try {
+            return delegate.deleteAll(ids);
+        } finally {
+            metrics.stop(DELETE_ALL, start);
+        }
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        final long start = metrics.start(GET_TASKS);
+        try {
+            return delegate.getTasks();
+        } finally {
+            metrics.stop(GET_TASKS, start);
+        }
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        final long start = metrics.start(GET_EPICS);
+        try {
+            return delegate.getEpics();
+        } finally {
+            metrics.stop(GET_EPICS, start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtask() {
+        final long start = metrics.start(GET_SUBTASK);
+        try {
+            return delegate.getSubtask();
+        } finally {
+            metrics.stop(GET_SUBTASK, start);
+        }
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        final long start = metrics.start(GET_TASKS_BY_STATUS);
+        try {
+            return delegate.getTasksByStatus(status);
+        } finally {
+            metrics.stop(GET_TASKS_BY_STATUS, start);
+        }
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        final long start = metrics.start(GET_EPICS_BY_STATUS);
+        try {
+            return delegate.getEpicsByStatus(status);
+        } finally {
+            metrics.stop(GET_EPICS_BY_STATUS, start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        final long start = metrics.start(GET_SUBTASKS_BY_STATUS);
+        try {
+            return delegate.getSubtasksByStatus(status);
+        } finally {
+            metrics.stop(GET_SUBTASKS_BY_STATUS, start);
+        }
+    }
+
+    @Override
+    public List<Task> search(String query) {
+        final long start = metrics.start(SEARCH);
+        try {
+            return delegate.search(query);
+        } finally {
+            metrics.stop(SEARCH, start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getTaskOfEpic(Epic epic) {
+        final long start = metrics.start(GET_TASK_OF_EPIC);
+        try {
+            return delegate.getTaskOfEpic(epic);
+        } finally {
+            metrics.stop(GET_TASK_OF_EPIC, start);
+        }
+    }
+
+    @Override
+    public Collection<Task> tasksView() {
+        final long start = metrics.start(TASKS_VIEW);
+        try {
+            return delegate.tasksView();
+        } finally {
+            metrics.stop(TASKS_VIEW, start);
+        }
+    }
+
+    @Override
+    public Collection<Epic> epicsView() {
+        final long start = metrics.start(EPICS_VIEW);
+        try {
+            return delegate.epicsView();
+        } finally {
+            metrics.stop(EPICS_VIEW, start);
+        }
+    }
+
+    @Override
+    public Collection<Subtask> subtasksView() {
+        final long start = metrics.start(SUBTASKS_VIEW);
+        try {
+            return delegate.subtasksView();
+        } finally {
+            metrics.stop(SUBTASKS_VIEW, start);
+        }
+    }
+
+    @Override
+    public Stream<Subtask> streamTaskOfEpic(Epic epic) {
+        final long start = metrics.start(STREAM_TASK_OF_EPIC);
+        try {
+            return delegate.streamTaskOfEpic(epic);
+        } finally {
+            metrics.stop(STREAM_TASK_OF_EPIC, start);
+        }
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int pageSize) {
+        final long start = metrics.start(GET_TASKS_PAGE);
+        try {
+            return delegate.getTasksPage(afterId, pageSize);
+        } finally {
+            metrics.stop(GET_TASKS_PAGE, start);
+        }
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int pageSize) {
+        final long start = metrics.start(GET_EPICS_PAGE);
+        try {
+            return delegate.getEpicsPage(afterId, pageSize);
+        } finally {
+            metrics.stop(GET_EPICS_PAGE, start);
+        }
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int pageSize) {
+        final long start = metrics.start(GET_SUBTASKS_PAGE);
+        try {
+            return delegate.getSubtasksPage(afterId, pageSize);
+        } finally {
+            metrics.stop(GET_SUBTASKS_PAGE, start);
+        }
+    }
+
+    @Override
+    public void clearTask() {
+        final long start = metrics.start(CLEAR_TASK);
+        try {
+            delegate.clearTask();
+        } finally {
+            metrics.stop(CLEAR_TASK, start);
+        }
+    }
+
+    @Override
+    public void clearEpic() {
+        final long start = metrics.start(CLEAR_EPIC);
+        try {
+            delegate.clearEpic();
+        } finally {
+            metrics.stop(CLEAR_EPIC, start);
+        }
+    }
+
+    @Override
+    public void clearSubtasks() {
+        final long start = metrics.start(CLEAR_SUBTASKS);
+        try {
+            delegate.clearSubtasks();
+        } finally {
+            metrics.stop(CLEAR_SUBTASKS, start);
+        }
+    }
+
+    @Override
+    public Task taskById(int id) {
+        final long start = metrics.start(TASK_BY_ID);
+        try {
+            return delegate.taskById(id);
+        } finally {
+            metrics.stop(TASK_BY_ID, start);
+        }
+    }
+
+    @Override
+    public Epic epicById(int id) {
+        final long start = metrics.start(EPIC_BY_ID);
+        try {
+            return delegate.epicById(id);
+        } finally {
+            metrics.stop(EPIC_BY_ID, start);
+        }
+    }
+
+    @Override
+    public Subtask subtaskById(int id) {
+        final long start = metrics.start(SUBTASK_BY_ID);
+        try {
+            return delegate.subtaskById(id);
+        } finally {
+            metrics.stop(SUBTASK_BY_ID, start);
+        }
+    }
+
+    @Override
+    public void delTaskById(int id) {
+        final long start = metrics.start(DEL_TASK_BY_ID);
+        try {
+            delegate.delTaskById(id);
+        } finally {
+            metrics.stop(DEL_TASK_BY_ID, start);
+        }
+    }
+
+    @Override
+    public void delEpicById(int id) {
+        final long start = metrics.start(DEL_EPIC_BY_ID);
+        try {
+            delegate.delEpicById(id);
+        } finally {
+            metrics.stop(DEL_EPIC_BY_ID, start);
+        }
+    }
+
+    @Override
+    public void delSubtaskById(int id) {
+        final long start = metrics.start(DEL_SUBTASK_BY_ID);
+        try {
+            delegate.delSubtaskById(id);
+        } finally {
+            metrics.stop(DEL_SUBTASK_BY_ID, start);
+        }
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        final long start = metrics.start(GET_HISTORY);
+        try {
+            return delegate.getHistory();
+        } finally {
+            metrics.stop(GET_HISTORY, start);
+        }
+    }
+
+    @Override
+    public TaskSnapshot snapshot() {
+        final long start = metrics.start(SNAPSHOT);
+        try {
+            return delegate.snapshot();
+        } finally {
+            metrics.stop(SNAPSHOT, start);
+        }
+    }
+
+    @Override
+    public ChangeFeed changes() {
+        final long start = metrics.start(CHANGES);
+        try {
+            return delegate.changes();
+        } finally {
+            metrics.stop(CHANGES, start);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import java.util.Arrays;
+
+// Хеш-таблица int → long с открытой адресацией, устроенная как IntObjectMap, но без упаковки значений.
+// Ячейка выбирается тем же фибоначчиевым хешем. Ключ 0 обозначает пустую ячейку: id задач положительные, как и в IdOrder.
+// Сдвиг при удалении ограничен maxShift так же, как в IntObjectMap.
+final class IntLongMap {
+    private static final int MIN_CAPACITY = 16;
+    private static final int GOLDEN = 0x9E3779B9;
+
+    private int[] keys;
+    private long[] values;
+    private int size;
+    private int mask;
+    private int shift;
+    private int resizeAt;
+    private int maxShift;
+
+    IntLongMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    // значение по ключу или missing, если ключа нет
+    long get(int key, long missing) {
+        int i = slot(key);
+        int current;
+        while ((current = keys[i]) != 0) {
+            if (current == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+        return missing;
+    }
+
+    void put(int key, long value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Ключ 0 не поддерживается");
+        }
+        int i = slot(key);
+        int current;
+        while ((current = keys[i]) != 0) {
+            if (current == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        maxShift = Math.max(maxShift, (i - slot(key)) & mask);
+        if (++size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    void remove(int key) {
+        int i = slot(key);
+        int current;
+        while ((current = keys[i]) != 0) {
+            if (current == key) {
+                shiftBack(i);
+                size--;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    void clear() {
+        if (size == 0) {
+            return;
+        }
+        Arrays.fill(keys, 0);
+        size = 0;
+        maxShift = 0;
+    }
+
+    private int slot(int key) {
+        return key * GOLDEN >>> shift;
+    }
+
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            final int key = keys[i];
+            if (key == 0 || ((i - gap) & mask) > maxShift) {
+                break;
+            }
+            final int home = slot(key);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = key;
+                values[gap] = values[i];
+                gap = i;
+            }
+        }
+        keys[gap] = 0;
+    }
+
+    private void rehash(int capacity) {
+        final int[] oldKeys = keys;
+        final long[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != 0) {
+                int i = slot(oldKeys[j]);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+                maxShift = Math.max(maxShift, (i - slot(oldKeys[j])) & mask);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+        resizeAt = capacity / 4 * 3;
+        maxShift = 0;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Распределение задержек в наносекундах по логарифмически-линейным делениям, как в HdrHistogram:
+// на каждую степень двойки приходится 32 деления, так что погрешность значения не больше 1/32 (~3%),
+// а память постоянна при любом числе записей. Запись — один инкремент в AtomicLongArray;
+// массив разбит на полосы по id потока, чтобы потоки с одинаковой задержкой не спорили за одну ячейку.
+final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    // значения от 2^39 нс (~9 минут) попадают в последнее деление
+    private static final int MAX_EXPONENT = 38;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BITS + 2) * SUB_COUNT;
+    private static final int STRIPES = Math.min(4, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+
+    private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    void record(long nanos) {
+        final int stripe = (int) Thread.currentThread().threadId() & (STRIPES - 1);
+        counts.incrementAndGet(stripe * BUCKETS + bucket(Math.max(0, nanos)));
+        long current = max.get();
+        while (nanos > current && !max.compareAndSet(current, nanos)) {
+            current = max.get();
+        }
+    }
+
+    long count() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    long max() {
+        return max.get();
+    }
+
+    // верхние границы делений, в которые попадают квантили quantiles (от 0 до 1), в наносекундах
+    long[] quantiles(double... quantiles) {
+        final long[] merged = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            final long count = counts.get(i);
+            merged[i % BUCKETS] += count;
+            total += count;
+        }
+        final long[] result = new long[quantiles.length];
+        if (total == 0) {
+            return result;
+        }
+        for (int q = 0; q < quantiles.length; q++) {
+            final long rank = Math.max(1, (long) Math.ceil(quantiles[q] * total));
+            long seen = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seen += merged[b];
+                if (seen >= rank) {
+                    result[q] = Math.min(highestValue(b), max.get());
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    // записи, идущие во время сброса, могут остаться в новых значениях
+    void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    static int bucket(long nanos) {
+        if (nanos < SUB_COUNT) {
+            return (int) nanos;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        final int sub = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    static long highestValue(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        final int exponent = bucket / SUB_COUNT + SUB_BITS - 1;
+        final int sub = bucket % SUB_COUNT;
+        final long lowest = (long) (SUB_COUNT + sub) << (exponent - SUB_BITS);
+        return lowest + (1L << (exponent - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,281 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+// История просмотров, которая переживает перезапуск. Каждый просмотр и удаление пишется записью
+// в кольцевой файл фиксированного размера, отображённый в память: запись — три put в отображённый буфер,
+// без выделения памяти и системных вызовов. Когда кольцо заполнено, новые записи затирают самые старые,
+// поэтому после перезапуска восстанавливаются последние capacity событий — недавно просмотренные задачи.
+//
+// Запись кольца (16 байт): номер события << 1 | операция, id задачи, контрольная сумма обоих полей.
+// Номер события определяет ячейку (номер & (capacity - 1)), поэтому при открытии порядок восстанавливается
+// обходом ячеек от самой новой назад, без сортировки. Запись, недописанная при сбое процесса, не проходит
+// контрольную сумму и пропускается. Страницы файла сбрасываются на диск ядром; sync() и close() делают это сразу.
+//
+// После открытия история знает только id. Задачи подставляет restore, когда менеджер загружен
+// (см. FileBackedTaskManager); до этого getHistory возвращает только задачи, просмотренные в этом запуске.
+public class MappedHistoryManager implements HistoryManager, AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    private static final int MAGIC = 0x4B424831;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int ENTRY_SIZE = 16;
+    private static final long ADD = 0;
+    private static final long REMOVE = 1;
+    // чтобы нулевая (ни разу не записанная) ячейка не проходила проверку
+    private static final long SALT = 0x5DEECE66DL;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer ring;
+    private final int mask;
+    private final IntObjectMap<Node> nodes = new IntObjectMap<>();
+    private Node head;
+    private Node tail;
+    private long seq;
+
+    public MappedHistoryManager(Path file) {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    // capacity округляется вверх до степени двойки; у существующего файла берётся его собственный размер
+    public MappedHistoryManager(Path file, int capacity) {
+        if (capacity < 1 || capacity > 1 << 26) {
+            throw new IllegalArgumentException("Размер кольца истории должен быть от 1 до 2^26: " + capacity);
+        }
+        this.file = file;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            final boolean created = channel.size() == 0;
+            int entries = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+            if (!created) {
+                entries = readCapacity();
+            }
+            ring = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) entries * ENTRY_SIZE);
+            mask = entries - 1;
+            if (created) {
+                ring.putInt(0, MAGIC);
+                ring.putInt(4, VERSION);
+                ring.putInt(8, entries);
+            } else {
+                replay();
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось открыть файл истории " + file, e);
+        }
+    }
+
+    @Override
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        final int id = task.getId();
+        Node node = nodes.get(id);
+        if (node == null) {
+            node = new Node(id);
+            nodes.put(id, node);
+        } else {
+            unlink(node);
+        }
+        node.task = task;
+        linkLast(node);
+        append(ADD, id);
+    }
+
+    @Override
+    public void remove(int id) {
+        final Node node = nodes.remove(id);
+        // удаление задачи, которой нет в истории, не пишется: очистка менеджера не должна затирать кольцо
+        if (node == null) {
+            return;
+        }
+        unlink(node);
+        append(REMOVE, id);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        List<Task> history = new ArrayList<>(nodes.size());
+        for (Node node = head; node != null; node = node.next) {
+            if (node.task != null) {
+                history.add(node.task);
+            }
+        }
+        return history;
+    }
+
+    // Подставляет задачи в восстановленную из файла историю. id, которых в снимке нет, удаляются из истории
+    public void restore(TaskSnapshot snapshot) {
+        restore(id -> find(snapshot, id));
+    }
+
+    // То же по функции поиска задачи по id (null — задачи нет): менеджер передаёт поиск без записи в историю,
+    // чтобы не строить снимок
+    public void restore(IntFunction<? extends Task> lookup) {
+        Node node = head;
+        while (node != null) {
+            final Node next = node.next;
+            if (node.task == null) {
+                final Task task = lookup.apply(node.id);
+                if (task == null) {
+                    remove(node.id);
+                } else {
+                    node.task = task;
+                }
+            }
+            node = next;
+        }
+    }
+
+    public void sync() {
+        ring.force();
+    }
+
+    @Override
+    public void close() {
+        try {
+            ring.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось закрыть файл истории " + file, e);
+        }
+    }
+
+    private int readCapacity() throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        final int entries = header.getInt(8);
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION || Integer.bitCount(entries) != 1
+                || channel.size() != HEADER_SIZE + (long) entries * ENTRY_SIZE) {
+            throw new IOException("Файл не является кольцом истории версии " + VERSION);
+        }
+        return entries;
+    }
+
+    // Читает все целые записи, находит самую новую и проходит кольцо от неё назад: первая встреча id
+    // решает его судьбу, поэтому повторные просмотры и удаления не требуют перестройки списка
+    private void replay() {
+        long newest = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            final long word = ring.getLong(offset(slot));
+            if (valid(slot, word)) {
+                newest = Math.max(newest, word >>> 1);
+            }
+        }
+        seq = newest;
+        // уже встреченные id — это узлы истории и удалённые
+        final IntObjectMap<Boolean> removed = new IntObjectMap<>();
+        for (long event = newest; event > 0 && event > newest - mask - 1; event--) {
+            final int slot = (int) event & mask;
+            final long word = ring.getLong(offset(slot));
+            if (!valid(slot, word) || word >>> 1 != event) {
+                continue;
+            }
+            final int id = ring.getInt(offset(slot) + 8);
+            if (nodes.containsKey(id) || removed.containsKey(id)) {
+                continue;
+            }
+            if ((word & 1) == REMOVE) {
+                removed.put(id, Boolean.TRUE);
+                continue;
+            }
+            final Node node = new Node(id);
+            nodes.put(id, node);
+            linkFirst(node);
+        }
+    }
+
+    private boolean valid(int slot, long word) {
+        final int offset = offset(slot);
+        return word != 0 && ((int) (word >>> 1) & mask) == slot
+                && ring.getInt(offset + 12) == checksum(word, ring.getInt(offset + 8));
+    }
+
+    private void append(long op, int id) {
+        final long word = ++seq << 1 | op;
+        final int offset = offset((int) seq & mask);
+        ring.putLong(offset, word);
+        ring.putInt(offset + 8, id);
+        ring.putInt(offset + 12, checksum(word, id));
+    }
+
+    private static int offset(int slot) {
+        return HEADER_SIZE + slot * ENTRY_SIZE;
+    }
+
+    private static int checksum(long word, int id) {
+        long hash = (word ^ SALT) * 0x9E3779B97F4A7C15L + id;
+        hash = (hash ^ (hash >>> 32)) * 0xD6E8FEB86659FD93L;
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    private static Task find(TaskSnapshot snapshot, int id) {
+        final Task task = snapshot.taskById(id);
+        if (task != null) {
+            return task;
+        }
+        final Task epic = snapshot.epicById(id);
+        return epic != null ? epic : snapshot.subtaskById(id);
+    }
+
+    private void linkFirst(Node node) {
+        node.prev = null;
+        node.next = head;
+        if (head == null) {
+            tail = node;
+        } else {
+            head.prev = node;
+        }
+        head = node;
+    }
+
+    private void linkLast(Node node) {
+        node.prev = tail;
+        node.next = null;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+    }
+
+    private void unlink(Node node) {
+        final Node prev = node.prev;
+        final Node next = node.next;
+        if (prev == null) {
+            head = next;
+        } else {
+            prev.next = next;
+        }
+        if (next == null) {
+            tail = prev;
+        } else {
+            next.prev = prev;
+        }
+    }
+
+    private static class Node {
+        final int id;
+        Task task;
+        Node prev;
+        Node next;
+
+        Node(int id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+// Записи задач фиксированного размера в страницах прямой памяти для OffHeapTaskManager.
+// id — номер записи, поэтому отдельный индекс по id не нужен.
+// Запись из RECORD_SIZE байт:
+//   0  тип (FREE, TASK, EPIC, SUBTASK)      1  статус (номер Status)
+//   4  подзадача: id эпика                   эпик: id первой подзадачи
+//   8  подзадача: id следующей в эпике       эпик: id последней подзадачи
+//  12  подзадача: id предыдущей в эпике      эпик: число подзадач NEW
+//  16                                        эпик: число подзадач IN_PROGRESS
+//  20                                        эпик: число подзадач DONE
+//  24  адрес названия и описания в StringArena
+// Подзадачи эпика связаны в двусвязный список по id в порядке добавления.
+final class OffHeapRecords {
+    static final byte FREE = 0;
+    static final byte TASK = 1;
+    static final byte EPIC = 2;
+    static final byte SUBTASK = 3;
+
+    static final int RECORD_SIZE = 32;
+    private static final int PAGE_SHIFT = 20;
+    private static final int PAGE_RECORDS = 1 << PAGE_SHIFT;
+
+    private static final int TYPE = 0;
+    private static final int STATUS = 1;
+    private static final int EPIC_ID = 4;
+    private static final int FIRST = 4;
+    private static final int NEXT = 8;
+    private static final int LAST = 8;
+    private static final int PREVIOUS = 12;
+    private static final int NEW_COUNT = 12;
+    private static final int TEXT = 24;
+    private static final Status[] STATUSES = Status.values();
+
+    private final List<ByteBuffer> pages = new ArrayList<>();
+
+    // выделяет страницу под id, если её ещё нет, и очищает запись
+    void allocate(int id) {
+        final int index = id >>> PAGE_SHIFT;
+        while (pages.size() <= index) {
+            pages.add(null);
+        }
+        if (pages.get(index) == null) {
+            pages.set(index, ByteBuffer.allocateDirect(PAGE_RECORDS * RECORD_SIZE).order(ByteOrder.nativeOrder()));
+        }
+        final ByteBuffer page = page(id);
+        final int offset = offset(id);
+        for (int i = 0; i < RECORD_SIZE; i += Long.BYTES) {
+            page.putLong(offset + i, 0);
+        }
+    }
+
+    byte type(int id) {
+        if (id <= 0 || id >>> PAGE_SHIFT >= pages.size() || page(id) == null) {
+            return FREE;
+        }
+        return page(id).get(offset(id) + TYPE);
+    }
+
+    void setType(int id, byte type) {
+        page(id).put(offset(id) + TYPE, type);
+    }
+
+    Status status(int id) {
+        return STATUSES[page(id).get(offset(id) + STATUS)];
+    }
+
+    void setStatus(int id, Status status) {
+        page(id).put(offset(id) + STATUS, (byte) status.ordinal());
+    }
+
+    long text(int id) {
+        return page(id).getLong(offset(id) + TEXT);
+    }
+
+    void setText(int id, long address) {
+        page(id).putLong(offset(id) + TEXT, address);
+    }
+
+    int epicId(int subtaskId) {
+        return getInt(subtaskId, EPIC_ID);
+    }
+
+    int next(int subtaskId) {
+        return getInt(subtaskId, NEXT);
+    }
+
+    int first(int epicId) {
+        return getInt(epicId, FIRST);
+    }
+
+    // добавляет подзадачу в конец списка эпика
+    void link(int epicId, int subtaskId) {
+        final int last = getInt(epicId, LAST);
+        putInt(subtaskId, EPIC_ID, epicId);
+        putInt(subtaskId, PREVIOUS, last);
+        putInt(subtaskId, NEXT, 0);
+        if (last == 0) {
+            putInt(epicId, FIRST, subtaskId);
+        } else {
+            putInt(last, NEXT, subtaskId);
+        }
+        putInt(epicId, LAST, subtaskId);
+    }
+
+    void unlink(int subtaskId) {
+        final int epicId = getInt(subtaskId, EPIC_ID);
+        final int previous = getInt(subtaskId, PREVIOUS);
+        final int next = getInt(subtaskId, NEXT);
+        if (previous == 0) {
+            putInt(epicId, FIRST, next);
+        } else {
+            putInt(previous, NEXT, next);
+        }
+        if (next == 0) {
+            putInt(epicId, LAST, previous);
+        } else {
+            putInt(next, PREVIOUS, previous);
+        }
+    }
+
+    // отвязывает от эпика все подзадачи разом, сами записи подзадач не трогает
+    void unlinkAll(int epicId) {
+        putInt(epicId, FIRST, 0);
+        putInt(epicId, LAST, 0);
+        resetCounts(epicId);
+    }
+
+    void resetCounts(int epicId) {
+        for (Status status : STATUSES) {
+            putInt(epicId, countOffset(status), 0);
+        }
+    }
+
+    int count(int epicId, Status status) {
+        return getInt(epicId, countOffset(status));
+    }
+
+    void addCount(int epicId, Status status, int delta) {
+        final int offset = countOffset(status);
+        putInt(epicId, offset, getInt(epicId, offset) + delta);
+    }
+
+    // статус эпика по счётчикам подзадач, как EpicStatusCounters.statusOf
+    Status epicStatus(int epicId) {
+        final int newCount = count(epicId, Status.NEW);
+        final int doneCount = count(epicId, Status.DONE);
+        final int total = newCount + count(epicId, Status.IN_PROGRESS) + doneCount;
+        if (newCount == total) {
+            return Status.NEW;
+        }
+        if (doneCount == total) {
+            return Status.DONE;
+        }
+        return Status.IN_PROGRESS;
+    }
+
+    long reservedBytes() {
+        long reserved = 0;
+        for (ByteBuffer page : pages) {
+            if (page != null) {
+                reserved += page.capacity();
+            }
+        }
+        return reserved;
+    }
+
+    // освобождает все страницы; id продолжают расти, и новые записи займут только свои страницы
+    void clear() {
+        for (int i = 0; i < pages.size(); i++) {
+            pages.set(i, null);
+        }
+    }
+
+    private static int countOffset(Status status) {
+        return NEW_COUNT + status.ordinal() * Integer.BYTES;
+    }
+
+    private int getInt(int id, int field) {
+        return page(id).getInt(offset(id) + field);
+    }
+
+    private void putInt(int id, int field, int value) {
+        page(id).putInt(offset(id) + field, value);
+    }
+
+    private ByteBuffer page(int id) {
+        return pages.get(id >>> PAGE_SHIFT);
+    }
+
+    private static int offset(int id) {
+        return (id & (PAGE_RECORDS - 1)) * RECORD_SIZE;
+    }
+}
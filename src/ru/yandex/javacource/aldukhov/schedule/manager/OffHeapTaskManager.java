@@ -0,0 +1,687 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.*;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// Менеджер, который держит задачи вне кучи: поля фиксированного размера — в OffHeapRecords,
+// название и описание — в StringArena. Task, Epic и Subtask создаются только при чтении и являются копиями:
+// их изменения попадают в менеджер через update*. В куче остаются история просмотров и лента изменений.
+// id выдаются подряд и служат номером записи. Индексов по статусу и тексту нет: выборки по статусу,
+// страницы и поиск проходят записи по порядку id, snapshot() собирает снимок за O(n).
+// Объём прямой памяти ограничен -XX:MaxDirectMemorySize (по умолчанию — размер кучи).
+public class OffHeapTaskManager implements TaskManager {
+    private final HistoryManager historyManager;
+    private final OffHeapRecords records = new OffHeapRecords();
+    private StringArena arena = new StringArena();
+    private int lastId;
+    private int taskCount;
+    private int epicCount;
+    private int subtaskCount;
+    // лента изменений, создаётся при первом вызове changes()
+    private ChangeFeed feed;
+
+    public OffHeapTaskManager() {
+        this(new InMemoryHistoryManager());
+    }
+
+    public OffHeapTaskManager(HistoryManager historyManager) {
+        this.historyManager = historyManager;
+    }
+
+    @Override
+    public int addNewTask(Task task) {
+        return insert(task, OffHeapRecords.TASK);
+    }
+
+    @Override
+    public Integer addNewEpic(Epic epic) {
+        if (epic.containsSubtaskId(epic.getId())) {
+            return null;
+        }
+        return insert(epic, OffHeapRecords.EPIC);
+    }
+
+    @Override
+    public Integer addNewSubtask(Subtask subtask) {
+        final int epicId = subtask.getEpicId();
+        if (records.type(epicId) != OffHeapRecords.EPIC) {
+            return null;
+        }
+        final int id = insertSubtask(subtask);
+        refreshEpicStatus(epicId);
+        return id;
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        if (records.type(task.getId()) != OffHeapRecords.TASK) {
+            return;
+        }
+        replaceTask(task);
+        compactIfWasteful();
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        if (records.type(epic.getId()) != OffHeapRecords.EPIC) {
+            return;
+        }
+        replaceEpic(epic);
+        compactIfWasteful();
+    }
+
+    // подзадача остаётся в своём эпике: обновление с другим epicId не применяется
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        if (!inOwnEpic(subtask)) {
+            return;
+        }
+        replaceSubtask(subtask);
+        refreshEpicStatus(subtask.getEpicId());
+        compactIfWasteful();
+    }
+
+    // Полный пересчёт счётчиков эпика по списку его подзадач
+    @Override
+    public void updateEpicStatus(Epic epic) {
+        final int epicId = epic.getId();
+        if (records.type(epicId) != OffHeapRecords.EPIC) {
+            return;
+        }
+        records.resetCounts(epicId);
+        for (int id = records.first(epicId); id != 0; id = records.next(id)) {
+            records.addCount(epicId, records.status(id), 1);
+        }
+        refreshEpicStatus(epicId);
+        epic.setStatus(records.status(epicId));
+    }
+
+    // Пакетные операции, как в InMemoryTaskManager: сначала проверяются все элементы,
+    // затем изменения применяются, и статус каждого затронутого эпика пересчитывается один раз
+    @Override
+    public List<Integer> addAll(Collection<? extends Task> items) {
+        for (Task item : items) {
+            if (item instanceof Subtask subtask) {
+                if (records.type(subtask.getEpicId()) != OffHeapRecords.EPIC) {
+                    return null;
+                }
+            } else if (item instanceof Epic epic) {
+                if (epic.containsSubtaskId(epic.getId())) {
+                    return null;
+                }
+            } else if (item == null) {
+                return null;
+            }
+        }
+        List<Integer> ids = new ArrayList<>(items.size());
+        Set<Integer> affected = new LinkedHashSet<>();
+        for (Task item : items) {
+            if (item instanceof Subtask subtask) {
+                ids.add(insertSubtask(subtask));
+                affected.add(subtask.getEpicId());
+            } else {
+                ids.add(insert(item, typeOf(item)));
+            }
+        }
+        affected.forEach(this::refreshEpicStatus);
+        return ids;
+    }
+
+    @Override
+    public boolean updateAll(Collection<? extends Task> items) {
+        for (Task item : items) {
+            final boolean exists;
+            if (item instanceof Subtask subtask) {
+                exists = inOwnEpic(subtask);
+            } else {
+                exists = item != null && records.type(item.getId()) == typeOf(item);
+            }
+            if (!exists) {
+                return false;
+            }
+        }
+        Set<Integer> affected = new LinkedHashSet<>();
+        for (Task item : items) {
+            if (item instanceof Subtask subtask) {
+                replaceSubtask(subtask);
+                affected.add(subtask.getEpicId());
+            } else if (item instanceof Epic epic) {
+                replaceEpic(epic);
+            } else {
+                replaceTask(item);
+            }
+        }
+        affected.forEach(this::refreshEpicStatus);
+        compactIfWasteful();
+        return true;
+    }
+
+    @Override
+    public boolean deleteAll(Collection<Integer> ids) {
+        for (Integer id : ids) {
+            if (id == null || records.type(id) == OffHeapRecords.FREE) {
+                return false;
+            }
+        }
+        Set<Integer> affected = new LinkedHashSet<>();
+        for (int id : ids) {
+            switch (records.type(id)) {
+                case OffHeapRecords.TASK -> delTaskEntry(id);
+                case OffHeapRecords.EPIC -> {
+                    delEpicEntry(id);
+                    affected.remove(id);
+                }
+                // подзадача могла уже удалиться вместе со своим эпиком из этого же пакета
+                case OffHeapRecords.SUBTASK -> affected.add(delSubtaskEntry(id));
+                default -> {
+                }
+            }
+        }
+        affected.forEach(this::refreshEpicStatus);
+        releaseIfEmpty();
+        compactIfWasteful();
+        return true;
+    }
+
+    private int insert(Task item, byte type) {
+        final int id = ++lastId;
+        records.allocate(id);
+        records.setType(id, type);
+        // у нового эпика нет подзадач, его статус — NEW
+        records.setStatus(id, type == OffHeapRecords.EPIC ? Status.NEW : item.getStatus());
+        records.setText(id, arena.put(item.getName(), item.getDescription()));
+        item.setId(id);
+        switch (type) {
+            case OffHeapRecords.TASK -> taskCount++;
+            case OffHeapRecords.EPIC -> epicCount++;
+            default -> subtaskCount++;
+        }
+        if (feed != null) {
+            feed.created(item);
+        }
+        return id;
+    }
+
+    private int insertSubtask(Subtask subtask) {
+        final int id = insert(subtask, OffHeapRecords.SUBTASK);
+        records.link(subtask.getEpicId(), id);
+        records.addCount(subtask.getEpicId(), subtask.getStatus(), 1);
+        return id;
+    }
+
+    private void replaceTask(Task task) {
+        replaceText(task);
+        records.setStatus(task.getId(), task.getStatus());
+        if (feed != null) {
+            feed.updated(task);
+        }
+    }
+
+    // статус эпика выводится из подзадач, из переданного объекта берутся только название и описание
+    private void replaceEpic(Epic epic) {
+        replaceText(epic);
+        epic.setStatus(records.status(epic.getId()));
+        if (feed != null) {
+            feed.updated(epic);
+        }
+    }
+
+    // запись с id подзадачи — подзадача того же эпика: обновление с другим epicId не применяется
+    private boolean inOwnEpic(Subtask subtask) {
+        final int id = subtask.getId();
+        return records.type(id) == OffHeapRecords.SUBTASK && records.epicId(id) == subtask.getEpicId();
+    }
+
+    private void replaceSubtask(Subtask subtask) {
+        final int id = subtask.getId();
+        final int epicId = subtask.getEpicId();
+        records.addCount(epicId, records.status(id), -1);
+        records.setStatus(id, subtask.getStatus());
+        records.addCount(epicId, subtask.getStatus(), 1);
+        replaceText(subtask);
+        if (feed != null) {
+            feed.updated(subtask);
+        }
+    }
+
+    private void replaceText(Task item) {
+        final int id = item.getId();
+        arena.free(records.text(id));
+        records.setText(id, arena.put(item.getName(), item.getDescription()));
+    }
+
+    private void refreshEpicStatus(int epicId) {
+        if (records.type(epicId) != OffHeapRecords.EPIC) {
+            return;
+        }
+        final Status status = records.epicStatus(epicId);
+        if (status != records.status(epicId)) {
+            records.setStatus(epicId, status);
+            if (feed != null) {
+                feed.statusChanged(epic(epicId));
+            }
+        }
+    }
+
+    // Освободившееся в арене место возвращается переносом живых строк в новую арену за один проход
+    private void compactIfWasteful() {
+        if (!arena.wasteful()) {
+            return;
+        }
+        StringArena compacted = new StringArena();
+        for (int id = 1; id <= lastId; id++) {
+            if (records.type(id) != OffHeapRecords.FREE) {
+                records.setText(id, arena.copyTo(compacted, records.text(id)));
+            }
+        }
+        arena = compacted;
+    }
+
+    private void releaseIfEmpty() {
+        if (taskCount + epicCount + subtaskCount == 0) {
+            records.clear();
+            arena = new StringArena();
+        }
+    }
+
+    @Override
+    public ChangeFeed changes() {
+        if (feed == null) {
+            feed = new ChangeFeed();
+        }
+        return feed;
+    }
+
+    // Снимок собирается из копий всех записей: у менеджера вне кучи нет версий в куче, которые можно разделять
+    @Override
+    public TaskSnapshot snapshot() {
+        return TaskSnapshot.of(tasksView(), epicsView(), subtasksView());
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return new ArrayList<>(tasksView());
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return new ArrayList<>(epicsView());
+    }
+
+    @Override
+    public List<Subtask> getSubtask() {
+        return new ArrayList<>(subtasksView());
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return byStatus(OffHeapRecords.TASK, status, this::task);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return byStatus(OffHeapRecords.EPIC, status, this::epic);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return byStatus(OffHeapRecords.SUBTASK, status, this::subtask);
+    }
+
+    private <T extends Task> List<T> byStatus(byte type, Status status, IntFunction<T> materialize) {
+        List<T> result = new ArrayList<>();
+        for (int id = 1; id <= lastId; id++) {
+            if (records.type(id) == type && records.status(id) == status) {
+                result.add(materialize.apply(id));
+            }
+        }
+        return result;
+    }
+
+    // Поиск без индекса: строки разбираются при каждом запросе, во временный TextIndex попадают только записи
+    // со словами запроса, а число документов для idf берётся по всему менеджеру, как в InMemoryTaskManager
+    @Override
+    public List<Task> search(String query) {
+        List<Task> result = new ArrayList<>();
+        if (query == null) {
+            return result;
+        }
+        final Predicate<String> matcher = TextIndex.matcher(query);
+        TextIndex candidates = new TextIndex();
+        for (int id = 1; id <= lastId; id++) {
+            if (records.type(id) != OffHeapRecords.FREE) {
+                final long text = records.text(id);
+                if (mentions(arena.name(text), matcher) || mentions(arena.description(text), matcher)) {
+                    candidates.add(materialize(id));
+                }
+            }
+        }
+        TextIndex.Statistics statistics = new TextIndex.Statistics();
+        candidates.collect(query, statistics);
+        statistics.documents = taskCount + epicCount + subtaskCount;
+        for (TextIndex.Hit hit : candidates.rank(query, statistics)) {
+            result.add(hit.task());
+        }
+        return result;
+    }
+
+    private static boolean mentions(String text, Predicate<String> matcher) {
+        for (String word : TextIndex.tokenize(text)) {
+            if (matcher.test(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public List<Subtask> getTaskOfEpic(Epic epic) {
+        return streamTaskOfEpic(epic).toList();
+    }
+
+    @Override
+    public Collection<Task> tasksView() {
+        return view(OffHeapRecords.TASK, this::task);
+    }
+
+    @Override
+    public Collection<Epic> epicsView() {
+        return view(OffHeapRecords.EPIC, this::epic);
+    }
+
+    @Override
+    public Collection<Subtask> subtasksView() {
+        return view(OffHeapRecords.SUBTASK, this::subtask);
+    }
+
+    @Override
+    public Stream<Subtask> streamTaskOfEpic(Epic epic) {
+        final int epicId = epic.getId();
+        if (records.type(epicId) != OffHeapRecords.EPIC) {
+            return Stream.empty();
+        }
+        return IntStream.iterate(records.first(epicId), id -> id != 0, records::next).mapToObj(this::subtask);
+    }
+
+    // Представление создаёт копии при обходе; размер — счётчик записей этого типа
+    private <T extends Task> Collection<T> view(byte type, IntFunction<T> materialize) {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new Iterator<>() {
+                    private int next = find(1);
+
+                    @Override
+                    public boolean hasNext() {
+                        return next != 0;
+                    }
+
+                    @Override
+                    public T next() {
+                        if (next == 0) {
+                            throw new NoSuchElementException();
+                        }
+                        final T item = materialize.apply(next);
+                        next = find(next + 1);
+                        return item;
+                    }
+
+                    private int find(int from) {
+                        for (int id = from; id <= lastId; id++) {
+                            if (records.type(id) == type) {
+                                return id;
+                            }
+                        }
+                        return 0;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return count(type);
+            }
+        };
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int pageSize) {
+        return page(OffHeapRecords.TASK, this::task, afterId, pageSize);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int pageSize) {
+        return page(OffHeapRecords.EPIC, this::epic, afterId, pageSize);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int pageSize) {
+        return page(OffHeapRecords.SUBTASK, this::subtask, afterId, pageSize);
+    }
+
+    private <T extends Task> List<T> page(byte type, IntFunction<T> materialize, int afterId, int pageSize) {
+        final int size = Math.clamp(pageSize, 0, MAX_PAGE_SIZE);
+        List<T> page = new ArrayList<>(size);
+        for (int id = Math.max(afterId, 0) + 1; id <= lastId && page.size() < size; id++) {
+            if (records.type(id) == type) {
+                page.add(materialize.apply(id));
+            }
+        }
+        return page;
+    }
+
+    @Override
+    public void clearTask() {
+        if (feed != null) {
+            feed.cleared(TaskEvent.Kind.TASK);
+        }
+        forEachOfType(OffHeapRecords.TASK, this::free);
+        taskCount = 0;
+        releaseIfEmpty();
+        compactIfWasteful();
+    }
+
+    @Override
+    public void clearEpic() {
+        if (feed != null) {
+            feed.cleared(TaskEvent.Kind.SUBTASK);
+            feed.cleared(TaskEvent.Kind.EPIC);
+        }
+        forEachOfType(OffHeapRecords.EPIC, this::free);
+        forEachOfType(OffHeapRecords.SUBTASK, this::free);
+        epicCount = 0;
+        subtaskCount = 0;
+        releaseIfEmpty();
+        compactIfWasteful();
+    }
+
+    @Override
+    public void clearSubtasks() {
+        if (feed != null) {
+            feed.cleared(TaskEvent.Kind.SUBTASK);
+        }
+        forEachOfType(OffHeapRecords.SUBTASK, this::free);
+        subtaskCount = 0;
+        forEachOfType(OffHeapRecords.EPIC, epicId -> {
+            records.unlinkAll(epicId);
+            refreshEpicStatus(epicId);
+        });
+        releaseIfEmpty();
+        compactIfWasteful();
+    }
+
+    private void forEachOfType(byte type, IntConsumer action) {
+        for (int id = 1; id <= lastId; id++) {
+            if (records.type(id) == type) {
+                action.accept(id);
+            }
+        }
+    }
+
+    @Override
+    public Task taskById(int id) {
+        final Task task = records.type(id) == OffHeapRecords.TASK ? task(id) : null;
+        historyManager.add(task);
+        return task;
+    }
+
+    @Override
+    public Epic epicById(int id) {
+        final Epic epic = records.type(id) == OffHeapRecords.EPIC ? epic(id) : null;
+        historyManager.add(epic);
+        return epic;
+    }
+
+    @Override
+    public Subtask subtaskById(int id) {
+        final Subtask subtask = records.type(id) == OffHeapRecords.SUBTASK ? subtask(id) : null;
+        historyManager.add(subtask);
+        return subtask;
+    }
+
+    @Override
+    public void delTaskById(int id) {
+        if (records.type(id) != OffHeapRecords.TASK) {
+            return;
+        }
+        delTaskEntry(id);
+        releaseIfEmpty();
+        compactIfWasteful();
+    }
+
+    @Override
+    public void delEpicById(int id) {
+        if (records.type(id) != OffHeapRecords.EPIC) {
+            return;
+        }
+        delEpicEntry(id);
+        releaseIfEmpty();
+        compactIfWasteful();
+    }
+
+    @Override
+    public void delSubtaskById(int id) {
+        if (records.type(id) != OffHeapRecords.SUBTASK) {
+            return;
+        }
+        refreshEpicStatus(delSubtaskEntry(id));
+        releaseIfEmpty();
+        compactIfWasteful();
+    }
+
+    private void delTaskEntry(int id) {
+        free(id);
+        taskCount--;
+        if (feed != null) {
+            feed.deleted(TaskEvent.Kind.TASK, id);
+        }
+    }
+
+    private void delEpicEntry(int id) {
+        // связи подзадачи остаются в записи после free, поэтому список можно обходить и освобождать на ходу
+        for (int subtaskId = records.first(id); subtaskId != 0; subtaskId = records.next(subtaskId)) {
+            free(subtaskId);
+            subtaskCount--;
+            if (feed != null) {
+                feed.deleted(TaskEvent.Kind.SUBTASK, subtaskId);
+            }
+        }
+        free(id);
+        epicCount--;
+        if (feed != null) {
+            feed.deleted(TaskEvent.Kind.EPIC, id);
+        }
+    }
+
+    // возвращает эпик удалённой подзадачи, его статус пересчитывает вызывающий
+    private int delSubtaskEntry(int id) {
+        final int epicId = records.epicId(id);
+        records.addCount(epicId, records.status(id), -1);
+        records.unlink(id);
+        free(id);
+        subtaskCount--;
+        if (feed != null) {
+            feed.deleted(TaskEvent.Kind.SUBTASK, id);
+        }
+        return epicId;
+    }
+
+    private void free(int id) {
+        arena.free(records.text(id));
+        records.setType(id, OffHeapRecords.FREE);
+        historyManager.remove(id);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return historyManager.getHistory();
+    }
+
+    // байты прямой памяти под записи и строки, включая ещё не занятое место страниц
+    public long offHeapBytes() {
+        return records.reservedBytes() + arena.reservedBytes();
+    }
+
+    private int count(byte type) {
+        return switch (type) {
+            case OffHeapRecords.TASK -> taskCount;
+            case OffHeapRecords.EPIC -> epicCount;
+            default -> subtaskCount;
+        };
+    }
+
+    private Task materialize(int id) {
+        return switch (records.type(id)) {
+            case OffHeapRecords.EPIC -> epic(id);
+            case OffHeapRecords.SUBTASK -> subtask(id);
+            default -> task(id);
+        };
+    }
+
+    private Task task(int id) {
+        final long text = records.text(id);
+        Task task = new Task(arena.name(text), arena.description(text));
+        task.setId(id);
+        task.setStatus(records.status(id));
+        return task;
+    }
+
+    private Epic epic(int id) {
+        final long text = records.text(id);
+        Epic epic = new Epic(arena.name(text), arena.description(text));
+        epic.setId(id);
+        epic.setStatus(records.status(id));
+        for (int subtaskId = records.first(id); subtaskId != 0; subtaskId = records.next(subtaskId)) {
+            epic.addSubtaskId(subtaskId);
+        }
+        return epic;
+    }
+
+    private Subtask subtask(int id) {
+        final long text = records.text(id);
+        Subtask subtask = new Subtask(arena.name(text), arena.description(text), records.epicId(id));
+        subtask.setId(id);
+        subtask.setStatus(records.status(id));
+        return subtask;
+    }
+
+    private static byte typeOf(Task item) {
+        if (item instanceof Subtask) {
+            return OffHeapRecords.SUBTASK;
+        }
+        return item instanceof Epic ? OffHeapRecords.EPIC : OffHeapRecords.TASK;
+    }
+}
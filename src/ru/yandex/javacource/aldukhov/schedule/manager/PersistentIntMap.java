@@ -0,0 +1,289 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import java.util.AbstractCollection;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+// Неизменяемая таблица с ключами int (префиксное дерево по 5 бит ключа на уровень, узлы со сжатием по битовой маске).
+// plus и minus возвращают новую таблицу, копируя только путь от корня до изменённого узла,
+// остальные узлы общие со старой версией. Старая версия остаётся доступной и не меняется,
+// поэтому её можно читать из любого потока без блокировок.
+public final class PersistentIntMap<V> {
+    private static final PersistentIntMap<?> EMPTY = new PersistentIntMap<>(Node.EMPTY, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentIntMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> PersistentIntMap<V> empty() {
+        return (PersistentIntMap<V>) EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        Node node = root;
+        for (int shift = 0; ; shift += 5) {
+            final int bit = bit(key, shift);
+            if ((node.dataMap & bit) != 0) {
+                final int i = Integer.bitCount(node.dataMap & (bit - 1));
+                return node.keys[i] == key ? (V) node.values[i] : null;
+            }
+            if ((node.nodeMap & bit) == 0) {
+                return null;
+            }
+            node = node.nodes[Integer.bitCount(node.nodeMap & (bit - 1))];
+        }
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    public PersistentIntMap<V> plus(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("Значение не может быть null");
+        }
+        final boolean[] added = new boolean[1];
+        final Node updated = put(root, key, value, 0, added);
+        if (updated == root) {
+            return this;
+        }
+        return new PersistentIntMap<>(updated, added[0] ? size + 1 : size);
+    }
+
+    public PersistentIntMap<V> minus(int key) {
+        final Node updated = remove(root, key, 0);
+        if (updated == root) {
+            return this;
+        }
+        return new PersistentIntMap<>(updated, size - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super V> action) {
+        forEach(root, (Consumer<Object>) action);
+    }
+
+    public Collection<V> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator<>(root);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private static int bit(int key, int shift) {
+        return 1 << ((key >>> shift) & 31);
+    }
+
+    private static Node put(Node node, int key, Object value, int shift, boolean[] added) {
+        final int bit = bit(key, shift);
+        if ((node.dataMap & bit) != 0) {
+            final int i = Integer.bitCount(node.dataMap & (bit - 1));
+            if (node.keys[i] == key) {
+                if (node.values[i] == value) {
+                    return node;
+                }
+                Object[] values = node.values.clone();
+                values[i] = value;
+                return new Node(node.dataMap, node.nodeMap, node.keys, values, node.nodes);
+            }
+            added[0] = true;
+            final Node child = pair(node.keys[i], node.values[i], key, value, shift + 5);
+            return node.dataToNode(bit, i, child);
+        }
+        if ((node.nodeMap & bit) != 0) {
+            final int j = Integer.bitCount(node.nodeMap & (bit - 1));
+            final Node child = node.nodes[j];
+            final Node updated = put(child, key, value, shift + 5, added);
+            if (updated == child) {
+                return node;
+            }
+            return node.withNode(j, updated);
+        }
+        added[0] = true;
+        return node.insertData(bit, Integer.bitCount(node.dataMap & (bit - 1)), key, value);
+    }
+
+    private static Node remove(Node node, int key, int shift) {
+        final int bit = bit(key, shift);
+        if ((node.dataMap & bit) != 0) {
+            final int i = Integer.bitCount(node.dataMap & (bit - 1));
+            if (node.keys[i] != key) {
+                return node;
+            }
+            return node.removeData(bit, i);
+        }
+        if ((node.nodeMap & bit) != 0) {
+            final int j = Integer.bitCount(node.nodeMap & (bit - 1));
+            final Node child = node.nodes[j];
+            final Node updated = remove(child, key, shift + 5);
+            if (updated == child) {
+                return node;
+            }
+            // узел с единственной записью поднимается в родителя, чтобы дерево оставалось минимальным
+            if (updated.nodeMap == 0 && updated.keys.length == 1) {
+                return node.nodeToData(bit, j, updated.keys[0], updated.values[0]);
+            }
+            return node.withNode(j, updated);
+        }
+        return node;
+    }
+
+    // Два разных ключа расходятся не позже уровня со сдвигом 30, поэтому рекурсия конечна
+    private static Node pair(int key1, Object value1, int key2, Object value2, int shift) {
+        final int bit1 = bit(key1, shift);
+        final int bit2 = bit(key2, shift);
+        if (bit1 == bit2) {
+            return new Node(0, bit1, new int[0], new Object[0],
+                    new Node[]{pair(key1, value1, key2, value2, shift + 5)});
+        }
+        if (Integer.compareUnsigned(bit1, bit2) < 0) {
+            return new Node(bit1 | bit2, 0, new int[]{key1, key2}, new Object[]{value1, value2}, new Node[0]);
+        }
+        return new Node(bit1 | bit2, 0, new int[]{key2, key1}, new Object[]{value2, value1}, new Node[0]);
+    }
+
+    private static void forEach(Node node, Consumer<Object> action) {
+        for (Object value : node.values) {
+            action.accept(value);
+        }
+        for (Node child : node.nodes) {
+            forEach(child, action);
+        }
+    }
+
+    private static final class Node {
+        static final Node EMPTY = new Node(0, 0, new int[0], new Object[0], new Node[0]);
+
+        final int dataMap;
+        final int nodeMap;
+        final int[] keys;
+        final Object[] values;
+        final Node[] nodes;
+
+        Node(int dataMap, int nodeMap, int[] keys, Object[] values, Node[] nodes) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.keys = keys;
+            this.values = values;
+            this.nodes = nodes;
+        }
+
+        Node withNode(int j, Node child) {
+            Node[] copy = nodes.clone();
+            copy[j] = child;
+            return new Node(dataMap, nodeMap, keys, values, copy);
+        }
+
+        Node insertData(int bit, int i, int key, Object value) {
+            int[] newKeys = new int[keys.length + 1];
+            Object[] newValues = new Object[values.length + 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(values, 0, newValues, 0, i);
+            newKeys[i] = key;
+            newValues[i] = value;
+            System.arraycopy(keys, i, newKeys, i + 1, keys.length - i);
+            System.arraycopy(values, i, newValues, i + 1, values.length - i);
+            return new Node(dataMap | bit, nodeMap, newKeys, newValues, nodes);
+        }
+
+        Node removeData(int bit, int i) {
+            int[] newKeys = new int[keys.length - 1];
+            Object[] newValues = new Object[values.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, i);
+            System.arraycopy(values, 0, newValues, 0, i);
+            System.arraycopy(keys, i + 1, newKeys, i, keys.length - i - 1);
+            System.arraycopy(values, i + 1, newValues, i, values.length - i - 1);
+            return new Node(dataMap & ~bit, nodeMap, newKeys, newValues, nodes);
+        }
+
+        Node dataToNode(int bit, int i, Node child) {
+            final Node withoutData = removeData(bit, i);
+            final int j = Integer.bitCount(nodeMap & (bit - 1));
+            Node[] newNodes = new Node[nodes.length + 1];
+            System.arraycopy(nodes, 0, newNodes, 0, j);
+            newNodes[j] = child;
+            System.arraycopy(nodes, j, newNodes, j + 1, nodes.length - j);
+            return new Node(withoutData.dataMap, nodeMap | bit, withoutData.keys, withoutData.values, newNodes);
+        }
+
+        Node nodeToData(int bit, int j, int key, Object value) {
+            Node[] newNodes = new Node[nodes.length - 1];
+            System.arraycopy(nodes, 0, newNodes, 0, j);
+            System.arraycopy(nodes, j + 1, newNodes, j, nodes.length - j - 1);
+            final Node withoutNode = new Node(dataMap, nodeMap & ~bit, keys, values, newNodes);
+            return withoutNode.insertData(bit, Integer.bitCount(dataMap & (bit - 1)), key, value);
+        }
+    }
+
+    // Обход в глубину со стеком узлов: глубина дерева не больше 7 уровней
+    private static final class ValueIterator<V> implements Iterator<V> {
+        private final Node[] stack = new Node[8];
+        private final int[] childIndex = new int[8];
+        private int depth;
+        private Node current;
+        private int valueIndex;
+
+        ValueIterator(Node root) {
+            current = root;
+            stack[0] = root;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return current != null;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (current == null) {
+                throw new NoSuchElementException();
+            }
+            final V value = (V) current.values[valueIndex++];
+            advance();
+            return value;
+        }
+
+        // останавливается на следующем значении или обнуляет current, если значений больше нет
+        private void advance() {
+            while (current != null && valueIndex == current.values.length) {
+                final Node node = stack[depth];
+                if (childIndex[depth] < node.nodes.length) {
+                    final Node child = node.nodes[childIndex[depth]++];
+                    stack[++depth] = child;
+                    childIndex[depth] = 0;
+                    current = child;
+                    valueIndex = 0;
+                } else if (depth == 0) {
+                    current = null;
+                } else {
+                    depth--;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,747 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+// Менеджер из нескольких шардов: каждый шард — отдельный InMemoryTaskManager под своей блокировкой.
+// Задача и эпик попадают в случайный шард, подзадача — в шард своего эпика. id выдаёт сам шард
+// с шагом в число шардов, поэтому шард записи — это остаток от деления id, без таблицы маршрутов.
+// Операции с одним id блокируют только свой шард. Общие выборки (списки, статусы, поиск, история, страницы)
+// параллельно расходятся по шардам в пуле fork-join и сливаются; каждый шард читается под своей блокировкой,
+// поэтому выборка не является срезом всей доски на один момент — для этого есть snapshot().
+// Пакетные операции и очистки блокируют все шарды по порядку и выполняются атомарно.
+public class ShardedTaskManager implements TaskManager {
+    private final Shard[] shards;
+    private final ForkJoinPool pool;
+    // Общий снимок ведётся после первого вызова snapshot(): шарды копят изменения операции
+    // и публикуют их одним compareAndSet, как в ConcurrentTaskManager
+    private final AtomicReference<TaskSnapshot> version = new AtomicReference<>();
+    // общая лента изменений, создаётся при первом вызове changes()
+    private volatile ChangeFeed feed;
+
+    public ShardedTaskManager() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ShardedTaskManager(int shardCount) {
+        this(shardCount, ForkJoinPool.commonPool());
+    }
+
+    public ShardedTaskManager(int shardCount, ForkJoinPool pool) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("Число шардов должно быть положительным: " + shardCount);
+        }
+        this.pool = pool;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, shardCount);
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    @Override
+    public int addNewTask(Task task) {
+        return anyShard().call(manager -> manager.addNewTask(task));
+    }
+
+    @Override
+    public Integer addNewEpic(Epic epic) {
+        return anyShard().call(manager -> manager.addNewEpic(epic));
+    }
+
+    @Override
+    public Integer addNewSubtask(Subtask subtask) {
+        return shardOf(subtask.getEpicId()).call(manager -> manager.addNewSubtask(subtask));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        shardOf(task.getId()).run(manager -> manager.updateTask(task));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        shardOf(epic.getId()).run(manager -> manager.updateEpic(epic));
+    }
+
+    // подзадача живёт в шарде своего id; перенос к эпику из другого шарда игнорируется, как и к несуществующему
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        shardOf(subtask.getId()).run(manager -> manager.updateSubtask(subtask));
+    }
+
+    @Override
+    public void updateEpicStatus(Epic epic) {
+        shardOf(epic.getId()).run(manager -> manager.updateEpicStatus(epic));
+    }
+
+    // Пакет проверяется целиком под блокировками всех шардов теми же правилами, что и в шарде,
+    // затем раскладывается по шардам с сохранением порядка, и каждый шард применяет свою часть одним пакетом.
+    // В общей ленте события пакета идут по шардам, а в снимке пакет появляется целиком
+    @Override
+    public List<Integer> addAll(Collection<? extends Task> items) {
+        lockAll();
+        try {
+            for (Task item : items) {
+                if (item instanceof Subtask subtask) {
+                    if (!(shardOf(subtask.getEpicId()).manager.peek(subtask.getEpicId()) instanceof Epic)) {
+                        return null;
+                    }
+                } else if (item instanceof Epic epic) {
+                    if (epic.containsSubtaskId(epic.getId())) {
+                        return null;
+                    }
+                } else if (item == null) {
+                    return null;
+                }
+            }
+            final List<List<Task>> parts = emptyParts();
+            final int[] targets = new int[items.size()];
+            int i = 0;
+            for (Task item : items) {
+                final int target = item instanceof Subtask subtask
+                        ? indexOf(subtask.getEpicId())
+                        : ThreadLocalRandom.current().nextInt(shards.length);
+                targets[i++] = target;
+                parts.get(target).add(item);
+            }
+            final List<Iterator<Integer>> ids = new ArrayList<>(shards.length);
+            for (int s = 0; s < shards.length; s++) {
+                final List<Task> part = parts.get(s);
+                ids.add(part.isEmpty() ? Collections.emptyIterator() : shards[s].manager.addAll(part).iterator());
+            }
+            List<Integer> result = new ArrayList<>(targets.length);
+            for (int target : targets) {
+                result.add(ids.get(target).next());
+            }
+            publishAll();
+            return result;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public boolean updateAll(Collection<? extends Task> items) {
+        lockAll();
+        try {
+            for (Task item : items) {
+                final boolean exists;
+                if (item instanceof Subtask subtask) {
+                    exists = shardOf(subtask.getId()).manager.updatable(subtask);
+                } else if (item instanceof Epic epic) {
+                    exists = shardOf(epic.getId()).manager.peek(epic.getId()) instanceof Epic;
+                } else {
+                    exists = item != null && isTask(shardOf(item.getId()).manager.peek(item.getId()));
+                }
+                if (!exists) {
+                    return false;
+                }
+            }
+            final List<List<Task>> parts = emptyParts();
+            for (Task item : items) {
+                parts.get(indexOf(item.getId())).add(item);
+            }
+            for (int s = 0; s < shards.length; s++) {
+                if (!parts.get(s).isEmpty()) {
+                    shards[s].manager.updateAll(parts.get(s));
+                }
+            }
+            publishAll();
+            return true;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public boolean deleteAll(Collection<Integer> ids) {
+        lockAll();
+        try {
+            for (Integer id : ids) {
+                if (id == null || shardOf(id).manager.peek(id) == null) {
+                    return false;
+                }
+            }
+            final List<List<Integer>> parts = new ArrayList<>(shards.length);
+            for (int s = 0; s < shards.length; s++) {
+                parts.add(new ArrayList<>());
+            }
+            for (int id : ids) {
+                parts.get(indexOf(id)).add(id);
+            }
+            for (int s = 0; s < shards.length; s++) {
+                if (!parts.get(s).isEmpty()) {
+                    shards[s].manager.deleteAll(parts.get(s));
+                }
+            }
+            publishAll();
+            return true;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return concat(fanOut(InMemoryTaskManager::getTasks));
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return concat(fanOut(InMemoryTaskManager::getEpics));
+    }
+
+    @Override
+    public List<Subtask> getSubtask() {
+        return concat(fanOut(InMemoryTaskManager::getSubtask));
+    }
+
+    @Override
+    public List<Task> getTasksByStatus(Status status) {
+        return concat(fanOut(manager -> manager.getTasksByStatus(status)));
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return concat(fanOut(manager -> manager.getEpicsByStatus(status)));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return concat(fanOut(manager -> manager.getSubtasksByStatus(status)));
+    }
+
+    // Поиск в два прохода: сначала со всех шардов собирается статистика слов запроса для idf,
+    // затем каждый шард оценивает свои задачи по общей статистике, и результаты сливаются по оценке.
+    // Так порядок совпадает с поиском по одному общему индексу
+    @Override
+    public List<Task> search(String query) {
+        if (query == null) {
+            return new ArrayList<>();
+        }
+        final TextIndex.Statistics statistics = new TextIndex.Statistics();
+        for (TextIndex.Statistics part : fanOut(manager -> {
+            TextIndex.Statistics collected = new TextIndex.Statistics();
+            manager.collectSearchStatistics(query, collected);
+            return collected;
+        })) {
+            statistics.documents += part.documents;
+            part.sizes.forEach((word, size) -> statistics.sizes.merge(word, size, Integer::sum));
+        }
+        final List<TextIndex.Hit> hits = concat(fanOut(manager -> manager.rank(query, statistics)));
+        hits.sort(TextIndex.Hit.ORDER);
+        List<Task> result = new ArrayList<>(hits.size());
+        for (TextIndex.Hit hit : hits) {
+            result.add(hit.task());
+        }
+        return result;
+    }
+
+    @Override
+    public List<Subtask> getTaskOfEpic(Epic epic) {
+        return shardOf(epic.getId()).call(manager -> manager.getTaskOfEpic(epic));
+    }
+
+    @Override
+    public Collection<Task> tasksView() {
+        return view(InMemoryTaskManager::tasksView);
+    }
+
+    @Override
+    public Collection<Epic> epicsView() {
+        return view(InMemoryTaskManager::epicsView);
+    }
+
+    @Override
+    public Collection<Subtask> subtasksView() {
+        return view(InMemoryTaskManager::subtasksView);
+    }
+
+    // поток строится по копии, снятой под блокировкой шарда: ленивый обход шарда вне блокировки небезопасен
+    @Override
+    public Stream<Subtask> streamTaskOfEpic(Epic epic) {
+        return getTaskOfEpic(epic).stream();
+    }
+
+    // Каждый шард отдаёт свою страницу после курсора, из их объединения берутся pageSize наименьших id
+    @Override
+    public List<Task> getTasksPage(int afterId, int pageSize) {
+        return page(fanOut(manager -> manager.getTasksPage(afterId, pageSize)), pageSize);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int pageSize) {
+        return page(fanOut(manager -> manager.getEpicsPage(afterId, pageSize)), pageSize);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int pageSize) {
+        return page(fanOut(manager -> manager.getSubtasksPage(afterId, pageSize)), pageSize);
+    }
+
+    // Событие очистки менеджер публикует в общую ленту сам, один раз и до событий шардов
+    @Override
+    public void clearTask() {
+        lockAll();
+        try {
+            emit(changes -> changes.cleared(TaskEvent.Kind.TASK));
+            for (Shard shard : shards) {
+                shard.manager.clearTask();
+            }
+            publishAll();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void clearEpic() {
+        lockAll();
+        try {
+            emit(changes -> {
+                changes.cleared(TaskEvent.Kind.SUBTASK);
+                changes.cleared(TaskEvent.Kind.EPIC);
+            });
+            for (Shard shard : shards) {
+                shard.manager.clearEpic();
+            }
+            publishAll();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public void clearSubtasks() {
+        lockAll();
+        try {
+            emit(changes -> changes.cleared(TaskEvent.Kind.SUBTASK));
+            for (Shard shard : shards) {
+                shard.manager.clearSubtasks();
+            }
+            publishAll();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    @Override
+    public Task taskById(int id) {
+        return shardOf(id).call(manager -> manager.taskById(id));
+    }
+
+    @Override
+    public Epic epicById(int id) {
+        return shardOf(id).call(manager -> manager.epicById(id));
+    }
+
+    @Override
+    public Subtask subtaskById(int id) {
+        return shardOf(id).call(manager -> manager.subtaskById(id));
+    }
+
+    @Override
+    public void delTaskById(int id) {
+        shardOf(id).run(manager -> manager.delTaskById(id));
+    }
+
+    @Override
+    public void delEpicById(int id) {
+        shardOf(id).run(manager -> manager.delEpicById(id));
+    }
+
+    @Override
+    public void delSubtaskById(int id) {
+        shardOf(id).run(manager -> manager.delSubtaskById(id));
+    }
+
+    // Истории шардов упорядочены по времени просмотра и сливаются по нему в общую историю
+    @Override
+    public List<Task> getHistory() {
+        final List<ShardHistory.Views> parts = fanOutShards(shard -> shard.call(manager -> shard.history.views()));
+        int total = 0;
+        for (ShardHistory.Views part : parts) {
+            total += part.tasks().size();
+        }
+        List<Task> history = new ArrayList<>(total);
+        final int[] positions = new int[parts.size()];
+        for (int n = 0; n < total; n++) {
+            int next = -1;
+            for (int i = 0; i < parts.size(); i++) {
+                if (positions[i] < parts.get(i).tasks().size() && (next < 0
+                        || parts.get(i).stamps()[positions[i]] < parts.get(next).stamps()[positions[next]])) {
+                    next = i;
+                }
+            }
+            history.add(parts.get(next).tasks().get(positions[next]++));
+        }
+        return history;
+    }
+
+    // Первый вызов строит снимок под блокировками всех шардов за O(n) и подключает к шардам запись изменений,
+    // дальше снимок берётся за O(1) без блокировок
+    @Override
+    public TaskSnapshot snapshot() {
+        final TaskSnapshot current = version.get();
+        if (current != null) {
+            return current;
+        }
+        lockAll();
+        try {
+            if (version.get() == null) {
+                List<Task> tasks = new ArrayList<>();
+                List<Epic> epics = new ArrayList<>();
+                List<Subtask> subtasks = new ArrayList<>();
+                for (Shard shard : shards) {
+                    tasks.addAll(shard.manager.tasksView());
+                    epics.addAll(shard.manager.epicsView());
+                    subtasks.addAll(shard.manager.subtasksView());
+                    shard.manager.attachChanges(shard.events);
+                }
+                version.set(TaskSnapshot.of(tasks, epics, subtasks));
+            }
+            return version.get();
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // Лента создаётся под блокировками всех шардов, поэтому события не теряются у записей, идущих параллельно
+    @Override
+    public ChangeFeed changes() {
+        final ChangeFeed current = feed;
+        if (current != null) {
+            return current;
+        }
+        lockAll();
+        try {
+            if (feed == null) {
+                for (Shard shard : shards) {
+                    shard.manager.attachChanges(shard.events);
+                }
+                feed = new ChangeFeed();
+            }
+            return feed;
+        } finally {
+            unlockAll();
+        }
+    }
+
+    // Запрос расходится по шардам параллельно в пуле fork-join: первый шард читает вызывающий поток,
+    // остальные — задачи пула
+    private <R> List<R> fanOut(Function<InMemoryTaskManager, R> query) {
+        return fanOutShards(shard -> shard.call(query));
+    }
+
+    private <R> List<R> fanOutShards(Function<Shard, R> query) {
+        final List<ForkJoinTask<R>> forked = new ArrayList<>(shards.length - 1);
+        for (int i = 1; i < shards.length; i++) {
+            final Shard shard = shards[i];
+            forked.add(pool.submit(() -> query.apply(shard)));
+        }
+        List<R> results = new ArrayList<>(shards.length);
+        results.add(query.apply(shards[0]));
+        for (ForkJoinTask<R> task : forked) {
+            results.add(task.join());
+        }
+        return results;
+    }
+
+    private static <T> List<T> concat(List<List<T>> parts) {
+        int size = 0;
+        for (List<T> part : parts) {
+            size += part.size();
+        }
+        List<T> result = new ArrayList<>(size);
+        for (List<T> part : parts) {
+            result.addAll(part);
+        }
+        return result;
+    }
+
+    private static <T extends Task> List<T> page(List<List<T>> parts, int pageSize) {
+        final List<T> merged = concat(parts);
+        merged.sort(Comparator.comparingInt(Task::getId));
+        final int size = Math.clamp(pageSize, 0, MAX_PAGE_SIZE);
+        return merged.size() <= size ? merged : new ArrayList<>(merged.subList(0, size));
+    }
+
+    // Представление над всеми шардами: размер складывается по шардам, а обход копирует
+    // содержимое одного шарда за раз под его блокировкой, поэтому не видит незавершённых записей
+    private <T extends Task> Collection<T> view(Function<InMemoryTaskManager, Collection<T>> view) {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<T> iterator() {
+                return new Iterator<>() {
+                    private int next;
+                    private Iterator<T> current = Collections.emptyIterator();
+
+                    @Override
+                    public boolean hasNext() {
+                        while (!current.hasNext() && next < shards.length) {
+                            current = shards[next++].call(manager -> List.copyOf(view.apply(manager))).iterator();
+                        }
+                        return current.hasNext();
+                    }
+
+                    @Override
+                    public T next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return current.next();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                int size = 0;
+                for (Shard shard : shards) {
+                    size += shard.call(manager -> view.apply(manager).size());
+                }
+                return size;
+            }
+        };
+    }
+
+    private List<List<Task>> emptyParts() {
+        final List<List<Task>> parts = new ArrayList<>(shards.length);
+        for (int s = 0; s < shards.length; s++) {
+            parts.add(new ArrayList<>());
+        }
+        return parts;
+    }
+
+    private static boolean isTask(Task task) {
+        return task != null && !(task instanceof Epic) && !(task instanceof Subtask);
+    }
+
+    private Shard anyShard() {
+        return shards[ThreadLocalRandom.current().nextInt(shards.length)];
+    }
+
+    private Shard shardOf(int id) {
+        return shards[indexOf(id)];
+    }
+
+    private int indexOf(int id) {
+        return Math.floorMod(id, shards.length);
+    }
+
+    // вызывается под блокировками всех шардов: изменения пакета попадают в снимок одним шагом
+    private void publishAll() {
+        List<UnaryOperator<TaskSnapshot>> changes = new ArrayList<>();
+        for (Shard shard : shards) {
+            changes.addAll(shard.events.pending);
+            shard.events.pending.clear();
+        }
+        publish(changes);
+    }
+
+    // Изменения разных шардов касаются разных id и независимы, поэтому повтор после неудачного compareAndSet безопасен
+    private void publish(List<UnaryOperator<TaskSnapshot>> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        version.updateAndGet(current -> {
+            TaskSnapshot next = current;
+            for (UnaryOperator<TaskSnapshot> change : changes) {
+                next = change.apply(next);
+            }
+            return next;
+        });
+    }
+
+    private void emit(Consumer<ChangeFeed> event) {
+        final ChangeFeed current = feed;
+        if (current != null) {
+            event.accept(current);
+        }
+    }
+
+    private void lockAll() {
+        for (Shard shard : shards) {
+            shard.lock.lock();
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = shards.length - 1; i >= 0; i--) {
+            shards[i].lock.unlock();
+        }
+    }
+
+    private final class Shard {
+        final ReentrantLock lock = new ReentrantLock();
+        final ShardHistory history = new ShardHistory();
+        final ShardEvents events = new ShardEvents();
+        final InMemoryTaskManager manager;
+
+        Shard(int index, int count) {
+            this.manager = new InMemoryTaskManager(history, new ShardIds(index, count));
+        }
+
+        <R> R call(Function<InMemoryTaskManager, R> operation) {
+            lock.lock();
+            try {
+                final R result = operation.apply(manager);
+                if (!events.pending.isEmpty()) {
+                    publish(events.pending);
+                    events.pending.clear();
+                }
+                return result;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void run(Consumer<InMemoryTaskManager> operation) {
+            call(manager -> {
+                operation.accept(manager);
+                return null;
+            });
+        }
+    }
+
+    // Лента шарда событий не хранит: пересылает их в общую ленту и копит изменения для общего снимка
+    // до конца операции. Вызывается только под блокировкой своего шарда
+    private final class ShardEvents extends ChangeFeed {
+        final List<UnaryOperator<TaskSnapshot>> pending = new ArrayList<>();
+
+        ShardEvents() {
+            super(2);
+        }
+
+        @Override
+        void created(Task task) {
+            emit(changes -> changes.created(task));
+            record(snapshot -> with(snapshot, task));
+        }
+
+        @Override
+        void updated(Task task) {
+            emit(changes -> changes.updated(task));
+            record(snapshot -> with(snapshot, task));
+        }
+
+        @Override
+        void deleted(TaskEvent.Kind kind, int id) {
+            emit(changes -> changes.deleted(kind, id));
+            record(snapshot -> switch (kind) {
+                case TASK -> snapshot.withoutTask(id);
+                case EPIC -> snapshot.withoutEpic(id);
+                case SUBTASK -> snapshot.withoutSubtask(id);
+            });
+        }
+
+        @Override
+        void statusChanged(Epic epic) {
+            emit(changes -> changes.statusChanged(epic));
+            record(snapshot -> snapshot.withEpic(epic));
+        }
+
+        // в общую ленту очистку публикует сам менеджер
+        @Override
+        void cleared(TaskEvent.Kind kind) {
+            record(snapshot -> switch (kind) {
+                case TASK -> snapshot.withoutTasks();
+                case EPIC -> snapshot.withoutEpics();
+                case SUBTASK -> snapshot.withoutSubtasks();
+            });
+        }
+
+        private void record(UnaryOperator<TaskSnapshot> change) {
+            if (version.get() != null) {
+                pending.add(change);
+            }
+        }
+
+        private static TaskSnapshot with(TaskSnapshot snapshot, Task task) {
+            if (task instanceof Subtask subtask) {
+                return snapshot.withSubtask(subtask);
+            }
+            return task instanceof Epic epic ? snapshot.withEpic(epic) : snapshot.withTask(task);
+        }
+    }
+
+    // История шарда с временем каждого просмотра. Общий счётчик стал бы точкой конкуренции между шардами,
+    // а System.nanoTime монотонно и не требует записи в общую память
+    private static final class ShardHistory implements HistoryManager {
+        private final InMemoryHistoryManager history = new InMemoryHistoryManager();
+        private final IntLongMap stamps = new IntLongMap();
+
+        @Override
+        public void add(Task task) {
+            if (task == null) {
+                return;
+            }
+            history.add(task);
+            stamps.put(task.getId(), System.nanoTime());
+        }
+
+        @Override
+        public void remove(int id) {
+            history.remove(id);
+            stamps.remove(id);
+        }
+
+        @Override
+        public List<Task> getHistory() {
+            return history.getHistory();
+        }
+
+        Views views() {
+            final List<Task> tasks = history.getHistory();
+            final long[] times = new long[tasks.size()];
+            for (int i = 0; i < times.length; i++) {
+                times[i] = stamps.get(tasks.get(i).getId(), 0);
+            }
+            return new Views(tasks, times);
+        }
+
+        record Views(List<Task> tasks, long[] stamps) {
+        }
+    }
+
+    // id шарда index из count: index + count, index + 2 * count, ... — остаток от деления на count равен index.
+    // Вызывается под блокировкой шарда
+    private static final class ShardIds implements IdGenerator {
+        private final int step;
+        private int last;
+
+        ShardIds(int index, int count) {
+            this.step = count;
+            this.last = index;
+        }
+
+        @Override
+        public int nextId() {
+            return last += step;
+        }
+    }
+}
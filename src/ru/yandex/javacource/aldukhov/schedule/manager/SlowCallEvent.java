@@ -0,0 +1,32 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// Событие JFR о вызове метода TaskManager дольше порога InstrumentedTaskManager.
+// Пишется только при включённой записи JFR, например -XX:StartFlightRecording
+@Name("ru.yandex.javacource.aldukhov.schedule.SlowCall")
+@Label("Slow TaskManager Call")
+@Category("Kanban")
+@Description("TaskManager method call that took longer than the configured threshold")
+final class SlowCallEvent extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("Latency")
+    @Timespan
+    long latency;
+
+    static void emit(String method, long latencyNanos) {
+        SlowCallEvent event = new SlowCallEvent();
+        if (event.isEnabled()) {
+            event.method = method;
+            event.latency = latencyNanos;
+            event.commit();
+        }
+    }
+}
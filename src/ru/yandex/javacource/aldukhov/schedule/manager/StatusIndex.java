@@ -0,0 +1,103 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Вторичный индекс задач одного типа по статусу.
+// Для каждого статуса задачи лежат в плотном массиве, поэтому выборка стоит O(k) от размера ответа.
+// Удаление переносит последний элемент массива на место удалённого, позиции хранятся по id.
+// Статус, под которым задача проиндексирована, запоминается отдельно: задачу могут изменить
+// на месте до вызова update, и тогда её текущий статус уже не совпадает с индексом.
+final class StatusIndex<T extends Task> {
+    private static final Status[] STATUSES = Status.values();
+
+    private final Object[][] members = new Object[STATUSES.length][];
+    private final int[] sizes = new int[STATUSES.length];
+    private final IntObjectMap<Position> positions = new IntObjectMap<>();
+
+    StatusIndex() {
+        for (int i = 0; i < members.length; i++) {
+            members[i] = new Object[16];
+        }
+    }
+
+    void add(T task) {
+        Position position = new Position();
+        positions.put(task.getId(), position);
+        append(task, task.getStatus(), position);
+    }
+
+    void update(T task) {
+        final Position position = positions.get(task.getId());
+        if (position == null) {
+            return;
+        }
+        if (position.status == task.getStatus()) {
+            members[position.status.ordinal()][position.index] = task;
+            return;
+        }
+        detach(position);
+        append(task, task.getStatus(), position);
+    }
+
+    void remove(int id) {
+        final Position position = positions.remove(id);
+        if (position != null) {
+            detach(position);
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < members.length; i++) {
+            Arrays.fill(members[i], 0, sizes[i], null);
+            sizes[i] = 0;
+        }
+        positions.clear();
+    }
+
+    int count(Status status) {
+        return sizes[status.ordinal()];
+    }
+
+    @SuppressWarnings("unchecked")
+    List<T> get(Status status) {
+        final int s = status.ordinal();
+        final Object[] array = members[s];
+        List<T> result = new ArrayList<>(sizes[s]);
+        for (int i = 0; i < sizes[s]; i++) {
+            result.add((T) array[i]);
+        }
+        return result;
+    }
+
+    private void append(T task, Status status, Position position) {
+        final int s = status.ordinal();
+        if (sizes[s] == members[s].length) {
+            members[s] = Arrays.copyOf(members[s], sizes[s] << 1);
+        }
+        position.status = status;
+        position.index = sizes[s];
+        members[s][sizes[s]++] = task;
+    }
+
+    private void detach(Position position) {
+        final int s = position.status.ordinal();
+        final Object[] array = members[s];
+        final int last = --sizes[s];
+        if (position.index != last) {
+            final Task moved = (Task) array[last];
+            array[position.index] = moved;
+            positions.get(moved.getId()).index = position.index;
+        }
+        array[last] = null;
+    }
+
+    private static final class Position {
+        Status status;
+        int index;
+    }
+}
@@ -0,0 +1,128 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Строки вне кучи: название и описание задачи лежат одной записью [длина][UTF-8][длина][UTF-8]
+// в страницах прямой памяти и адресуются long (номер страницы в старших 32 битах, смещение — в младших).
+// Длина -1 обозначает null. Записи только дописываются: место заменённых и удалённых строк
+// учитывается в garbage и возвращается копированием живых записей в новую арену (copyTo).
+final class StringArena {
+    static final int PAGE_SIZE = 16 << 20;
+    private static final int NULL_LENGTH = -1;
+
+    private final List<ByteBuffer> pages = new ArrayList<>();
+    private ByteBuffer current;
+    private long used;
+    private long garbage;
+
+    long put(String name, String description) {
+        final byte[] nameBytes = bytes(name);
+        final byte[] descriptionBytes = bytes(description);
+        final int size = Integer.BYTES * 2 + length(nameBytes) + length(descriptionBytes);
+        final long address = allocate(size);
+        final ByteBuffer page = pages.get(page(address));
+        int offset = offset(address);
+        offset = write(page, offset, nameBytes);
+        write(page, offset, descriptionBytes);
+        return address;
+    }
+
+    String name(long address) {
+        return read(pages.get(page(address)), offset(address));
+    }
+
+    String description(long address) {
+        final ByteBuffer page = pages.get(page(address));
+        final int offset = offset(address);
+        return read(page, offset + Integer.BYTES + Math.max(0, page.getInt(offset)));
+    }
+
+    void free(long address) {
+        garbage += size(address);
+    }
+
+    // копирует запись без разбора строк и возвращает её адрес в арене target
+    long copyTo(StringArena target, long address) {
+        final int size = size(address);
+        final long copy = target.allocate(size);
+        target.pages.get(page(copy)).put(offset(copy), pages.get(page(address)), offset(address), size);
+        return copy;
+    }
+
+    // сжимать выгодно, когда мусор занимает больше половины записанного и хотя бы страницу
+    boolean wasteful() {
+        return garbage > PAGE_SIZE && garbage * 2 > used;
+    }
+
+    long usedBytes() {
+        return used - garbage;
+    }
+
+    long reservedBytes() {
+        long reserved = 0;
+        for (ByteBuffer page : pages) {
+            reserved += page.capacity();
+        }
+        return reserved;
+    }
+
+    private int size(long address) {
+        final ByteBuffer page = pages.get(page(address));
+        final int offset = offset(address);
+        final int nameLength = Math.max(0, page.getInt(offset));
+        final int descriptionLength = Math.max(0, page.getInt(offset + Integer.BYTES + nameLength));
+        return Integer.BYTES * 2 + nameLength + descriptionLength;
+    }
+
+    private long allocate(int size) {
+        if (current == null || current.remaining() < size) {
+            // запись длиннее страницы получает отдельную страницу своего размера
+            current = ByteBuffer.allocateDirect(Math.max(PAGE_SIZE, size)).order(ByteOrder.nativeOrder());
+            pages.add(current);
+        }
+        final int offset = current.position();
+        current.position(offset + size);
+        used += size;
+        return (long) (pages.size() - 1) << 32 | offset;
+    }
+
+    private static int write(ByteBuffer page, int offset, byte[] bytes) {
+        if (bytes == null) {
+            page.putInt(offset, NULL_LENGTH);
+            return offset + Integer.BYTES;
+        }
+        page.putInt(offset, bytes.length);
+        page.put(offset + Integer.BYTES, bytes);
+        return offset + Integer.BYTES + bytes.length;
+    }
+
+    private static String read(ByteBuffer page, int offset) {
+        final int length = page.getInt(offset);
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        page.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static int page(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+}
@@ -0,0 +1,11 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+// Раскладка подзадач в памяти InMemoryTaskManager.
+// BY_ID — одна общая таблица по id: подзадачи эпика ищутся по одной через его список id.
+// BY_EPIC — вдобавок к таблице по id подзадачи каждого эпика лежат подряд в отдельном массиве,
+// поэтому обход, пересчёт статуса и удаление эпика идут по памяти последовательно;
+// цена — ещё одна запись в индексе на подзадачу и перенос последнего элемента при удалении.
+public enum SubtaskLayout {
+    BY_ID,
+    BY_EPIC
+}
@@ -0,0 +1,41 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+// Хранилище подзадач InMemoryTaskManager в одной из раскладок SubtaskLayout
+interface SubtaskStore {
+    static SubtaskStore create(SubtaskLayout layout) {
+        return switch (layout) {
+            case BY_ID -> new HashedSubtaskStore();
+            case BY_EPIC -> new EpicPartitionedSubtaskStore();
+        };
+    }
+
+    Subtask get(int id);
+
+    boolean containsKey(int id);
+
+    // добавляет подзадачу или заменяет сохранённую с тем же id; эпик — subtask.getEpicId()
+    void put(Subtask subtask);
+
+    Subtask remove(int id);
+
+    void clear();
+
+    void forEachKey(IntConsumer action);
+
+    Collection<Subtask> values();
+
+    void forEachOfEpic(Epic epic, Consumer<Subtask> action);
+
+    Stream<Subtask> streamOfEpic(Epic epic);
+
+    // удаляет все подзадачи эпика, передавая id каждой удалённой
+    void removeOfEpic(Epic epic, IntConsumer removed);
+}
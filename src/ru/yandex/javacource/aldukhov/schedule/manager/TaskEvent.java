@@ -0,0 +1,67 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+// Событие ленты изменений. task — копия записи на момент изменения; для удаления и очистки её нет.
+// У эпика в событии нет состава: изменения состава приходят событиями подзадач.
+public class TaskEvent {
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        // статус эпика пересчитан по его подзадачам и изменился
+        STATUS_CHANGED,
+        // очищены все записи одного вида
+        CLEARED
+    }
+
+    public enum Kind {
+        TASK,
+        EPIC,
+        SUBTASK
+    }
+
+    private final long sequence;
+    private final Type type;
+    private final Kind kind;
+    private final int id;
+    private final Task task;
+
+    TaskEvent(long sequence, Type type, Kind kind, int id, Task task) {
+        this.sequence = sequence;
+        this.type = type;
+        this.kind = kind;
+        this.id = id;
+        this.task = task;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskEvent{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", kind=" + kind +
+                ", id=" + id +
+                '}';
+    }
+}
@@ -0,0 +1,359 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+// Двоичный файл задач версии 1, читается через отображение в память.
+//
+// Заголовок (HEADER_SIZE байт): magic, version (short), recordSize (short), sequence (long), lastId,
+// taskCount, epicCount, subtaskCount, heapOffset (long), heapSize (long).
+// Записи фиксированной длины: сначала задачи по id, затем эпики по id, затем подзадачи по (epicId, id).
+// Запись: id, status (byte), type (byte), 2 байта резерва, epicId, nameOffset, nameLength,
+// descriptionOffset, descriptionLength. Длина -1 означает null.
+// За записями идёт индекс подзадач: пары (id, номер записи) по возрастанию id, затем куча строк в UTF-8.
+//
+// Объекты задач создаются только при обращении к ним через taskById или списки.
+public class TaskFile implements AutoCloseable {
+    static final int MAGIC = 0x4B4E4254;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int RECORD_SIZE = 28;
+
+    private static final int ID = 0;
+    private static final int STATUS = 4;
+    private static final int TYPE = 5;
+    private static final int EPIC_ID = 8;
+    private static final int NAME_OFFSET = 12;
+    private static final int NAME_LENGTH = 16;
+    private static final int DESCRIPTION_OFFSET = 20;
+    private static final int DESCRIPTION_LENGTH = 24;
+    private static final Status[] STATUSES = Status.values();
+
+    private final FileChannel channel;
+    private final ByteBuffer records;
+    private final ByteBuffer heap;
+    private final long sequence;
+    private final int lastId;
+    private final int taskCount;
+    private final int epicCount;
+    private final int subtaskCount;
+    private final int subtaskIndexOffset;
+
+    private TaskFile(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException("Файл не является файлом задач");
+        }
+        final short version = header.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Неподдерживаемая версия файла задач: " + version);
+        }
+        if (header.getShort(6) != RECORD_SIZE) {
+            throw new IOException("Неверный размер записи: " + header.getShort(6));
+        }
+        sequence = header.getLong(8);
+        lastId = header.getInt(16);
+        taskCount = header.getInt(20);
+        epicCount = header.getInt(24);
+        subtaskCount = header.getInt(28);
+        final long heapOffset = header.getLong(32);
+        final long heapSize = header.getLong(40);
+        final int recordCount = taskCount + epicCount + subtaskCount;
+        subtaskIndexOffset = recordCount * RECORD_SIZE;
+        records = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, heapOffset - HEADER_SIZE);
+        heap = channel.map(FileChannel.MapMode.READ_ONLY, heapOffset, heapSize);
+    }
+
+    public static TaskFile open(Path file) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            return new TaskFile(channel);
+        } catch (IOException e) {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw new ManagerSaveException("Не удалось открыть файл задач " + file, e);
+        }
+    }
+
+    public static void write(Path file, long sequence, int lastId,
+                             Collection<Task> tasks, Collection<Epic> epics, Collection<Subtask> subtasks) {
+        List<Task> sortedTasks = new ArrayList<>(tasks);
+        sortedTasks.sort(Comparator.comparingInt(Task::getId));
+        List<Epic> sortedEpics = new ArrayList<>(epics);
+        sortedEpics.sort(Comparator.comparingInt(Task::getId));
+        List<Subtask> sortedSubtasks = new ArrayList<>(subtasks);
+        sortedSubtasks.sort(Comparator.comparingInt(Subtask::getEpicId).thenComparingInt(Task::getId));
+
+        final int recordCount = sortedTasks.size() + sortedEpics.size() + sortedSubtasks.size();
+        final long heapOffset = HEADER_SIZE + (long) recordCount * RECORD_SIZE + (long) sortedSubtasks.size() * 8;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (heapOffset > Integer.MAX_VALUE) {
+                throw new IOException("Слишком много задач для одного файла: " + recordCount);
+            }
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(RECORD_SIZE);
+            out.writeLong(sequence);
+            out.writeInt(lastId);
+            out.writeInt(sortedTasks.size());
+            out.writeInt(sortedEpics.size());
+            out.writeInt(sortedSubtasks.size());
+            out.writeLong(heapOffset);
+            out.writeLong(0);
+            out.write(new byte[HEADER_SIZE - 48]);
+
+            // строки кодируются один раз: длины в записях берутся из тех же байтов, что пишутся в кучу,
+            // поэтому одиночный суррогат, который кодировщик заменяет на '?', не сдвигает смещения
+            List<byte[]> strings = new ArrayList<>(recordCount * 2);
+            long heapSize = 0;
+            heapSize = writeRecords(out, sortedTasks, heapSize, strings);
+            heapSize = writeRecords(out, sortedEpics, heapSize, strings);
+            heapSize = writeRecords(out, sortedSubtasks, heapSize, strings);
+            if (heapSize > Integer.MAX_VALUE) {
+                throw new IOException("Строки задач не помещаются в файл: " + heapSize + " байт");
+            }
+
+            // индекс подзадач: id в старших 32 битах, номер записи в младших
+            final int subtaskBase = sortedTasks.size() + sortedEpics.size();
+            long[] byId = new long[sortedSubtasks.size()];
+            for (int i = 0; i < byId.length; i++) {
+                byId[i] = ((long) sortedSubtasks.get(i).getId() << 32) | (subtaskBase + i);
+            }
+            Arrays.sort(byId);
+            for (long entry : byId) {
+                out.writeLong(entry);
+            }
+
+            for (byte[] string : strings) {
+                out.write(string);
+            }
+            out.flush();
+
+            ByteBuffer size = ByteBuffer.allocate(Long.BYTES).putLong(heapSize).flip();
+            channel.write(size, 40);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось записать файл задач " + file, e);
+        }
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public int getLastId() {
+        return lastId;
+    }
+
+    public int size() {
+        return taskCount + epicCount + subtaskCount;
+    }
+
+    public Task taskById(int id) {
+        int index = search(0, taskCount, id);
+        if (index < 0) {
+            index = search(taskCount, taskCount + epicCount, id);
+        }
+        if (index < 0) {
+            return subtaskById(id);
+        }
+        return materialize(index);
+    }
+
+    public Epic epicById(int id) {
+        int index = search(taskCount, taskCount + epicCount, id);
+        return index < 0 ? null : (Epic) materialize(index);
+    }
+
+    public Subtask subtaskById(int id) {
+        int low = 0;
+        int high = subtaskCount - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int midId = records.getInt(subtaskIndexOffset + mid * 8);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return (Subtask) materialize(records.getInt(subtaskIndexOffset + mid * 8 + 4));
+            }
+        }
+        return null;
+    }
+
+    public List<Task> getTasks() {
+        return new RecordList<>(0, taskCount);
+    }
+
+    public List<Epic> getEpics() {
+        return new RecordList<>(taskCount, taskCount + epicCount);
+    }
+
+    public List<Subtask> getSubtask() {
+        return new RecordList<>(taskCount + epicCount, size());
+    }
+
+    public List<Subtask> getTaskOfEpic(int epicId) {
+        return new RecordList<>(firstSubtaskOf(epicId, false), firstSubtaskOf(epicId, true));
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось закрыть файл задач", e);
+        }
+    }
+
+    private int search(int from, int to, int id) {
+        int low = from;
+        int high = to - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int midId = records.getInt(mid * RECORD_SIZE + ID);
+            if (midId < id) {
+                low = mid + 1;
+            } else if (midId > id) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    // первая запись подзадачи с epicId не меньше заданного (after = false) или больше него (after = true)
+    private int firstSubtaskOf(int epicId, boolean after) {
+        int low = taskCount + epicCount;
+        int high = size();
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            final int midEpicId = records.getInt(mid * RECORD_SIZE + EPIC_ID);
+            if (midEpicId < epicId || (after && midEpicId == epicId)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private Task materialize(int index) {
+        final int base = index * RECORD_SIZE;
+        final String name = readString(records.getInt(base + NAME_OFFSET), records.getInt(base + NAME_LENGTH));
+        final String description = readString(records.getInt(base + DESCRIPTION_OFFSET),
+                records.getInt(base + DESCRIPTION_LENGTH));
+        Task task = switch (records.get(base + TYPE)) {
+            case TaskRecords.EPIC -> epicWithSubtasks(name, description, records.getInt(base + ID));
+            case TaskRecords.SUBTASK -> new Subtask(name, description, records.getInt(base + EPIC_ID));
+            default -> new Task(name, description);
+        };
+        task.setId(records.getInt(base + ID));
+        task.setStatus(STATUSES[records.get(base + STATUS)]);
+        return task;
+    }
+
+    private Epic epicWithSubtasks(String name, String description, int id) {
+        Epic epic = new Epic(name, description);
+        final int to = firstSubtaskOf(id, true);
+        for (int i = firstSubtaskOf(id, false); i < to; i++) {
+            epic.addSubtaskId(records.getInt(i * RECORD_SIZE + ID));
+        }
+        return epic;
+    }
+
+    private String readString(int offset, int length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        heap.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long writeRecords(DataOutputStream out, List<? extends Task> tasks, long heapSize,
+                                     List<byte[]> strings) throws IOException {
+        for (Task task : tasks) {
+            final int nameLength = encode(task.getName(), strings);
+            final int descriptionLength = encode(task.getDescription(), strings);
+            out.writeInt(task.getId());
+            out.writeByte(task.getStatus().ordinal());
+            out.writeByte(TaskRecords.typeOf(task));
+            out.writeShort(0);
+            out.writeInt(task instanceof Subtask subtask ? subtask.getEpicId() : 0);
+            out.writeInt((int) heapSize);
+            out.writeInt(nameLength);
+            heapSize += Math.max(nameLength, 0);
+            out.writeInt((int) heapSize);
+            out.writeInt(descriptionLength);
+            heapSize += Math.max(descriptionLength, 0);
+        }
+        return heapSize;
+    }
+
+    // длина строки в куче, -1 для null
+    private static int encode(String value, List<byte[]> strings) {
+        if (value == null) {
+            return -1;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        strings.add(bytes);
+        return bytes.length;
+    }
+
+    // Список поверх диапазона записей: задача создаётся только при обращении к элементу
+    private class RecordList<T extends Task> extends AbstractList<T> implements RandomAccess {
+        private final int from;
+        private final int to;
+
+        RecordList(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (T) materialize(from + index);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+}
@@ -2,9 +2,13 @@ package ru.yandex.javacource.aldukhov.schedule.manager;
 
 import ru.yandex.javacource.aldukhov.schedule.task.*;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface TaskManager {
+    int MAX_PAGE_SIZE = 1000;
+
     int addNewTask(Task task);
 
     Integer addNewEpic(Epic epic);
@@ -19,14 +23,48 @@ public interface TaskManager {
 
     void updateEpicStatus(Epic epic);
 
+    // Пакетные изменения выполняются целиком или не выполняются вовсе:
+    // addAll возвращает null, updateAll и deleteAll возвращают false, если хотя бы один элемент некорректен
+    List<Integer> addAll(Collection<? extends Task> items);
+
+    boolean updateAll(Collection<? extends Task> items);
+
+    boolean deleteAll(Collection<Integer> ids);
+
     List<Task> getTasks();
 
     List<Epic> getEpics();
 
     List<Subtask> getSubtask();
 
+    List<Task> getTasksByStatus(Status status);
+
+    List<Epic> getEpicsByStatus(Status status);
+
+    List<Subtask> getSubtasksByStatus(Status status);
+
+    List<Task> search(String query);
+
     List<Subtask> getTaskOfEpic(Epic epic);
 
+    // Представления только для чтения поверх хранилища: не копируют задачи и отражают последующие изменения
+    Collection<Task> tasksView();
+
+    Collection<Epic> epicsView();
+
+    Collection<Subtask> subtasksView();
+
+    Stream<Subtask> streamTaskOfEpic(Epic epic);
+
+    // Страница из pageSize задач с id больше afterId в порядке возрастания id.
+    // Для первой страницы afterId = 0, для следующей — id последней задачи предыдущей страницы.
+    // pageSize больше MAX_PAGE_SIZE уменьшается до него, поэтому страница не бывает больше MAX_PAGE_SIZE
+    List<Task> getTasksPage(int afterId, int pageSize);
+
+    List<Epic> getEpicsPage(int afterId, int pageSize);
+
+    List<Subtask> getSubtasksPage(int afterId, int pageSize);
+
     void clearTask();
 
     void clearEpic();
@@ -46,4 +84,10 @@ public interface TaskManager {
     void delSubtaskById(int id);
 
     List<Task> getHistory();
+
+    // Неизменяемый согласованный срез всех задач на текущий момент; последующие изменения его не затрагивают
+    TaskSnapshot snapshot();
+
+    // Упорядоченная лента событий создания, изменения, удаления, очистки и смены статуса эпиков
+    ChangeFeed changes();
 }
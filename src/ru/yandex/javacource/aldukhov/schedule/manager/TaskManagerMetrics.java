@@ -0,0 +1,248 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Счётчики вызовов и распределения задержек по методам TaskManager плюс размеры хранилища,
+// которые читаются у менеджера только при запросе метрик.
+// Счётчик вызова — атомарный инкремент в ячейке полосы потока: потоки с разными полосами не делят
+// строку кэша, а потоки с одной полосой не теряют вызовов. Снятые метрики могут чуть отставать.
+// Время замеряется у каждого (2^shift)-го вызова в полосе, у остальных nanoTime не вызывается;
+// медленные вызовы ищутся среди замеренных.
+public class TaskManagerMetrics implements TaskManagerMetricsMXBean {
+    static final long NOT_TIMED = Long.MIN_VALUE;
+    private static final int STRIPES = Math.min(64,
+            Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2));
+    // отступ между полосами в long: 128 байт, чтобы полосы разных потоков не делили строку кэша
+    private static final int PADDING = 16;
+
+    private final TaskManager manager;
+    private final String[] methods;
+    private final long[] sampleMasks;
+    private final long slowCallNanos;
+    private final int stride;
+    private final AtomicLongArray calls;
+    private final LatencyHistogram[] latencies;
+
+    TaskManagerMetrics(TaskManager manager, String[] methods, int[] sampleShifts, long slowCallNanos) {
+        this.manager = manager;
+        this.methods = methods;
+        this.slowCallNanos = slowCallNanos;
+        sampleMasks = new long[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            sampleMasks[i] = (1L << sampleShifts[i]) - 1;
+        }
+        stride = methods.length + PADDING;
+        calls = new AtomicLongArray(STRIPES * stride);
+        latencies = new LatencyHistogram[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    // время начала вызова или NOT_TIMED, если этот вызов не замеряется
+    long start(int method) {
+        final int i = ((int) Thread.currentThread().threadId() & (STRIPES - 1)) * stride + method;
+        final long count = calls.incrementAndGet(i);
+        return (count & sampleMasks[method]) == 0 ? System.nanoTime() : NOT_TIMED;
+    }
+
+    void stop(int method, long start) {
+        if (start == NOT_TIMED) {
+            return;
+        }
+        final long elapsed = System.nanoTime() - start;
+        latencies[method].record(elapsed);
+        if (elapsed >= slowCallNanos) {
+            SlowCallEvent.emit(methods[method], elapsed);
+        }
+    }
+
+    public long calls(String method) {
+        final int i = indexOf(method);
+        return i < 0 ? 0 : calls(i);
+    }
+
+    // задержка вызовов method на квантиле quantile (от 0 до 1) в наносекундах, 0 — если замеров не было
+    public long latencyNanos(String method, double quantile) {
+        final int i = indexOf(method);
+        return i < 0 ? 0 : latencies[i].quantiles(quantile)[0];
+    }
+
+    // регистрирует метрики в JMX как ru.yandex.javacource.aldukhov.schedule:type=TaskManager,name=<name>
+    public void registerMBean(String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName(name));
+        } catch (JMException e) {
+            throw new IllegalStateException("Не удалось зарегистрировать метрики " + name, e);
+        }
+    }
+
+    public void unregisterMBean(String name) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+        } catch (JMException e) {
+            throw new IllegalStateException("Не удалось снять регистрацию метрик " + name, e);
+        }
+    }
+
+    @Override
+    public int getTaskCount() {
+        return manager.tasksView().size();
+    }
+
+    @Override
+    public int getEpicCount() {
+        return manager.epicsView().size();
+    }
+
+    @Override
+    public int getSubtaskCount() {
+        return manager.subtasksView().size();
+    }
+
+    @Override
+    public int getHistorySize() {
+        return manager.getHistory().size();
+    }
+
+    // у каждой подзадачи ровно один эпик, поэтому среднее число подзадач эпика — их отношение
+    @Override
+    public double getAverageEpicFanOut() {
+        final int epics = getEpicCount();
+        return epics == 0 ? 0 : (double) getSubtaskCount() / epics;
+    }
+
+    @Override
+    public Map<String, Long> getCalls() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < methods.length; i++) {
+            final long count = calls(i);
+            if (count > 0) {
+                result.put(methods[i], count);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getP50Micros() {
+        return quantileMicros(0.5);
+    }
+
+    @Override
+    public Map<String, Double> getP99Micros() {
+        return quantileMicros(0.99);
+    }
+
+    @Override
+    public Map<String, Double> getP999Micros() {
+        return quantileMicros(0.999);
+    }
+
+    @Override
+    public Map<String, Double> getMaxMicros() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (int i = 0; i < methods.length; i++) {
+            if (latencies[i].count() > 0) {
+                result.put(methods[i], latencies[i].max() / 1000.0);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder out = new StringBuilder(4096);
+        gauge(out, "kanban_tasks", getTaskCount());
+        gauge(out, "kanban_epics", getEpicCount());
+        gauge(out, "kanban_subtasks", getSubtaskCount());
+        gauge(out, "kanban_history_size", getHistorySize());
+        gauge(out, "kanban_epic_fan_out_average", getAverageEpicFanOut());
+        out.append("# TYPE kanban_calls_total counter\n");
+        for (int i = 0; i < methods.length; i++) {
+            final long count = calls(i);
+            if (count > 0) {
+                out.append("kanban_calls_total{method=\"").append(methods[i]).append("\"} ").append(count).append('\n');
+            }
+        }
+        out.append("# TYPE kanban_latency_seconds summary\n");
+        for (int i = 0; i < methods.length; i++) {
+            final long timed = latencies[i].count();
+            if (timed == 0) {
+                continue;
+            }
+            final long[] values = latencies[i].quantiles(0.5, 0.9, 0.99, 0.999);
+            final String[] labels = {"0.5", "0.9", "0.99", "0.999"};
+            for (int q = 0; q < values.length; q++) {
+                out.append("kanban_latency_seconds{method=\"").append(methods[i]).append("\",quantile=\"")
+                        .append(labels[q]).append("\"} ").append(seconds(values[q])).append('\n');
+            }
+            out.append("kanban_latency_seconds_count{method=\"").append(methods[i]).append("\"} ")
+                    .append(timed).append('\n');
+            out.append("kanban_latency_seconds_max{method=\"").append(methods[i]).append("\"} ")
+                    .append(seconds(latencies[i].max())).append('\n');
+        }
+        return out.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (int i = 0; i < calls.length(); i++) {
+            calls.set(i, 0);
+        }
+        for (LatencyHistogram histogram : latencies) {
+            histogram.reset();
+        }
+    }
+
+    private long calls(int method) {
+        long count = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            count += calls.get(stripe * stride + method);
+        }
+        return count;
+    }
+
+    private Map<String, Double> quantileMicros(double quantile) {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (int i = 0; i < methods.length; i++) {
+            if (latencies[i].count() > 0) {
+                result.put(methods[i], latencies[i].quantiles(quantile)[0] / 1000.0);
+            }
+        }
+        return result;
+    }
+
+    private int indexOf(String method) {
+        for (int i = 0; i < methods.length; i++) {
+            if (methods[i].equals(method)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void gauge(StringBuilder out, String name, double value) {
+        out.append("# TYPE ").append(name).append(" gauge\n").append(name).append(' ');
+        if (value == Math.rint(value)) {
+            out.append((long) value);
+        } else {
+            out.append(String.format(Locale.ROOT, "%.3f", value));
+        }
+        out.append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static ObjectName objectName(String name) throws JMException {
+        return new ObjectName("ru.yandex.javacource.aldukhov.schedule:type=TaskManager,name=" + ObjectName.quote(name));
+    }
+}
@@ -0,0 +1,32 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import java.util.Map;
+
+// Метрики InstrumentedTaskManager в JMX (jconsole, VisualVM, агенты мониторинга).
+// Таблицы задержек — по имени метода TaskManager, в микросекундах
+public interface TaskManagerMetricsMXBean {
+    int getTaskCount();
+
+    int getEpicCount();
+
+    int getSubtaskCount();
+
+    int getHistorySize();
+
+    double getAverageEpicFanOut();
+
+    Map<String, Long> getCalls();
+
+    Map<String, Double> getP50Micros();
+
+    Map<String, Double> getP99Micros();
+
+    Map<String, Double> getP999Micros();
+
+    Map<String, Double> getMaxMicros();
+
+    // всё сразу в текстовом формате Prometheus
+    String getReport();
+
+    void reset();
+}
@@ -0,0 +1,81 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Двоичное представление задач для журнала и снимка FileBackedTaskManager
+final class TaskRecords {
+    static final byte TASK = 0;
+    static final byte EPIC = 1;
+    static final byte SUBTASK = 2;
+
+    private static final Status[] STATUSES = Status.values();
+
+    private TaskRecords() {
+    }
+
+    static void write(DataOutput out, Task task) throws IOException {
+        out.writeByte(typeOf(task));
+        out.writeInt(task.getId());
+        writeString(out, task.getName());
+        writeString(out, task.getDescription());
+        out.writeByte(task.getStatus().ordinal());
+        if (task instanceof Subtask subtask) {
+            out.writeInt(subtask.getEpicId());
+        }
+    }
+
+    static Task read(DataInput in) throws IOException {
+        final byte type = in.readByte();
+        final int id = in.readInt();
+        final String name = readString(in);
+        final String description = readString(in);
+        final Status status = STATUSES[in.readByte()];
+        Task task = switch (type) {
+            case TASK -> new Task(name, description);
+            case EPIC -> new Epic(name, description);
+            case SUBTASK -> new Subtask(name, description, in.readInt());
+            default -> throw new IOException("Неизвестный тип задачи: " + type);
+        };
+        task.setId(id);
+        task.setStatus(status);
+        return task;
+    }
+
+    static byte typeOf(Task task) {
+        if (task instanceof Subtask) {
+            return SUBTASK;
+        }
+        if (task instanceof Epic) {
+            return EPIC;
+        }
+        return TASK;
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,221 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+
+// Согласованный срез задач, эпиков и подзадач на момент одной записи в менеджер.
+// Снимок неизменяем: менеджер при каждом изменении строит новый срез из старого через with*/without*,
+// копируя только пути в PersistentIntMap. Записи хранятся копиями, сделанными в момент изменения,
+// а читателю выдаются ещё раз скопированными, чтобы он не мог изменить снимок.
+// Состав эпика хранится отдельной таблицей и подставляется в копию эпика при чтении.
+public final class TaskSnapshot {
+    static final TaskSnapshot EMPTY = new TaskSnapshot(PersistentIntMap.empty(), PersistentIntMap.empty(),
+            PersistentIntMap.empty(), PersistentIntMap.empty());
+
+    private final PersistentIntMap<Task> tasks;
+    private final PersistentIntMap<Epic> epics;
+    private final PersistentIntMap<Subtask> subtasks;
+    private final PersistentIntMap<PersistentIntMap<Subtask>> epicSubtasks;
+
+    private TaskSnapshot(PersistentIntMap<Task> tasks, PersistentIntMap<Epic> epics,
+                         PersistentIntMap<Subtask> subtasks,
+                         PersistentIntMap<PersistentIntMap<Subtask>> epicSubtasks) {
+        this.tasks = tasks;
+        this.epics = epics;
+        this.subtasks = subtasks;
+        this.epicSubtasks = epicSubtasks;
+    }
+
+    static TaskSnapshot of(Collection<Task> tasks, Collection<Epic> epics, Collection<Subtask> subtasks) {
+        TaskSnapshot snapshot = EMPTY;
+        for (Task task : tasks) {
+            snapshot = snapshot.withTask(task);
+        }
+        for (Epic epic : epics) {
+            snapshot = snapshot.withEpic(epic);
+        }
+        for (Subtask subtask : subtasks) {
+            snapshot = snapshot.withSubtask(subtask);
+        }
+        return snapshot;
+    }
+
+    public int size() {
+        return tasks.size() + epics.size() + subtasks.size();
+    }
+
+    public Task taskById(int id) {
+        final Task task = tasks.get(id);
+        return task == null ? null : copyTask(task);
+    }
+
+    public Epic epicById(int id) {
+        final Epic epic = epics.get(id);
+        return epic == null ? null : readEpic(epic);
+    }
+
+    public Subtask subtaskById(int id) {
+        final Subtask subtask = subtasks.get(id);
+        return subtask == null ? null : copySubtask(subtask);
+    }
+
+    public Collection<Task> tasksView() {
+        return view(tasks, TaskSnapshot::copyTask);
+    }
+
+    public Collection<Epic> epicsView() {
+        return view(epics, this::readEpic);
+    }
+
+    public Collection<Subtask> subtasksView() {
+        return view(subtasks, TaskSnapshot::copySubtask);
+    }
+
+    public List<Subtask> getTaskOfEpic(int epicId) {
+        final PersistentIntMap<Subtask> members = epicSubtasks.get(epicId);
+        if (members == null) {
+            return new ArrayList<>();
+        }
+        List<Subtask> result = new ArrayList<>(members.size());
+        members.forEach(subtask -> result.add(copySubtask(subtask)));
+        return result;
+    }
+
+    TaskSnapshot withTask(Task task) {
+        return new TaskSnapshot(tasks.plus(task.getId(), copyTask(task)), epics, subtasks, epicSubtasks);
+    }
+
+    TaskSnapshot withoutTask(int id) {
+        return new TaskSnapshot(tasks.minus(id), epics, subtasks, epicSubtasks);
+    }
+
+    TaskSnapshot withoutTasks() {
+        return new TaskSnapshot(PersistentIntMap.empty(), epics, subtasks, epicSubtasks);
+    }
+
+    // сохраняет поля эпика, состав эпика меняется только через подзадачи
+    TaskSnapshot withEpic(Epic epic) {
+        return new TaskSnapshot(tasks, epics.plus(epic.getId(), copyEpic(epic)), subtasks, epicSubtasks);
+    }
+
+    TaskSnapshot withoutEpic(int id) {
+        final PersistentIntMap<Subtask> members = epicSubtasks.get(id);
+        PersistentIntMap<Subtask> remaining = subtasks;
+        if (members != null) {
+            for (Subtask subtask : members.values()) {
+                remaining = remaining.minus(subtask.getId());
+            }
+        }
+        return new TaskSnapshot(tasks, epics.minus(id), remaining, epicSubtasks.minus(id));
+    }
+
+    TaskSnapshot withoutEpics() {
+        return new TaskSnapshot(tasks, PersistentIntMap.empty(), PersistentIntMap.empty(), PersistentIntMap.empty());
+    }
+
+    TaskSnapshot withSubtask(Subtask subtask) {
+        final Subtask copy = copySubtask(subtask);
+        final int id = copy.getId();
+        PersistentIntMap<PersistentIntMap<Subtask>> groups = epicSubtasks;
+        final Subtask previous = subtasks.get(id);
+        if (previous != null && previous.getEpicId() != copy.getEpicId()) {
+            groups = removeMember(groups, previous.getEpicId(), id);
+        }
+        PersistentIntMap<Subtask> members = groups.get(copy.getEpicId());
+        if (members == null) {
+            members = PersistentIntMap.empty();
+        }
+        groups = groups.plus(copy.getEpicId(), members.plus(id, copy));
+        return new TaskSnapshot(tasks, epics, subtasks.plus(id, copy), groups);
+    }
+
+    TaskSnapshot withoutSubtask(int id) {
+        final Subtask previous = subtasks.get(id);
+        if (previous == null) {
+            return this;
+        }
+        return new TaskSnapshot(tasks, epics, subtasks.minus(id),
+                removeMember(epicSubtasks, previous.getEpicId(), id));
+    }
+
+    TaskSnapshot withoutSubtasks() {
+        return new TaskSnapshot(tasks, epics, PersistentIntMap.empty(), PersistentIntMap.empty());
+    }
+
+    private static PersistentIntMap<PersistentIntMap<Subtask>> removeMember(
+            PersistentIntMap<PersistentIntMap<Subtask>> groups, int epicId, int id) {
+        final PersistentIntMap<Subtask> members = groups.get(epicId);
+        if (members == null) {
+            return groups;
+        }
+        final PersistentIntMap<Subtask> remaining = members.minus(id);
+        return remaining.isEmpty() ? groups.minus(epicId) : groups.plus(epicId, remaining);
+    }
+
+    private Epic readEpic(Epic epic) {
+        final Epic copy = copyEpic(epic);
+        final PersistentIntMap<Subtask> members = epicSubtasks.get(epic.getId());
+        if (members != null) {
+            members.forEach(subtask -> copy.addSubtaskId(subtask.getId()));
+        }
+        return copy;
+    }
+
+    // копия полей эпика без состава
+    static Epic copyEpic(Epic epic) {
+        Epic copy = new Epic(null, null);
+        copy.copyTextFrom(epic);
+        copy.setId(epic.getId());
+        copy.setStatus(epic.getStatus());
+        return copy;
+    }
+
+    static Task copyTask(Task task) {
+        Task copy = new Task(null, null);
+        copy.copyTextFrom(task);
+        copy.setId(task.getId());
+        copy.setStatus(task.getStatus());
+        return copy;
+    }
+
+    static Subtask copySubtask(Subtask subtask) {
+        Subtask copy = new Subtask(null, null, subtask.getEpicId());
+        copy.copyTextFrom(subtask);
+        copy.setId(subtask.getId());
+        copy.setStatus(subtask.getStatus());
+        return copy;
+    }
+
+    private static <T> Collection<T> view(PersistentIntMap<T> map, Function<T, T> copy) {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<T> iterator() {
+                final Iterator<T> values = map.values().iterator();
+                return new Iterator<>() {
+                    @Override
+                    public boolean hasNext() {
+                        return values.hasNext();
+                    }
+
+                    @Override
+                    public T next() {
+                        return copy.apply(values.next());
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return map.size();
+            }
+        };
+    }
+}
@@ -0,0 +1,488 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+import ru.yandex.javacource.aldukhov.schedule.task.TextPool;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+// Обратный индекс по названию и описанию задач.
+// Текст разбивается на слова из букв и цифр, слова приводятся к нижнему регистру, «ё» заменяется на «е».
+// Запрос: слова через пробел объединяются по И, группы разделяются OR (или |), слово с * на конце
+// ищется как префикс. Результат упорядочен по сумме tf * idf по словам запроса; слово с * оценивается
+// по лучшему из подходящих слов документа.
+final class TextIndex {
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final IntObjectMap<Document> documents = new IntObjectMap<>();
+
+    void add(Task task) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String word : tokenize(task.getName())) {
+            frequencies.merge(word, 1, Integer::sum);
+        }
+        for (String word : tokenize(task.getDescription())) {
+            frequencies.merge(word, 1, Integer::sum);
+        }
+        // документ хранит ключи словаря, а не свои копии слов: повторяющийся текст не размножает строки
+        final String[] words = new String[frequencies.size()];
+        int i = 0;
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            String word = terms.ceilingKey(entry.getKey());
+            if (!entry.getKey().equals(word)) {
+                word = entry.getKey();
+                terms.put(word, new Postings());
+            }
+            terms.get(word).put(task.getId(), entry.getValue());
+            words[i++] = word;
+        }
+        documents.put(task.getId(), new Document(task, words));
+    }
+
+    void update(Task task) {
+        final Document document = documents.get(task.getId());
+        if (document == null) {
+            return;
+        }
+        // сравниваем с проиндексированным текстом: задачу могли изменить на месте
+        if (TextPool.equal(document.name, task.storedName())
+                && TextPool.equal(document.description, task.storedDescription())) {
+            document.task = task;
+            return;
+        }
+        remove(task.getId());
+        add(task);
+    }
+
+    void remove(int id) {
+        final Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String word : document.terms) {
+            Postings postings = terms.get(word);
+            postings.remove(id);
+            if (postings.size() == 0) {
+                terms.remove(word);
+            }
+        }
+    }
+
+    void clear() {
+        terms.clear();
+        documents.clear();
+    }
+
+    List<Task> search(String query) {
+        return search(query, Integer.MAX_VALUE);
+    }
+
+    // не больше limit лучших задач в порядке убывания оценки
+    List<Task> search(String query, int limit) {
+        final List<Hit> hits = rank(query, null, limit);
+        List<Task> result = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            result.add(hit.task());
+        }
+        return result;
+    }
+
+    // Найденные задачи с оценками в порядке убывания оценки. Со statistics idf считается по ней,
+    // а не по этому индексу: так оценки из разных шардов совпадают с оценками одного общего индекса
+    List<Hit> rank(String query, Statistics statistics) {
+        return rank(query, statistics, Integer.MAX_VALUE);
+    }
+
+    // Не больше limit лучших результатов. Оценки копятся в Scores без упаковки, а лучшие отбираются
+    // кучей из limit элементов с худшим наверху: сортируется только ответ, а не все найденные задачи
+    List<Hit> rank(String query, Statistics statistics, int limit) {
+        if (query == null || limit <= 0) {
+            return new ArrayList<>();
+        }
+        final Scores scores = new Scores();
+        for (String group : groups(query)) {
+            searchAll(clauses(group), statistics, scores);
+        }
+        if (scores.size() <= limit) {
+            List<Hit> hits = new ArrayList<>(scores.size());
+            scores.forEach((id, score) -> hits.add(new Hit(documents.get(id).task, score)));
+            hits.sort(Hit.ORDER);
+            return hits;
+        }
+        final PriorityQueue<Hit> best = new PriorityQueue<>(limit + 1, Hit.ORDER.reversed());
+        scores.forEach((id, score) -> {
+            if (best.size() == limit) {
+                // Hit создаётся только для кандидата, который лучше худшего из отобранных
+                final Hit worst = best.peek();
+                final int byScore = Double.compare(score, worst.score());
+                if (byScore < 0 || byScore == 0 && id > worst.task().getId()) {
+                    return;
+                }
+                best.poll();
+            }
+            best.add(new Hit(documents.get(id).task, score));
+        });
+        List<Hit> hits = new ArrayList<>(best);
+        hits.sort(Hit.ORDER);
+        return hits;
+    }
+
+    // добавляет к statistics число документов и размеры списков всех слов запроса в этом индексе
+    void collect(String query, Statistics statistics) {
+        statistics.documents += documents.size();
+        if (query == null) {
+            return;
+        }
+        for (String group : groups(query)) {
+            for (List<Term> clause : clauses(group)) {
+                for (Term term : clause) {
+                    statistics.sizes.merge(term.word(), term.postings().size(), Integer::sum);
+                }
+            }
+        }
+    }
+
+    // Подходит ли слово документа к слову запроса: совпадает с ним или продолжает слово с *.
+    // Документ без таких слов не меняет ни результат запроса, ни idf его слов
+    static Predicate<String> matcher(String query) {
+        Set<String> words = new HashSet<>();
+        List<String> prefixes = new ArrayList<>();
+        if (query != null) {
+            for (String group : groups(query)) {
+                for (String raw : group.trim().split("\\s+")) {
+                    final boolean prefix = raw.endsWith("*");
+                    final String[] tokens = tokenize(prefix ? raw.substring(0, raw.length() - 1) : raw);
+                    for (int i = 0; i < tokens.length; i++) {
+                        if (prefix && i == tokens.length - 1) {
+                            prefixes.add(tokens[i]);
+                        } else {
+                            words.add(tokens[i]);
+                        }
+                    }
+                }
+            }
+        }
+        return word -> {
+            if (words.contains(word)) {
+                return true;
+            }
+            for (String prefix : prefixes) {
+                if (word.startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private static String[] groups(String query) {
+        return query.split("\\s+OR\\s+|\\|");
+    }
+
+    // условия группы: для каждого слова — подходящие слова словаря, для префикса их может быть несколько
+    private List<List<Term>> clauses(String group) {
+        List<List<Term>> clauses = new ArrayList<>();
+        for (String raw : group.trim().split("\\s+")) {
+            if (raw.isEmpty()) {
+                continue;
+            }
+            final boolean prefix = raw.endsWith("*");
+            final String[] words = tokenize(prefix ? raw.substring(0, raw.length() - 1) : raw);
+            for (int i = 0; i < words.length; i++) {
+                List<Term> clause = new ArrayList<>();
+                if (prefix && i == words.length - 1) {
+                    // все слова словаря в диапазоне [word, word + максимальный символ)
+                    terms.subMap(words[i], true, words[i] + Character.MAX_VALUE, false)
+                            .forEach((word, postings) -> clause.add(new Term(word, postings)));
+                } else {
+                    Postings postings = terms.get(words[i]);
+                    if (postings != null) {
+                        clause.add(new Term(words[i], postings));
+                    }
+                }
+                clauses.add(clause);
+            }
+        }
+        return clauses;
+    }
+
+    private void searchAll(List<List<Term>> clauses, Statistics statistics, Scores scores) {
+        if (clauses.isEmpty()) {
+            return;
+        }
+        // перебираем документы самого редкого условия и проверяем остальные;
+        // оценка складывается в порядке слов запроса, чтобы не зависеть от размеров списков
+        List<Term> rarest = clauses.getFirst();
+        for (List<Term> clause : clauses) {
+            if (clause.isEmpty()) {
+                return;
+            }
+            if (size(clause) < size(rarest)) {
+                rarest = clause;
+            }
+        }
+        final int total = statistics == null ? documents.size() : statistics.documents;
+        // документ с несколькими словами префикса есть в нескольких списках условия, а оценивается один раз
+        final IntObjectMap<Boolean> scored = rarest.size() > 1 ? new IntObjectMap<>() : null;
+        for (Term term : rarest) {
+            term.postings().forEach((id, frequency) -> {
+                if (scored != null && scored.put(id, Boolean.TRUE) != null) {
+                    return;
+                }
+                double score = 0;
+                for (List<Term> clause : clauses) {
+                    double clauseScore = 0;
+                    for (Term candidate : clause) {
+                        final int tf = candidate.postings().frequency(id);
+                        if (tf > 0) {
+                            final int size = statistics == null ? candidate.postings().size()
+                                    : statistics.sizes.getOrDefault(candidate.word(), candidate.postings().size());
+                            clauseScore = Math.max(clauseScore, tf * Math.log(1 + (double) total / size));
+                        }
+                    }
+                    if (clauseScore == 0) {
+                        return;
+                    }
+                    score += clauseScore;
+                }
+                scores.add(id, score);
+            });
+        }
+    }
+
+    private static int size(List<Term> clause) {
+        int size = 0;
+        for (Term term : clause) {
+            size += term.postings().size();
+        }
+        return size;
+    }
+
+    static String[] tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return new String[0];
+        }
+        List<String> words = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c == 'ё' || c == 'Ё' ? 'е' : c);
+            } else if (!word.isEmpty()) {
+                words.add(word.toString().toLowerCase(Locale.ROOT));
+                word.setLength(0);
+            }
+        }
+        if (!word.isEmpty()) {
+            words.add(word.toString().toLowerCase(Locale.ROOT));
+        }
+        return words.toArray(new String[0]);
+    }
+
+    // Статистика для idf, собранная с нескольких индексов: число документов и размеры списков слов
+    static final class Statistics {
+        int documents;
+        final Map<String, Integer> sizes = new HashMap<>();
+    }
+
+    // найденная задача и её оценка; ORDER — порядок результатов поиска
+    record Hit(Task task, double score) {
+        static final Comparator<Hit> ORDER = (a, b) -> {
+            final int byScore = Double.compare(b.score, a.score);
+            return byScore != 0 ? byScore : Integer.compare(a.task.getId(), b.task.getId());
+        };
+    }
+
+    private record Term(String word, Postings postings) {
+    }
+
+    private static final class Document {
+        Task task;
+        // текст в представлении задачи: у компактной задачи это общие экземпляры TextPool, а не копии
+        final Object name;
+        final Object description;
+        final String[] terms;
+
+        Document(Task task, String[] terms) {
+            this.task = task;
+            this.name = task.storedName();
+            this.description = task.storedDescription();
+            this.terms = terms;
+        }
+    }
+
+    // Документы одного слова: id -> число вхождений, открытая адресация без упаковки в Integer.
+    // id задач положительные, поэтому 0 обозначает пустую ячейку.
+    private static final class Postings {
+        // фибоначчиев хеш, как в IntObjectMap
+        private static final int GOLDEN = 0x9E3779B9;
+
+        private int[] ids = new int[4];
+        private int[] frequencies = new int[4];
+        private int size;
+        // верхняя граница смещения id от его ячейки, как в IntObjectMap
+        private int maxShift;
+
+        int size() {
+            return size;
+        }
+
+        void put(int id, int frequency) {
+            if (size + 1 > ids.length / 4 * 3) {
+                rehash(ids.length << 1);
+            }
+            int i = slot(id, ids.length);
+            while (ids[i] != 0 && ids[i] != id) {
+                i = (i + 1) & (ids.length - 1);
+            }
+            if (ids[i] == 0) {
+                size++;
+                maxShift = Math.max(maxShift, (i - slot(id, ids.length)) & (ids.length - 1));
+            }
+            ids[i] = id;
+            frequencies[i] = frequency;
+        }
+
+        int frequency(int id) {
+            final int mask = ids.length - 1;
+            int i = slot(id, ids.length);
+            int current;
+            while ((current = ids[i]) != 0) {
+                if (current == id) {
+                    return frequencies[i];
+                }
+                i = (i + 1) & mask;
+            }
+            return 0;
+        }
+
+        void remove(int id) {
+            final int mask = ids.length - 1;
+            int gap = slot(id, ids.length);
+            while (ids[gap] != id) {
+                if (ids[gap] == 0) {
+                    return;
+                }
+                gap = (gap + 1) & mask;
+            }
+            size--;
+            int i = gap;
+            while (true) {
+                i = (i + 1) & mask;
+                final int current = ids[i];
+                if (current == 0 || ((i - gap) & mask) > maxShift) {
+                    break;
+                }
+                if (((i - slot(current, ids.length)) & mask) >= ((i - gap) & mask)) {
+                    ids[gap] = current;
+                    frequencies[gap] = frequencies[i];
+                    gap = i;
+                }
+            }
+            ids[gap] = 0;
+        }
+
+        void forEach(PostingConsumer action) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != 0) {
+                    action.accept(ids[i], frequencies[i]);
+                }
+            }
+        }
+
+        private void rehash(int capacity) {
+            final int[] oldIds = ids;
+            final int[] oldFrequencies = frequencies;
+            ids = new int[capacity];
+            frequencies = new int[capacity];
+            maxShift = 0;
+            for (int j = 0; j < oldIds.length; j++) {
+                if (oldIds[j] != 0) {
+                    int i = slot(oldIds[j], capacity);
+                    while (ids[i] != 0) {
+                        i = (i + 1) & (capacity - 1);
+                    }
+                    ids[i] = oldIds[j];
+                    frequencies[i] = oldFrequencies[j];
+                    maxShift = Math.max(maxShift, (i - slot(oldIds[j], capacity)) & (capacity - 1));
+                }
+            }
+        }
+
+        private static int slot(int id, int capacity) {
+            return id * GOLDEN >>> Integer.numberOfLeadingZeros(capacity - 1);
+        }
+    }
+
+    // Оценки документов одного запроса: id -> сумма оценок, открытая адресация без упаковки, как в Postings.
+    // Удалений нет, поэтому смещение не ограничивается
+    private static final class Scores {
+        private int[] ids = new int[16];
+        private double[] values = new double[16];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void add(int id, double score) {
+            final int mask = ids.length - 1;
+            int i = Postings.slot(id, ids.length);
+            while (ids[i] != 0) {
+                if (ids[i] == id) {
+                    values[i] += score;
+                    return;
+                }
+                i = (i + 1) & mask;
+            }
+            ids[i] = id;
+            values[i] = score;
+            if (++size > ids.length / 4 * 3) {
+                rehash(ids.length << 1);
+            }
+        }
+
+        void forEach(ScoreConsumer action) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] != 0) {
+                    action.accept(ids[i], values[i]);
+                }
+            }
+        }
+
+        private void rehash(int capacity) {
+            final int[] oldIds = ids;
+            final double[] oldValues = values;
+            ids = new int[capacity];
+            values = new double[capacity];
+            for (int j = 0; j < oldIds.length; j++) {
+                if (oldIds[j] != 0) {
+                    int i = Postings.slot(oldIds[j], capacity);
+                    while (ids[i] != 0) {
+                        i = (i + 1) & (capacity - 1);
+                    }
+                    ids[i] = oldIds[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+    }
+
+    private interface PostingConsumer {
+        void accept(int id, int frequency);
+    }
+
+    private interface ScoreConsumer {
+        void accept(int id, double score);
+    }
+}
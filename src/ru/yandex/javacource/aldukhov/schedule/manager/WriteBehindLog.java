@@ -0,0 +1,246 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Журнал FileBackedTaskManager в режиме Durability.WRITE_BEHIND. Операция уже применена в памяти,
+// писатель только кладёт готовую запись в ограниченную очередь без блокировок и сразу возвращается.
+// Фоновый поток раз в maxLag (или раньше, если очередь заполнена наполовину или вызван flush) забирает всё
+// накопленное, выкидывает обновления, перекрытые более поздним обновлением той же задачи, и пишет пакет
+// с одним fsync. Если очередь заполнена, писатель ждёт, пока поток её разгрузит.
+//
+// Очередь — кольцо с номерами позиций: писатели занимают позицию CAS-ом хвоста и публикуют запись в ячейку,
+// поток записи читает ячейки по порядку, дожидаясь публикации уже занятой позиции. При закрытии поток
+// записи запечатывает хвост тем же CAS-ом (старший бит): позиция, занятая до печати, будет дописана,
+// а после неё занять позицию нельзя, поэтому запись не может потеряться между проверкой и CAS.
+final class WriteBehindLog implements AutoCloseable {
+    // запись, которую можно переставлять с перезаписями других задач (добавление)
+    static final byte KEEP = 0;
+    // обновление задачи id: более позднее обновление той же задачи в пакете его заменяет
+    static final byte COALESCE = 1;
+    // удаление или очистка: обновления до и после неё не объединяются
+    static final byte BARRIER = 2;
+    // обрезка журнала после записи снимка
+    private static final byte TRUNCATE = 3;
+    // бит запечатанного хвоста: журнал закрыт, новые записи не принимаются
+    private static final long SEALED = Long.MIN_VALUE;
+
+    private final FileChannel log;
+    private final Path logFile;
+    private final long maxLagNanos;
+    private final AtomicReferenceArray<Frame> queue;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // позиция, до которой очередь разобрана; пишет только поток записи
+    private volatile long head;
+    // позиция, до которой записи на диске
+    private volatile long durable;
+    private volatile boolean closing;
+    private volatile IOException failure;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushed = lock.newCondition();
+    private final Thread flusher;
+    private ByteBuffer writeBuffer = ByteBuffer.allocateDirect(1 << 16);
+
+    WriteBehindLog(FileChannel log, Path logFile, long maxLagMillis, int capacity) {
+        this.log = log;
+        this.logFile = logFile;
+        this.maxLagNanos = Math.max(1, maxLagMillis) * 1_000_000;
+        final int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.queue = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        flusher = new Thread(this::run, "task-log-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    void append(byte kind, int id, byte[] frame) {
+        enqueue(new Frame(kind, id, frame));
+    }
+
+    // Журнал обрезается, когда записи до этого момента окажутся в файле: они уже есть в снимке
+    void truncate() {
+        enqueue(new Frame(TRUNCATE, 0, null));
+    }
+
+    // Барьер: возвращается, когда все записи, поставленные в очередь до вызова, сброшены на диск
+    void flush() {
+        final long target = tail.get() & ~SEALED;
+        LockSupport.unpark(flusher);
+        lock.lock();
+        try {
+            while (durable < target && failure == null) {
+                flushed.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Прервано ожидание записи журнала " + logFile, e);
+        } finally {
+            lock.unlock();
+        }
+        checkFailure();
+    }
+
+    // Дописывает всё, что в очереди, и останавливает поток записи. Новые записи после этого не принимаются
+    @Override
+    public void close() {
+        closing = true;
+        LockSupport.unpark(flusher);
+        boolean interrupted = false;
+        while (flusher.isAlive()) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        checkFailure();
+    }
+
+    private void enqueue(Frame frame) {
+        final int capacity = mask + 1;
+        long position;
+        while (true) {
+            checkFailure();
+            position = tail.get();
+            if (closing || (position & SEALED) != 0) {
+                throw new IllegalStateException("Журнал " + logFile + " закрыт");
+            }
+            if (position - head >= capacity) {
+                LockSupport.unpark(flusher);
+                LockSupport.parkNanos(this, 10_000);
+            } else if (tail.compareAndSet(position, position + 1)) {
+                break;
+            }
+        }
+        queue.setRelease((int) position & mask, frame);
+        if (position - head >= capacity / 2) {
+            LockSupport.unpark(flusher);
+        }
+    }
+
+    private void run() {
+        List<Frame> batch = new ArrayList<>();
+        while (true) {
+            final boolean last = closing;
+            final long end = tail.get();
+            if (end > head) {
+                drain(end, batch);
+                write(batch);
+                batch.clear();
+                signal(end);
+            }
+            // писатель, прошедший проверку closing до close(), мог занять позицию после чтения хвоста:
+            // тогда печать не удаётся, и поток разбирает очередь ещё раз
+            if (last && tail.compareAndSet(end, end | SEALED)) {
+                return;
+            }
+            if (!last) {
+                LockSupport.parkNanos(this, maxLagNanos);
+            }
+        }
+    }
+
+    private void drain(long end, List<Frame> batch) {
+        for (long position = head; position < end; position++) {
+            final int slot = (int) position & mask;
+            Frame frame;
+            // позиция занята, но писатель ещё не опубликовал запись
+            while ((frame = queue.getAcquire(slot)) == null) {
+                Thread.onSpinWait();
+            }
+            queue.setPlain(slot, null);
+            batch.add(frame);
+        }
+        head = end;
+    }
+
+    // Более раннее обновление задачи выкидывается, если между ним и поздним нет удалений и очисток:
+    // обновления не создают и не удаляют задач, поэтому позднее применится при восстановлении так же
+    private void coalesce(List<Frame> batch) {
+        final IntObjectMap<Integer> lastUpdate = new IntObjectMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            final Frame frame = batch.get(i);
+            if (frame.kind == COALESCE) {
+                final Integer previous = lastUpdate.put(frame.id, i);
+                if (previous != null) {
+                    batch.set(previous, null);
+                }
+            } else if (frame.kind != KEEP) {
+                lastUpdate.clear();
+            }
+        }
+    }
+
+    private void write(List<Frame> batch) {
+        if (failure != null) {
+            return;
+        }
+        coalesce(batch);
+        try {
+            writeBuffer.clear();
+            for (Frame frame : batch) {
+                if (frame == null) {
+                    continue;
+                }
+                if (frame.kind == TRUNCATE) {
+                    writeOut();
+                    log.truncate(0);
+                    log.position(0);
+                    continue;
+                }
+                if (writeBuffer.remaining() < frame.bytes.length) {
+                    writeOut();
+                    if (writeBuffer.capacity() < frame.bytes.length) {
+                        writeBuffer = ByteBuffer.allocateDirect(Integer.highestOneBit(frame.bytes.length) << 1);
+                    }
+                }
+                writeBuffer.put(frame.bytes);
+            }
+            writeOut();
+            log.force(false);
+        } catch (IOException e) {
+            failure = e;
+        }
+    }
+
+    private void writeOut() throws IOException {
+        writeBuffer.flip();
+        while (writeBuffer.hasRemaining()) {
+            log.write(writeBuffer);
+        }
+        writeBuffer.clear();
+    }
+
+    private void signal(long end) {
+        lock.lock();
+        try {
+            durable = end;
+            flushed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void checkFailure() {
+        final IOException e = failure;
+        if (e != null) {
+            throw new ManagerSaveException("Не удалось записать операцию в журнал " + logFile, e);
+        }
+    }
+
+    private record Frame(byte kind, int id, byte[] bytes) {
+    }
+}
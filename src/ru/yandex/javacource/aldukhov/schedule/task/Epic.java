@@ -1,30 +1,51 @@
 package ru.yandex.javacource.aldukhov.schedule.task;
 
-import java.util.ArrayList;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 public class Epic extends Task {
-    private ArrayList<Integer> subTaskIds;
+    private IntHashSet subTaskIds;
 
     public Epic(String name, String description) {
         super(name, description);
-        this.subTaskIds = new ArrayList<>();
+        this.subTaskIds = new IntHashSet();
     }
 
-    public ArrayList<Integer> getSubTaskIds() {
-        return subTaskIds;
+    public int[] getSubTaskIds() {
+        return subTaskIds.toArray();
     }
 
-    public void setSubTaskIds(ArrayList<Integer> subTaskIds) {
-        this.subTaskIds = subTaskIds;
+    public int getSubtaskCount() {
+        return subTaskIds.size();
     }
 
-    public void addSubtaskId(Integer subtaskId) {
-        if (!subTaskIds.contains(subtaskId)) {
-            subTaskIds.add(subtaskId);
-        }
+    public boolean containsSubtaskId(int subtaskId) {
+        return subTaskIds.contains(subtaskId);
+    }
+
+    public void forEachSubtaskId(IntConsumer action) {
+        subTaskIds.forEach(action);
+    }
+
+    // ленивый поток id подзадач без копирования множества
+    public IntStream subtaskIds() {
+        return subTaskIds.stream();
+    }
+
+    public boolean addSubtaskId(int subtaskId) {
+        return subTaskIds.add(subtaskId);
+    }
+
+    public boolean removeSubtaskId(int subtaskId) {
+        return subTaskIds.remove(subtaskId);
+    }
+
+    // Новая версия эпика при обновлении продолжает использовать состав сохранённой
+    public void takeSubtasksFrom(Epic epic) {
+        subTaskIds = epic.subTaskIds;
     }
 
     public void cleanSubtaskIds() {
         subTaskIds.clear();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,163 @@
+package ru.yandex.javacource.aldukhov.schedule.task;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+// Множество int с открытой адресацией и линейным пробированием, без упаковки в Integer.
+// Ячейка свободна, если в ней FREE; сам FREE хранится отдельным флагом.
+// Сдвиг при удалении ограничен maxShift: подряд идущие id не заставляют проходить всю цепочку.
+final class IntHashSet {
+    private static final int FREE = 0;
+    private static final int MIN_CAPACITY = 8;
+    // 2^32 / φ, как в IntObjectMap: ячейку дают старшие биты произведения
+    private static final int GOLDEN = 0x9E3779B9;
+
+    private int[] slots = new int[MIN_CAPACITY];
+    private int mask = MIN_CAPACITY - 1;
+    private int shift = Integer.numberOfLeadingZeros(MIN_CAPACITY - 1);
+    private int size;
+    private boolean hasFree;
+    private int maxShift;
+
+    int size() {
+        return size;
+    }
+
+    boolean contains(int value) {
+        if (value == FREE) {
+            return hasFree;
+        }
+        int i = slot(value);
+        int current;
+        while ((current = slots[i]) != FREE) {
+            if (current == value) {
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    boolean add(int value) {
+        if (value == FREE) {
+            if (hasFree) {
+                return false;
+            }
+            hasFree = true;
+            size++;
+            return true;
+        }
+        int i = slot(value);
+        int current;
+        while ((current = slots[i]) != FREE) {
+            if (current == value) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        slots[i] = value;
+        maxShift = Math.max(maxShift, (i - slot(value)) & mask);
+        if (++size > slots.length / 4 * 3) {
+            rehash(slots.length << 1);
+        }
+        return true;
+    }
+
+    boolean remove(int value) {
+        if (value == FREE) {
+            if (!hasFree) {
+                return false;
+            }
+            hasFree = false;
+            size--;
+            return true;
+        }
+        int i = slot(value);
+        int current;
+        while ((current = slots[i]) != FREE) {
+            if (current == value) {
+                shiftBack(i);
+                size--;
+                return true;
+            }
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    void clear() {
+        Arrays.fill(slots, FREE);
+        hasFree = false;
+        size = 0;
+        maxShift = 0;
+    }
+
+    void forEach(IntConsumer action) {
+        if (hasFree) {
+            action.accept(FREE);
+        }
+        for (int value : slots) {
+            if (value != FREE) {
+                action.accept(value);
+            }
+        }
+    }
+
+    IntStream stream() {
+        final IntStream values = Arrays.stream(slots).filter(value -> value != FREE);
+        return hasFree ? IntStream.concat(IntStream.of(FREE), values) : values;
+    }
+
+    int[] toArray() {
+        int[] values = new int[size];
+        int i = 0;
+        if (hasFree) {
+            values[i++] = FREE;
+        }
+        for (int value : slots) {
+            if (value != FREE) {
+                values[i++] = value;
+            }
+        }
+        return values;
+    }
+
+    private int slot(int value) {
+        return value * GOLDEN >>> shift;
+    }
+
+    private void shiftBack(int gap) {
+        int i = gap;
+        while (true) {
+            i = (i + 1) & mask;
+            final int value = slots[i];
+            if (value == FREE || ((i - gap) & mask) > maxShift) {
+                break;
+            }
+            if (((i - slot(value)) & mask) >= ((i - gap) & mask)) {
+                slots[gap] = value;
+                gap = i;
+            }
+        }
+        slots[gap] = FREE;
+    }
+
+    private void rehash(int capacity) {
+        final int[] old = slots;
+        slots = new int[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+        maxShift = 0;
+        for (int value : old) {
+            if (value != FREE) {
+                int i = slot(value);
+                while (slots[i] != FREE) {
+                    i = (i + 1) & mask;
+                }
+                slots[i] = value;
+                maxShift = Math.max(maxShift, (i - slot(value)) & mask);
+            }
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package ru.yandex.javacource.aldukhov.schedule.task;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Слабый канонизирующий пул названий и описаний для компактного режима задач (Task.compact).
+// Строка хранится массивом UTF-8, если он не длиннее внутреннего представления String
+// (латиница и кириллица с пробелами и цифрами), иначе — самой строкой. Одинаковый текст всех задач
+// сводится к одному экземпляру; запись пула исчезает, когда на экземпляр не остаётся ссылок из задач.
+// Таблица — цепочки слабых ссылок с сохранённым хешем, очищенные ссылки удаляются при следующем обращении.
+public final class TextPool {
+    private static final int MIN_CAPACITY = 1024;
+
+    private static final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+    private static Entry[] table = new Entry[MIN_CAPACITY];
+    private static int size;
+
+    private TextPool() {
+    }
+
+    // общий экземпляр упакованного текста; уже упакованный массив возвращается как есть
+    public static Object pack(Object value) {
+        if (!(value instanceof String text)) {
+            return value;
+        }
+        final byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        return canonical(utf8.length <= internalSize(text) ? utf8 : text);
+    }
+
+    public static String unpack(Object value) {
+        return value instanceof byte[] utf8 ? new String(utf8, StandardCharsets.UTF_8) : (String) value;
+    }
+
+    // Равенство текста в любом представлении. Канонические экземпляры равны, только если совпадают
+    public static boolean equal(Object a, Object b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        if (a instanceof byte[] left && b instanceof byte[] right) {
+            return Arrays.equals(left, right);
+        }
+        return unpack(a).equals(unpack(b));
+    }
+
+    // хеш как у String, чтобы упакованный и обычный текст давали одинаковый Task.hashCode
+    public static int hash(Object value) {
+        return value == null ? 0 : unpack(value).hashCode();
+    }
+
+    // число живых записей пула
+    public static synchronized int size() {
+        expungeStale();
+        return size;
+    }
+
+    private static synchronized Object canonical(Object value) {
+        expungeStale();
+        final int hash = contentHash(value);
+        final int index = hash & (table.length - 1);
+        for (Entry entry = table[index]; entry != null; entry = entry.next) {
+            final Object existing = entry.get();
+            if (entry.hash == hash && existing != null && sameContent(existing, value)) {
+                return existing;
+            }
+        }
+        table[index] = new Entry(value, hash, table[index]);
+        if (++size > table.length / 4 * 3) {
+            resize(table.length << 1);
+        }
+        return value;
+    }
+
+    private static void expungeStale() {
+        Object reference;
+        while ((reference = queue.poll()) != null) {
+            final Entry stale = (Entry) reference;
+            final int index = stale.hash & (table.length - 1);
+            Entry previous = null;
+            for (Entry entry = table[index]; entry != null; previous = entry, entry = entry.next) {
+                if (entry == stale) {
+                    if (previous == null) {
+                        table[index] = entry.next;
+                    } else {
+                        previous.next = entry.next;
+                    }
+                    size--;
+                    break;
+                }
+            }
+        }
+    }
+
+    private static void resize(int capacity) {
+        Entry[] resized = new Entry[capacity];
+        for (Entry head : table) {
+            Entry entry = head;
+            while (entry != null) {
+                final Entry next = entry.next;
+                final int index = entry.hash & (capacity - 1);
+                entry.next = resized[index];
+                resized[index] = entry;
+                entry = next;
+            }
+        }
+        table = resized;
+    }
+
+    private static int contentHash(Object value) {
+        final int hash = value instanceof byte[] utf8 ? Arrays.hashCode(utf8) : value.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean sameContent(Object existing, Object value) {
+        if (existing instanceof byte[] left) {
+            return value instanceof byte[] right && Arrays.equals(left, right);
+        }
+        return existing.equals(value);
+    }
+
+    // байты, которые String тратит на символы: по одному для Latin-1, иначе по два
+    private static int internalSize(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0xFF) {
+                return text.length() * 2;
+            }
+        }
+        return text.length();
+    }
+
+    private static final class Entry extends WeakReference<Object> {
+        final int hash;
+        Entry next;
+
+        Entry(Object value, int hash, Entry next) {
+            super(value, queue);
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+}
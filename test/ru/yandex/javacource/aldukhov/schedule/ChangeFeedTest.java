@@ -0,0 +1,75 @@
+package ru.yandex.javacource.aldukhov.schedule;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import ru.yandex.javacource.aldukhov.schedule.manager.ChangeFeed;
+import ru.yandex.javacource.aldukhov.schedule.manager.EventsLostException;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskEvent;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class ChangeFeedTest {
+    InMemoryTaskManager manager = new InMemoryTaskManager();
+
+    @Test //события идут по порядку с возрастающими номерами, включая смену статуса эпика и каскадное удаление
+    public void publishesOrderedEvents() {
+        ChangeFeed.Subscription subscription = manager.changes().subscribe();
+        final int epicId = manager.addNewEpic(new Epic("Эпик 1", "описание эпика 1"));
+        Subtask subtask = new Subtask("Подзадача 1", "описание подзадачи 1", epicId);
+        final int subtaskId = manager.addNewSubtask(subtask);
+        subtask.setStatus(Status.DONE);
+        manager.updateSubtask(subtask);
+        manager.delEpicById(epicId);
+        manager.clearTask();
+
+        List<TaskEvent> events = subscription.poll(100);
+        assertEquals(List.of(TaskEvent.Type.CREATED, TaskEvent.Type.CREATED, TaskEvent.Type.UPDATED,
+                        TaskEvent.Type.STATUS_CHANGED, TaskEvent.Type.DELETED, TaskEvent.Type.DELETED,
+                        TaskEvent.Type.CLEARED),
+                events.stream().map(TaskEvent::getType).toList());
+        for (int i = 0; i < events.size(); i++) {
+            assertEquals(i + 1, events.get(i).getSequence());
+        }
+        assertEquals(Status.DONE, events.get(3).getTask().getStatus());
+        assertEquals(subtaskId, events.get(4).getId());
+        assertEquals(TaskEvent.Kind.SUBTASK, events.get(4).getKind());
+        assertEquals(TaskEvent.Kind.EPIC, events.get(5).getKind());
+        // событие хранит копию: последующие изменения объекта его не трогают
+        subtask.setName("Изменено");
+        assertEquals("Подзадача 1", events.get(1).getTask().getName());
+    }
+
+    @Test //подписчик берёт события порциями и продолжает с сохранённого номера
+    public void resumesFromSequence() throws InterruptedException {
+        ChangeFeed feed = manager.changes();
+        ChangeFeed.Subscription subscription = feed.subscribe(0);
+        for (int i = 0; i < 10; i++) {
+            manager.addNewTask(new Task("Задача " + i, "описание " + i));
+        }
+        assertEquals(4, subscription.poll(4).size());
+        final long position = subscription.position();
+        List<TaskEvent> rest = feed.subscribe(position).poll(100);
+        assertEquals(6, rest.size());
+        assertEquals(position + 1, rest.getFirst().getSequence());
+        Assertions.assertTrue(feed.subscribe().poll(10, 1, TimeUnit.MILLISECONDS).isEmpty());
+    }
+
+    @Test //отставший подписчик получает исключение, а запись не ждёт его
+    public void slowSubscriberLosesEvents() {
+        ChangeFeed.Subscription subscription = manager.changes().subscribe(0);
+        for (int i = 0; i < ChangeFeed.DEFAULT_CAPACITY + 10; i++) {
+            manager.addNewTask(new Task("Задача " + i, "описание " + i));
+        }
+        EventsLostException e = Assertions.assertThrows(EventsLostException.class, () -> subscription.poll(1));
+        assertEquals(11, e.getFirstAvailable());
+        assertEquals(1, manager.changes().subscribe(e.getFirstAvailable() - 1).poll(1).size());
+    }
+}
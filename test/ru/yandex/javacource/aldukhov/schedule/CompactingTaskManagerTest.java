@@ -0,0 +1,73 @@
+package ru.yandex.javacource.aldukhov.schedule;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import ru.yandex.javacource.aldukhov.schedule.manager.CompactingTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+import ru.yandex.javacource.aldukhov.schedule.task.TextPool;
+
+import java.util.List;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class CompactingTaskManagerTest {
+    TaskManager manager = new CompactingTaskManager(new InMemoryTaskManager());
+
+    @Test //одинаковый текст разных задач хранится одним экземпляром и читается без искажений
+    public void sharesEqualText() {
+        final int first = manager.addNewTask(new Task("Купить " + "молоко", "Описание 🙂 ё café"));
+        final int second = manager.addNewTask(new Task("Купить молоко", "Описание 🙂 ё " + "café"));
+        Task left = manager.taskById(first);
+        Task right = manager.taskById(second);
+        Assertions.assertSame(left.storedName(), right.storedName());
+        Assertions.assertSame(left.storedDescription(), right.storedDescription());
+        Assertions.assertInstanceOf(byte[].class, left.storedName());
+        assertEquals("Купить молоко", right.getName());
+        assertEquals("Описание 🙂 ё café", right.getDescription());
+        Assertions.assertTrue(TextPool.size() > 0);
+
+        final int epicId = manager.addNewEpic(new Epic(null, ""));
+        final int subtaskId = manager.addNewSubtask(new Subtask("Купить молоко", null, epicId));
+        Assertions.assertNull(manager.epicById(epicId).getName());
+        assertEquals("", manager.epicById(epicId).getDescription());
+        Assertions.assertSame(left.storedName(), manager.subtaskById(subtaskId).storedName());
+    }
+
+    @Test //компактная и обычная задача равны и дают один хеш, кэш хеша сбрасывается при изменении
+    public void keepsEqualsAndHashCode() {
+        Task plain = new Task("Задача", "Длинное описание задачи");
+        plain.setId(5);
+        Task compact = new Task("Задача", "Длинное описание задачи");
+        compact.setId(5);
+        compact.compact();
+        assertEquals(plain, compact);
+        assertEquals(plain.hashCode(), compact.hashCode());
+        assertEquals(plain.toString(), compact.toString());
+
+        final int hash = compact.hashCode();
+        compact.setName("Другая задача");
+        Assertions.assertNotEquals(hash, compact.hashCode());
+        Assertions.assertNotEquals(plain, compact);
+        plain.setName("Другая задача");
+        assertEquals(plain, compact);
+    }
+
+    @Test //поиск и обновление на месте работают поверх компактного текста
+    public void searchesAndUpdatesCompactTasks() {
+        final int id = manager.addNewTask(new Task("Позвонить маме", "Вечером"));
+        manager.addNewTask(new Task("Позвонить в банк", "Утром"));
+        assertEquals(2, manager.search("позвонить").size());
+
+        Task task = manager.taskById(id);
+        task.setDescription("Утром");
+        manager.updateTask(task);
+        assertEquals(List.of(id), manager.search("маме утром").stream().map(Task::getId).toList());
+        Assertions.assertTrue(manager.search("вечером").isEmpty());
+        Assertions.assertSame(manager.taskById(id).storedDescription(),
+                manager.getTasks().get(1).storedDescription());
+    }
+}
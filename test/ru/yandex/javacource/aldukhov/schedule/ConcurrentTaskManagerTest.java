@@ -0,0 +1,265 @@
+package ru.yandex.javacource.aldukhov.schedule;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import ru.yandex.javacource.aldukhov.schedule.manager.ConcurrentTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskSnapshot;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class ConcurrentTaskManagerTest {
+    ConcurrentTaskManager manager = new ConcurrentTaskManager();
+
+    @Test //параллельные записи в разные эпики не теряют подзадач, изменений текста и сохраняют верный статус эпика
+    public void concurrentSubtaskWrites() throws Exception {
+        final int threads = 8;
+        final int perEpic = 500;
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Epic epic = new Epic("Эпик " + i, "Описание эпика " + i);
+            manager.addNewEpic(epic);
+            epics.add(epic);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Epic epic : epics) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perEpic; i++) {
+                    Subtask subtask = new Subtask("Подзадача " + i, "Описание подзадачи " + i, epic.getId());
+                    manager.addNewSubtask(subtask);
+                    subtask.setStatus(Status.DONE);
+                    subtask.setDescription("готово");
+                    manager.updateSubtask(subtask);
+                    manager.subtaskById(subtask.getId());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(threads * perEpic, manager.getSubtask().size());
+        assertEquals(threads * perEpic, manager.getHistory().size());
+        assertEquals(threads * perEpic, manager.search("готово").size());
+        assertEquals(0, manager.search("подзадачи").size());
+        for (Epic epic : epics) {
+            assertEquals(perEpic, manager.getTaskOfEpic(epic).size());
+            assertEquals(Status.DONE, manager.epicById(epic.getId()).getStatus());
+        }
+    }
+
+    @Test //удаление эпика удаляет его подзадачи
+    public void deleteEpicRemovesSubtasks() {
+        Epic epic = new Epic("Эпик 1", "Описание эпика 1");
+        final int epicId = manager.addNewEpic(epic);
+        final int subtaskId = manager.addNewSubtask(new Subtask("Подзадача 1", "Описание подзадачи 1", epicId));
+        manager.delEpicById(epicId);
+        assertEquals(null, manager.subtaskById(subtaskId));
+        assertEquals(0, manager.getSubtask().size());
+    }
+
+    @Test //обновление подзадачи с другим epicId не применяется и не сбивает счётчики эпиков
+    public void updateWithOtherEpicIsIgnored() {
+        final int first = manager.addNewEpic(new Epic("Эпик 1", "Описание эпика 1"));
+        final int second = manager.addNewEpic(new Epic("Эпик 2", "Описание эпика 2"));
+        Subtask subtask = new Subtask("Подзадача 1", "Описание подзадачи 1", first);
+        subtask.setStatus(Status.DONE);
+        final int id = manager.addNewSubtask(subtask);
+
+        Subtask moved = new Subtask("Подзадача 1", "Описание подзадачи 1", second);
+        moved.setId(id);
+        moved.setStatus(Status.IN_PROGRESS);
+        manager.updateSubtask(moved);
+        assertEquals(false, manager.updateAll(List.of(moved)));
+
+        assertEquals(first, manager.subtaskById(id).getEpicId());
+        assertEquals(Status.DONE, manager.epicById(first).getStatus());
+        assertEquals(Status.NEW, manager.epicById(second).getStatus());
+        assertEquals(0, manager.getTaskOfEpic(manager.epicById(second)).size());
+        manager.delEpicById(first);
+        assertEquals(null, manager.subtaskById(id));
+    }
+
+    @Test //отложенные просмотры попадают в историю по порядку, удаление убирает и ещё не перенесённый просмотр
+    public void historyKeepsOrderOfPendingViews() {
+        final int first = manager.addNewEpic(new Epic("Эпик 1", "Описание эпика 1"));
+        final int second = manager.addNewEpic(new Epic("Эпик 2", "Описание эпика 2"));
+        for (int i = 0; i < 1000; i++) {
+            manager.epicById(i % 2 == 0 ? first : second);
+        }
+        manager.epicById(first);
+        assertEquals(List.of(second, first), manager.getHistory().stream().map(Task::getId).toList());
+        manager.epicById(second);
+        manager.delEpicById(second);
+        assertEquals(List.of(first), manager.getHistory().stream().map(Task::getId).toList());
+    }
+
+    @Test //выданный читателю эпик не меняется при записи подзадач, параллельный читатель видит целый состав
+    public void epicHandedToReaderIsNotMutated() throws Exception {
+        final int epicId = manager.addNewEpic(new Epic("Эпик 1", "Описание эпика 1"));
+        final int first = manager.addNewSubtask(new Subtask("Подзадача 0", "Описание подзадачи 0", epicId));
+        Epic seen = manager.epicById(epicId);
+        manager.addNewSubtask(new Subtask("Подзадача 1", "Описание подзадачи 1", epicId));
+        manager.delSubtaskById(first);
+        Assertions.assertArrayEquals(new int[]{first}, seen.getSubTaskIds());
+        assertEquals(1, manager.epicById(epicId).getSubtaskCount());
+
+        final int perEpic = 5000;
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < perEpic; i++) {
+                    manager.addNewSubtask(new Subtask("Подзадача " + i, "Описание подзадачи " + i, epicId));
+                }
+            });
+            int previous = 0;
+            while (!writer.isDone()) {
+                for (Epic epic : manager.getEpics()) {
+                    int[] ids = epic.getSubTaskIds();
+                    assertEquals(epic.getSubtaskCount(), ids.length);
+                    Assertions.assertTrue(ids.length >= previous);
+                    for (int id : ids) {
+                        Assertions.assertTrue(epic.containsSubtaskId(id));
+                        Assertions.assertNotEquals(0, id);
+                    }
+                    previous = ids.length;
+                }
+            }
+            writer.get();
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(perEpic + 1, manager.epicById(epicId).getSubtaskCount());
+    }
+
+    @Test //просмотр, идущий параллельно с удалением, не возвращает удалённую задачу в историю
+    public void viewRacingDeleteDoesNotResurrectTask() throws Exception {
+        final int readers = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(readers);
+        try {
+            for (int round = 0; round < 2000; round++) {
+                final int taskId = manager.addNewTask(new Task("Задача " + round, "Описание задачи " + round));
+                final int epicId = manager.addNewEpic(new Epic("Эпик " + round, "Описание эпика " + round));
+                List<Future<?>> views = new ArrayList<>();
+                for (int i = 0; i < readers; i++) {
+                    views.add(executor.submit(() -> {
+                        while (manager.taskById(taskId) != null | manager.epicById(epicId) != null) {
+                            Thread.onSpinWait();
+                        }
+                    }));
+                }
+                manager.delTaskById(taskId);
+                if (round % 2 == 0) {
+                    manager.delEpicById(epicId);
+                } else {
+                    manager.clearEpic();
+                }
+                for (Future<?> view : views) {
+                    view.get();
+                }
+                assertEquals(List.of(), manager.getHistory());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test //индекс по статусу следует за обновлениями, статусом эпика, удалениями и очисткой
+    public void statusIndexFollowsWrites() {
+        final int taskId = manager.addNewTask(new Task("Задача", "Описание"));
+        final int epicId = manager.addNewEpic(new Epic("Эпик 1", "Описание эпика 1"));
+        Subtask subtask = new Subtask("Подзадача 1", "Описание подзадачи 1", epicId);
+        final int subtaskId = manager.addNewSubtask(subtask);
+        Task done = new Task("Задача", "Описание");
+        done.setId(taskId);
+        done.setStatus(Status.DONE);
+        manager.updateTask(done);
+        Subtask inProgress = new Subtask("Подзадача 1", "Описание подзадачи 1", epicId);
+        inProgress.setId(subtaskId);
+        inProgress.setStatus(Status.IN_PROGRESS);
+        manager.updateSubtask(inProgress);
+
+        assertEquals(0, manager.getTasksByStatus(Status.NEW).size());
+        assertEquals(List.of(taskId), manager.getTasksByStatus(Status.DONE).stream().map(Task::getId).toList());
+        assertEquals(List.of(epicId), manager.getEpicsByStatus(Status.IN_PROGRESS).stream().map(Task::getId).toList());
+        assertEquals(0, manager.getEpicsByStatus(Status.NEW).size());
+        assertEquals(List.of(subtaskId),
+                manager.getSubtasksByStatus(Status.IN_PROGRESS).stream().map(Task::getId).toList());
+
+        manager.delSubtaskById(subtaskId);
+        assertEquals(0, manager.getSubtasksByStatus(Status.IN_PROGRESS).size());
+        assertEquals(List.of(epicId), manager.getEpicsByStatus(Status.NEW).stream().map(Task::getId).toList());
+        manager.delTaskById(taskId);
+        manager.clearEpic();
+        assertEquals(0, manager.getTasksByStatus(Status.DONE).size());
+        assertEquals(0, manager.getEpicsByStatus(Status.NEW).size());
+    }
+
+    @Test //страница содержит наименьшие id после курсора
+    public void pagesByCursor() {
+        Epic epic = new Epic("Эпик 1", "Описание эпика 1");
+        final int epicId = manager.addNewEpic(epic);
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(manager.addNewSubtask(new Subtask("Подзадача " + i, "Описание " + i, epicId)));
+        }
+        manager.delSubtaskById(ids.remove(3));
+        List<Integer> page = manager.getSubtasksPage(ids.get(1), 5).stream().map(Subtask::getId).toList();
+        assertEquals(ids.subList(2, 7), page);
+        assertEquals(19, manager.streamTaskOfEpic(epic).count());
+    }
+
+    @Test //снимки, взятые во время записи, согласованы: у каждой подзадачи есть эпик, статус эпика совпадает с подзадачами
+    public void consistentSnapshotsUnderWrites() throws Exception {
+        manager.snapshot();
+        final int epicCount = 8;
+        List<Integer> epicIds = new ArrayList<>();
+        for (int i = 0; i < epicCount; i++) {
+            epicIds.add(manager.addNewEpic(new Epic("Эпик " + i, "Описание эпика " + i)));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(epicCount);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int epicId : epicIds) {
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < 300; i++) {
+                    Subtask subtask = new Subtask("Подзадача " + i, "Описание " + i, epicId);
+                    final int id = manager.addNewSubtask(subtask);
+                    subtask.setStatus(Status.DONE);
+                    manager.updateSubtask(subtask);
+                    if (i % 50 == 49) {
+                        manager.delSubtaskById(id);
+                    }
+                }
+            }));
+        }
+        while (!writers.stream().allMatch(Future::isDone)) {
+            TaskSnapshot snapshot = manager.snapshot();
+            for (Subtask subtask : snapshot.subtasksView()) {
+                assertEquals(true, snapshot.epicById(subtask.getEpicId()) != null);
+            }
+            for (Epic epic : snapshot.epicsView()) {
+                List<Subtask> members = snapshot.getTaskOfEpic(epic.getId());
+                final boolean allDone = members.stream().allMatch(s -> s.getStatus() == Status.DONE);
+                final boolean allNew = members.stream().allMatch(s -> s.getStatus() == Status.NEW);
+                final Status expected = allNew ? Status.NEW : allDone ? Status.DONE : Status.IN_PROGRESS;
+                assertEquals(expected, epic.getStatus());
+            }
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        executor.shutdown();
+        assertEquals(epicCount * 294, manager.snapshot().subtasksView().size());
+    }
+}
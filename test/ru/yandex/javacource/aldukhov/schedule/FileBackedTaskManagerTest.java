@@ -0,0 +1,249 @@
+package ru.yandex.javacource.aldukhov.schedule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import ru.yandex.javacource.aldukhov.schedule.manager.Durability;
+import ru.yandex.javacource.aldukhov.schedule.manager.FileBackedTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class FileBackedTaskManagerTest {
+    Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("kanban");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test //пакетные операции восстанавливаются из журнала
+    public void restoresBatchesFromLog() {
+        int epicId;
+        List<Integer> ids;
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            epicId = manager.addNewEpic(new Epic("Эпик 1", "Описание эпика 1"));
+            ids = manager.addAll(List.of(new Task("Задача 1", "Описание 1"),
+                    new Subtask("Подзадача 1", "Описание подзадачи 1", epicId),
+                    new Subtask("Подзадача 2", "Описание подзадачи 2", epicId)));
+            Subtask done = new Subtask("Подзадача 2", "Готово", epicId);
+            done.setId(ids.get(2));
+            done.setStatus(Status.DONE);
+            manager.updateAll(List.of(done));
+            manager.deleteAll(List.of(ids.get(0), ids.get(1)));
+        }
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            Assertions.assertTrue(manager.getTasks().isEmpty());
+            assertEquals(1, manager.getSubtask().size());
+            assertEquals("Готово", manager.subtaskById(ids.get(2)).getDescription());
+            assertEquals(Status.DONE, manager.epicById(epicId).getStatus());
+        }
+    }
+
+    @Test //состояние восстанавливается из журнала после перезапуска
+    public void restoresFromLog() {
+        int taskId;
+        int epicId;
+        int subtaskId;
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory, Durability.OS_BUFFERED)) {
+            taskId = manager.addNewTask(new Task("Задача 1", "Описание 1"));
+            manager.addNewTask(new Task("Задача 2", "Описание 2"));
+            epicId = manager.addNewEpic(new Epic("Эпик 1", "Описание эпика 1"));
+            Subtask subtask = new Subtask("Подзадача 1", "Описание подзадачи 1", epicId);
+            subtaskId = manager.addNewSubtask(subtask);
+            subtask.setStatus(Status.DONE);
+            manager.updateSubtask(subtask);
+            manager.delTaskById(taskId);
+        }
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            Assertions.assertNull(manager.taskById(taskId));
+            assertEquals(1, manager.getTasks().size());
+            assertEquals(Status.DONE, manager.epicById(epicId).getStatus());
+            assertEquals("Подзадача 1", manager.subtaskById(subtaskId).getName());
+            assertEquals(subtaskId + 1, manager.addNewTask(new Task("Задача 3", "Описание 3")));
+        }
+    }
+
+    @Test //после сжатия состояние восстанавливается из снимка и хвоста журнала
+    public void restoresFromSnapshotAndLogTail() {
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory, Durability.GROUP_COMMIT, 5, 3)) {
+            for (int i = 0; i < 10; i++) {
+                manager.addNewTask(new Task("Задача " + i, "Описание " + i));
+            }
+            manager.delTaskById(1);
+        }
+        Assertions.assertTrue(Files.exists(directory.resolve("tasks.snapshot")));
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            assertEquals(9, manager.getTasks().size());
+            Assertions.assertNull(manager.taskById(1));
+            assertEquals("Задача 9", manager.taskById(10).getName());
+        }
+    }
+
+    @Test //недописанная последняя запись журнала отбрасывается
+    public void ignoresTornLogTail() throws IOException {
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            manager.addNewTask(new Task("Задача 1", "Описание 1"));
+        }
+        Files.write(directory.resolve("tasks.log"), new byte[]{0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            assertEquals(1, manager.getTasks().size());
+            manager.addNewTask(new Task("Задача 2", "Описание 2"));
+        }
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            assertEquals(2, manager.getTasks().size());
+        }
+    }
+
+    @Test //хвост из нулей и мусора после целых записей отрезается, новые записи идут за последней целой
+    public void ignoresZeroFilledAndGarbageTail() throws IOException {
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            manager.addNewTask(new Task("Задача 1", "Описание 1"));
+        }
+        final Path log = directory.resolve("tasks.log");
+        final long validLength = Files.size(log);
+        Files.write(log, new byte[64], StandardOpenOption.APPEND);
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            assertEquals(1, manager.getTasks().size());
+        }
+        assertEquals(validLength, Files.size(log));
+
+        final byte[] garbage = new byte[256];
+        new Random(7).nextBytes(garbage);
+        Files.write(log, garbage, StandardOpenOption.APPEND);
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            assertEquals(1, manager.getTasks().size());
+            manager.addNewTask(new Task("Задача 2", "Описание 2"));
+        }
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            assertEquals(2, manager.getTasks().size());
+        }
+    }
+
+    @Test //одиночный суррогат в имени не сдвигает строки в снимке: после сжатия и перезапуска остальные строки целы
+    public void keepsStringsAfterLoneSurrogateInSnapshot() {
+        int firstId;
+        int secondId;
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            firstId = manager.addNewTask(new Task("\uD800", "описание 🙂"));
+            secondId = manager.addNewTask(new Task("Задача 2", "Описание 2"));
+            manager.compact();
+        }
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            // UTF-8 не кодирует одиночный суррогат, кодировщик заменяет его на '?'
+            assertEquals("?", manager.taskById(firstId).getName());
+            assertEquals("описание 🙂", manager.taskById(firstId).getDescription());
+            assertEquals("Задача 2", manager.taskById(secondId).getName());
+            assertEquals("Описание 2", manager.taskById(secondId).getDescription());
+            manager.compact();
+        }
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            assertEquals("?", manager.taskById(firstId).getName());
+            assertEquals("Описание 2", manager.taskById(secondId).getDescription());
+        }
+    }
+
+    @Test //фоновая запись: изменения сразу видны в памяти, flush и close дописывают журнал, сжатие не теряет операций
+    public void writesBehindAndDrainsOnClose() throws IOException {
+        String expected;
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory, Durability.WRITE_BEHIND, 10_000, 50)) {
+            final int epicId = manager.addNewEpic(new Epic("Эпик", "Описание"));
+            final int deletedEpicId = manager.addNewEpic(new Epic("Удаляемый эпик", "Описание"));
+            final int subtaskId = manager.addNewSubtask(new Subtask("Подзадача", "Описание", epicId));
+            final int deletedId = manager.addNewSubtask(new Subtask("Подзадача", "Описание", deletedEpicId));
+            manager.flush();
+            Assertions.assertTrue(Files.size(directory.resolve("tasks.log")) > 0);
+
+            // обновления до и после удаления эпика не объединяются через удаление
+            manager.updateSubtask(subtask(subtaskId, epicId, Status.DONE));
+            manager.updateSubtask(subtask(deletedId, deletedEpicId, Status.DONE));
+            manager.delEpicById(deletedEpicId);
+            manager.updateSubtask(subtask(deletedId, deletedEpicId, Status.IN_PROGRESS));
+            manager.updateSubtask(subtask(subtaskId, epicId, Status.IN_PROGRESS));
+            assertEquals(Status.IN_PROGRESS, manager.epicById(epicId).getStatus());
+            for (int i = 0; i < 200; i++) {
+                manager.addNewTask(new Task("Задача " + i, "Описание " + i));
+            }
+            Assertions.assertTrue(Files.exists(directory.resolve("tasks.snapshot")));
+            expected = manager.getTasks().size() + " " + manager.getEpics() + " " + manager.getSubtask();
+        }
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            assertEquals(expected, manager.getTasks().size() + " " + manager.getEpics() + " " + manager.getSubtask());
+            assertEquals(200, manager.getTasks().size());
+        }
+    }
+
+    @Test //повторные обновления одной задачи до записи пакета пишутся в журнал одной записью
+    public void coalescesRepeatedUpdates() throws IOException {
+        final Path syncDirectory = Files.createTempDirectory(directory, "sync");
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(syncDirectory);
+             FileBackedTaskManager writeBehind = new FileBackedTaskManager(directory, Durability.WRITE_BEHIND,
+                     10_000, FileBackedTaskManager.DEFAULT_COMPACT_EVERY)) {
+            Task task = new Task("Задача", "Описание");
+            Task copy = new Task("Задача", "Описание");
+            manager.addNewTask(task);
+            writeBehind.addNewTask(copy);
+            task.setStatus(Status.DONE);
+            manager.updateTask(task);
+            for (int i = 0; i < 1000; i++) {
+                copy.setStatus(i % 2 == 0 ? Status.IN_PROGRESS : Status.DONE);
+                writeBehind.updateTask(copy);
+                if (i == 500) {
+                    // удаление отсутствующих id не пишется и не разбивает объединение обновлений
+                    writeBehind.delTaskById(100);
+                    writeBehind.delEpicById(1);
+                    writeBehind.delSubtaskById(1);
+                }
+            }
+            // пропущенное обновление не пишется вовсе
+            Task missing = new Task("Нет такой", "Описание");
+            missing.setId(100);
+            writeBehind.updateTask(missing);
+            writeBehind.flush();
+            assertEquals(Files.size(syncDirectory.resolve("tasks.log")), Files.size(directory.resolve("tasks.log")));
+        }
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory)) {
+            assertEquals(Status.DONE, manager.taskById(1).getStatus());
+        }
+    }
+
+    @Test //без flush записи попадают на диск не позже заданной задержки
+    public void writesWithinMaxLag() throws Exception {
+        try (FileBackedTaskManager manager = new FileBackedTaskManager(directory, Durability.WRITE_BEHIND, 20,
+                FileBackedTaskManager.DEFAULT_COMPACT_EVERY)) {
+            manager.addNewTask(new Task("Задача", "Описание"));
+            final long deadline = System.nanoTime() + 5_000_000_000L;
+            while (Files.size(directory.resolve("tasks.log")) == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            Assertions.assertTrue(Files.size(directory.resolve("tasks.log")) > 0);
+        }
+    }
+
+    private static Subtask subtask(int id, int epicId, Status status) {
+        Subtask subtask = new Subtask("Подзадача", "Описание", epicId);
+        subtask.setId(id);
+        subtask.setStatus(status);
+        return subtask;
+    }
+}
@@ -0,0 +1,98 @@
+package ru.yandex.javacource.aldukhov.schedule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import ru.yandex.javacource.aldukhov.schedule.http.HttpTaskServer;
+import ru.yandex.javacource.aldukhov.schedule.manager.ConcurrentTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class HttpTaskServerTest {
+    TaskManager manager = new ConcurrentTaskManager();
+    HttpTaskServer server;
+    HttpClient client = HttpClient.newHttpClient();
+
+    @Before
+    public void start() throws IOException {
+        server = new HttpTaskServer(manager, 0);
+        server.start();
+    }
+
+    @After
+    public void stop() {
+        server.stop(0);
+    }
+
+    @Test //задачи создаются, читаются, обновляются и удаляются через HTTP
+    public void tasksCrud() throws Exception {
+        HttpResponse<String> created = send("POST", "/tasks",
+                "{\"name\":\"Задача 1\",\"description\":\"описание \\\"1\\\"\"}");
+        assertEquals(201, created.statusCode());
+        assertEquals(1, manager.getTasks().size());
+        final int id = manager.getTasks().getFirst().getId();
+        assertEquals("описание \"1\"", manager.getTasks().getFirst().getDescription());
+
+        HttpResponse<String> read = send("GET", "/tasks/" + id, null);
+        assertEquals(200, read.statusCode());
+        Assertions.assertTrue(read.body().contains("\"name\":\"Задача 1\""));
+
+        assertEquals(200, send("POST", "/tasks",
+                "{\"id\":" + id + ",\"name\":\"Задача 1\",\"status\":\"DONE\"}").statusCode());
+        assertEquals(Status.DONE, manager.getTasks().getFirst().getStatus());
+        assertEquals(404, send("POST", "/tasks", "{\"id\":100,\"name\":\"Нет\"}").statusCode());
+        assertEquals(400, send("POST", "/tasks", "{\"name\":").statusCode());
+
+        assertEquals(204, send("DELETE", "/tasks/" + id, null).statusCode());
+        assertEquals(404, send("GET", "/tasks/" + id, null).statusCode());
+        assertEquals(405, send("PUT", "/tasks", "{}").statusCode());
+    }
+
+    @Test //подзадачи эпика, страницы и история
+    public void epicsSubtasksAndHistory() throws Exception {
+        assertEquals(201, send("POST", "/epics", "{\"name\":\"Эпик 1\",\"description\":\"описание\"}").statusCode());
+        final int epicId = manager.getEpics().getFirst().getId();
+        assertEquals(201, send("POST", "/subtasks",
+                "{\"name\":\"Подзадача 1\",\"status\":\"IN_PROGRESS\",\"epicId\":" + epicId + "}").statusCode());
+        assertEquals(404, send("POST", "/subtasks", "{\"name\":\"Подзадача 2\",\"epicId\":100}").statusCode());
+
+        HttpResponse<String> subtasks = send("GET", "/epics/" + epicId + "/subtasks", null);
+        assertEquals(200, subtasks.statusCode());
+        Assertions.assertTrue(subtasks.body().contains("\"epicId\":" + epicId));
+        assertEquals(Status.IN_PROGRESS, manager.getEpics().getFirst().getStatus());
+        assertEquals("[]", send("GET", "/subtasks?afterId=" + (epicId + 1) + "&limit=10", null).body());
+
+        HttpResponse<String> history = send("GET", "/history", null);
+        Assertions.assertTrue(history.body().startsWith("[{\"id\":" + epicId));
+    }
+
+    @Test //размер страницы вне 1..MAX_PAGE_SIZE отклоняется с 400 до обращения к менеджеру
+    public void rejectsBadPageLimit() throws Exception {
+        assertEquals(201, send("POST", "/tasks", "{\"name\":\"Задача 1\"}").statusCode());
+        for (String path : List.of("/tasks", "/epics", "/subtasks")) {
+            assertEquals(400, send("GET", path + "?limit=2000000000", null).statusCode());
+            assertEquals(400, send("GET", path + "?limit=0", null).statusCode());
+            assertEquals(400, send("GET", path + "?afterId=0&limit=-5", null).statusCode());
+            assertEquals(200, send("GET", path + "?limit=" + TaskManager.MAX_PAGE_SIZE, null).statusCode());
+        }
+        Assertions.assertTrue(send("GET", "/tasks?afterId=0", null).body().contains("Задача 1"));
+    }
+
+    private HttpResponse<String> send(String method, String path, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,101 @@
+package ru.yandex.javacource.aldukhov.schedule;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import ru.yandex.javacource.aldukhov.schedule.manager.BlockIdGenerator;
+import ru.yandex.javacource.aldukhov.schedule.manager.FileIdBlockAllocator;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryHistoryManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class IdGeneratorTest {
+
+    @Test //генераторы с общим файлом выдают непересекающиеся id
+    public void blockGeneratorsSharingFileDoNotOverlap() throws IOException {
+        Path file = Files.createTempFile("ids", ".bin");
+        try {
+            BlockIdGenerator first = new BlockIdGenerator(new FileIdBlockAllocator(file), 3);
+            BlockIdGenerator second = new BlockIdGenerator(new FileIdBlockAllocator(file), 3);
+            Set<Integer> ids = ConcurrentHashMap.newKeySet();
+            for (int i = 0; i < 10; i++) {
+                Assertions.assertTrue(ids.add(first.nextId()));
+                Assertions.assertTrue(ids.add(second.nextId()));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test //генератор из нескольких потоков не выдаёт повторов
+    public void blockGeneratorIsThreadSafe() throws Exception {
+        Path file = Files.createTempFile("ids", ".bin");
+        try {
+            BlockIdGenerator generator = new BlockIdGenerator(new FileIdBlockAllocator(file), 100);
+            Set<Integer> ids = ConcurrentHashMap.newKeySet();
+            Thread[] threads = new Thread[4];
+            for (int t = 0; t < threads.length; t++) {
+                threads[t] = new Thread(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        ids.add(generator.nextId());
+                    }
+                });
+                threads[t].start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertEquals(40_000, ids.size());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test //отдельные распределители одного файла в одной JVM ждут друг друга, а не падают на блокировке файла
+    public void allocatorsSharingFileInOneJvmWait() throws Exception {
+        Path file = Files.createTempFile("ids", ".bin");
+        try {
+            Set<Integer> ids = ConcurrentHashMap.newKeySet();
+            List<Future<Integer>> futures = new ArrayList<>();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int i = 0; i < 2000; i++) {
+                    // второй путь к тому же файлу через «..» сводится к той же блокировке
+                    Path path = i % 2 == 0 ? file : file.getParent().resolve("..")
+                            .resolve(file.getParent().getFileName()).resolve(file.getFileName());
+                    futures.add(executor.submit(() -> new BlockIdGenerator(new FileIdBlockAllocator(path), 1).nextId()));
+                }
+            }
+            for (Future<Integer> future : futures) {
+                Assertions.assertTrue(ids.add(future.get()));
+            }
+            assertEquals(2000, ids.size());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test //менеджер берёт id из переданного генератора
+    public void managerUsesGivenGenerator() throws IOException {
+        Path file = Files.createTempFile("ids", ".bin");
+        try {
+            new FileIdBlockAllocator(file).allocate(41);
+            InMemoryTaskManager manager = new InMemoryTaskManager(new InMemoryHistoryManager(),
+                    new BlockIdGenerator(new FileIdBlockAllocator(file)));
+            assertEquals(42, manager.addNewTask(new Task("Задача 1", "Описание 1")));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package ru.yandex.javacource.aldukhov.schedule;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import ru.yandex.javacource.aldukhov.schedule.manager.ConcurrentTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.InstrumentedTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManagerMetrics;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class InstrumentedTaskManagerTest {
+    InstrumentedTaskManager manager = new InstrumentedTaskManager(new InMemoryTaskManager());
+    TaskManagerMetrics metrics = manager.getMetrics();
+
+    @Test //каждый вызов считается, задержки чтения по id замеряются выборочно, размеры хранилища видны в отчёте
+    public void countsCallsAndReportsGauges() {
+        final int taskId = manager.addNewTask(new Task("Задача 1", "описание задачи 1"));
+        final int epicId = manager.addNewEpic(new Epic("Эпик 1", "описание эпика 1"));
+        manager.addNewEpic(new Epic("Эпик 2", "описание эпика 2"));
+        manager.addNewSubtask(new Subtask("Подзадача 1", "описание подзадачи 1", epicId));
+        for (int i = 0; i < 64; i++) {
+            manager.taskById(taskId);
+        }
+
+        assertEquals(64, metrics.calls("taskById"));
+        assertEquals(2, metrics.calls("addNewEpic"));
+        assertEquals(0, metrics.calls("clearTask"));
+        Assertions.assertTrue(metrics.latencyNanos("taskById", 0.5) > 0);
+        Assertions.assertTrue(metrics.latencyNanos("addNewTask", 1.0) > 0);
+        assertEquals(0.5, metrics.getAverageEpicFanOut(), 1e-9);
+        assertEquals(1, metrics.getHistorySize());
+
+        final String report = metrics.getReport();
+        Assertions.assertTrue(report.contains("kanban_tasks 1\n"));
+        Assertions.assertTrue(report.contains("kanban_epic_fan_out_average 0.500\n"));
+        Assertions.assertTrue(report.contains("kanban_calls_total{method=\"taskById\"} 64\n"));
+        Assertions.assertTrue(report.contains("kanban_latency_seconds{method=\"addNewSubtask\",quantile=\"0.99\"}"));
+
+        metrics.reset();
+        assertEquals(0, metrics.calls("taskById"));
+        assertEquals(0, metrics.latencyNanos("addNewTask", 1.0));
+    }
+
+    @Test //метрики доступны через JMX
+    public void registersMBean() throws Exception {
+        manager.addNewTask(new Task("Задача 1", "описание задачи 1"));
+        metrics.registerMBean("test");
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("ru.yandex.javacource.aldukhov.schedule:type=TaskManager,name=\"test\"");
+            assertEquals(1, server.getAttribute(name, "TaskCount"));
+            Assertions.assertTrue(((String) server.getAttribute(name, "Report")).contains("addNewTask"));
+        } finally {
+            metrics.unregisterMBean("test");
+        }
+    }
+
+    @Test //потоки, попавшие в одну полосу счётчиков, не теряют вызовов
+    public void countsEveryCallFromManyThreads() throws Exception {
+        InstrumentedTaskManager shared = new InstrumentedTaskManager(new ConcurrentTaskManager());
+        final int taskId = shared.addNewTask(new Task("Задача 1", "описание задачи 1"));
+        final int threads = Runtime.getRuntime().availableProcessors() * 4;
+        final int perThread = 20_000;
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread reader = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    shared.taskById(taskId);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertEquals((long) threads * perThread, shared.getMetrics().calls("taskById"));
+    }
+
+    @Test //вызовы дольше порога попадают в JFR
+    public void emitsSlowCallEvents() throws Exception {
+        InstrumentedTaskManager slow = new InstrumentedTaskManager(new InMemoryTaskManager(), Duration.ZERO);
+        Path file = Files.createTempFile("slow-calls", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("ru.yandex.javacource.aldukhov.schedule.SlowCall");
+            recording.start();
+            slow.addNewTask(new Task("Задача 1", "описание задачи 1"));
+            recording.stop();
+            recording.dump(file);
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertEquals(1, events.size());
+            assertEquals("addNewTask", events.getFirst().getString("method"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
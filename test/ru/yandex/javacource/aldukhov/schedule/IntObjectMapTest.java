@@ -0,0 +1,34 @@
+package ru.yandex.javacource.aldukhov.schedule;
+
+import org.junit.Test;
+import ru.yandex.javacource.aldukhov.schedule.manager.IntObjectMap;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class IntObjectMapTest {
+
+    @Test //таблица ведёт себя как HashMap на случайной последовательности операций
+    public void matchesHashMap() {
+        IntObjectMap<String> map = new IntObjectMap<>();
+        Map<Integer, String> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            final int key = random.nextInt(2_000) - 100;
+            switch (random.nextInt(3)) {
+                case 0 -> assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+                case 1 -> assertEquals(expected.remove(key), map.remove(key));
+                default -> assertEquals(expected.get(key), map.get(key));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.values()));
+        HashSet<Integer> keys = new HashSet<>();
+        map.forEachKey(keys::add);
+        assertEquals(expected.keySet(), keys);
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yandex.javacource.aldukhov.schedule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import ru.yandex.javacource.aldukhov.schedule.manager.Durability;
+import ru.yandex.javacource.aldukhov.schedule.manager.FileBackedTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.ManagerSaveException;
+import ru.yandex.javacource.aldukhov.schedule.manager.MappedHistoryManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class MappedHistoryManagerTest {
+    Path directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("kanban-history");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test //история просмотров без повторов и удалённых задач восстанавливается после перезапуска
+    public void restoresHistoryAfterRestart() {
+        final Path historyFile = directory.resolve("history.ring");
+        int taskId;
+        int epicId;
+        int subtaskId;
+        try (MappedHistoryManager history = new MappedHistoryManager(historyFile);
+             FileBackedTaskManager manager = new FileBackedTaskManager(directory, Durability.SYNC, history)) {
+            taskId = manager.addNewTask(new Task("Задача", "Описание"));
+            final int deletedId = manager.addNewTask(new Task("Удалённая", "Описание"));
+            epicId = manager.addNewEpic(new Epic("Эпик", "Описание"));
+            subtaskId = manager.addNewSubtask(new Subtask("Подзадача", "Описание", epicId));
+            manager.taskById(taskId);
+            manager.epicById(epicId);
+            manager.taskById(deletedId);
+            manager.subtaskById(subtaskId);
+            manager.taskById(taskId);
+            manager.delTaskById(deletedId);
+        }
+
+        try (MappedHistoryManager history = new MappedHistoryManager(historyFile);
+             FileBackedTaskManager manager = new FileBackedTaskManager(directory, Durability.SYNC, history)) {
+            assertEquals(List.of(epicId, subtaskId, taskId), ids(manager.getHistory()));
+            assertEquals("Подзадача", manager.getHistory().get(1).getName());
+            manager.epicById(epicId);
+            assertEquals(List.of(subtaskId, taskId, epicId), ids(manager.getHistory()));
+        }
+    }
+
+    @Test //при переполнении кольца остаются последние события, испорченная запись пропускается
+    public void keepsLatestEventsAndSkipsCorruptEntry() throws IOException {
+        final Path historyFile = directory.resolve("history.ring");
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        for (int i = 0; i < 10; i++) {
+            manager.addNewTask(new Task("Задача " + i, null));
+        }
+        try (MappedHistoryManager history = new MappedHistoryManager(historyFile, 8)) {
+            for (int id = 1; id <= 10; id++) {
+                history.add(manager.taskById(id));
+            }
+        }
+        try (MappedHistoryManager history = new MappedHistoryManager(historyFile, 1024)) {
+            history.restore(manager.snapshot());
+            assertEquals(List.of(3, 4, 5, 6, 7, 8, 9, 10), ids(history.getHistory()));
+        }
+
+        // портим id в записи последнего события (ячейка 10 & 7 = 2, 16 байт после 64 байт заголовка)
+        try (FileChannel channel = FileChannel.open(historyFile, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).putInt(0, 42), 64 + 2 * 16 + 8);
+        }
+        try (MappedHistoryManager history = new MappedHistoryManager(historyFile)) {
+            Assertions.assertTrue(history.getHistory().isEmpty());
+            history.restore(manager.snapshot());
+            assertEquals(List.of(3, 4, 5, 6, 7, 8, 9), ids(history.getHistory()));
+            history.add(manager.taskById(1));
+        }
+        try (MappedHistoryManager history = new MappedHistoryManager(historyFile)) {
+            history.restore(manager.snapshot());
+            assertEquals(List.of(3, 4, 5, 6, 7, 8, 9, 1), ids(history.getHistory()));
+        }
+    }
+
+    @Test //чужой файл не принимается за историю
+    public void rejectsForeignFile() throws IOException {
+        final Path file = Files.writeString(directory.resolve("tasks.csv"), "id,type,name,status,description,epic\n");
+        Assertions.assertThrows(ManagerSaveException.class, () -> new MappedHistoryManager(file));
+    }
+
+    private static List<Integer> ids(List<Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+}
@@ -0,0 +1,193 @@
+package ru.yandex.javacource.aldukhov.schedule;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import ru.yandex.javacource.aldukhov.schedule.manager.ChangeFeed;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.OffHeapTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskEvent;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class OffHeapTaskManagerTest {
+    private static final String[] WORDS = {"молоко", "хлеб", "релиз", "отчёт", "звонок", "молоток"};
+
+    OffHeapTaskManager manager = new OffHeapTaskManager();
+
+    @Test //случайная последовательность операций даёт то же состояние, поиск и историю, что и InMemoryTaskManager
+    public void matchesInMemoryTaskManager() {
+        InMemoryTaskManager expected = new InMemoryTaskManager();
+        ChangeFeed.Subscription expectedEvents = expected.changes().subscribe();
+        ChangeFeed.Subscription events = manager.changes().subscribe();
+        Random random = new Random(7);
+        List<Integer> taskIds = new ArrayList<>();
+        List<Integer> epicIds = new ArrayList<>();
+        List<Integer> subtaskIds = new ArrayList<>();
+        for (int step = 0; step < 3000; step++) {
+            final int operation = random.nextInt(10);
+            final String name = text(random, 2);
+            final String description = text(random, 1 + random.nextInt(4));
+            final Status status = Status.values()[random.nextInt(3)];
+            if (operation < 2 || taskIds.isEmpty() && epicIds.isEmpty()) {
+                Task task = new Task(name, description);
+                task.setStatus(status);
+                expected.addNewTask(task);
+                taskIds.add(manager.addNewTask(copy(task)));
+            } else if (operation == 2 || epicIds.isEmpty()) {
+                Epic epic = new Epic(name, description);
+                expected.addNewEpic(epic);
+                epicIds.add(manager.addNewEpic(new Epic(name, description)));
+            } else if (operation < 5) {
+                Subtask subtask = new Subtask(name, description, pick(random, epicIds));
+                subtask.setStatus(status);
+                expected.addNewSubtask(subtask);
+                subtaskIds.add(manager.addNewSubtask((Subtask) copy(subtask)));
+            } else if (operation == 5 && !subtaskIds.isEmpty()) {
+                Subtask subtask = manager.subtaskById(pick(random, subtaskIds));
+                expected.subtaskById(subtask.getId());
+                subtask.setStatus(status);
+                subtask.setDescription(description);
+                expected.updateSubtask((Subtask) copy(subtask));
+                manager.updateSubtask(subtask);
+            } else if (operation == 6 && !taskIds.isEmpty()) {
+                Task task = manager.taskById(pick(random, taskIds));
+                expected.taskById(task.getId());
+                task.setName(name);
+                task.setStatus(status);
+                expected.updateTask(copy(task));
+                manager.updateTask(task);
+            } else if (operation == 7 && !subtaskIds.isEmpty()) {
+                final int id = subtaskIds.remove(random.nextInt(subtaskIds.size()));
+                expected.delSubtaskById(id);
+                manager.delSubtaskById(id);
+            } else if (operation == 8 && !taskIds.isEmpty()) {
+                final int id = taskIds.remove(random.nextInt(taskIds.size()));
+                expected.delTaskById(id);
+                manager.delTaskById(id);
+            } else if (operation == 9 && epicIds.size() > 3) {
+                final int id = epicIds.remove(random.nextInt(epicIds.size()));
+                for (Subtask subtask : expected.getSubtask()) {
+                    if (subtask.getEpicId() == id) {
+                        subtaskIds.remove((Integer) subtask.getId());
+                    }
+                }
+                expected.delEpicById(id);
+                manager.delEpicById(id);
+            }
+            if (step % 500 == 499) {
+                assertEquals(describe(expected), describe(manager));
+            }
+        }
+        assertEquals(describe(expected), describe(manager));
+        for (String query : List.of("молоко", "молоко хлеб", "релиз OR звонок", "мол*", "отчет")) {
+            assertEquals(query, ids(expected.search(query)), ids(manager.search(query)));
+        }
+        assertEquals(ids(expected.getHistory()), ids(manager.getHistory()));
+        assertEquals(ids(expected.getSubtasksByStatus(Status.DONE)).stream().sorted().toList(),
+                ids(manager.getSubtasksByStatus(Status.DONE)));
+        assertEquals(ids(expected.getTasksPage(100, 20)), ids(manager.getTasksPage(100, 20)));
+        assertEquals(expectedEvents.poll(100_000).stream().map(TaskEvent::getType).toList(),
+                events.poll(100_000).stream().map(TaskEvent::getType).toList());
+    }
+
+    @Test //обновление с другим epicId не переносит подзадачу, строки с null и суррогатами не искажаются
+    public void keepsSubtaskInEpicAndKeepsStrings() {
+        final int first = manager.addNewEpic(new Epic("Первый", null));
+        final int second = manager.addNewEpic(new Epic("Второй", "🙂 ё"));
+        Subtask subtask = new Subtask(null, "", first);
+        subtask.setStatus(Status.DONE);
+        final int id = manager.addNewSubtask(subtask);
+        assertEquals(Status.DONE, manager.epicById(first).getStatus());
+
+        Subtask moved = new Subtask(null, "", second);
+        moved.setId(id);
+        moved.setStatus(Status.NEW);
+        manager.updateSubtask(moved);
+        Assertions.assertFalse(manager.updateAll(List.of(moved)));
+        assertEquals(Status.DONE, manager.epicById(first).getStatus());
+        assertEquals(Status.NEW, manager.epicById(second).getStatus());
+        assertEquals(List.of(id), ids(manager.getTaskOfEpic(manager.epicById(first))));
+        Assertions.assertArrayEquals(new int[0], manager.epicById(second).getSubTaskIds());
+
+        Subtask stored = manager.subtaskById(id);
+        Assertions.assertNull(stored.getName());
+        assertEquals("", stored.getDescription());
+        Assertions.assertNull(manager.epicById(first).getDescription());
+        assertEquals("🙂 ё", manager.epicById(second).getDescription());
+    }
+
+    @Test //возвращаются копии: изменения объекта не видны менеджеру до update, очистка освобождает память
+    public void returnsCopiesAndReleasesMemory() {
+        final int id = manager.addNewTask(new Task("Задача", "Описание"));
+        Task task = manager.taskById(id);
+        task.setName("Изменена");
+        assertEquals("Задача", manager.taskById(id).getName());
+        manager.updateTask(task);
+        assertEquals("Изменена", manager.taskById(id).getName());
+        Assertions.assertNotSame(manager.taskById(id), manager.taskById(id));
+        assertEquals(1, manager.snapshot().size());
+
+        Assertions.assertTrue(manager.offHeapBytes() > 0);
+        manager.clearTask();
+        assertEquals(0, manager.offHeapBytes());
+        Assertions.assertTrue(manager.tasksView().isEmpty());
+        Assertions.assertTrue(manager.getHistory().isEmpty());
+        Assertions.assertTrue(manager.addNewTask(new Task("Новая", "Описание")) > id);
+    }
+
+    private static String describe(TaskManager manager) {
+        List<String> lines = new ArrayList<>();
+        for (Task task : manager.getTasks()) {
+            lines.add(line(task) + "|TASK");
+        }
+        for (Epic epic : manager.getEpics()) {
+            int[] subtaskIds = epic.getSubTaskIds();
+            Arrays.sort(subtaskIds);
+            lines.add(line(epic) + "|EPIC|" + Arrays.toString(subtaskIds) + "|" + manager.getTaskOfEpic(epic).size());
+        }
+        for (Subtask subtask : manager.getSubtask()) {
+            lines.add(line(subtask) + "|SUBTASK|" + subtask.getEpicId());
+        }
+        lines.sort(null);
+        return String.join("\n", lines);
+    }
+
+    private static String line(Task task) {
+        return task.getId() + "|" + task.getName() + "|" + task.getDescription() + "|" + task.getStatus();
+    }
+
+    private static Task copy(Task task) {
+        Task copy = task instanceof Subtask subtask
+                ? new Subtask(task.getName(), task.getDescription(), subtask.getEpicId())
+                : new Task(task.getName(), task.getDescription());
+        copy.setId(task.getId());
+        copy.setStatus(task.getStatus());
+        return copy;
+    }
+
+    private static String text(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(i == 0 ? ", " : " ");
+        }
+        return text.toString();
+    }
+
+    private static int pick(Random random, List<Integer> ids) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    private static List<Integer> ids(List<? extends Task> tasks) {
+        return tasks.stream().map(Task::getId).toList();
+    }
+}
@@ -0,0 +1,45 @@
+package ru.yandex.javacource.aldukhov.schedule;
+
+import org.junit.Test;
+import ru.yandex.javacource.aldukhov.schedule.manager.PersistentIntMap;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class PersistentIntMapTest {
+
+    @Test //таблица ведёт себя как HashMap, а старые версии не меняются
+    public void matchesHashMapAndKeepsVersions() {
+        PersistentIntMap<String> map = PersistentIntMap.empty();
+        Map<Integer, String> expected = new HashMap<>();
+        PersistentIntMap<String> saved = map;
+        Map<Integer, String> savedExpected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            final int key = random.nextInt(4_000) - 100 + (random.nextInt(10) == 0 ? Integer.MIN_VALUE : 0);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, "v" + i);
+                map = map.plus(key, "v" + i);
+            }
+            assertEquals(expected.get(key), map.get(key));
+            assertEquals(expected.size(), map.size());
+            if (i == 50_000) {
+                saved = map;
+                savedExpected = new HashMap<>(expected);
+            }
+        }
+        assertEquals(new HashSet<>(expected.values()), new HashSet<>(map.values()));
+        assertEquals(expected.size(), map.values().stream().count());
+        assertEquals(savedExpected.size(), saved.size());
+        for (Map.Entry<Integer, String> entry : savedExpected.entrySet()) {
+            assertEquals(entry.getValue(), saved.get(entry.getKey()));
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package ru.yandex.javacource.aldukhov.schedule;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import ru.yandex.javacource.aldukhov.schedule.manager.ChangeFeed;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.ShardedTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskEvent;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskSnapshot;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class ShardedTaskManagerTest {
+    ShardedTaskManager manager = new ShardedTaskManager(4);
+
+    @Test //подзадачи живут в шарде эпика, выборки по всем шардам совпадают с одним менеджером
+    public void aggregatesMatchSingleManager() {
+        InMemoryTaskManager single = new InMemoryTaskManager();
+        for (TaskManager m : List.of(manager, single)) {
+            for (int i = 0; i < 10; i++) {
+                // частоты слов у всех задач разные: порядок поиска не зависит от id при равных оценках
+                Task task = new Task("Задача " + i, i % 3 == 0 ? "купить " + "молоко ".repeat(i + 1)
+                        : "позвонить ".repeat(i + 1));
+                m.addNewTask(task);
+                if (i % 2 == 0) {
+                    task.setStatus(Status.DONE);
+                    m.updateTask(task);
+                }
+            }
+            for (int e = 0; e < 5; e++) {
+                final int epicId = m.addNewEpic(new Epic("Эпик " + e, "релиз " + "молоко ".repeat(20 + e)));
+                for (int i = 0; i < 3; i++) {
+                    m.addNewSubtask(new Subtask("Подзадача " + e + "." + i,
+                            "молоко ".repeat(30 + e * 3 + i) + "хлеб ".repeat(e + 1) + i, epicId));
+                }
+            }
+        }
+        assertEquals(names(single.getTasks()), names(manager.getTasks()));
+        assertEquals(names(single.getSubtask()), names(manager.getSubtask()));
+        assertEquals(names(single.getTasksByStatus(Status.DONE)), names(manager.getTasksByStatus(Status.DONE)));
+        assertEquals(names(single.getEpicsByStatus(Status.NEW)), names(manager.getEpicsByStatus(Status.NEW)));
+        for (String query : List.of("молоко", "молоко OR позвонить", "хлеб 2", "мол*")) {
+            assertEquals(query, single.search(query).stream().map(Task::getName).toList(),
+                    manager.search(query).stream().map(Task::getName).toList());
+        }
+        for (Epic epic : manager.getEpics()) {
+            assertEquals(3, manager.getTaskOfEpic(epic).size());
+            assertEquals(3, manager.streamTaskOfEpic(epic).count());
+        }
+        assertEquals(15, manager.subtasksView().size());
+        assertEquals(10, manager.tasksView().stream().count());
+    }
+
+    @Test //страницы и история сливаются из всех шардов в общем порядке
+    public void pagesAndHistoryAcrossShards() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            ids.add(manager.addNewTask(new Task("Задача " + i, "Описание " + i)));
+        }
+        List<Integer> sorted = ids.stream().sorted().toList();
+        List<Integer> page = manager.getTasksPage(sorted.get(4), 10).stream().map(Task::getId).toList();
+        assertEquals(sorted.subList(5, 15), page);
+        assertEquals(sorted.subList(35, 40), manager.getTasksPage(sorted.get(34), 10).stream().map(Task::getId).toList());
+
+        List<Integer> viewed = List.of(ids.get(7), ids.get(3), ids.get(30), ids.get(12), ids.get(3));
+        for (int id : viewed) {
+            manager.taskById(id);
+        }
+        assertEquals(List.of(ids.get(7), ids.get(30), ids.get(12), ids.get(3)),
+                manager.getHistory().stream().map(Task::getId).toList());
+        manager.delTaskById(ids.get(30));
+        assertEquals(3, manager.getHistory().size());
+    }
+
+    @Test //пакет проверяется по всем шардам и применяется целиком или не применяется
+    public void batchesAreAtomicAcrossShards() {
+        final int epicId = manager.addNewEpic(new Epic("Эпик", "Описание"));
+        List<Task> items = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            items.add(new Task("Задача " + i, "Описание " + i));
+        }
+        items.add(new Subtask("Подзадача", "Описание", epicId));
+        List<Integer> ids = manager.addAll(items);
+        assertEquals(21, ids.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("Задача " + i, manager.taskById(ids.get(i)).getName());
+        }
+        assertEquals(epicId, manager.subtaskById(ids.get(20)).getEpicId());
+
+        items.add(new Subtask("Подзадача", "Описание", -1));
+        Assertions.assertNull(manager.addAll(items));
+        assertEquals(20, manager.getTasks().size());
+
+        List<Integer> missing = new ArrayList<>(ids);
+        missing.add(Integer.MAX_VALUE);
+        Assertions.assertFalse(manager.deleteAll(missing));
+        Assertions.assertTrue(manager.deleteAll(ids.subList(0, 10)));
+        assertEquals(10, manager.getTasks().size());
+    }
+
+    @Test //снимок и лента видят записи всех шардов, очистка попадает в ленту один раз
+    public void snapshotAndChangesSpanShards() {
+        ChangeFeed.Subscription subscription = manager.changes().subscribe();
+        final int epicId = manager.addNewEpic(new Epic("Эпик", "Описание"));
+        TaskSnapshot empty = manager.snapshot();
+        final int taskId = manager.addNewTask(new Task("Задача", "Описание"));
+        Subtask subtask = new Subtask("Подзадача", "Описание", epicId);
+        final int subtaskId = manager.addNewSubtask(subtask);
+        subtask.setStatus(Status.DONE);
+        manager.updateSubtask(subtask);
+
+        TaskSnapshot snapshot = manager.snapshot();
+        assertEquals(1, empty.size());
+        assertEquals(3, snapshot.size());
+        Assertions.assertNotNull(snapshot.taskById(taskId));
+        assertEquals(Status.DONE, snapshot.epicById(epicId).getStatus());
+        assertEquals(List.of(subtaskId), snapshot.getTaskOfEpic(epicId).stream().map(Subtask::getId).toList());
+
+        manager.clearTask();
+        assertEquals(2, manager.snapshot().size());
+        List<TaskEvent.Type> types = subscription.poll(100).stream().map(TaskEvent::getType).toList();
+        assertEquals(List.of(TaskEvent.Type.CREATED, TaskEvent.Type.CREATED, TaskEvent.Type.CREATED,
+                TaskEvent.Type.UPDATED, TaskEvent.Type.STATUS_CHANGED, TaskEvent.Type.CLEARED), types);
+    }
+
+    @Test //параллельные записи в эпики разных шардов не теряют подзадач
+    public void concurrentWritesAcrossShards() throws Exception {
+        final int threads = 8;
+        final int perEpic = 300;
+        List<Integer> epicIds = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            epicIds.add(manager.addNewEpic(new Epic("Эпик " + i, "Описание " + i)));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int epicId : epicIds) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perEpic; i++) {
+                    Subtask subtask = new Subtask("Подзадача " + i, "Описание " + i, epicId);
+                    manager.addNewSubtask(subtask);
+                    subtask.setStatus(Status.DONE);
+                    manager.updateSubtask(subtask);
+                    manager.subtaskById(subtask.getId());
+                    manager.getTasksPage(0, 5);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(threads * perEpic, manager.getSubtask().size());
+        assertEquals(threads * perEpic, manager.getHistory().size());
+        for (int epicId : epicIds) {
+            Epic epic = manager.epicById(epicId);
+            assertEquals(perEpic, manager.getTaskOfEpic(epic).size());
+            assertEquals(Status.DONE, epic.getStatus());
+        }
+    }
+
+    private static List<String> names(List<? extends Task> tasks) {
+        return tasks.stream().map(Task::getName).sorted().toList();
+    }
+}
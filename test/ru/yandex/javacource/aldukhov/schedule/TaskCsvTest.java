@@ -0,0 +1,118 @@
+package ru.yandex.javacource.aldukhov.schedule;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import ru.yandex.javacource.aldukhov.schedule.csv.ImportReport;
+import ru.yandex.javacource.aldukhov.schedule.csv.TaskCsvExporter;
+import ru.yandex.javacource.aldukhov.schedule.csv.TaskCsvImporter;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class TaskCsvTest {
+    Path file = createFile();
+
+    @After
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test //выгрузка и загрузка сохраняют поля с запятыми, кавычками, переводами строк и связи подзадач
+    public void exportThenImportKeepsTasks() {
+        InMemoryTaskManager source = new InMemoryTaskManager();
+        Task task = new Task("Купить, молоко", "Сказать \"да\"\nи уйти 🙂");
+        source.addNewTask(task);
+        task.setStatus(Status.IN_PROGRESS);
+        source.updateTask(task);
+        final int epicId = source.addNewEpic(new Epic("Переезд", ""));
+        Subtask subtask = new Subtask("Коробки", "Собрать\r\nвещи", epicId);
+        source.addNewSubtask(subtask);
+        subtask.setStatus(Status.DONE);
+        source.updateSubtask(subtask);
+
+        assertEquals(3, TaskCsvExporter.export(source, file));
+        InMemoryTaskManager target = new InMemoryTaskManager();
+        ImportReport report = new TaskCsvImporter(target).importFile(file);
+
+        assertEquals(3, report.rows());
+        assertEquals(1, report.tasks());
+        assertEquals(1, report.epics());
+        assertEquals(1, report.subtasks());
+        Task imported = target.getTasks().getFirst();
+        assertEquals(task.getName(), imported.getName());
+        assertEquals(task.getDescription(), imported.getDescription());
+        assertEquals(Status.IN_PROGRESS, imported.getStatus());
+        Epic epic = target.getEpics().getFirst();
+        assertEquals(Status.DONE, epic.getStatus());
+        List<Subtask> subtasks = target.getTaskOfEpic(epic);
+        assertEquals(1, subtasks.size());
+        assertEquals("Собрать\r\nвещи", subtasks.getFirst().getDescription());
+    }
+
+    @Test //подзадача может стоять раньше своего эпика, файл в несколько мегабайт разбирается кусками параллельно
+    public void resolvesEpicsAcrossChunks() throws IOException {
+        StringBuilder csv = new StringBuilder("id,type,name,status,description,epic\n");
+        for (int i = 0; i < 40_000; i++) {
+            csv.append("s").append(i).append(",SUBTASK,Подзадача ").append(i).append(",DONE,\"строка\nвторая\",e")
+                    .append(i % 10).append('\n');
+        }
+        for (int e = 0; e < 10; e++) {
+            csv.append("e").append(e).append(",EPIC,Эпик ").append(e).append(",NEW,,\n");
+        }
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        ImportReport report;
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            report = new TaskCsvImporter(manager, 1000, pool).importFile(file);
+        }
+        assertEquals(40_010, report.rows());
+        assertEquals(40_000, manager.getSubtask().size());
+        for (Epic epic : manager.getEpics()) {
+            assertEquals(4000, manager.getTaskOfEpic(epic).size());
+            assertEquals(Status.DONE, epic.getStatus());
+        }
+    }
+
+    @Test //ошибка в файле сообщает номер строки и ничего не добавляет
+    public void rejectsMalformedRows() throws IOException {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        TaskCsvImporter importer = new TaskCsvImporter(manager);
+
+        Files.writeString(file, "id,type,name,status,description,epic\n1,EPIC,Эпик,NEW,,\n"
+                + "2,TASK,\"Задача\nв две строки\",NEW,,\n3,SUBTASK,Подзадача,ГОТОВО,,1\n");
+        IllegalArgumentException error = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> importer.importFile(file));
+        Assertions.assertTrue(error.getMessage().endsWith("в строке 5"), error.getMessage());
+
+        Files.writeString(file, "id,type,name,status,description,epic\n1,EPIC,Эпик,NEW,,\n"
+                + "2,SUBTASK,Подзадача,NEW,,7\n");
+        error = Assertions.assertThrows(IllegalArgumentException.class, () -> importer.importFile(file));
+        Assertions.assertTrue(error.getMessage().contains("в строке 3"), error.getMessage());
+
+        Files.writeString(file, "id,name\n1,Задача\n");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> importer.importFile(file));
+        Assertions.assertTrue(manager.getEpics().isEmpty());
+        Assertions.assertTrue(manager.getTasks().isEmpty());
+    }
+
+    private static Path createFile() {
+        try {
+            return Files.createTempFile("tasks", ".csv");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
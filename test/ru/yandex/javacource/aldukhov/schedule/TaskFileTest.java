@@ -0,0 +1,54 @@
+package ru.yandex.javacource.aldukhov.schedule;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import ru.yandex.javacource.aldukhov.schedule.manager.InMemoryTaskManager;
+import ru.yandex.javacource.aldukhov.schedule.manager.TaskFile;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class TaskFileTest {
+
+    @Test //файл задач возвращает те же задачи, что были записаны
+    public void writeAndReadBack() throws IOException {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        final int taskId = manager.addNewTask(new Task("Задача 1", "описание 1 задачи"));
+        final int firstEpicId = manager.addNewEpic(new Epic("Эпик 1", "описание эпика 1"));
+        final int secondEpicId = manager.addNewEpic(new Epic("Эпик 2", null));
+        Subtask subtask = new Subtask("Подзадача 1", "описание подзадачи 1", secondEpicId);
+        subtask.setStatus(Status.IN_PROGRESS);
+        final int subtaskId = manager.addNewSubtask(subtask);
+        manager.addNewSubtask(new Subtask("Подзадача 2", "описание подзадачи 2", firstEpicId));
+        manager.addNewSubtask(new Subtask("Подзадача 3", "описание подзадачи 3", secondEpicId));
+
+        Path file = Files.createTempFile("tasks", ".bin");
+        try {
+            TaskFile.write(file, 7, 6, manager.getTasks(), manager.getEpics(), manager.getSubtask());
+            try (TaskFile taskFile = TaskFile.open(file)) {
+                assertEquals(7, taskFile.getSequence());
+                assertEquals(6, taskFile.getLastId());
+                assertEquals(6, taskFile.size());
+                assertEquals(manager.taskById(taskId), taskFile.taskById(taskId));
+                assertEquals(manager.subtaskById(subtaskId), taskFile.subtaskById(subtaskId));
+                assertEquals(manager.epicById(secondEpicId), taskFile.epicById(secondEpicId));
+                Assertions.assertArrayEquals(new int[]{4, 6}, taskFile.epicById(secondEpicId).getSubTaskIds());
+                Assertions.assertNull(taskFile.epicById(secondEpicId).getDescription());
+                assertEquals(manager.getTaskOfEpic(manager.epicById(secondEpicId)),
+                        taskFile.getTaskOfEpic(secondEpicId));
+                assertEquals(1, taskFile.getTaskOfEpic(firstEpicId).size());
+                assertEquals(2, taskFile.getEpics().size());
+                Assertions.assertNull(taskFile.taskById(100));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.yandex.javacource.aldukhov.schedule;
+
+import org.junit.Test;
+import org.junit.jupiter.api.Assertions;
+import ru.yandex.javacource.aldukhov.schedule.json.TaskJsonReader;
+import ru.yandex.javacource.aldukhov.schedule.json.TaskJsonWriter;
+import ru.yandex.javacource.aldukhov.schedule.task.Epic;
+import ru.yandex.javacource.aldukhov.schedule.task.Status;
+import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class TaskJsonCodecTest {
+
+    @Test //задачи всех видов с экранированием, кириллицей и суррогатными парами переживают запись и чтение
+    public void roundTrip() throws IOException {
+        Task task = new Task("Задача \"1\"", "строка\nвторая\t\\ 😀 \u0001");
+        task.setId(1);
+        task.setStatus(Status.DONE);
+        Epic epic = new Epic("Эпик", null);
+        epic.setId(2);
+        epic.addSubtaskId(3);
+        Subtask subtask = new Subtask("Подзадача", "описание", 2);
+        subtask.setId(3);
+        subtask.setStatus(Status.IN_PROGRESS);
+
+        final byte[] json = TaskJsonWriter.toBytes(epic);
+        assertEquals("{\"id\":2,\"name\":\"Эпик\",\"description\":null,\"status\":\"NEW\",\"subtaskIds\":[3]}",
+                new String(json, StandardCharsets.UTF_8));
+
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        try (TaskJsonWriter writer = new TaskJsonWriter(buffer)) {
+            writer.write(task);
+            writer.write(subtask);
+        }
+        buffer.flip();
+        try (TaskJsonReader reader = new TaskJsonReader(buffer)) {
+            assertEquals(task, reader.readTask());
+            Subtask read = reader.readSubtask();
+            assertEquals(subtask, read);
+            assertEquals(2, read.getEpicId());
+            reader.endDocument();
+        }
+        try (TaskJsonReader reader = new TaskJsonReader(new ByteArrayInputStream(json))) {
+            Epic read = reader.readEpic();
+            assertEquals(epic.getName(), read.getName());
+            assertEquals(0, read.getSubtaskCount());
+        }
+    }
+
+    @Test //список больше буфера пишется и читается потоком по одной задаче
+    public void streamsLargeArrays() throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 10_000; i++) {
+            Task task = new Task("Задача " + i, "описание задачи " + i);
+            task.setId(i);
+            tasks.add(task);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (TaskJsonWriter writer = new TaskJsonWriter(out)) {
+            writer.writeAll(tasks);
+        }
+        List<Task> read = new ArrayList<>();
+        try (TaskJsonReader reader = new TaskJsonReader(new ByteArrayInputStream(out.toByteArray()))) {
+            reader.beginArray();
+            while (reader.hasNext()) {
+                read.add(reader.readTask());
+            }
+            reader.endArray();
+            reader.endDocument();
+        }
+        assertEquals(tasks, read);
+    }
+
+    @Test //неизвестные поля пропускаются, ошибки формата — IllegalArgumentException
+    public void skipsUnknownAndRejectsMalformed() throws IOException {
+        Task task = read(" { \"extra\" : {\"a\":[1,{\"b\":\"}\"}],\"c\":true}, \"id\" : 7 , \"name\":\"Имя\",\"x\":-1.5e3 } ");
+        assertEquals(7, task.getId());
+        assertEquals("Имя", task.getName());
+        assertEquals(Status.NEW, task.getStatus());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> read("{\"name\":"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> read("{\"id\":\"1\"}"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> read("{\"id\":1.5}"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> read("{\"id\":3000000000}"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> read("{\"status\":\"READY\"}"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> read("{} []"));
+    }
+
+    private static Task read(String json) throws IOException {
+        try (TaskJsonReader reader = new TaskJsonReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))) {
+            Task task = reader.readTask();
+            reader.endDocument();
+            return task;
+        }
+    }
+}
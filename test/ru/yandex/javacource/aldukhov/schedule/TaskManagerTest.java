@@ -8,6 +8,8 @@ import ru.yandex.javacource.aldukhov.schedule.task.Status;
 import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
 import ru.yandex.javacource.aldukhov.schedule.task.Task;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertSame;
@@ -127,7 +129,7 @@ public class TaskManagerTest {
         Epic epic1 = manager.epicById(1);
         epic1.setId(2);
         List<Task> epics = manager.getHistory();
-        Task epic2 = epics.get(1);
+        Task epic2 = epics.get(0);
         manager.updateEpic(new Epic("Эпик 2", "Описание эпика 2"));
         Assertions.assertEquals(epic1, epic2);
 
@@ -143,8 +145,382 @@ public class TaskManagerTest {
         Subtask subtask1 = manager.subtaskById(2);
         subtask1.setId(3);
         List<Task> subtasks = manager.getHistory();
-        Task subtask2 = subtasks.get(2);
+        Task subtask2 = subtasks.get(0);
         manager.updateSubtask(new Subtask("Подзадача 2", "Описание подзадачи 2", 1));
         Assertions.assertEquals(subtask1, subtask2);
     }
+
+    @Test //история хранит только последний просмотр задачи
+    public void historyKeepsLastViewOfTask() {
+        final int taskId = manager.addNewTask(new Task("Задача 1", "Описание 1"));
+        final int epicId = manager.addNewEpic(new Epic("Эпик 1", "Описание эпика 1"));
+        manager.taskById(taskId);
+        manager.epicById(epicId);
+        manager.taskById(taskId);
+        List<Task> history = manager.getHistory();
+        assertEquals(2, history.size());
+        assertEquals(epicId, history.get(0).getId());
+        assertEquals(taskId, history.get(1).getId());
+    }
+
+    @Test //история не ограничена по размеру
+    public void historyIsUnbounded() {
+        for (int i = 0; i < 100; i++) {
+            manager.taskById(manager.addNewTask(new Task("Задача " + i, "Описание " + i)));
+        }
+        assertEquals(100, manager.getHistory().size());
+    }
+
+    @Test //удалённые задачи пропадают из истории
+    public void deletedTasksAreRemovedFromHistory() {
+        final int taskId = manager.addNewTask(new Task("Задача 1", "Описание 1"));
+        final int epicId = manager.addNewEpic(new Epic("Эпик 1", "Описание эпика 1"));
+        final int subtaskId = manager.addNewSubtask(new Subtask("Подзадача 1", "Описание подзадачи 1", epicId));
+        manager.taskById(taskId);
+        manager.epicById(epicId);
+        manager.subtaskById(subtaskId);
+        manager.delTaskById(taskId);
+        manager.delEpicById(epicId);
+        Assertions.assertTrue(manager.getHistory().isEmpty());
+    }
+
+    @Test //статус эпика пересчитывается при добавлении, обновлении и удалении подзадач
+    public void epicStatusFollowsSubtasks() {
+        Epic epic = new Epic("Эпик 1", "Описание эпика 1");
+        final int epicId = manager.addNewEpic(epic);
+        Subtask subtask1 = new Subtask("Подзадача 1", "Описание подзадачи 1", epicId);
+        Subtask subtask2 = new Subtask("Подзадача 2", "Описание подзадачи 2", epicId);
+        manager.addNewSubtask(subtask1);
+        final int subtask2Id = manager.addNewSubtask(subtask2);
+        assertEquals(Status.NEW, epic.getStatus());
+
+        subtask1.setStatus(Status.DONE);
+        manager.updateSubtask(subtask1);
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+
+        Subtask updated = new Subtask("Подзадача 2", "Описание подзадачи 2", epicId);
+        updated.setId(subtask2Id);
+        updated.setStatus(Status.DONE);
+        manager.updateSubtask(updated);
+        assertEquals(Status.DONE, epic.getStatus());
+
+        manager.delSubtaskById(subtask2Id);
+        assertEquals(Status.DONE, epic.getStatus());
+        assertEquals(1, manager.getTaskOfEpic(epic).size());
+
+        manager.clearSubtasks();
+        assertEquals(Status.NEW, epic.getStatus());
+    }
+
+    @Test //полный пересчёт статуса эпика совпадает с инкрементальным
+    public void epicStatusRescanMatchesCounters() {
+        Epic epic = new Epic("Эпик 1", "Описание эпика 1");
+        final int epicId = manager.addNewEpic(epic);
+        for (int i = 0; i < 10; i++) {
+            Subtask subtask = new Subtask("Подзадача " + i, "Описание подзадачи " + i, epicId);
+            subtask.setStatus(i % 2 == 0 ? Status.DONE : Status.IN_PROGRESS);
+            manager.addNewSubtask(subtask);
+        }
+        final Status incremental = epic.getStatus();
+        manager.updateEpicStatus(epic);
+        assertEquals(incremental, epic.getStatus());
+        assertEquals(Status.IN_PROGRESS, epic.getStatus());
+    }
+
+    @Test //пересчёт статуса эпика, которого нет в менеджере, ничего не меняет и не попадает в снимок
+    public void unknownEpicStatusRescanIsIgnored() {
+        TaskSnapshot before = manager.snapshot();
+        Epic unknown = new Epic("Эпик 1", "Описание эпика 1");
+        unknown.setId(42);
+        unknown.setStatus(Status.DONE);
+        manager.updateEpicStatus(unknown);
+        assertEquals(Status.DONE, unknown.getStatus());
+        assertEquals(0, manager.snapshot().size());
+        assertEquals(0, before.size());
+        assertEquals(0, manager.getEpics().size());
+    }
+
+    @Test //состав эпика меняется только через менеджер, getSubTaskIds возвращает копию
+    public void epicSubtaskIdsAreNotLeaked() {
+        Epic epic = new Epic("Эпик 1", "Описание эпика 1");
+        final int epicId = manager.addNewEpic(epic);
+        final int subtaskId = manager.addNewSubtask(new Subtask("Подзадача 1", "Описание подзадачи 1", epicId));
+        epic.getSubTaskIds()[0] = 100;
+        Assertions.assertTrue(epic.containsSubtaskId(subtaskId));
+        manager.delSubtaskById(subtaskId);
+        assertEquals(0, epic.getSubtaskCount());
+        Assertions.assertFalse(epic.containsSubtaskId(subtaskId));
+    }
+
+    @Test //индекс по статусу следит за добавлением, обновлением и удалением, включая статус эпика
+    public void statusIndexFollowsChanges() {
+        Task task = new Task("Задача 1", "Описание 1");
+        final int taskId = manager.addNewTask(task);
+        Epic epic = new Epic("Эпик 1", "Описание эпика 1");
+        final int epicId = manager.addNewEpic(epic);
+        Subtask subtask = new Subtask("Подзадача 1", "Описание подзадачи 1", epicId);
+        final int subtaskId = manager.addNewSubtask(subtask);
+        assertEquals(List.of(task), manager.getTasksByStatus(Status.NEW));
+        assertEquals(List.of(epic), manager.getEpicsByStatus(Status.NEW));
+
+        task.setStatus(Status.IN_PROGRESS);
+        manager.updateTask(task);
+        subtask.setStatus(Status.DONE);
+        manager.updateSubtask(subtask);
+        assertEquals(0, manager.getTasksByStatus(Status.NEW).size());
+        assertEquals(List.of(task), manager.getTasksByStatus(Status.IN_PROGRESS));
+        assertEquals(List.of(subtask), manager.getSubtasksByStatus(Status.DONE));
+        assertEquals(List.of(epic), manager.getEpicsByStatus(Status.DONE));
+
+        manager.delSubtaskById(subtaskId);
+        manager.delTaskById(taskId);
+        assertEquals(List.of(epic), manager.getEpicsByStatus(Status.NEW));
+        assertEquals(0, manager.getSubtasksByStatus(Status.DONE).size());
+        assertEquals(0, manager.getTasksByStatus(Status.IN_PROGRESS).size());
+    }
+
+    @Test //поиск по названию и описанию: слова, префиксы, И/ИЛИ, обновление и удаление
+    public void searchByText() {
+        Task task1 = new Task("Купить молоко", "Зайти в магазин после работы");
+        Task task2 = new Task("Позвонить в магазин", "Уточнить ёмкость склада, магазин открыт до 9");
+        final int task1Id = manager.addNewTask(task1);
+        final int task2Id = manager.addNewTask(task2);
+        final int epicId = manager.addNewEpic(new Epic("Переезд", "Упаковать вещи"));
+        final int subtaskId = manager.addNewSubtask(new Subtask("Коробки", "Купить коробки в магазине", epicId));
+
+        assertEquals(List.of(task2, task1), manager.search("магазин"));
+        assertEquals(List.of(task1), manager.search("КУПИТЬ молоко"));
+        assertEquals(3, manager.search("магаз*").size());
+        assertEquals(2, manager.search("молоко OR переезд").size());
+        assertEquals(List.of(task2), manager.search("емкость"));
+        assertEquals(0, manager.search("молоко склад").size());
+
+        Task updated = new Task("Купить хлеб", "Зайти в пекарню");
+        updated.setId(task1Id);
+        manager.updateTask(updated);
+        assertEquals(0, manager.search("молоко").size());
+        assertEquals(List.of(updated), manager.search("хлеб"));
+
+        manager.delEpicById(epicId);
+        manager.delTaskById(task2Id);
+        assertEquals(0, manager.search("коробки | магазин").size());
+        Assertions.assertNull(manager.subtaskById(subtaskId));
+    }
+
+    @Test //пакет применяется целиком или не применяется вовсе, статус эпика пересчитывается по итогам пакета
+    public void batchOperations() {
+        final int epicId = manager.addNewEpic(new Epic("Эпик 1", "описание эпика 1"));
+        Subtask subtask1 = new Subtask("Подзадача 1", "описание подзадачи 1", epicId);
+        Subtask subtask2 = new Subtask("Подзадача 2", "описание подзадачи 2", epicId);
+        Task task = new Task("Задача 1", "описание 1 задачи");
+        List<Integer> ids = manager.addAll(List.of(task, subtask1, subtask2));
+        assertEquals(List.of(task.getId(), subtask1.getId(), subtask2.getId()), ids);
+        assertEquals(2, manager.getTaskOfEpic(manager.epicById(epicId)).size());
+
+        Assertions.assertNull(manager.addAll(List.of(new Task("Задача 2", "описание 2"),
+                new Subtask("Подзадача 3", "описание подзадачи 3", 100))));
+        assertEquals(1, manager.getTasks().size());
+
+        Subtask done1 = new Subtask("Подзадача 1", "готово", epicId);
+        done1.setId(subtask1.getId());
+        done1.setStatus(Status.DONE);
+        Subtask done2 = new Subtask("Подзадача 2", "готово", epicId);
+        done2.setId(subtask2.getId());
+        done2.setStatus(Status.DONE);
+        Task missing = new Task("Задача 3", "описание 3");
+        missing.setId(100);
+        Assertions.assertFalse(manager.updateAll(List.of(done1, done2, missing)));
+        assertEquals(Status.NEW, manager.epicById(epicId).getStatus());
+        Assertions.assertTrue(manager.updateAll(List.of(done1, done2)));
+        assertEquals(Status.DONE, manager.epicById(epicId).getStatus());
+
+        Assertions.assertFalse(manager.deleteAll(List.of(task.getId(), 100)));
+        assertEquals(1, manager.getTasks().size());
+        Assertions.assertTrue(manager.deleteAll(List.of(task.getId(), subtask1.getId())));
+        Assertions.assertTrue(manager.getTasks().isEmpty());
+        assertEquals(List.of(done2), manager.getTaskOfEpic(manager.epicById(epicId)));
+        Assertions.assertTrue(manager.deleteAll(List.of(epicId, subtask2.getId())));
+        Assertions.assertTrue(manager.getSubtask().isEmpty());
+    }
+
+    @Test //постраничное чтение по курсору проходит все задачи по возрастанию id, пропуская удалённые
+    public void pagesByCursor() {
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            final int id = manager.addNewTask(new Task("Задача " + i, "описание " + i));
+            if (i % 3 == 0) {
+                manager.delTaskById(id);
+            } else {
+                expected.add(id);
+            }
+        }
+        List<Integer> paged = new ArrayList<>();
+        int afterId = 0;
+        List<Task> page;
+        while (!(page = manager.getTasksPage(afterId, 7)).isEmpty()) {
+            Assertions.assertTrue(page.size() <= 7);
+            for (Task task : page) {
+                paged.add(task.getId());
+            }
+            afterId = page.getLast().getId();
+        }
+        assertEquals(expected, paged);
+        assertEquals(expected.size(), manager.tasksView().size());
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> manager.tasksView().clear());
+
+        final int epicId = manager.addNewEpic(new Epic("Эпик 1", "описание эпика 1"));
+        final int subtaskId = manager.addNewSubtask(new Subtask("Подзадача 1", "описание подзадачи 1", epicId));
+        assertEquals(List.of(subtaskId), manager.streamTaskOfEpic(manager.epicById(epicId)).map(Task::getId).toList());
+        assertEquals(1, manager.getSubtasksPage(0, 10).size());
+        assertEquals(0, manager.getEpicsPage(epicId, 10).size());
+    }
+
+    @Test //снимок не меняется при последующих записях и не видит подзадач удалённого эпика
+    public void snapshotIsolation() {
+        final int taskId = manager.addNewTask(new Task("Задача 1", "описание 1 задачи"));
+        final int epicId = manager.addNewEpic(new Epic("Эпик 1", "описание эпика 1"));
+        Subtask subtask = new Subtask("Подзадача 1", "описание подзадачи 1", epicId);
+        final int subtaskId = manager.addNewSubtask(subtask);
+        TaskSnapshot before = manager.snapshot();
+
+        subtask.setStatus(Status.DONE);
+        manager.updateSubtask(subtask);
+        TaskSnapshot done = manager.snapshot();
+        manager.delEpicById(epicId);
+        manager.delTaskById(taskId);
+        TaskSnapshot after = manager.snapshot();
+
+        assertEquals(3, before.size());
+        assertEquals(Status.NEW, before.subtaskById(subtaskId).getStatus());
+        assertEquals(Status.NEW, before.epicById(epicId).getStatus());
+        Assertions.assertArrayEquals(new int[]{subtaskId}, before.epicById(epicId).getSubTaskIds());
+        assertEquals(Status.DONE, done.epicById(epicId).getStatus());
+        assertEquals(1, done.getTaskOfEpic(epicId).size());
+        assertEquals(0, after.size());
+        Assertions.assertNull(after.subtaskById(subtaskId));
+
+        before.taskById(taskId).setName("Изменено");
+        assertEquals("Задача 1", before.taskById(taskId).getName());
+    }
+
+    @Test //раскладка подзадач по эпикам даёт те же результаты, что и общая таблица, при вперемешку добавленных подзадачах
+    public void epicPartitionedLayoutMatchesById() {
+        InMemoryTaskManager byEpic = new InMemoryTaskManager(SubtaskLayout.BY_EPIC);
+        for (InMemoryTaskManager m : List.of(manager, byEpic)) {
+            final int first = m.addNewEpic(new Epic("Эпик 1", "описание эпика 1"));
+            final int second = m.addNewEpic(new Epic("Эпик 2", "описание эпика 2"));
+            List<Integer> ids = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                ids.add(m.addNewSubtask(new Subtask("Подзадача " + i, "описание", i % 2 == 0 ? first : second)));
+            }
+            // удаление из середины эпика переносит на его место последнюю подзадачу
+            m.delSubtaskById(ids.get(0));
+            Subtask done = m.subtaskById(ids.get(4));
+            done.setStatus(Status.DONE);
+            m.updateSubtask(done);
+            Subtask renamed = new Subtask("Подзадача 2", "изменена", first);
+            renamed.setId(ids.get(2));
+            m.updateSubtask(renamed);
+
+            assertEquals(List.of(ids.get(2), ids.get(4)), idsOf(m.getTaskOfEpic(m.epicById(first))));
+            assertEquals(Status.IN_PROGRESS, m.epicById(first).getStatus());
+            assertEquals(List.of(ids.get(1), ids.get(3), ids.get(5)),
+                    idsOf(m.streamTaskOfEpic(m.epicById(second)).toList()));
+            assertEquals("изменена", m.getTaskOfEpic(m.epicById(first)).stream()
+                    .filter(subtask -> subtask.getId() == ids.get(2)).findFirst().orElseThrow().getDescription());
+            m.updateEpicStatus(m.epicById(second));
+            assertEquals(Status.NEW, m.epicById(second).getStatus());
+
+            m.delEpicById(second);
+            assertEquals(2, m.getSubtask().size());
+            Assertions.assertNull(m.subtaskById(ids.get(1)));
+            assertEquals(List.of(ids.get(2), ids.get(4)), idsOf(m.getSubtask()));
+        }
+    }
+
+    @Test //обновление подзадачи с другим epicId не применяется: состав и статусы обоих эпиков не меняются
+    public void updateWithOtherEpicIsIgnored() {
+        final int first = manager.addNewEpic(new Epic("Эпик 1", "описание эпика 1"));
+        final int second = manager.addNewEpic(new Epic("Эпик 2", "описание эпика 2"));
+        Subtask subtask = new Subtask("Подзадача", "описание", first);
+        subtask.setStatus(Status.DONE);
+        final int id = manager.addNewSubtask(subtask);
+
+        Subtask moved = new Subtask("Подзадача", "перенесена", second);
+        moved.setId(id);
+        manager.updateSubtask(moved);
+        Assertions.assertFalse(manager.updateAll(List.of(moved)));
+
+        assertEquals("описание", manager.subtaskById(id).getDescription());
+        assertEquals(first, manager.subtaskById(id).getEpicId());
+        assertEquals(List.of(id), idsOf(manager.getTaskOfEpic(manager.epicById(first))));
+        assertEquals(0, manager.getTaskOfEpic(manager.epicById(second)).size());
+        assertEquals(Status.DONE, manager.epicById(first).getStatus());
+        assertEquals(Status.NEW, manager.epicById(second).getStatus());
+
+        Subtask reopened = new Subtask("Подзадача", "описание", first);
+        reopened.setId(id);
+        manager.updateSubtask(reopened);
+        assertEquals(Status.NEW, manager.epicById(first).getStatus());
+    }
+
+    @Test //попытка перенести подзадачу в другой эпик даёт одинаковый результат в обеих раскладках
+    public void layoutsAgreeOnUpdateWithOtherEpic() {
+        List<List<Object>> results = new ArrayList<>();
+        for (SubtaskLayout layout : SubtaskLayout.values()) {
+            InMemoryTaskManager m = new InMemoryTaskManager(new InMemoryHistoryManager(), new AtomicIdGenerator(), layout);
+            final int first = m.addNewEpic(new Epic("Эпик 1", "описание эпика 1"));
+            final int second = m.addNewEpic(new Epic("Эпик 2", "описание эпика 2"));
+            final int kept = m.addNewSubtask(new Subtask("Подзадача 1", "описание", first));
+            final int id = m.addNewSubtask(new Subtask("Подзадача 2", "описание", first));
+            Subtask moved = new Subtask("Подзадача 2", "перенесена", second);
+            moved.setId(id);
+            moved.setStatus(Status.DONE);
+            m.updateSubtask(moved);
+            Subtask done = new Subtask("Подзадача 1", "описание", first);
+            done.setId(kept);
+            done.setStatus(Status.DONE);
+            m.updateSubtask(done);
+
+            List<Object> result = new ArrayList<>();
+            result.add(idsOf(m.getTaskOfEpic(m.epicById(first))));
+            result.add(idsOf(m.getTaskOfEpic(m.epicById(second))));
+            result.add(m.subtaskById(id).getDescription());
+            result.add(m.epicById(first).getStatus());
+            result.add(m.epicById(second).getStatus());
+            m.delEpicById(first);
+            result.add(m.subtaskById(id));
+            result.add(idsOf(m.getSubtask()));
+            results.add(result);
+        }
+        assertEquals(Arrays.asList(List.of(3, 4), List.of(), "описание", Status.IN_PROGRESS, Status.NEW, null, List.of()),
+                results.get(0));
+        assertEquals(results.get(0), results.get(1));
+    }
+
+    @Test //огромный pageSize не выделяет память под него: страница ограничена MAX_PAGE_SIZE
+    public void hugePageSizeIsCapped() {
+        for (TaskManager m : List.of(new InMemoryTaskManager(), new ConcurrentTaskManager(),
+                new OffHeapTaskManager(), new ShardedTaskManager(4))) {
+            List<Task> tasks = new ArrayList<>();
+            for (int i = 0; i < TaskManager.MAX_PAGE_SIZE + 5; i++) {
+                tasks.add(new Task("Задача " + i, null));
+            }
+            m.addAll(tasks);
+            final int epicId = m.addNewEpic(new Epic("Эпик", null));
+            m.addNewSubtask(new Subtask("Подзадача", null, epicId));
+            for (int pageSize : new int[]{2_000_000_000, Integer.MAX_VALUE}) {
+                List<Task> page = m.getTasksPage(0, pageSize);
+                assertEquals(TaskManager.MAX_PAGE_SIZE, page.size());
+                assertEquals(m.getTasks().stream().mapToInt(Task::getId).min().orElseThrow(), page.getFirst().getId());
+                assertEquals(5, m.getTasksPage(page.getLast().getId(), pageSize).size());
+                assertEquals(1, m.getEpicsPage(0, pageSize).size());
+                assertEquals(1, m.getSubtasksPage(0, pageSize).size());
+            }
+        }
+    }
+
+    private static List<Integer> idsOf(List<Subtask> subtasks) {
+        return subtasks.stream().map(Subtask::getId).sorted().toList();
+    }
 }
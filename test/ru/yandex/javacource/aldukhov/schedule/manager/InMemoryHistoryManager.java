@@ -3,26 +3,76 @@ package ru.yandex.javacource.aldukhov.schedule.manager;
 import ru.yandex.javacource.aldukhov.schedule.task.Task;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class InMemoryHistoryManager implements HistoryManager {
-    private static final int MAX_HISTORY_SIZE = 10;
-    private final List<Task> history = new ArrayList<>();
+    private final Map<Integer, Node> nodes = new HashMap<>();
+    private Node head;
+    private Node tail;
 
     @Override
     public void add(Task task) {
         if (task == null) {
             return;
         }
-        if (history.size() >= MAX_HISTORY_SIZE) {
-            history.removeFirst();
-        }
-        history.add(task);
+        removeNode(nodes.remove(task.getId()));
+        linkLast(task);
+    }
+
+    @Override
+    public void remove(int id) {
+        removeNode(nodes.remove(id));
     }
 
     @Override
     public List<Task> getHistory() {
-        return new ArrayList<>(history);
+        List<Task> history = new ArrayList<>(nodes.size());
+        for (Node node = head; node != null; node = node.next) {
+            history.add(node.task);
+        }
+        return history;
     }
 
+    private void linkLast(Task task) {
+        final Node node = new Node(tail, task, null);
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+        nodes.put(task.getId(), node);
+    }
+
+    private void removeNode(Node node) {
+        if (node == null) {
+            return;
+        }
+        final Node prev = node.prev;
+        final Node next = node.next;
+        if (prev == null) {
+            head = next;
+        } else {
+            prev.next = next;
+        }
+        if (next == null) {
+            tail = prev;
+        } else {
+            next.prev = prev;
+        }
+    }
+
+    private static class Node {
+        Task task;
+        Node prev;
+        Node next;
+
+        Node(Node prev, Task task, Node next) {
+            this.prev = prev;
+            this.task = task;
+            this.next = next;
+        }
+    }
 }
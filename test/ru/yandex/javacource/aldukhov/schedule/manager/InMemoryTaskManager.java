@@ -6,36 +6,72 @@ import ru.yandex.javacource.aldukhov.schedule.task.Subtask;
 import ru.yandex.javacource.aldukhov.schedule.task.Task;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 public class InMemoryTaskManager implements TaskManager {
-    private int generatorId = 0;
-    private final HistoryManager historyManager = Managers.getDefaultHistory();
-    private final Map<Integer, Task> tasks = new HashMap<>();
-    private final Map<Integer, Epic> epics = new HashMap<>();
-    private final Map<Integer, Subtask> subtasks = new HashMap<>();
+    private final IdGenerator idGenerator;
+    private final HistoryManager historyManager;
+    private final IntObjectMap<Task> tasks = new IntObjectMap<>();
+    private final IntObjectMap<Epic> epics = new IntObjectMap<>();
+    private final SubtaskStore subtasks;
+    private final IntObjectMap<Status> countedStatuses = new IntObjectMap<>();
+    private final IntObjectMap<EpicStatusCounters> epicCounters = new IntObjectMap<>();
+    private final StatusIndex<Task> taskStatuses = new StatusIndex<>();
+    private final StatusIndex<Epic> epicStatuses = new StatusIndex<>();
+    private final StatusIndex<Subtask> subtaskStatuses = new StatusIndex<>();
+    private final TextIndex textIndex = new TextIndex();
+    private final IdOrder taskOrder = new IdOrder();
+    private final IdOrder epicOrder = new IdOrder();
+    private final IdOrder subtaskOrder = new IdOrder();
+    // Версии для snapshot(): ведутся только после первого вызова snapshot().
+    // Изменения копятся в working и публикуются в published в конце каждой операции записи,
+    // поэтому читатель в другом потоке видит только целые операции
+    private TaskSnapshot working;
+    private volatile TaskSnapshot published;
+    // лента изменений, создаётся при первом вызове changes()
+    private ChangeFeed feed;
 
+    public InMemoryTaskManager() {
+        this(new InMemoryHistoryManager());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this(historyManager, new AtomicIdGenerator());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager, IdGenerator idGenerator) {
+        this(historyManager, idGenerator, SubtaskLayout.BY_ID);
+    }
+
+    public InMemoryTaskManager(SubtaskLayout layout) {
+        this(new InMemoryHistoryManager(), new AtomicIdGenerator(), layout);
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager, IdGenerator idGenerator, SubtaskLayout layout) {
+        this.historyManager = historyManager;
+        this.idGenerator = idGenerator;
+        this.subtasks = SubtaskStore.create(layout);
+    }
 
     @Override
     public int addNewTask(Task task) {
-        int id = ++generatorId;
-        task.setId(id);
-        tasks.put(id, task);
+        final int id = insertTask(task);
+        publish();
         return id;
     }
 
     @Override
     public Integer addNewEpic(Epic epic) {
-        for (Integer subtaskId : epic.getSubTaskIds()) {
-            if (subtaskId == epic.getId()) {
-                return null;
-            }
+        if (epic.containsSubtaskId(epic.getId())) {
+            return null;
         }
-        Integer id = ++generatorId;
-        epic.setId(id);
-        epics.put(id, epic);
+        final int id = insertEpic(epic);
+        publish();
         return id;
     }
 
@@ -46,25 +82,23 @@ public class InMemoryTaskManager implements TaskManager {
         if (epic == null) {
             return null;
         }
-        final int id = ++generatorId;
+        final int id = idGenerator.nextId();
         if (id == epicId) {
             return null;
         }
-        subtask.setId(id);
-        subtasks.put(id, subtask);
-        epic.addSubtaskId(subtask.getId());
-        updateEpicStatus(epic);
+        insertSubtask(id, subtask, epic);
+        refreshEpicStatus(epic);
+        publish();
         return id;
     }
 
     @Override
     public void updateTask(Task task) {
-        final int id = task.getId();
-        final Task savedTask = tasks.get(id);
-        if (savedTask == null) {
+        if (!tasks.containsKey(task.getId())) {
             return;
         }
-        tasks.put(id, task);
+        replaceTask(task);
+        publish();
     }
 
     @Override
@@ -73,50 +107,287 @@ public class InMemoryTaskManager implements TaskManager {
         if (savedEpic == null) {
             return;
         }
-        epic.setSubTaskIds(savedEpic.getSubTaskIds());
-        epic.setStatus(savedEpic.getStatus());
-        epics.put(epic.getId(), epic);
+        replaceEpic(epic, savedEpic);
+        publish();
     }
 
+    // подзадача остаётся в своём эпике: обновление с другим epicId не применяется
     @Override
     public void updateSubtask(Subtask subtask) {
-        int epicId = subtask.getEpicId();
-        final int id = subtask.getId();
-        Epic epic = epics.get(epicId);
-        if (epic == null) {
+        Epic epic = epics.get(subtask.getEpicId());
+        if (epic == null || !epic.containsSubtaskId(subtask.getId())) {
             return;
         }
-        final Subtask saveSubtask = subtasks.get(id);
-        if (saveSubtask == null) {
-            return;
+        replaceSubtask(subtask, epic);
+        refreshEpicStatus(epic);
+        publish();
+    }
+
+    // Применит ли updateTask, updateEpic или updateSubtask это обновление
+    boolean updatable(Task task) {
+        if (task instanceof Subtask subtask) {
+            final Epic epic = epics.get(subtask.getEpicId());
+            return epic != null && epic.containsSubtaskId(subtask.getId());
         }
-        subtasks.put(id, subtask);
-        updateEpicStatus(epic);
+        if (task instanceof Epic) {
+            return epics.containsKey(task.getId());
+        }
+        return tasks.containsKey(task.getId());
     }
 
+    // Пакетные операции: сначала проверяются все элементы, и при первой ошибке ничего не меняется,
+    // затем изменения применяются за один проход, а статус каждого затронутого эпика
+    // пересчитывается один раз в конце
     @Override
-    public void updateEpicStatus(Epic epic) {
-        boolean allDone = true;
-        boolean allNew = true;
-        if (epic.getSubTaskIds().isEmpty()) {
-            epic.setStatus(Status.NEW);
-            return;
+    public List<Integer> addAll(Collection<? extends Task> items) {
+        for (Task item : items) {
+            if (item instanceof Subtask subtask) {
+                if (!epics.containsKey(subtask.getEpicId())) {
+                    return null;
+                }
+            } else if (item instanceof Epic epic) {
+                if (epic.containsSubtaskId(epic.getId())) {
+                    return null;
+                }
+            } else if (item == null) {
+                return null;
+            }
+        }
+        List<Integer> ids = new ArrayList<>(items.size());
+        IntObjectMap<Epic> affected = new IntObjectMap<>();
+        for (Task item : items) {
+            if (item instanceof Subtask subtask) {
+                Epic epic = epics.get(subtask.getEpicId());
+                final int id = idGenerator.nextId();
+                insertSubtask(id, subtask, epic);
+                affected.put(epic.getId(), epic);
+                ids.add(id);
+            } else if (item instanceof Epic epic) {
+                ids.add(insertEpic(epic));
+            } else {
+                ids.add(insertTask(item));
+            }
+        }
+        affected.values().forEach(this::refreshEpicStatus);
+        publish();
+        return ids;
+    }
+
+    @Override
+    public boolean updateAll(Collection<? extends Task> items) {
+        for (Task item : items) {
+            final boolean exists;
+            if (item instanceof Subtask || item instanceof Epic) {
+                exists = updatable(item);
+            } else {
+                exists = item != null && tasks.containsKey(item.getId());
+            }
+            if (!exists) {
+                return false;
+            }
+        }
+        IntObjectMap<Epic> affected = new IntObjectMap<>();
+        for (Task item : items) {
+            if (item instanceof Subtask subtask) {
+                Epic epic = epics.get(subtask.getEpicId());
+                replaceSubtask(subtask, epic);
+                affected.put(epic.getId(), epic);
+            } else if (item instanceof Epic epic) {
+                replaceEpic(epic, epics.get(epic.getId()));
+                // у заменённого эпика новый объект: пересчитывать нужно его
+                if (affected.containsKey(epic.getId())) {
+                    affected.put(epic.getId(), epic);
+                }
+            } else {
+                replaceTask(item);
+            }
         }
-        for (Integer subTaskId : epic.getSubTaskIds()) {
-            Subtask subtask = subtasks.get(subTaskId);
-            if (subtask.getStatus() != Status.DONE) {
-                allDone = false;
+        affected.values().forEach(this::refreshEpicStatus);
+        publish();
+        return true;
+    }
+
+    @Override
+    public boolean deleteAll(Collection<Integer> ids) {
+        for (Integer id : ids) {
+            if (id == null || !tasks.containsKey(id) && !epics.containsKey(id) && !subtasks.containsKey(id)) {
+                return false;
             }
-            if (subtask.getStatus() != Status.NEW) {
-                allNew = false;
+        }
+        IntObjectMap<Epic> affected = new IntObjectMap<>();
+        for (int id : ids) {
+            if (tasks.containsKey(id)) {
+                delTaskEntry(id);
+            } else if (epics.containsKey(id)) {
+                delEpicEntry(id);
+                affected.remove(id);
+            } else if (subtasks.containsKey(id)) {
+                // подзадача могла уже удалиться вместе со своим эпиком из этого же пакета
+                Epic epic = delSubtaskEntry(id);
+                affected.put(epic.getId(), epic);
             }
         }
-        if (allNew) {
-            epic.setStatus(Status.NEW);
-        } else if (allDone) {
-            epic.setStatus(Status.DONE);
-        } else {
-            epic.setStatus(Status.IN_PROGRESS);
+        affected.values().forEach(this::refreshEpicStatus);
+        publish();
+        return true;
+    }
+
+    private int insertTask(Task task) {
+        int id = idGenerator.nextId();
+        task.setId(id);
+        tasks.put(id, task);
+        taskOrder.add(id);
+        taskStatuses.add(task);
+        textIndex.add(task);
+        record(version -> version.withTask(task));
+        if (feed != null) {
+            feed.created(task);
+        }
+        return id;
+    }
+
+    private int insertEpic(Epic epic) {
+        int id = idGenerator.nextId();
+        epic.setId(id);
+        epics.put(id, epic);
+        epicOrder.add(id);
+        epicStatuses.add(epic);
+        textIndex.add(epic);
+        record(version -> version.withEpic(epic));
+        if (feed != null) {
+            feed.created(epic);
+        }
+        return id;
+    }
+
+    private void insertSubtask(int id, Subtask subtask, Epic epic) {
+        subtask.setId(id);
+        subtasks.put(subtask);
+        subtaskOrder.add(id);
+        subtaskStatuses.add(subtask);
+        textIndex.add(subtask);
+        if (epic.addSubtaskId(id)) {
+            countSubtaskStatus(epic, subtask);
+        }
+        record(version -> version.withSubtask(subtask));
+        if (feed != null) {
+            feed.created(subtask);
+        }
+    }
+
+    private void replaceTask(Task task) {
+        tasks.put(task.getId(), task);
+        taskStatuses.update(task);
+        textIndex.update(task);
+        record(version -> version.withTask(task));
+        if (feed != null) {
+            feed.updated(task);
+        }
+    }
+
+    private void replaceEpic(Epic epic, Epic savedEpic) {
+        epic.takeSubtasksFrom(savedEpic);
+        epic.setStatus(savedEpic.getStatus());
+        epics.put(epic.getId(), epic);
+        epicStatuses.update(epic);
+        textIndex.update(epic);
+        record(version -> version.withEpic(epic));
+        if (feed != null) {
+            feed.updated(epic);
+        }
+    }
+
+    private void replaceSubtask(Subtask subtask, Epic epic) {
+        final int id = subtask.getId();
+        subtasks.put(subtask);
+        subtaskStatuses.update(subtask);
+        textIndex.update(subtask);
+        uncountSubtaskStatus(epic, id);
+        countSubtaskStatus(epic, subtask);
+        record(version -> version.withSubtask(subtask));
+        if (feed != null) {
+            feed.updated(subtask);
+        }
+    }
+
+    // Полный пересчёт статуса эпика по подзадачам: нужен только для проверки и восстановления счётчиков,
+    // при изменениях подзадач статус обновляется инкрементально через refreshEpicStatus.
+    // Эпик не из менеджера игнорируется: иначе он попал бы в снимок и оставил счётчики без эпика
+    @Override
+    public void updateEpicStatus(Epic epic) {
+        if (!epics.containsKey(epic.getId())) {
+            return;
+        }
+        epicCounters.remove(epic.getId());
+        subtasks.forEachOfEpic(epic, subtask -> countSubtaskStatus(epic, subtask));
+        refreshEpicStatus(epic);
+        publish();
+    }
+
+    private void countSubtaskStatus(Epic epic, Subtask subtask) {
+        final Status status = subtask.getStatus();
+        EpicStatusCounters counters = epicCounters.get(epic.getId());
+        if (counters == null) {
+            counters = new EpicStatusCounters();
+            epicCounters.put(epic.getId(), counters);
+        }
+        counters.count(status);
+        countedStatuses.put(subtask.getId(), status);
+    }
+
+    private void uncountSubtaskStatus(Epic epic, int subtaskId) {
+        final Status status = countedStatuses.remove(subtaskId);
+        final EpicStatusCounters counters = epicCounters.get(epic.getId());
+        if (status != null && counters != null) {
+            counters.uncount(status);
+        }
+    }
+
+    private void refreshEpicStatus(Epic epic) {
+        final Status status = EpicStatusCounters.statusOf(epicCounters.get(epic.getId()));
+        final boolean changed = status != epic.getStatus();
+        epic.setStatus(status);
+        epicStatuses.update(epic);
+        record(version -> version.withEpic(epic));
+        if (changed && feed != null) {
+            feed.statusChanged(epic);
+        }
+    }
+
+    // Лента изменений за O(1) на запись; как и snapshot(), первый вызов нужно делать в потоке-писателе
+    @Override
+    public ChangeFeed changes() {
+        if (feed == null) {
+            feed = new ChangeFeed();
+        }
+        return feed;
+    }
+
+    // события менеджера уходят в переданную ленту; ShardedTaskManager подключает так свои шарды
+    void attachChanges(ChangeFeed feed) {
+        this.feed = feed;
+    }
+
+    // Согласованный снимок за O(1). Первый вызов строит снимок из текущего состояния за O(n)
+    // и должен выполняться в потоке, который пишет в менеджер; дальше снимки можно брать из любого потока
+    @Override
+    public TaskSnapshot snapshot() {
+        if (working == null) {
+            working = TaskSnapshot.of(tasks.values(), epics.values(), subtasks.values());
+            published = working;
+        }
+        return published;
+    }
+
+    private void record(UnaryOperator<TaskSnapshot> change) {
+        if (working != null) {
+            working = change.apply(working);
+        }
+    }
+
+    private void publish() {
+        if (working != null) {
+            published = working;
         }
     }
 
@@ -136,34 +407,147 @@ public class InMemoryTaskManager implements TaskManager {
     }
 
     @Override
-    public List<Subtask> getTaskOfEpic(Epic epic) {
-        List<Subtask> subTaskOfEpic = new ArrayList<>();
-        for (int id : epic.getSubTaskIds()) {
-            Subtask subtask = subtasks.get(id);
-            if (subtask != null) {
-                subTaskOfEpic.add(subtask);
-            }
+    public List<Task> getTasksByStatus(Status status) {
+        return taskStatuses.get(status);
+    }
+
+    @Override
+    public List<Epic> getEpicsByStatus(Status status) {
+        return epicStatuses.get(status);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(Status status) {
+        return subtaskStatuses.get(status);
+    }
+
+    @Override
+    public List<Task> search(String query) {
+        return textIndex.search(query);
+    }
+
+    // Для ShardedTaskManager: поиск с idf по статистике всех шардов
+    void collectSearchStatistics(String query, TextIndex.Statistics statistics) {
+        textIndex.collect(query, statistics);
+    }
+
+    List<TextIndex.Hit> rank(String query, TextIndex.Statistics statistics) {
+        return textIndex.rank(query, statistics);
+    }
+
+    // задача, эпик или подзадача по id без записи в историю
+    Task peek(int id) {
+        final Task task = tasks.get(id);
+        if (task != null) {
+            return task;
         }
+        final Epic epic = epics.get(id);
+        return epic != null ? epic : subtasks.get(id);
+    }
+
+    @Override
+    public List<Subtask> getTaskOfEpic(Epic epic) {
+        List<Subtask> subTaskOfEpic = new ArrayList<>(epic.getSubtaskCount());
+        subtasks.forEachOfEpic(epic, subTaskOfEpic::add);
         return subTaskOfEpic;
     }
 
+    @Override
+    public Collection<Task> tasksView() {
+        return Collections.unmodifiableCollection(tasks.values());
+    }
+
+    @Override
+    public Collection<Epic> epicsView() {
+        return Collections.unmodifiableCollection(epics.values());
+    }
+
+    @Override
+    public Collection<Subtask> subtasksView() {
+        return Collections.unmodifiableCollection(subtasks.values());
+    }
+
+    @Override
+    public Stream<Subtask> streamTaskOfEpic(Epic epic) {
+        return subtasks.streamOfEpic(epic);
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int pageSize) {
+        return page(taskOrder, tasks::get, afterId, pageSize);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int pageSize) {
+        return page(epicOrder, epics::get, afterId, pageSize);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int pageSize) {
+        return page(subtaskOrder, subtasks::get, afterId, pageSize);
+    }
+
+    private static <T extends Task> List<T> page(IdOrder order, IntFunction<T> storage, int afterId, int pageSize) {
+        final int size = Math.clamp(pageSize, 0, MAX_PAGE_SIZE);
+        List<T> page = new ArrayList<>(size);
+        order.page(afterId, size, id -> page.add(storage.apply(id)));
+        return page;
+    }
+
     @Override
     public void clearTask() {
+        if (feed != null) {
+            feed.cleared(TaskEvent.Kind.TASK);
+        }
+        tasks.forEachKey(historyManager::remove);
+        tasks.forEachKey(textIndex::remove);
         tasks.clear();
+        taskOrder.clear();
+        taskStatuses.clear();
+        record(TaskSnapshot::withoutTasks);
+        publish();
     }
 
     @Override
     public void clearEpic() {
+        if (feed != null) {
+            feed.cleared(TaskEvent.Kind.SUBTASK);
+            feed.cleared(TaskEvent.Kind.EPIC);
+        }
+        epics.forEachKey(historyManager::remove);
+        epics.forEachKey(textIndex::remove);
+        subtasks.forEachKey(historyManager::remove);
+        subtasks.forEachKey(textIndex::remove);
         epics.clear();
+        subtasks.clear();
+        epicOrder.clear();
+        subtaskOrder.clear();
+        countedStatuses.clear();
+        epicCounters.clear();
+        epicStatuses.clear();
+        subtaskStatuses.clear();
+        record(TaskSnapshot::withoutEpics);
+        publish();
     }
 
     @Override
     public void clearSubtasks() {
+        if (feed != null) {
+            feed.cleared(TaskEvent.Kind.SUBTASK);
+        }
+        epicCounters.clear();
         for (Epic epic : epics.values()) {
             epic.cleanSubtaskIds();
-            updateEpicStatus(epic);
+            refreshEpicStatus(epic);
         }
+        subtasks.forEachKey(historyManager::remove);
+        subtasks.forEachKey(textIndex::remove);
         subtasks.clear();
+        subtaskOrder.clear();
+        countedStatuses.clear();
+        subtaskStatuses.clear();
+        record(TaskSnapshot::withoutSubtasks);
+        publish();
     }
 
     @Override
@@ -192,7 +576,8 @@ public class InMemoryTaskManager implements TaskManager {
         if (!tasks.containsKey(id)) {
             return;
         }
-        tasks.remove(id);
+        delTaskEntry(id);
+        publish();
     }
 
     @Override
@@ -200,10 +585,8 @@ public class InMemoryTaskManager implements TaskManager {
         if (!epics.containsKey(id)) {
             return;
         }
-        Epic epicTask = epics.remove(id);
-        for (Integer subTaskId : epicTask.getSubTaskIds()) {
-            subtasks.remove(subTaskId);
-        }
+        delEpicEntry(id);
+        publish();
     }
 
     @Override
@@ -211,16 +594,67 @@ public class InMemoryTaskManager implements TaskManager {
         if (!subtasks.containsKey(id)) {
             return;
         }
+        refreshEpicStatus(delSubtaskEntry(id));
+        publish();
+    }
+
+    private void delTaskEntry(int id) {
+        tasks.remove(id);
+        taskOrder.remove(id);
+        taskStatuses.remove(id);
+        textIndex.remove(id);
+        historyManager.remove(id);
+        record(version -> version.withoutTask(id));
+        if (feed != null) {
+            feed.deleted(TaskEvent.Kind.TASK, id);
+        }
+    }
+
+    private void delEpicEntry(int id) {
+        Epic epicTask = epics.remove(id);
+        epicCounters.remove(id);
+        epicOrder.remove(id);
+        epicStatuses.remove(id);
+        textIndex.remove(id);
+        historyManager.remove(id);
+        subtasks.removeOfEpic(epicTask, subTaskId -> {
+            subtaskOrder.remove(subTaskId);
+            subtaskStatuses.remove(subTaskId);
+            textIndex.remove(subTaskId);
+            countedStatuses.remove(subTaskId);
+            historyManager.remove(subTaskId);
+            if (feed != null) {
+                feed.deleted(TaskEvent.Kind.SUBTASK, subTaskId);
+            }
+        });
+        record(version -> version.withoutEpic(id));
+        if (feed != null) {
+            feed.deleted(TaskEvent.Kind.EPIC, id);
+        }
+    }
+
+    // возвращает эпик удалённой подзадачи, его статус пересчитывает вызывающий
+    private Epic delSubtaskEntry(int id) {
         Subtask subtask = subtasks.remove(id);
-        Epic epicTask = epics.get(subtask.getId());
-        epicTask.getSubTaskIds().remove(subtask.getId());
-        updateEpicStatus(epicTask);
+        subtaskOrder.remove(id);
+        subtaskStatuses.remove(id);
+        textIndex.remove(id);
+        historyManager.remove(id);
+        Epic epicTask = epics.get(subtask.getEpicId());
+        epicTask.removeSubtaskId(id);
+        uncountSubtaskStatus(epicTask, id);
+        record(version -> version.withoutSubtask(id));
+        if (feed != null) {
+            feed.deleted(TaskEvent.Kind.SUBTASK, id);
+        }
+        return epicTask;
     }
 
 
     @Override
     public List<Task> getHistory() {
-        return new ArrayList<>(historyManager.getHistory());
+        // менеджер истории уже возвращает новый список, повторно копировать его не нужно
+        return historyManager.getHistory();
     }
 }
 
@@ -14,10 +14,22 @@ public class Managers {
         return historyManager;
     }
 
+    // Менеджер по умолчанию рассчитан на один поток; для общего использования из нескольких потоков
+    // создавайте ConcurrentTaskManager
     public static TaskManager getDefault() {
         if (taskManager == null) {
-            taskManager = new InMemoryTaskManager();
+            taskManager = new InMemoryTaskManager(getDefaultHistory());
+            // -Dkanban.compact=true хранит одинаковые названия и описания задач в одном экземпляре
+            if (Boolean.getBoolean("kanban.compact")) {
+                taskManager = new CompactingTaskManager(taskManager);
+            }
+            // -Dkanban.metrics=true включает замеры вызовов, метрики доступны в JMX под именем default
+            if (Boolean.getBoolean("kanban.metrics")) {
+                InstrumentedTaskManager instrumented = new InstrumentedTaskManager(taskManager);
+                instrumented.getMetrics().registerMBean("default");
+                taskManager = instrumented;
+            }
         }
         return taskManager;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import org.junit.Test;
+import ru.yandex.javacource.aldukhov.schedule.task.Task;
+
+import java.util.List;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class TextIndexTest {
+
+    @Test //документ с несколькими словами префикса оценивается один раз, по лучшему из слов
+    public void prefixScoresDocumentOnce() {
+        TextIndex index = new TextIndex();
+        Task task = new Task("задача задачи", null);
+        task.setId(1);
+        index.add(task);
+        for (int id = 2; id <= 9; id++) {
+            Task other = new Task("отчёт " + id, "описание");
+            other.setId(id);
+            index.add(other);
+        }
+        List<TextIndex.Hit> hits = index.rank("зада*", null);
+        assertEquals(1, hits.size());
+        assertEquals(Math.log(10), hits.getFirst().score(), 1e-9);
+    }
+
+    @Test //поиск с лимитом возвращает начало полного результата, при равной оценке — меньшие id
+    public void limitedSearchKeepsBestHits() {
+        TextIndex index = new TextIndex();
+        for (int id = 1; id <= 200; id++) {
+            Task task = new Task("отчёт " + "срочно ".repeat(id % 7), "описание " + id);
+            task.setId(id);
+            index.add(task);
+        }
+        final List<Task> all = index.search("отчёт | срочно");
+        assertEquals(200, all.size());
+        for (int limit : new int[]{1, 5, 29, 30, 199, 200, 1000}) {
+            assertEquals(all.subList(0, Math.min(limit, all.size())), index.search("отчёт | срочно", limit));
+        }
+        assertEquals(List.of(), index.search("отчёт", 0));
+        assertEquals(List.of(), index.search("отчёт", -1));
+    }
+}
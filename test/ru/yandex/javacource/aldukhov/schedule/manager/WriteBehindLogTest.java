@@ -0,0 +1,56 @@
+package ru.yandex.javacource.aldukhov.schedule.manager;
+
+import org.junit.Test;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+public class WriteBehindLogTest {
+
+    @Test //каждая запись, принятая до или во время close(), оказывается в файле
+    public void closeKeepsEveryAcceptedFrame() throws Exception {
+        final int frameSize = 16;
+        for (int round = 0; round < 20; round++) {
+            Path file = Files.createTempFile("write-behind", ".log");
+            try {
+                AtomicInteger accepted = new AtomicInteger();
+                CountDownLatch started = new CountDownLatch(4);
+                List<Thread> writers = new ArrayList<>();
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    WriteBehindLog log = new WriteBehindLog(channel, file, 10_000, 64);
+                    for (int t = 0; t < 4; t++) {
+                        Thread writer = new Thread(() -> {
+                            started.countDown();
+                            try {
+                                while (true) {
+                                    log.append(WriteBehindLog.KEEP, 0, new byte[frameSize]);
+                                    accepted.incrementAndGet();
+                                }
+                            } catch (IllegalStateException e) {
+                                // журнал закрыт
+                            }
+                        });
+                        writer.start();
+                        writers.add(writer);
+                    }
+                    started.await();
+                    log.close();
+                    for (Thread writer : writers) {
+                        writer.join();
+                    }
+                }
+                assertEquals((long) accepted.get() * frameSize, Files.size(file));
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
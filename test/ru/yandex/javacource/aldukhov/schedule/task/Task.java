@@ -4,9 +4,12 @@ import java.util.Objects;
 
 public class Task {
     private int id;
-    private String name;
-    private String description;
+    // String или, после compact(), общий экземпляр из TextPool
+    private Object name;
+    private Object description;
     private Status status;
+    // кэш hashCode, 0 — ещё не посчитан; сбрасывается при любом изменении полей
+    private int hash;
 
     public Task(String name, String description) {
         this.name = name;
@@ -20,22 +23,25 @@ public class Task {
 
     public void setId(int id) {
         this.id = id;
+        hash = 0;
     }
 
     public String getName() {
-        return name;
+        return TextPool.unpack(name);
     }
 
     public void setName(String name) {
         this.name = name;
+        hash = 0;
     }
 
     public String getDescription() {
-        return description;
+        return TextPool.unpack(description);
     }
 
     public void setDescription(String description) {
         this.description = description;
+        hash = 0;
     }
 
     public Status getStatus() {
@@ -44,6 +50,31 @@ public class Task {
 
     public void setStatus(Status status) {
         this.status = status;
+        hash = 0;
+    }
+
+    // Компактный режим: одинаковые названия и описания всех задач делят один экземпляр из TextPool,
+    // по возможности в UTF-8. getName и getDescription тогда каждый раз распаковывают строку
+    public void compact() {
+        name = TextPool.pack(name);
+        description = TextPool.pack(description);
+    }
+
+    // название и описание другой задачи без распаковки: копия делит с ней экземпляры из TextPool
+    public void copyTextFrom(Task task) {
+        name = task.name;
+        description = task.description;
+        hash = 0;
+    }
+
+    // Текст в том виде, в каком он хранится. Индексы запоминают его вместо распакованной копии,
+    // а сравнивают через TextPool.equal
+    public Object storedName() {
+        return name;
+    }
+
+    public Object storedDescription() {
+        return description;
     }
 
     @Override
@@ -51,20 +82,27 @@ public class Task {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Task task = (Task) o;
-        return id == task.id && Objects.equals(name, task.name) && Objects.equals(description, task.description) && Objects.equals(status, task.status);
+        // разные посчитанные хеши — быстрый отказ без сравнения длинных строк
+        if (hash != 0 && task.hash != 0 && hash != task.hash) return false;
+        return id == task.id && Objects.equals(status, task.status) && TextPool.equal(name, task.name) && TextPool.equal(description, task.description);
     }
 
+    // То же значение, что Objects.hash(id, name, description, status), но считается один раз до изменения задачи
     @Override
     public int hashCode() {
-        return Objects.hash(id, name, description, status);
+        if (hash == 0) {
+            hash = 31 * (31 * (31 * (31 + id) + TextPool.hash(name)) + TextPool.hash(description))
+                    + Objects.hashCode(status);
+        }
+        return hash;
     }
 
     @Override
     public String toString() {
         return "Task{" +
                 "id=" + id +
-                ", name='" + name + '\'' +
-                ", description='" + description + '\'' +
+                ", name='" + getName() + '\'' +
+                ", description='" + getDescription() + '\'' +
                 ", statusTask='" + status + '\'' +
                 '}';
     }